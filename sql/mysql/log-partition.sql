@@ -0,0 +1,69 @@
+/*
+ 日志表按照 create_time 分区
+
+ 1. 可选执行，适用于 MySQL 5.7 及以上版本。日志量大，或者需要保留较长时间时，推荐执行
+ 2. 分区键必须包含在主键中，所以主键调整为 (id, create_time)
+ 3. 每月一个分区，p_max 用于兜底。执行时，请将 p202610 等分区调整为当前月份
+ 4. 在【定时任务】菜单中，新增处理器为 logRetentionJob 的任务，例如说 CRON 表达式为 0 0 3 * * ?
+    它会按照 yudao.log-retention 配置，预先创建未来的分区，并删除过期的分区；未分区的表，则分批 DELETE 过期日志
+*/
+
+-- ----------------------------
+-- API 访问日志表
+-- ----------------------------
+ALTER TABLE `infra_api_access_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `create_time`);
+ALTER TABLE `infra_api_access_log` PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);
+
+-- ----------------------------
+-- API 错误日志表
+-- ----------------------------
+ALTER TABLE `infra_api_error_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `create_time`);
+ALTER TABLE `infra_api_error_log` PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);
+
+-- ----------------------------
+-- 定时任务日志表
+-- ----------------------------
+ALTER TABLE `infra_job_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `create_time`);
+ALTER TABLE `infra_job_log` PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);
+
+-- ----------------------------
+-- 操作日志记录
+-- ----------------------------
+ALTER TABLE `system_operate_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `create_time`);
+ALTER TABLE `system_operate_log` PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);
+
+-- ----------------------------
+-- 系统访问记录
+-- ----------------------------
+ALTER TABLE `system_login_log` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `create_time`);
+ALTER TABLE `system_login_log` PARTITION BY RANGE (TO_DAYS(`create_time`)) (
+    PARTITION p_history VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION p202610 VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION p202611 VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION p202612 VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);
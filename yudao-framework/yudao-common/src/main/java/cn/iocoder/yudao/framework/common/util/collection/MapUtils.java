@@ -38,6 +38,25 @@ public class MapUtils {
         return result;
     }
 
+    /**
+     * 从哈希表表中，获得 keys 对应的所有 value 数组
+     *
+     * @param map 哈希表，value 为数组
+     * @param keys keys
+     * @return value 数组
+     */
+    public static <K, V> List<V> getList(Map<K, ? extends Collection<V>> map, Collection<K> keys) {
+        List<V> result = new ArrayList<>();
+        keys.forEach(k -> {
+            Collection<V> values = map.get(k);
+            if (CollectionUtil.isEmpty(values)) {
+                return;
+            }
+            result.addAll(values);
+        });
+        return result;
+    }
+
     /**
      * 从哈希表查找到 key 对应的 value，然后进一步处理
      * 注意，如果查找到的 value 为 null 时，不进行处理
@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.datapermission.core.db;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.util.collection.SetUtils;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRule;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRuleFactory;
@@ -10,8 +11,13 @@ import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
 import com.baomidou.mybatisplus.extension.parser.JsqlParserSupport;
 import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Ints;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import net.sf.jsqlparser.expression.*;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
@@ -27,6 +33,7 @@ import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -47,11 +54,22 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class DataPermissionDatabaseInterceptor extends JsqlParserSupport implements InnerInterceptor {
 
+    /**
+     * 数据权限的 JDBC 参数的前缀
+     *
+     * 1. 重写 SQL 时，使用 :{PARAMETER_PREFIX}{index} 的命名参数占位，生成 SQL 模板时替换成 ?
+     * 2. 绑定参数时，作为 {@link BoundSql#setAdditionalParameter(String, Object)} 的参数名
+     */
+    static final String PARAMETER_PREFIX = "__dataPermission";
+
     private final DataPermissionRuleFactory ruleFactory;
 
     @Getter
     private final MappedStatementCache mappedStatementCache = new MappedStatementCache();
 
+    @Getter
+    private final RewrittenSqlCache rewrittenSqlCache = new RewrittenSqlCache();
+
     @Override // SELECT 场景
     public void beforeQuery(Executor executor, MappedStatement ms, Object parameter,
                             RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
@@ -64,9 +82,9 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
         PluginUtils.MPBoundSql mpBs = PluginUtils.mpBoundSql(boundSql);
         try {
             // 初始化上下文
-            ContextHolder.init(rules);
+            ContextHolder.init(rules, true);
             // 处理 SQL
-            mpBs.sql(parserSingle(mpBs.sql(), null));
+            rewriteSql(ms, boundSql, mpBs, false);
         } finally {
             addMappedStatementCache(ms);
             ContextHolder.clear();
@@ -88,9 +106,9 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
             PluginUtils.MPBoundSql mpBs = mpSh.mPBoundSql();
             try {
                 // 初始化上下文
-                ContextHolder.init(rules);
+                ContextHolder.init(rules, true);
                 // 处理 SQL
-                mpBs.sql(parserMulti(mpBs.sql(), null));
+                rewriteSql(ms, sh.getBoundSql(), mpBs, true);
             } finally {
                 addMappedStatementCache(ms);
                 ContextHolder.clear();
@@ -98,6 +116,90 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
         }
     }
 
+    /**
+     * 重写 SQL，并将数据权限条件中的常量，作为 JDBC 参数进行绑定
+     *
+     * 1. 优先从 {@link RewrittenSqlCache} 获得 SQL 涉及的表，只调用 {@link DataPermissionRule} 生成条件，计算出规则的“形态”
+     *    如果该形态已有重写后的 SQL 模板，则直接使用，无需 JSqlParser 解析
+     * 2. 如果未命中缓存，则解析 SQL 进行重写，并将结果添加到 {@link RewrittenSqlCache} 中
+     *
+     * @param ms MappedStatement
+     * @param boundSql BoundSql
+     * @param mpBs MPBoundSql
+     * @param multi 是否多条 SQL
+     */
+    private void rewriteSql(MappedStatement ms, BoundSql boundSql, PluginUtils.MPBoundSql mpBs, boolean multi) {
+        String sql = mpBs.sql();
+        List<ParameterMapping> parameterMappings = mpBs.parameterMappings();
+        // 情况一：命中缓存，无需解析 SQL
+        RewrittenStatement statement = rewrittenSqlCache.getStatement(ms.getId(), sql);
+        if (statement != null) {
+            statement.getTables().forEach(this::buildDataPermissionExpression);
+            if (!ContextHolder.getRewrite()) { // 无需重写，交给 MappedStatementCache 记录
+                return;
+            }
+            SqlTemplate template = statement.getTemplate(ContextHolder.getShape());
+            if (template != null && template.getOriginalParameterCount() == parameterMappings.size()) {
+                bindParameters(template, ms, boundSql, mpBs, parameterMappings);
+                return;
+            }
+            // 未命中模板，解析 SQL 时复用已生成的条件，保证和“形态”一致
+            ContextHolder.replay();
+        }
+
+        // 情况二：未命中缓存，解析 SQL 进行重写
+        String newSql = multi ? parserMulti(sql, null) : parserSingle(sql, null);
+        SqlTemplate template = SqlTemplate.build(newSql);
+        if (template.getOriginalParameterCount() != parameterMappings.size()) {
+            // 原 SQL 的 ? 占位符数量和参数不一致（例如说，字符串中存在特殊写法），无法绑定参数，所以直接拼接常量
+            mpBs.sql(inlineParameters(newSql, ContextHolder.getParameters()));
+            return;
+        }
+        rewrittenSqlCache.addStatement(ms.getId(), sql, ContextHolder.getTables())
+                .addTemplate(ContextHolder.getShape(), template);
+        bindParameters(template, ms, boundSql, mpBs, parameterMappings);
+    }
+
+    /**
+     * 使用 SQL 模板，设置 SQL 和参数
+     */
+    private static void bindParameters(SqlTemplate template, MappedStatement ms, BoundSql boundSql,
+                                       PluginUtils.MPBoundSql mpBs, List<ParameterMapping> parameterMappings) {
+        List<Expression> parameters = ContextHolder.getParameters();
+        int[] parameterIndexes = template.getParameterIndexes();
+        List<ParameterMapping> newParameterMappings = new ArrayList<>(parameterIndexes.length);
+        for (int parameterIndex : parameterIndexes) {
+            // 原 SQL 的参数
+            if (parameterIndex >= 0) {
+                newParameterMappings.add(parameterMappings.get(parameterIndex));
+                continue;
+            }
+            // 数据权限的参数，通过 additionalParameter 传递
+            String property = PARAMETER_PREFIX + SqlTemplate.toDataPermissionIndex(parameterIndex);
+            Object value = getParameterValue(parameters.get(SqlTemplate.toDataPermissionIndex(parameterIndex)));
+            newParameterMappings.add(new ParameterMapping.Builder(ms.getConfiguration(), property, value.getClass()).build());
+            boundSql.setAdditionalParameter(property, value);
+        }
+        mpBs.sql(template.getSql());
+        mpBs.parameterMappings(newParameterMappings);
+    }
+
+    private static Object getParameterValue(Expression parameter) {
+        return parameter instanceof LongValue ? ((LongValue) parameter).getValue()
+                : ((StringValue) parameter).getValue();
+    }
+
+    /**
+     * 将 SQL 中数据权限的参数，替换回常量
+     */
+    private static String inlineParameters(String sql, List<Expression> parameters) {
+        // 倒序替换，避免 :xxx1 错误替换 :xxx10 的前缀
+        for (int i = parameters.size() - 1; i >= 0; i--) {
+            sql = sql.replace(":" + PARAMETER_PREFIX + i, parameters.get(i).toString());
+        }
+        return sql;
+    }
+
     @Override
     protected void processSelect(Select select, int index, String sql, Object obj) {
         processSelectBody(select.getSelectBody());
@@ -362,6 +464,13 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
      * @return Expression 过滤条件
      */
     private Expression buildDataPermissionExpression(Table table) {
+        // 如果有已生成的条件，则直接复用
+        if (ContextHolder.hasReplayExpression()) {
+            Expression expression = ContextHolder.nextReplayExpression();
+            ContextHolder.addTable(table, expression);
+            return expression;
+        }
+
         // 生成条件
         Expression allExpression = null;
         for (DataPermissionRule rule : ContextHolder.getRules()) {
@@ -377,14 +486,80 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
             // 单条规则的条件
             String tableName = MyBatisUtils.getTableName(table);
             Expression oneExpress = rule.getExpression(tableName, table.getAlias());
+            // 如果需要绑定参数，则将常量替换成 JDBC 参数
+            if (ContextHolder.getParameters() != null) {
+                oneExpress = parameterize(oneExpress, ContextHolder.getParameters());
+            }
             // 拼接到 allExpression 中
             allExpression = allExpression == null ? oneExpress
                     : new AndExpression(allExpression, oneExpress);
         }
 
+        // 记录到上下文，用于计算规则的“形态”
+        ContextHolder.addTable(table, allExpression);
         return allExpression;
     }
 
+    /**
+     * 将 Expression 中的常量，替换成 JDBC 命名参数，并将常量添加到 parameters 中
+     *
+     * 另外，IN 条件的常量数组，会补齐到 2 的幂次，从而减少不同数量的常量，生成的 SQL 模板数量
+     *
+     * @param expression 过滤条件
+     * @param parameters 常量数组
+     * @return 替换后的过滤条件
+     */
+    private static Expression parameterize(Expression expression, List<Expression> parameters) {
+        if (isParameterizable(expression)) {
+            parameters.add(expression);
+            return new JdbcNamedParameter(PARAMETER_PREFIX + (parameters.size() - 1));
+        }
+        if (expression instanceof BinaryExpression) { // 包括 AND、OR、= 等等
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            binaryExpression.setLeftExpression(parameterize(binaryExpression.getLeftExpression(), parameters));
+            binaryExpression.setRightExpression(parameterize(binaryExpression.getRightExpression(), parameters));
+        } else if (expression instanceof InExpression) {
+            InExpression inExpression = (InExpression) expression;
+            inExpression.setLeftExpression(parameterize(inExpression.getLeftExpression(), parameters));
+            if (inExpression.getRightItemsList() instanceof ExpressionList) {
+                List<Expression> items = padInItems(((ExpressionList) inExpression.getRightItemsList()).getExpressions());
+                List<Expression> newItems = new ArrayList<>(items.size());
+                items.forEach(item -> newItems.add(parameterize(item, parameters)));
+                inExpression.setRightItemsList(new ExpressionList(newItems));
+            }
+        } else if (expression instanceof Parenthesis) {
+            Parenthesis parenthesis = (Parenthesis) expression;
+            parenthesis.setExpression(parameterize(parenthesis.getExpression(), parameters));
+        } else if (expression instanceof NotExpression) {
+            NotExpression notExpression = (NotExpression) expression;
+            notExpression.setExpression(parameterize(notExpression.getExpression(), parameters));
+        }
+        return expression;
+    }
+
+    private static boolean isParameterizable(Expression expression) {
+        return expression instanceof LongValue || expression instanceof StringValue;
+    }
+
+    /**
+     * 将 IN 条件的常量数组，使用最后一个常量，补齐到 2 的幂次。重复的常量，不影响 IN 条件的结果
+     */
+    private static List<Expression> padInItems(List<Expression> items) {
+        if (CollUtil.isEmpty(items) || !items.stream().allMatch(DataPermissionDatabaseInterceptor::isParameterizable)) {
+            return items;
+        }
+        int size = Integer.highestOneBit(items.size());
+        if (size == items.size()) {
+            return items;
+        }
+        List<Expression> newItems = new ArrayList<>(size << 1);
+        newItems.addAll(items);
+        while (newItems.size() < size << 1) {
+            newItems.add(CollUtil.getLast(items));
+        }
+        return newItems;
+    }
+
     /**
      * 判断 SQL 是否重写。如果没有重写，则添加到 {@link MappedStatementCache} 中
      *
@@ -413,15 +588,72 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
          * SQL 是否进行重写
          */
         private static final ThreadLocal<Boolean> REWRITE = new TransmittableThreadLocal<>();
+        /**
+         * SQL 涉及的表，按照重写的顺序
+         */
+        private static final ThreadLocal<List<Table>> TABLES = new TransmittableThreadLocal<>();
+        /**
+         * 规则的“形态”，即每个表对应的过滤条件（常量已被替换成参数）
+         */
+        private static final ThreadLocal<List<String>> SHAPE = new TransmittableThreadLocal<>();
+        /**
+         * 过滤条件中，被替换成 JDBC 参数的常量
+         *
+         * 如果为 null，说明无需绑定参数，直接拼接常量
+         */
+        private static final ThreadLocal<List<Expression>> PARAMETERS = new TransmittableThreadLocal<>();
+        /**
+         * 每个表对应的过滤条件，和 {@link #TABLES} 一一对应
+         */
+        private static final ThreadLocal<List<Expression>> EXPRESSIONS = new TransmittableThreadLocal<>();
+        /**
+         * 待复用的过滤条件，见 {@link #replay()} 方法
+         */
+        private static final ThreadLocal<Iterator<Expression>> REPLAY_EXPRESSIONS = new TransmittableThreadLocal<>();
 
         public static void init(List<DataPermissionRule> rules) {
+            init(rules, false);
+        }
+
+        public static void init(List<DataPermissionRule> rules, boolean parameterized) {
             RULES.set(rules);
             REWRITE.set(false);
+            TABLES.set(new ArrayList<>());
+            SHAPE.set(new ArrayList<>());
+            PARAMETERS.set(parameterized ? new ArrayList<>() : null);
+            EXPRESSIONS.set(new ArrayList<>());
+            REPLAY_EXPRESSIONS.remove();
+        }
+
+        /**
+         * 复用已生成的过滤条件，重新记录表和“形态”
+         *
+         * 用于命中 {@link RewrittenStatement}，但未命中 {@link SqlTemplate} 时，解析 SQL 无需再次调用 {@link DataPermissionRule}
+         */
+        public static void replay() {
+            REPLAY_EXPRESSIONS.set(EXPRESSIONS.get().iterator());
+            TABLES.set(new ArrayList<>());
+            SHAPE.set(new ArrayList<>());
+            EXPRESSIONS.set(new ArrayList<>());
+        }
+
+        public static boolean hasReplayExpression() {
+            Iterator<Expression> iterator = REPLAY_EXPRESSIONS.get();
+            return iterator != null && iterator.hasNext();
+        }
+
+        public static Expression nextReplayExpression() {
+            return REPLAY_EXPRESSIONS.get().next();
         }
 
         public static void clear() {
             RULES.remove();
             REWRITE.remove();
+            TABLES.remove();
+            SHAPE.remove();
+            PARAMETERS.remove();
+            EXPRESSIONS.remove();
+            REPLAY_EXPRESSIONS.remove();
         }
 
         public static boolean getRewrite() {
@@ -436,6 +668,27 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
             return RULES.get();
         }
 
+        public static void addTable(Table table, Expression expression) {
+            // 复制 Table 对象，避免缓存时引用整个 SQL 的解析结果
+            Table newTable = new Table(table.getName());
+            newTable.setAlias(table.getAlias());
+            TABLES.get().add(newTable);
+            SHAPE.get().add(expression != null ? expression.toString() : null);
+            EXPRESSIONS.get().add(expression);
+        }
+
+        public static List<Table> getTables() {
+            return TABLES.get();
+        }
+
+        public static List<String> getShape() {
+            return SHAPE.get();
+        }
+
+        public static List<Expression> getParameters() {
+            return PARAMETERS.get();
+        }
+
     }
 
     /**
@@ -505,4 +758,167 @@ public class DataPermissionDatabaseInterceptor extends JsqlParserSupport impleme
 
     }
 
+    /**
+     * 重写后的 SQL 缓存
+     *
+     * 缓存的 key 为 {@link MappedStatement#getId()} 编号 + 原始 SQL，value 为 {@link RewrittenStatement}
+     * 这样，重复执行的 SQL 无需 JSqlParser 解析，并且数据库看到的是稳定的 SQL，可以复用执行计划
+     *
+     * @author 芋道源码
+     */
+    static final class RewrittenSqlCache {
+
+        /**
+         * 缓存的 SQL 最大数量
+         */
+        private static final int MAX_SIZE = 2048;
+
+        private final Cache<String, RewrittenStatement> statements = CacheBuilder.newBuilder()
+                .maximumSize(MAX_SIZE).build();
+
+        public RewrittenStatement getStatement(String mappedStatementId, String sql) {
+            return statements.getIfPresent(buildKey(mappedStatementId, sql));
+        }
+
+        /**
+         * 添加 SQL 涉及的表。如果已经存在，则返回已存在的
+         *
+         * @param mappedStatementId MappedStatement 编号
+         * @param sql 原始 SQL
+         * @param tables SQL 涉及的表
+         * @return RewrittenStatement
+         */
+        @SneakyThrows
+        public RewrittenStatement addStatement(String mappedStatementId, String sql, List<Table> tables) {
+            return statements.get(buildKey(mappedStatementId, sql), () -> new RewrittenStatement(tables));
+        }
+
+        public long size() {
+            return statements.size();
+        }
+
+        /**
+         * 清空缓存
+         * 目前主要提供给单元测试
+         */
+        public void clear() {
+            statements.invalidateAll();
+        }
+
+        private static String buildKey(String mappedStatementId, String sql) {
+            return mappedStatementId + StrUtil.LF + sql;
+        }
+
+    }
+
+    /**
+     * 原始 SQL 涉及的表，以及在不同规则“形态”下，重写后的 SQL 模板
+     *
+     * @author 芋道源码
+     */
+    @RequiredArgsConstructor
+    static final class RewrittenStatement {
+
+        /**
+         * 每个 SQL 的模板最大数量
+         * 因为 IN 条件的参数数量补齐到 2 的幂次，所以一般不会超过
+         */
+        private static final int TEMPLATE_MAX_SIZE = 64;
+
+        /**
+         * SQL 涉及的表，按照重写的顺序
+         */
+        @Getter
+        private final List<Table> tables;
+        /**
+         * SQL 模板
+         *
+         * key：规则的“形态”，即每个表对应的过滤条件
+         */
+        private final Map<List<String>, SqlTemplate> templates = new ConcurrentHashMap<>();
+
+        public SqlTemplate getTemplate(List<String> shape) {
+            return templates.get(shape);
+        }
+
+        public void addTemplate(List<String> shape, SqlTemplate template) {
+            if (templates.size() >= TEMPLATE_MAX_SIZE) {
+                return;
+            }
+            templates.putIfAbsent(shape, template);
+        }
+
+    }
+
+    /**
+     * 重写后的 SQL 模板
+     *
+     * @author 芋道源码
+     */
+    @AllArgsConstructor
+    @Getter
+    static final class SqlTemplate {
+
+        /**
+         * SQL，所有参数都使用 ? 占位
+         */
+        private final String sql;
+        /**
+         * 每个 ? 对应的参数
+         *
+         * 1. 大于等于 0 时，为原 SQL 的参数下标
+         * 2. 小于 0 时，为数据权限的参数，通过 {@link #toDataPermissionIndex(int)} 获得下标
+         */
+        private final int[] parameterIndexes;
+        /**
+         * 原 SQL 的参数数量
+         */
+        private final int originalParameterCount;
+
+        public static int toDataPermissionIndex(int parameterIndex) {
+            return -parameterIndex - 1;
+        }
+
+        /**
+         * 基于重写后的 SQL，构建 SQL 模板
+         *
+         * 将数据权限的命名参数 :{PARAMETER_PREFIX}{index} 替换成 ?，并记录每个 ? 对应的参数
+         * 注意，引号中的 ? 和 : 不是占位符，需要跳过
+         *
+         * @param sql 重写后的 SQL
+         * @return SQL 模板
+         */
+        public static SqlTemplate build(String sql) {
+            StringBuilder builder = new StringBuilder(sql.length());
+            List<Integer> parameterIndexes = new ArrayList<>();
+            int originalParameterCount = 0;
+            char quote = 0;
+            for (int i = 0; i < sql.length(); i++) {
+                char c = sql.charAt(i);
+                if (quote != 0) { // 引号中，直到引号结束
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                } else if (c == '?') {
+                    parameterIndexes.add(originalParameterCount++);
+                } else if (c == ':' && sql.startsWith(PARAMETER_PREFIX, i + 1)) {
+                    int start = i + 1 + PARAMETER_PREFIX.length();
+                    int end = start;
+                    while (end < sql.length() && Character.isDigit(sql.charAt(end))) {
+                        end++;
+                    }
+                    parameterIndexes.add(-Integer.parseInt(sql.substring(start, end)) - 1);
+                    builder.append('?');
+                    i = end - 1;
+                    continue;
+                }
+                builder.append(c);
+            }
+            return new SqlTemplate(builder.toString(), Ints.toArray(parameterIndexes), originalParameterCount);
+        }
+
+    }
+
 }
@@ -27,6 +27,8 @@ public interface DataPermissionRule {
     /**
      * 根据表名和别名，生成对应的 WHERE / OR 过滤条件
      *
+     * 注意，每次调用需要返回新的 Expression 对象。因为 DataPermissionDatabaseInterceptor 会将其中的常量，替换成 JDBC 参数
+     *
      * @param tableName 表名
      * @param tableAlias 别名，可能为空
      * @return 过滤条件 Expression 表达式
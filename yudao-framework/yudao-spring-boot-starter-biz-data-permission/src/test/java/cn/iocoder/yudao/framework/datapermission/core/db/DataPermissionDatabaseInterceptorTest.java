@@ -1,5 +1,6 @@
 package cn.iocoder.yudao.framework.datapermission.core.db;
 
+import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
 import cn.iocoder.yudao.framework.common.util.collection.SetUtils;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRule;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRuleFactory;
@@ -10,11 +11,15 @@ import net.sf.jsqlparser.expression.Alias;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.InExpression;
 import net.sf.jsqlparser.schema.Column;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -50,6 +55,7 @@ public class DataPermissionDatabaseInterceptorTest extends BaseMockitoUnitTest {
         DataPermissionDatabaseInterceptor.ContextHolder.clear();
         // 清空缓存
         interceptor.getMappedStatementCache().clear();
+        interceptor.getRewrittenSqlCache().clear();
     }
 
     @Test // 不存在规则，且不匹配
@@ -72,6 +78,7 @@ public class DataPermissionDatabaseInterceptorTest extends BaseMockitoUnitTest {
             // 准备参数
             MappedStatement mappedStatement = mock(MappedStatement.class);
             BoundSql boundSql = mock(BoundSql.class);
+            when(mappedStatement.getConfiguration()).thenReturn(new Configuration());
             // mock 方法(数据权限)
             when(ruleFactory.getDataPermissionRule(same(mappedStatement.getId())))
                     .thenReturn(singletonList(new DeptDataPermissionRule()));
@@ -85,14 +92,91 @@ public class DataPermissionDatabaseInterceptorTest extends BaseMockitoUnitTest {
 
             // 调用
             interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
-            // 断言
+            // 断言，dept_id 的值作为 JDBC 参数绑定
             verify(mpBs, times(1)).sql(
-                    eq("SELECT * FROM t_user WHERE id = 1 AND dept_id = 100"));
+                    eq("SELECT * FROM t_user WHERE id = 1 AND dept_id = ?"));
+            verify(mpBs, times(1)).parameterMappings(argThat(mappings -> mappings.size() == 1
+                    && mappings.get(0).getProperty().equals(DataPermissionDatabaseInterceptor.PARAMETER_PREFIX + 0)));
+            verify(boundSql, times(1)).setAdditionalParameter(
+                    eq(DataPermissionDatabaseInterceptor.PARAMETER_PREFIX + 0), eq(100L));
             // 断言缓存
             assertTrue(interceptor.getMappedStatementCache().getNoRewritableMappedStatements().isEmpty());
+            assertEquals(1, interceptor.getRewrittenSqlCache().size());
+        }
+    }
+
+    @Test // 存在规则，且匹配，重复执行时命中 SQL 模板
+    public void testBeforeQuery_withRewrittenSqlCache() {
+        try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
+            // 准备参数
+            MappedStatement mappedStatement = mock(MappedStatement.class);
+            when(mappedStatement.getId()).thenReturn("selectList");
+            when(mappedStatement.getConfiguration()).thenReturn(new Configuration());
+            BoundSql boundSql = mock(BoundSql.class);
+            // mock 方法(数据权限)，每次执行的部门数量不同
+            Deque<List<Long>> deptIds = new LinkedList<>(Arrays.asList(
+                    Arrays.asList(1L, 2L, 3L), Arrays.asList(4L, 5L, 6L, 7L), Arrays.asList(8L, 9L)));
+            DataPermissionRule rule = new DataPermissionRule() {
+
+                @Override
+                public Set<String> getTableNames() {
+                    return SetUtils.asSet("t_user");
+                }
+
+                @Override
+                public Expression getExpression(String tableName, Alias tableAlias) {
+                    Column column = MyBatisUtils.buildColumn(tableName, tableAlias, "dept_id");
+                    return new InExpression(column, new ExpressionList(
+                            CollectionUtils.convertList(deptIds.poll(), LongValue::new)));
+                }
+
+            };
+            when(ruleFactory.getDataPermissionRule(eq("selectList"))).thenReturn(singletonList(rule));
+            // mock 方法(MPBoundSql)
+            PluginUtils.MPBoundSql mpBs = mock(PluginUtils.MPBoundSql.class);
+            pluginUtilsMock.when(() -> PluginUtils.mpBoundSql(same(boundSql))).thenReturn(mpBs);
+            when(mpBs.sql()).thenReturn("select * from t_user where id = ?");
+            ParameterMapping idMapping = mock(ParameterMapping.class);
+            when(mpBs.parameterMappings()).thenReturn(new ArrayList<>(singletonList(idMapping)));
+
+            // 调用，3 个部门补齐到 4 个，和 4 个部门的 SQL 一致
+            interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
+            interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
+            // 断言
+            verify(mpBs, times(2)).sql(
+                    eq("SELECT * FROM t_user WHERE id = ? AND dept_id IN (?, ?, ?, ?)"));
+            verify(boundSql).setAdditionalParameter(eq(DataPermissionDatabaseInterceptor.PARAMETER_PREFIX + 3), eq(3L));
+            verify(boundSql).setAdditionalParameter(eq(DataPermissionDatabaseInterceptor.PARAMETER_PREFIX + 3), eq(7L));
+            verify(mpBs, times(2)).parameterMappings(argThat(mappings -> mappings.size() == 5
+                    && mappings.get(0) == idMapping));
+            // 断言，两次执行使用同一个 SQL 模板
+            DataPermissionDatabaseInterceptor.RewrittenStatement statement = interceptor.getRewrittenSqlCache()
+                    .getStatement("selectList", "select * from t_user where id = ?");
+            assertNotNull(statement);
+            assertEquals(1, statement.getTables().size());
+
+            // 调用，2 个部门的形态不同，生成新的 SQL 模板
+            interceptor.beforeQuery(null, mappedStatement, null, null, null, boundSql);
+            // 断言
+            verify(mpBs, times(1)).sql(
+                    eq("SELECT * FROM t_user WHERE id = ? AND dept_id IN (?, ?)"));
+            assertEquals(1, interceptor.getRewrittenSqlCache().size());
         }
     }
 
+    @Test
+    public void testBuildSqlTemplate() {
+        // 准备参数
+        String sql = "SELECT * FROM t_user WHERE name = '?:__dataPermission0' AND id = ? AND dept_id IN (:__dataPermission1, :__dataPermission0)";
+
+        // 调用
+        DataPermissionDatabaseInterceptor.SqlTemplate template = DataPermissionDatabaseInterceptor.SqlTemplate.build(sql);
+        // 断言，引号中的内容不会被替换
+        assertEquals("SELECT * FROM t_user WHERE name = '?:__dataPermission0' AND id = ? AND dept_id IN (?, ?)", template.getSql());
+        assertArrayEquals(new int[]{0, -2, -1}, template.getParameterIndexes());
+        assertEquals(1, template.getOriginalParameterCount());
+    }
+
     @Test // 存在规则，但不匹配
     public void testBeforeQuery_withoutMatchRule() {
         try (MockedStatic<PluginUtils> pluginUtilsMock = mockStatic(PluginUtils.class)) {
@@ -1,8 +1,12 @@
 package cn.iocoder.yudao.framework.tenant.config;
 
+import cn.iocoder.yudao.framework.tenant.core.enums.TenantRoutingModeEnum;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -38,4 +42,54 @@ public class TenantProperties {
      */
     private Set<String> ignoreTables;
 
+    /**
+     * 物理隔离的配置
+     *
+     * 默认情况下，基于 tenant_id 字段，重写 SQL 实现多租户的隔离。对于数据量较大的租户，可以配置物理隔离，
+     * 此时，该租户的 SQL 不进行重写，而是路由到租户对应的 schema 或者 DataSource 中
+     */
+    private Routing routing = new Routing();
+
+    @Data
+    public static class Routing {
+
+        /**
+         * 物理隔离的模式
+         *
+         * 为空时，表示不开启物理隔离
+         */
+        private TenantRoutingModeEnum mode;
+
+        /**
+         * 物理隔离的租户
+         *
+         * key：租户编号
+         * value：{@link TenantRoutingModeEnum#SCHEMA} 模式下，为 schema 名；{@link TenantRoutingModeEnum#DATASOURCE} 模式下，为 JDBC URL
+         *
+         * 注意，租户的 schema 或者 DataSource 中，需要包含完整的表结构。忽略多租户的情况下，依然使用默认的 DataSource
+         */
+        private Map<Long, String> tenants = Collections.emptyMap();
+
+        /**
+         * {@link TenantRoutingModeEnum#DATASOURCE} 模式下，连接池的账号
+         *
+         * 为空时，使用主数据源的账号
+         */
+        private String username;
+        /**
+         * {@link TenantRoutingModeEnum#DATASOURCE} 模式下，连接池的密码
+         *
+         * 为空时，使用主数据源的密码
+         */
+        private String password;
+
+        /**
+         * {@link TenantRoutingModeEnum#DATASOURCE} 模式下，连接池的空闲时间
+         *
+         * 超过该时间未使用，并且没有使用中的连接，则关闭连接池，下次使用时重新创建
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+    }
+
 }
@@ -1,11 +1,16 @@
 package cn.iocoder.yudao.framework.tenant.config;
 
 import cn.hutool.core.annotation.AnnotationUtil;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.enums.WebFilterOrderEnum;
 import cn.iocoder.yudao.framework.mybatis.core.util.MyBatisUtils;
 import cn.iocoder.yudao.framework.quartz.core.handler.JobHandler;
 import cn.iocoder.yudao.framework.tenant.core.aop.TenantIgnoreAspect;
+import cn.iocoder.yudao.framework.tenant.core.db.TenantBatchInsertGroupKeyResolver;
 import cn.iocoder.yudao.framework.tenant.core.db.TenantDatabaseInterceptor;
+import cn.iocoder.yudao.framework.tenant.core.db.TenantRoutingDataSource;
+import cn.iocoder.yudao.framework.tenant.core.db.TenantRoutingLineInnerInterceptor;
 import cn.iocoder.yudao.framework.tenant.core.job.TenantJob;
 import cn.iocoder.yudao.framework.tenant.core.job.TenantJobHandlerDecorator;
 import cn.iocoder.yudao.framework.tenant.core.mq.TenantRedisMessageInterceptor;
@@ -14,9 +19,14 @@ import cn.iocoder.yudao.framework.tenant.core.service.TenantFrameworkService;
 import cn.iocoder.yudao.framework.tenant.core.web.TenantContextWebFilter;
 import cn.iocoder.yudao.framework.web.config.WebProperties;
 import cn.iocoder.yudao.framework.web.core.handler.GlobalExceptionHandler;
+import com.baomidou.dynamic.datasource.DynamicRoutingDataSource;
+import com.baomidou.dynamic.datasource.creator.DefaultDataSourceCreator;
+import com.baomidou.dynamic.datasource.spring.boot.autoconfigure.DataSourceProperty;
+import com.baomidou.dynamic.datasource.spring.boot.autoconfigure.DynamicDataSourceProperties;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -24,6 +34,8 @@ import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+
 @Configuration
 @ConditionalOnProperty(prefix = "yudao.tenant", value = "enable", matchIfMissing = true) // 允许使用 yudao.tenant.enable=false 禁用多租户
 @EnableConfigurationProperties(TenantProperties.class)
@@ -41,13 +53,51 @@ public class YudaoTenantAutoConfiguration {
     @Bean
     public TenantLineInnerInterceptor tenantLineInnerInterceptor(TenantProperties properties,
                                                                  MybatisPlusInterceptor interceptor) {
-        TenantLineInnerInterceptor inner = new TenantLineInnerInterceptor(new TenantDatabaseInterceptor(properties));
+        TenantDatabaseInterceptor handler = new TenantDatabaseInterceptor(properties);
+        // 如果开启物理隔离，则物理隔离的租户跳过 SQL 重写
+        TenantLineInnerInterceptor inner = properties.getRouting().getMode() != null
+                ? new TenantRoutingLineInnerInterceptor(handler)
+                : new TenantLineInnerInterceptor(handler);
         // 添加到 interceptor 中
         // 需要加在首个，主要是为了在分页插件前面。这个是 MyBatis Plus 的规定
         MyBatisUtils.addInterceptor(interceptor, inner, 0);
         return inner;
     }
 
+    @Bean
+    public TenantBatchInsertGroupKeyResolver tenantBatchInsertGroupKeyResolver() {
+        return new TenantBatchInsertGroupKeyResolver();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "yudao.tenant.routing", value = "mode") // 开启物理隔离时，才进行路由
+    public BeanPostProcessor tenantRoutingDataSourceBeanPostProcessor(TenantProperties properties,
+                                                                      ObjectProvider<DefaultDataSourceCreator> dataSourceCreator,
+                                                                      ObjectProvider<DynamicDataSourceProperties> dynamicDataSourceProperties) {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof DynamicRoutingDataSource)) {
+                    return bean;
+                }
+                // 使用 TenantRoutingDataSource 装饰，租户的连接池基于主数据源的配置创建
+                TenantProperties.Routing routing = properties.getRouting();
+                return new TenantRoutingDataSource((DataSource) bean, routing, (tenantId, url) -> {
+                    DynamicDataSourceProperties dynamicProperties = dynamicDataSourceProperties.getObject();
+                    DataSourceProperty dataSourceProperty = BeanUtil.copyProperties(
+                            dynamicProperties.getDatasource().get(dynamicProperties.getPrimary()), DataSourceProperty.class);
+                    dataSourceProperty.setPoolName("tenant_" + tenantId).setUrl(url);
+                    if (StrUtil.isNotEmpty(routing.getUsername())) {
+                        dataSourceProperty.setUsername(routing.getUsername()).setPassword(routing.getPassword());
+                    }
+                    return dataSourceCreator.getObject().createDataSource(dataSourceProperty);
+                });
+            }
+
+        };
+    }
+
     // ========== WEB ==========
 
     @Bean
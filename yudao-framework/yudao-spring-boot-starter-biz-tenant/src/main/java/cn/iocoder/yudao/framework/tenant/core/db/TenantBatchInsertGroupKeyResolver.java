@@ -0,0 +1,22 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertGroupKeyResolver;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+
+import java.util.Arrays;
+
+/**
+ * 多租户的 {@link BatchInsertGroupKeyResolver} 实现类
+ *
+ * 按照租户编号、是否忽略租户分组，保证每个 JDBC batch 中拼接的 tenant_id 一致，并且路由到同一个数据源
+ *
+ * @author 芋道源码
+ */
+public class TenantBatchInsertGroupKeyResolver implements BatchInsertGroupKeyResolver {
+
+    @Override
+    public Object resolve() {
+        return Arrays.asList(TenantContextHolder.getTenantId(), TenantContextHolder.isIgnore());
+    }
+
+}
@@ -0,0 +1,327 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.framework.tenant.config.TenantProperties;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.tenant.core.enums.TenantRoutingModeEnum;
+import com.alibaba.druid.pool.DruidDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 基于物理隔离的多租户 DataSource，根据 {@link TenantContextHolder} 的租户编号，路由到租户对应的 schema 或者 DataSource
+ *
+ * 1. {@link TenantRoutingModeEnum#SCHEMA} 模式：从默认的 DataSource 获取连接，切换到租户对应的 schema，归还连接时切换回来
+ * 2. {@link TenantRoutingModeEnum#DATASOURCE} 模式：首次使用时，创建租户对应的连接池；空闲超过 idleTimeout 后，关闭连接池
+ *
+ * 未配置物理隔离的租户，或者忽略多租户时，使用默认的 DataSource，此时由 {@link TenantDatabaseInterceptor} 重写 SQL 实现隔离。
+ * 路由到租户的连接，会通过 {@link RoutedConnection} 进行标记，由 {@link TenantRoutingLineInnerInterceptor} 判断是否需要重写 SQL
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class TenantRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    /**
+     * 空闲连接池的检查间隔，单位：毫秒
+     */
+    private static final long EVICT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 默认的 DataSource
+     */
+    @Getter
+    private final DataSource delegate;
+    private final TenantProperties.Routing properties;
+    /**
+     * 租户 DataSource 的创建器
+     *
+     * 参数：租户编号、JDBC URL
+     */
+    private final BiFunction<Long, String, DataSource> dataSourceCreator;
+
+    /**
+     * 租户的连接池
+     *
+     * key：租户编号
+     */
+    private final Map<Long, TenantDataSource> dataSources = new ConcurrentHashMap<>();
+    /**
+     * 关闭空闲连接池的线程池，只有 {@link TenantRoutingModeEnum#DATASOURCE} 模式下存在
+     */
+    private final ScheduledExecutorService evictExecutor;
+
+    /**
+     * schema 切换时，是否使用 {@link Connection#setCatalog(String)} 方法
+     *
+     * 例如说，MySQL 的 database 对应 JDBC 的 catalog，而 PostgreSQL、Oracle 等对应 JDBC 的 schema
+     */
+    private volatile Boolean useCatalog;
+
+    public TenantRoutingDataSource(DataSource delegate, TenantProperties.Routing properties,
+                                   BiFunction<Long, String, DataSource> dataSourceCreator) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.dataSourceCreator = dataSourceCreator;
+        if (properties.getMode() == TenantRoutingModeEnum.DATASOURCE) {
+            this.evictExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new NamedThreadFactory("tenant-datasource-evict-", true));
+            this.evictExecutor.scheduleWithFixedDelay(this::evictIdleDataSources,
+                    EVICT_INTERVAL, EVICT_INTERVAL, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictExecutor = null;
+        }
+    }
+
+    /**
+     * 获得当前需要物理隔离的租户编号
+     *
+     * @param properties 物理隔离的配置
+     * @return 租户编号。如果无需物理隔离，则返回 null
+     */
+    public static Long getRoutingTenantId(TenantProperties.Routing properties) {
+        if (properties.getMode() == null || TenantContextHolder.isIgnore()) {
+            return null;
+        }
+        Long tenantId = TenantContextHolder.getTenantId();
+        return tenantId != null && properties.getTenants().containsKey(tenantId) ? tenantId : null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long tenantId = getRoutingTenantId(properties);
+        if (tenantId == null) {
+            return delegate.getConnection();
+        }
+        String target = properties.getTenants().get(tenantId);
+        if (properties.getMode() == TenantRoutingModeEnum.SCHEMA) {
+            return getSchemaConnection(delegate.getConnection(), tenantId, target);
+        }
+        return buildRoutedConnection(getTenantDataSource(tenantId, target).getConnection(), tenantId, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return delegate.getConnection(username, password);
+    }
+
+    // ========== SCHEMA 模式 ==========
+
+    /**
+     * 切换连接的 schema，并返回在关闭时切换回原 schema 的连接
+     */
+    private Connection getSchemaConnection(Connection connection, Long tenantId, String schema) throws SQLException {
+        String originSchema;
+        try {
+            originSchema = getSchema(connection);
+            if (schema.equals(originSchema)) {
+                return buildRoutedConnection(connection, tenantId, null);
+            }
+            setSchema(connection, schema);
+        } catch (SQLException | RuntimeException ex) {
+            connection.close();
+            throw ex;
+        }
+        return buildRoutedConnection(connection, tenantId, originSchema);
+    }
+
+    private String getSchema(Connection connection) throws SQLException {
+        if (useCatalog == null) {
+            String productName = connection.getMetaData().getDatabaseProductName();
+            useCatalog = "MySQL".equalsIgnoreCase(productName) || "MariaDB".equalsIgnoreCase(productName);
+        }
+        return useCatalog ? connection.getCatalog() : connection.getSchema();
+    }
+
+    private void setSchema(Connection connection, String schema) throws SQLException {
+        if (useCatalog) {
+            connection.setCatalog(schema);
+        } else {
+            connection.setSchema(schema);
+        }
+    }
+
+    // ========== 路由后的连接 ==========
+
+    /**
+     * 获得连接路由到的租户编号
+     *
+     * 在事务中切换租户时，事务绑定的仍是切换前获取的连接，所以需要基于连接，而不是 {@link TenantContextHolder} 判断
+     *
+     * @param connection 连接，允许是 MyBatis 等装饰后的连接
+     * @return 租户编号。如果是默认 DataSource 的连接，则返回 null
+     */
+    public static Long getRoutedTenantId(Connection connection) {
+        try {
+            if (connection == null || !connection.isWrapperFor(RoutedConnection.class)) {
+                return null;
+            }
+            return connection.unwrap(RoutedConnection.class).getRoutedTenantId();
+        } catch (SQLException ex) {
+            log.error("[getRoutedTenantId][连接({}) 获取路由的租户失败]", connection, ex);
+            return null;
+        }
+    }
+
+    /**
+     * 创建路由到租户的连接，通过 {@link RoutedConnection} 标记连接路由到的租户
+     *
+     * @param connection 连接
+     * @param tenantId 租户编号
+     * @param originSchema 关闭时需要切换回的 schema。为空时，表示无需切换
+     * @return 连接
+     */
+    private Connection buildRoutedConnection(Connection connection, Long tenantId, String originSchema) {
+        return (Connection) Proxy.newProxyInstance(RoutedConnection.class.getClassLoader(),
+                new Class[]{Connection.class, RoutedConnection.class}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == RoutedConnection.class) {
+                        return tenantId;
+                    }
+                    if ("isWrapperFor".equals(method.getName()) && args[0] == RoutedConnection.class) {
+                        return true;
+                    }
+                    if ("unwrap".equals(method.getName()) && args[0] == RoutedConnection.class) {
+                        return proxy;
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            if (originSchema != null && !connection.isClosed()) {
+                                setSchema(connection, originSchema);
+                            }
+                        } finally {
+                            connection.close();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+
+    /**
+     * 路由到租户的连接的标记
+     */
+    public interface RoutedConnection {
+
+        /**
+         * @return 路由到的租户编号
+         */
+        Long getRoutedTenantId();
+
+    }
+
+    // ========== DATASOURCE 模式 ==========
+
+    /**
+     * 获得租户的连接池。如果不存在，则进行创建
+     *
+     * 使用 {@link ConcurrentHashMap#compute} 方法，保证和 {@link #evictIdleDataSources()} 不会并发操作同一个租户
+     */
+    private DataSource getTenantDataSource(Long tenantId, String url) {
+        return dataSources.compute(tenantId, (key, tenantDataSource) -> {
+            if (tenantDataSource == null) {
+                log.info("[getTenantDataSource][租户({}) 创建连接池]", tenantId);
+                tenantDataSource = new TenantDataSource(dataSourceCreator.apply(tenantId, url));
+            }
+            tenantDataSource.lastAccessTime = System.currentTimeMillis();
+            return tenantDataSource;
+        }).dataSource;
+    }
+
+    /**
+     * 关闭空闲的连接池
+     */
+    void evictIdleDataSources() {
+        long idleTimeout = properties.getIdleTimeout().toMillis();
+        for (Long tenantId : dataSources.keySet()) {
+            dataSources.computeIfPresent(tenantId, (key, tenantDataSource) -> {
+                if (System.currentTimeMillis() - tenantDataSource.lastAccessTime < idleTimeout
+                        || !isIdle(tenantDataSource.dataSource)) {
+                    return tenantDataSource;
+                }
+                log.info("[evictIdleDataSources][租户({}) 连接池空闲，进行关闭]", tenantId);
+                closeDataSource(tenantDataSource.dataSource);
+                return null;
+            });
+        }
+    }
+
+    int getTenantDataSourceCount() {
+        return dataSources.size();
+    }
+
+    private static boolean isIdle(DataSource dataSource) {
+        if (dataSource instanceof DruidDataSource) {
+            return ((DruidDataSource) dataSource).getActiveCount() == 0;
+        }
+        return true;
+    }
+
+    private static void closeDataSource(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            IoUtil.close((Closeable) dataSource);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (evictExecutor != null) {
+            evictExecutor.shutdownNow();
+        }
+        dataSources.values().forEach(tenantDataSource -> closeDataSource(tenantDataSource.dataSource));
+        dataSources.clear();
+        if (delegate instanceof DisposableBean) {
+            ((DisposableBean) delegate).destroy();
+        }
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    /**
+     * 租户的连接池
+     */
+    private static class TenantDataSource {
+
+        private final DataSource dataSource;
+        /**
+         * 最后使用时间
+         */
+        private volatile long lastAccessTime;
+
+        private TenantDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.hutool.core.util.StrUtil;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 拓展 {@link TenantLineInnerInterceptor}，对于物理隔离的租户，跳过 SQL 的解析与重写
+ *
+ * 物理隔离的租户，由 {@link TenantRoutingDataSource} 路由到租户对应的 schema 或者 DataSource，无需拼接 tenant_id 条件。
+ * 注意，是否跳过基于 SQL 实际执行的连接判断，而不是 {@link TenantContextHolder}：
+ * 在事务中切换租户时，事务绑定的仍是切换前获取的连接，例如说默认 DataSource 的连接，此时依然需要拼接 tenant_id 条件
+ *
+ * @author 芋道源码
+ */
+public class TenantRoutingLineInnerInterceptor extends TenantLineInnerInterceptor {
+
+    public TenantRoutingLineInnerInterceptor(TenantLineHandler tenantLineHandler) {
+        super(tenantLineHandler);
+    }
+
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        // 获取事务绑定的连接。后续执行 SQL 时，使用的也是该连接
+        if (isRoutedConnection(executor.getTransaction().getConnection())) {
+            return;
+        }
+        super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+
+    @Override
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        if (isRoutedConnection(connection)) {
+            return;
+        }
+        super.beforePrepare(sh, connection, transactionTimeout);
+    }
+
+    /**
+     * 判断连接是否路由到当前租户的 schema 或者 DataSource
+     *
+     * @param connection 连接
+     * @return 是否路由
+     * @throws IllegalStateException 连接路由到其它租户时，即在事务中切换了租户，SQL 会读写其它租户的数据，所以直接拒绝
+     */
+    private static boolean isRoutedConnection(Connection connection) {
+        Long routedTenantId = TenantRoutingDataSource.getRoutedTenantId(connection);
+        if (routedTenantId == null) {
+            return false;
+        }
+        if (!TenantContextHolder.isIgnore() && !routedTenantId.equals(TenantContextHolder.getTenantId())) {
+            throw new IllegalStateException(StrUtil.format("连接已经路由到租户({})，不允许在事务中切换到租户({})",
+                    routedTenantId, TenantContextHolder.getTenantId()));
+        }
+        return true;
+    }
+
+}
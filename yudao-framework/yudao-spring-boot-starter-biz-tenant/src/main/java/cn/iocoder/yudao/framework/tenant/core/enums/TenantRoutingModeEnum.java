@@ -0,0 +1,33 @@
+package cn.iocoder.yudao.framework.tenant.core.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 多租户的物理隔离模式枚举
+ *
+ * @author 芋道源码
+ */
+@Getter
+@AllArgsConstructor
+public enum TenantRoutingModeEnum {
+
+    /**
+     * 每个租户一个 schema，共享连接池
+     *
+     * 获取连接时，切换到租户对应的 schema；归还连接时，切换回原 schema
+     */
+    SCHEMA("schema"),
+    /**
+     * 每个租户一个独立的连接池
+     *
+     * 连接池在首次使用时创建，空闲超过一定时间后关闭
+     */
+    DATASOURCE("datasource");
+
+    /**
+     * 模式
+     */
+    private final String mode;
+
+}
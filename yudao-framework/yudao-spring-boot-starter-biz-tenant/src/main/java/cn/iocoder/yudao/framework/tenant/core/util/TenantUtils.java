@@ -32,4 +32,37 @@ public class TenantUtils {
         }
     }
 
+    /**
+     * 忽略租户，执行对应的逻辑
+     *
+     * 适用于无法使用 {@link cn.iocoder.yudao.framework.tenant.core.aop.TenantIgnore} 注解的场景，例如说类的内部调用
+     *
+     * @param runnable 逻辑
+     */
+    public static void executeIgnore(Runnable runnable) {
+        Boolean oldIgnore = TenantContextHolder.isIgnore();
+        try {
+            TenantContextHolder.setIgnore(true);
+            // 执行逻辑
+            runnable.run();
+        } finally {
+            TenantContextHolder.setIgnore(oldIgnore);
+        }
+    }
+
+    /**
+     * 构建带有租户编号的 key，用于本地缓存等需要按照租户隔离的场景
+     *
+     * 忽略租户时，使用独立的前缀，避免和某个租户的数据混用
+     *
+     * @param key 原始 key
+     * @return 带有租户编号的 key
+     */
+    public static String formatTenantKey(Object key) {
+        if (TenantContextHolder.isIgnore()) {
+            return "ignore:" + key;
+        }
+        return TenantContextHolder.getTenantId() + ":" + key;
+    }
+
 }
@@ -1,6 +1,7 @@
 /**
  * 多租户，支持如下层面：
  * 1. DB：基于 MyBatis Plus 多租户的功能实现。
+ *      另外，也支持配置部分租户物理隔离，路由到租户对应的 schema 或者 DataSource，可见 TenantRoutingDataSource
  * 2. Redis：通过在 Redis Key 上拼接租户编号的方式，进行隔离。
  * 3. Web：请求 HTTP API 时，解析 Header 的 tenant-id 租户编号，添加到租户上下文。
  * 4. Security：校验当前登陆的用户，是否越权访问其它租户的数据。
@@ -0,0 +1,107 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
+import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
+import cn.iocoder.yudao.framework.mybatis.core.util.MyBatisUtils;
+import cn.iocoder.yudao.framework.tenant.config.TenantProperties;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.apache.ibatis.annotations.Mapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 多租户下，{@link BatchInsertSink} 批量写入的单元测试
+ *
+ * @author 芋道源码
+ */
+@Import({TenantBatchInsertTest.TenantTestConfiguration.class, TenantBatchInsertGroupKeyResolver.class})
+public class TenantBatchInsertTest extends BaseDbUnitTest {
+
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+    @Resource
+    private TenantTestLogMapper tenantTestLogMapper;
+    @Resource
+    private DataSource dataSource;
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    public void testFlush_multiTenant() {
+        BatchInsertSink<TenantTestLogDO> sink = batchInsertSinkManager.create("tenant-test-log", TenantTestLogDO.class);
+        // 调用，不同租户的数据交替入队
+        TenantContextHolder.setTenantId(1L);
+        sink.offer(new TenantTestLogDO().setContent("a"));
+        TenantContextHolder.setTenantId(2L);
+        sink.offer(new TenantTestLogDO().setContent("b"));
+        TenantContextHolder.setTenantId(1L);
+        sink.offer(new TenantTestLogDO().setContent("c"));
+        TenantContextHolder.clear();
+        sink.flush();
+
+        // 断言，每条数据使用入队时的租户编号
+        Map<String, Long> tenantIds = new JdbcTemplate(dataSource)
+                .queryForList("SELECT content, tenant_id FROM tenant_test_log").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("content"), row -> (Long) row.get("tenant_id")));
+        assertEquals(3, tenantIds.size());
+        assertEquals(1L, tenantIds.get("a"));
+        assertEquals(2L, tenantIds.get("b"));
+        assertEquals(1L, tenantIds.get("c"));
+        // 断言，按照租户查询
+        TenantContextHolder.setTenantId(2L);
+        assertEquals(1, tenantTestLogMapper.selectList().size());
+    }
+
+    @Configuration
+    public static class TenantTestConfiguration {
+
+        @Bean
+        @Lazy(false) // 禁止延迟加载，保证拦截器在写入前添加
+        public TenantLineInnerInterceptor tenantLineInnerInterceptor(MybatisPlusInterceptor interceptor) {
+            TenantProperties properties = new TenantProperties();
+            properties.setIgnoreTables(Collections.emptySet());
+            TenantLineInnerInterceptor inner = new TenantLineInnerInterceptor(new TenantDatabaseInterceptor(properties));
+            MyBatisUtils.addInterceptor(interceptor, inner, 0);
+            return inner;
+        }
+
+    }
+
+    @TableName("tenant_test_log")
+    @Data
+    @Accessors(chain = true)
+    public static class TenantTestLogDO {
+
+        private Long id;
+        private String content;
+
+    }
+
+    @Mapper
+    public interface TenantTestLogMapper extends BaseMapperX<TenantTestLogDO> {
+    }
+
+}
@@ -0,0 +1,136 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.iocoder.yudao.framework.tenant.config.TenantProperties;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.tenant.core.enums.TenantRoutingModeEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TenantRoutingDataSourceTest {
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    public void testGetConnection_notRouting() throws Exception {
+        // mock 数据源
+        DataSource delegate = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(delegate.getConnection()).thenReturn(connection);
+        TenantRoutingDataSource dataSource = new TenantRoutingDataSource(delegate,
+                buildRouting(TenantRoutingModeEnum.SCHEMA), null);
+
+        // 场景一：未配置物理隔离的租户
+        TenantContextHolder.setTenantId(2L);
+        assertSame(connection, dataSource.getConnection());
+        assertNull(TenantRoutingDataSource.getRoutedTenantId(connection));
+        // 场景二：忽略多租户
+        TenantContextHolder.setTenantId(1L);
+        TenantContextHolder.setIgnore(true);
+        assertSame(connection, dataSource.getConnection());
+        // 断言
+        verify(connection, never()).setCatalog(anyString());
+    }
+
+    @Test
+    public void testGetConnection_schema() throws Exception {
+        // mock 数据源
+        DataSource delegate = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(delegate.getConnection()).thenReturn(connection);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.getCatalog()).thenReturn("ruoyi-vue-pro");
+        TenantRoutingDataSource dataSource = new TenantRoutingDataSource(delegate,
+                buildRouting(TenantRoutingModeEnum.SCHEMA), null);
+        // 准备参数
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        Connection result = dataSource.getConnection();
+        // 断言，切换到租户的 schema
+        verify(connection).setCatalog(eq("tenant_1"));
+        assertEquals(1L, TenantRoutingDataSource.getRoutedTenantId(result));
+        // 调用，关闭连接
+        result.close();
+        // 断言，切换回原 schema
+        verify(connection).setCatalog(eq("ruoyi-vue-pro"));
+        verify(connection).close();
+    }
+
+    @Test
+    public void testGetConnection_dataSource() throws Exception {
+        // mock 数据源
+        DataSource tenantDataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(tenantDataSource.getConnection()).thenReturn(connection);
+        AtomicInteger createCount = new AtomicInteger();
+        TenantProperties.Routing routing = buildRouting(TenantRoutingModeEnum.DATASOURCE);
+        TenantRoutingDataSource dataSource = new TenantRoutingDataSource(mock(DataSource.class), routing,
+                (tenantId, url) -> {
+                    assertEquals(1L, tenantId);
+                    assertEquals("tenant_1", url);
+                    createCount.incrementAndGet();
+                    return tenantDataSource;
+                });
+        try {
+            // 准备参数
+            TenantContextHolder.setTenantId(1L);
+
+            // 调用，多次获取连接，只创建一次连接池
+            assertEquals(1L, TenantRoutingDataSource.getRoutedTenantId(dataSource.getConnection()));
+            assertEquals(1L, TenantRoutingDataSource.getRoutedTenantId(dataSource.getConnection()));
+            // 断言
+            assertEquals(1, createCount.get());
+            assertEquals(1, dataSource.getTenantDataSourceCount());
+
+            // 调用，未空闲超时，不关闭
+            dataSource.evictIdleDataSources();
+            assertEquals(1, dataSource.getTenantDataSourceCount());
+            // 调用，空闲超时，关闭
+            routing.setIdleTimeout(Duration.ZERO);
+            dataSource.evictIdleDataSources();
+            assertEquals(0, dataSource.getTenantDataSourceCount());
+
+            // 调用，再次获取连接，重新创建连接池
+            dataSource.getConnection().close();
+            assertEquals(2, createCount.get());
+            verify(connection).close();
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    public void testGetRoutingTenantId() {
+        TenantProperties.Routing routing = buildRouting(TenantRoutingModeEnum.SCHEMA);
+        // 场景一：无租户
+        assertNull(TenantRoutingDataSource.getRoutingTenantId(routing));
+        // 场景二：物理隔离的租户
+        TenantContextHolder.setTenantId(1L);
+        assertEquals(1L, TenantRoutingDataSource.getRoutingTenantId(routing));
+        // 场景三：未开启物理隔离
+        assertNull(TenantRoutingDataSource.getRoutingTenantId(new TenantProperties.Routing()));
+    }
+
+    private static TenantProperties.Routing buildRouting(TenantRoutingModeEnum mode) {
+        TenantProperties.Routing routing = new TenantProperties.Routing();
+        routing.setMode(mode);
+        routing.setTenants(singletonMap(1L, "tenant_1"));
+        return routing;
+    }
+
+}
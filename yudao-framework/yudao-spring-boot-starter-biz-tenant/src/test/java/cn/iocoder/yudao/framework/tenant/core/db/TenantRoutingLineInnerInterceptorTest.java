@@ -0,0 +1,125 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.iocoder.yudao.framework.tenant.config.TenantProperties;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.tenant.core.enums.TenantRoutingModeEnum;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantRoutingLineInnerInterceptorTest {
+
+    private static final String SQL = "SELECT * FROM system_user WHERE id = 1";
+
+    private TenantRoutingDataSource dataSource;
+    private TenantRoutingLineInnerInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // mock 数据源，租户 1 物理隔离
+        DataSource delegate = mock(DataSource.class);
+        when(delegate.getConnection()).thenAnswer(invocation -> mockConnection());
+        TenantProperties.Routing routing = new TenantProperties.Routing();
+        routing.setMode(TenantRoutingModeEnum.SCHEMA);
+        routing.setTenants(singletonMap(1L, "tenant_1"));
+        dataSource = new TenantRoutingDataSource(delegate, routing, null);
+        // 创建拦截器
+        TenantProperties properties = new TenantProperties();
+        properties.setIgnoreTables(Collections.emptySet());
+        interceptor = new TenantRoutingLineInnerInterceptor(new TenantDatabaseInterceptor(properties));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    public void testBeforeQuery_routed() throws Exception {
+        // 准备参数，租户 1 开启事务，获取路由后的连接
+        TenantContextHolder.setTenantId(1L);
+        Connection connection = dataSource.getConnection();
+
+        // 调用
+        BoundSql boundSql = beforeQuery(connection);
+        // 断言，不拼接 tenant_id 条件
+        assertEquals(SQL, boundSql.getSql());
+    }
+
+    @Test
+    public void testBeforeQuery_switchToRoutedTenantInTransaction() throws Exception {
+        // 准备参数，租户 2 开启事务，获取默认 DataSource 的连接
+        TenantContextHolder.setTenantId(2L);
+        Connection connection = dataSource.getConnection();
+        // 事务中，切换到物理隔离的租户 1
+        TenantContextHolder.setTenantId(1L);
+
+        // 调用
+        BoundSql boundSql = beforeQuery(connection);
+        // 断言，连接未路由，依然拼接 tenant_id 条件
+        assertTrue(boundSql.getSql().contains("tenant_id = 1"), boundSql.getSql());
+    }
+
+    @Test
+    public void testBeforeQuery_switchFromRoutedTenantInTransaction() throws Exception {
+        // 准备参数，租户 1 开启事务，获取路由后的连接
+        TenantContextHolder.setTenantId(1L);
+        Connection connection = dataSource.getConnection();
+        // 事务中，切换到租户 2
+        TenantContextHolder.setTenantId(2L);
+
+        // 调用，并断言
+        assertThrows(IllegalStateException.class, () -> beforeQuery(connection));
+    }
+
+    @Test
+    public void testBeforeQuery_ignore() throws Exception {
+        // 准备参数，租户 1 开启事务，获取路由后的连接
+        TenantContextHolder.setTenantId(1L);
+        Connection connection = dataSource.getConnection();
+        // 事务中，忽略多租户
+        TenantContextHolder.setIgnore(true);
+
+        // 调用
+        BoundSql boundSql = beforeQuery(connection);
+        // 断言
+        assertEquals(SQL, boundSql.getSql());
+    }
+
+    private BoundSql beforeQuery(Connection connection) throws Exception {
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.getConnection()).thenReturn(connection);
+        Executor executor = mock(Executor.class);
+        when(executor.getTransaction()).thenReturn(transaction);
+        MappedStatement ms = mock(MappedStatement.class);
+        when(ms.getId()).thenReturn("cn.iocoder.yudao.UserMapper.selectById");
+        BoundSql boundSql = new BoundSql(new Configuration(), SQL, Collections.emptyList(), null);
+        interceptor.beforeQuery(executor, ms, null, null, null, boundSql);
+        return boundSql;
+    }
+
+    private static Connection mockConnection() throws Exception {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.getCatalog()).thenReturn("ruoyi-vue-pro");
+        return connection;
+    }
+
+}
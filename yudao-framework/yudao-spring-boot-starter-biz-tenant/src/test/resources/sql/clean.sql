@@ -0,0 +1 @@
+DELETE FROM "tenant_test_log";
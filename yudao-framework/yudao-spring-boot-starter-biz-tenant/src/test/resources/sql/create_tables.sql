@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS "tenant_test_log" (
+    "id" bigint NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+    "content" varchar(64) NOT NULL DEFAULT '',
+    "tenant_id" bigint NOT NULL DEFAULT '0',
+    PRIMARY KEY ("id")
+) COMMENT '多租户测试日志';
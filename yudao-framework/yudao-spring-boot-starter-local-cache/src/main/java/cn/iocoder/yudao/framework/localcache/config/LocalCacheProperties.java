@@ -0,0 +1,24 @@
+package cn.iocoder.yudao.framework.localcache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 本地缓存配置
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.local-cache")
+@Data
+public class LocalCacheProperties {
+
+    /**
+     * 比对版本号的周期
+     *
+     * 因为已经通过 Redis Pub/Sub 机制刷新，所以频率不需要高，只用于兜底广播消息丢失的情况
+     */
+    private Duration checkPeriod = Duration.ofMinutes(1);
+
+}
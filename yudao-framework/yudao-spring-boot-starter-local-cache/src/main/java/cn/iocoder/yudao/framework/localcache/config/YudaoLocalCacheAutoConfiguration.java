@@ -0,0 +1,38 @@
+package cn.iocoder.yudao.framework.localcache.config;
+
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
+import cn.iocoder.yudao.framework.localcache.core.mq.LocalCacheRefreshConsumer;
+import cn.iocoder.yudao.framework.mq.config.YudaoMQAutoConfiguration;
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 本地缓存配置类
+ *
+ * @author 芋道源码
+ */
+@Configuration
+@AutoConfigureAfter(YudaoMQAutoConfiguration.class)
+@EnableConfigurationProperties(LocalCacheProperties.class)
+public class YudaoLocalCacheAutoConfiguration {
+
+    @Bean(destroyMethod = "stop")
+    public LocalCacheManager localCacheManager(StringRedisTemplate stringRedisTemplate, RedisMQTemplate redisMQTemplate,
+                                               LocalCacheProperties properties,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LocalCacheManager(stringRedisTemplate, redisMQTemplate, properties.getCheckPeriod(),
+                meterRegistry.getIfAvailable()); // 未引入 Actuator 时，不暴露指标
+    }
+
+    @Bean
+    public LocalCacheRefreshConsumer localCacheRefreshConsumer(LocalCacheManager localCacheManager) {
+        return new LocalCacheRefreshConsumer(localCacheManager);
+    }
+
+}
@@ -0,0 +1,153 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 本地缓存，持有 {@link LocalCacheLoader} 加载的不可变快照
+ *
+ * 1. 刷新时，构建新的快照后整体替换，读取时不会看到刷新到一半的数据
+ * 2. 首次读取时，如果快照还未加载，则同步加载
+ * 3. 快照记录加载时 Redis 中的版本号，由 {@link LocalCacheManager} 比对版本号，决定是否刷新
+ *
+ * @param <S> 快照类型
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class LocalCache<S> {
+
+    /**
+     * 缓存名，全局唯一，同时作为 Redis 中版本号的 key
+     */
+    @Getter
+    private final String name;
+    /**
+     * 预热的顺序，越小越先加载
+     */
+    @Getter
+    private final int order;
+    private final LocalCacheLoader<S> loader;
+
+    /**
+     * 快照
+     *
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     */
+    private volatile S snapshot;
+    /**
+     * 快照对应的版本号。为空时，表示版本号未知，下次比对版本号时会刷新
+     */
+    @Getter
+    private volatile Long version;
+
+    // ========== 指标相关 ==========
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder reloadCount = new LongAdder();
+    /**
+     * 最近一次加载的耗时，单位：毫秒
+     */
+    @Getter
+    private volatile long lastReloadMillis;
+
+    public LocalCache(String name, LocalCacheLoader<S> loader) {
+        this(name, 0, loader);
+    }
+
+    public LocalCache(String name, int order, LocalCacheLoader<S> loader) {
+        this.name = name;
+        this.order = order;
+        this.loader = loader;
+    }
+
+    /**
+     * 获得快照。如果快照还未加载，则同步加载
+     *
+     * @return 快照
+     */
+    public S get() {
+        S current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                reload(null);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 从快照中获得数据，并记录命中、未命中的指标
+     *
+     * @param getter 从快照中获得数据的函数
+     * @return 数据。为空时，记为未命中
+     */
+    public <V> V get(Function<S, V> getter) {
+        V value = getter.apply(get());
+        recordGet(value != null);
+        return value;
+    }
+
+    /**
+     * 记录命中、未命中的指标
+     *
+     * @param hit 是否命中
+     */
+    protected void recordGet(boolean hit) {
+        if (hit) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+    }
+
+    /**
+     * 强制刷新快照
+     */
+    public void reload() {
+        reload(null);
+    }
+
+    /**
+     * 刷新快照。如果已有快照，优先增量加载
+     *
+     * @param version 加载前，从 Redis 读取的版本号。允许为空
+     */
+    synchronized void reload(Long version) {
+        long startTime = System.currentTimeMillis();
+        S current = snapshot;
+        S newSnapshot = current != null ? loader.loadDelta(current) : null;
+        if (newSnapshot == null) {
+            newSnapshot = loader.load();
+        }
+        // 整体替换快照
+        snapshot = newSnapshot;
+        // 加载前读取的版本号，一定不晚于加载的数据。Redis 数据丢失后版本号会回退，所以直接覆盖，不比较大小
+        if (version != null) {
+            this.version = version;
+        }
+        lastReloadMillis = System.currentTimeMillis() - startTime;
+        reloadCount.increment();
+        log.info("[reload][缓存({}) 刷新完成，版本号({})，耗时({} ms)]", name, this.version, lastReloadMillis);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getReloadCount() {
+        return reloadCount.sum();
+    }
+
+}
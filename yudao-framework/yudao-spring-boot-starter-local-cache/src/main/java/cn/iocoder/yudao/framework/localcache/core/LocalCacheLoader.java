@@ -0,0 +1,33 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+/**
+ * {@link LocalCache} 的快照加载器
+ *
+ * @param <S> 快照类型。快照需要是不可变的，刷新时整体替换
+ *
+ * @author 芋道源码
+ */
+@FunctionalInterface
+public interface LocalCacheLoader<S> {
+
+    /**
+     * 全量加载快照
+     *
+     * @return 快照
+     */
+    S load();
+
+    /**
+     * 增量加载快照，在当前快照的基础上，合并发生变化的数据，返回新的快照
+     *
+     * 例如说，基于当前快照的最大更新时间，只查询 update_time 更大的数据。
+     * 注意，逻辑删除不会修改 update_time，所以存在删除的场景，需要返回 null 走全量加载
+     *
+     * @param snapshot 当前快照，不为空
+     * @return 新的快照。如果返回 null，则进行全量加载
+     */
+    default S loadDelta(S snapshot) {
+        return null;
+    }
+
+}
@@ -0,0 +1,260 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.framework.localcache.core.mq.LocalCacheRefreshMessage;
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存的管理器，负责多节点之间 {@link LocalCache} 的刷新
+ *
+ * 每个缓存在 Redis 中有一个版本号，数据变更时：
+ * 1. 事务提交后，调用 {@link #invalidate(String)} 方法，INCR 版本号，并广播 {@link LocalCacheRefreshMessage} 消息，各节点收到后立即刷新
+ * 2. 各节点定时使用一次 MGET 命令，获得所有缓存的版本号，刷新版本号发生变化的缓存，兜底广播消息丢失的情况
+ *
+ * 版本号只比较是否相等，不比较大小：Redis 数据丢失（例如说重启、淘汰）后，版本号会回退。
+ * 版本号不存在时，使用当前时间戳初始化，避免回退后的版本号恰好和本地的版本号相等，导致变更被忽略
+ *
+ * 相比每个缓存定时 COUNT 查询 DB 的轮询，每个周期只需要一次 Redis 请求
+ *
+ * 预热：所有单例 Bean 初始化完成后，按照 {@link LocalCache#getOrder()} 依次加载，之后注册的缓存立即加载
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class LocalCacheManager implements SmartInitializingSingleton {
+
+    /**
+     * 版本号的 Redis Key 前缀
+     */
+    private static final String VERSION_KEY_PREFIX = "local_cache_version:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMQTemplate redisMQTemplate;
+    /**
+     * 比对版本号的周期
+     */
+    private final Duration checkPeriod;
+    /**
+     * Micrometer 指标注册器，允许为空
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 缓存
+     *
+     * key：缓存名
+     */
+    private final Map<String, LocalCache<?>> caches = new ConcurrentHashMap<>();
+    /**
+     * 是否已经完成预热
+     */
+    private volatile boolean warmedUp;
+
+    private ScheduledExecutorService executor;
+
+    public LocalCacheManager(StringRedisTemplate stringRedisTemplate, RedisMQTemplate redisMQTemplate,
+                             Duration checkPeriod, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMQTemplate = redisMQTemplate;
+        this.checkPeriod = checkPeriod;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 注册缓存。如果已经完成预热，则立即加载
+     *
+     * @param cache 缓存
+     */
+    public void register(LocalCache<?> cache) {
+        if (caches.putIfAbsent(cache.getName(), cache) != null) {
+            throw new IllegalStateException(String.format("缓存(%s) 已经注册", cache.getName()));
+        }
+        registerMeters(cache);
+        if (warmedUp) {
+            reload(cache, getVersion(cache.getName()));
+        }
+    }
+
+    /**
+     * 使缓存失效，各节点刷新缓存
+     *
+     * 如果在事务中，则在事务提交后执行。不然 DB 还未提交，结果缓存先刷新了
+     *
+     * @param name 缓存名
+     */
+    public void invalidate(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            doInvalidate(name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                doInvalidate(name);
+            }
+
+        });
+    }
+
+    private void doInvalidate(String name) {
+        // 先 INCR 版本号，再广播消息，保证各节点刷新时读到的是新的版本号
+        String key = formatVersionKey(name);
+        initVersion(key);
+        stringRedisTemplate.opsForValue().increment(key);
+        LocalCacheRefreshMessage message = new LocalCacheRefreshMessage();
+        message.setName(name);
+        redisMQTemplate.send(message);
+    }
+
+    /**
+     * 刷新缓存，由 {@link LocalCacheRefreshMessage} 的消费者调用
+     *
+     * @param name 缓存名
+     */
+    public void refresh(String name) {
+        LocalCache<?> cache = caches.get(name);
+        if (cache == null) { // 当前节点未注册该缓存，无需刷新
+            return;
+        }
+        reload(cache, getVersion(name));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // 预热：一次 MGET 获得所有缓存的版本号，然后按照顺序加载
+        List<LocalCache<?>> sortedCaches = new ArrayList<>(caches.values());
+        sortedCaches.sort(Comparator.comparingInt(LocalCache::getOrder));
+        List<Long> versions = getVersions(sortedCaches);
+        for (int i = 0; i < sortedCaches.size(); i++) {
+            reload(sortedCaches.get(i), versions.get(i));
+        }
+        warmedUp = true;
+        log.info("[afterSingletonsInstantiated][预热本地缓存 {} 个]", sortedCaches.size());
+
+        // 定时比对版本号
+        long period = checkPeriod.toMillis();
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("local-cache-check-", true));
+        executor.scheduleWithFixedDelay(this::checkVersions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 比对所有缓存的版本号，刷新版本号发生变化，或者版本号不存在的缓存
+     */
+    void checkVersions() {
+        try {
+            List<LocalCache<?>> allCaches = new ArrayList<>(caches.values());
+            List<Long> versions = getVersions(allCaches);
+            for (int i = 0; i < allCaches.size(); i++) {
+                LocalCache<?> cache = allCaches.get(i);
+                Long version = versions.get(i);
+                if (version == null || !version.equals(cache.getVersion())) {
+                    reload(cache, version);
+                }
+            }
+        } catch (Exception ex) {
+            log.error("[checkVersions][比对本地缓存的版本号失败]", ex);
+        }
+    }
+
+    private void reload(LocalCache<?> cache, Long version) {
+        try {
+            cache.reload(version);
+        } catch (Exception ex) {
+            // 加载失败时，保留原快照，等待下次刷新
+            log.error("[reload][缓存({}) 刷新失败，版本号({})]", cache.getName(), version, ex);
+        }
+    }
+
+    // ========== 版本号相关 ==========
+
+    private static String formatVersionKey(String name) {
+        return VERSION_KEY_PREFIX + name;
+    }
+
+    private Long getVersion(String name) {
+        String key = formatVersionKey(name);
+        Long version = parseVersion(stringRedisTemplate.opsForValue().get(key));
+        return version != null ? version : initVersion(key);
+    }
+
+    /**
+     * 版本号不存在时，使用当前时间戳初始化
+     *
+     * @return 版本号。初始化后依然不存在时，返回 null
+     */
+    private Long initVersion(String key) {
+        stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+        return parseVersion(stringRedisTemplate.opsForValue().get(key));
+    }
+
+    /**
+     * 一次 MGET 命令，获得多个缓存的版本号
+     */
+    private List<Long> getVersions(List<LocalCache<?>> caches) {
+        List<Long> versions = new ArrayList<>(caches.size());
+        if (caches.isEmpty()) {
+            return versions;
+        }
+        List<String> keys = new ArrayList<>(caches.size());
+        caches.forEach(cache -> keys.add(formatVersionKey(cache.getName())));
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < caches.size(); i++) {
+            Long version = parseVersion(values != null ? values.get(i) : null);
+            versions.add(version != null ? version : initVersion(keys.get(i)));
+        }
+        return versions;
+    }
+
+    /**
+     * 解析版本号。不存在时，返回 null
+     */
+    private static Long parseVersion(String value) {
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    // ========== 指标相关 ==========
+
+    private void registerMeters(LocalCache<?> cache) {
+        if (meterRegistry == null) {
+            return;
+        }
+        FunctionCounter.builder("yudao.local-cache.gets", cache, LocalCache::getHitCount)
+                .description("本地缓存的读取次数").tag("cache", cache.getName()).tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("yudao.local-cache.gets", cache, LocalCache::getMissCount)
+                .description("本地缓存的读取次数").tag("cache", cache.getName()).tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("yudao.local-cache.reloads", cache, LocalCache::getReloadCount)
+                .description("本地缓存的刷新次数").tag("cache", cache.getName())
+                .register(meterRegistry);
+        Gauge.builder("yudao.local-cache.reload.duration", cache, LocalCache::getLastReloadMillis)
+                .description("本地缓存最近一次刷新的耗时，单位：毫秒").tag("cache", cache.getName())
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,49 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按需加载的 {@link LocalCache}，首次读取某个 key 时，从数据源加载并缓存
+ *
+ * 适用于无法全量加载的场景，例如说数据按照租户隔离。快照是一个 ConcurrentHashMap，每次刷新时整体替换为新的空 Map，
+ * 所以数据变更时，和全量加载的缓存一样，调用 {@link LocalCacheManager#invalidate(String)} 方法，各节点的缓存即会失效。
+ *
+ * 注意，不缓存空值，数据不存在时，每次读取都会访问数据源
+ *
+ * @param <K> key 类型
+ * @param <V> value 类型
+ *
+ * @author 芋道源码
+ */
+public class ReadThroughLocalCache<K, V> extends LocalCache<Map<K, V>> {
+
+    public ReadThroughLocalCache(String name) {
+        super(name, ConcurrentHashMap::new);
+    }
+
+    /**
+     * 获得 key 对应的数据。未命中时，使用 loader 加载并缓存
+     *
+     * 加载期间缓存被刷新时，数据写入的是刷新前的快照，随之丢弃，不会缓存刷新前读取的旧数据
+     *
+     * @param key key
+     * @param loader 数据源的加载函数
+     * @return 数据
+     */
+    public V get(K key, Function<K, V> loader) {
+        Map<K, V> snapshot = get();
+        V value = snapshot.get(key);
+        recordGet(value != null);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            snapshot.put(key, value);
+        }
+        return value;
+    }
+
+}
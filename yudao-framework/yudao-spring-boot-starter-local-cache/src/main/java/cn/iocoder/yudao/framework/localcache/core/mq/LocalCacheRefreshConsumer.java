@@ -0,0 +1,25 @@
+package cn.iocoder.yudao.framework.localcache.core.mq;
+
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessageListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 针对 {@link LocalCacheRefreshMessage} 的消费者
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LocalCacheRefreshConsumer extends AbstractChannelMessageListener<LocalCacheRefreshMessage> {
+
+    private final LocalCacheManager localCacheManager;
+
+    @Override
+    public void onMessage(LocalCacheRefreshMessage message) {
+        log.info("[onMessage][收到缓存({}) 刷新消息]", message.getName());
+        localCacheManager.refresh(message.getName());
+    }
+
+}
@@ -0,0 +1,26 @@
+package cn.iocoder.yudao.framework.localcache.core.mq;
+
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessage;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 本地缓存刷新 Message
+ *
+ * @author 芋道源码
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LocalCacheRefreshMessage extends AbstractChannelMessage {
+
+    /**
+     * 缓存名
+     */
+    private String name;
+
+    @Override
+    public String getChannel() {
+        return "framework.local-cache.refresh";
+    }
+
+}
@@ -0,0 +1,7 @@
+/**
+ * 本地缓存，将 DB 中变化不频繁的数据，以快照的形式缓存在 JVM 中
+ *
+ * 1. 多节点之间，基于 Redis 的版本号 + Pub/Sub 实现缓存刷新，替代每个缓存定时 COUNT 查询 DB 的轮询
+ * 2. 刷新时，构建新的快照后整体替换，读取时不会看到刷新到一半的数据
+ */
+package cn.iocoder.yudao.framework.localcache;
@@ -0,0 +1,97 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LocalCacheManagerTest {
+
+    private static final String KEY = "local_cache_version:test";
+
+    private ValueOperations<String, String> valueOperations;
+    private LocalCacheManager localCacheManager;
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private LocalCache<String> cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        localCacheManager = new LocalCacheManager(stringRedisTemplate, mock(RedisMQTemplate.class),
+                Duration.ofMinutes(1), null);
+        cache = new LocalCache<>("test", () -> "v" + loadCount.incrementAndGet());
+        localCacheManager.register(cache);
+    }
+
+    @Test
+    public void testCheckVersions_unchanged() {
+        mockVersion("5");
+        cache.reload(5L);
+
+        // 调用
+        localCacheManager.checkVersions();
+        // 断言，版本号未变化，无需刷新
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testCheckVersions_rollback() {
+        mockVersion("2");
+        cache.reload(5L);
+
+        // 调用，Redis 数据丢失后版本号回退
+        localCacheManager.checkVersions();
+        // 断言，版本号不同即刷新
+        assertEquals(2, loadCount.get());
+        assertEquals(2L, cache.getVersion());
+    }
+
+    @Test
+    public void testCheckVersions_missing() {
+        cache.reload(5L);
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList(null));
+        when(valueOperations.setIfAbsent(eq(KEY), anyString())).thenReturn(true);
+        when(valueOperations.get(KEY)).thenReturn("1666000000000");
+
+        // 调用，版本号不存在
+        localCacheManager.checkVersions();
+        // 断言，使用时间戳初始化版本号，并刷新
+        verify(valueOperations).setIfAbsent(eq(KEY), anyString());
+        assertEquals(2, loadCount.get());
+        assertEquals(1666000000000L, cache.getVersion());
+    }
+
+    @Test
+    public void testCheckVersions_missingAndInitFail() {
+        cache.reload(5L);
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList(null));
+
+        // 调用，版本号不存在，并且初始化失败
+        localCacheManager.checkVersions();
+        localCacheManager.checkVersions();
+        // 断言，每次都刷新
+        assertEquals(3, loadCount.get());
+        assertNotNull(cache.getVersion());
+    }
+
+    private void mockVersion(String version) {
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList(version));
+    }
+
+}
@@ -0,0 +1,95 @@
+package cn.iocoder.yudao.framework.localcache.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCacheTest {
+
+    @Test
+    public void testGet_lazyLoad() {
+        AtomicInteger loadCount = new AtomicInteger();
+        LocalCache<String> cache = new LocalCache<>("test", () -> "v" + loadCount.incrementAndGet());
+
+        // 调用，首次读取时加载
+        assertEquals("v1", cache.get());
+        assertEquals("v1", cache.get());
+        // 断言
+        assertEquals(1, loadCount.get());
+        assertNull(cache.getVersion());
+        assertEquals(1, cache.getReloadCount());
+    }
+
+    @Test
+    public void testGet_metrics() {
+        LocalCache<String> cache = new LocalCache<>("test", () -> "value");
+
+        // 调用
+        assertEquals("value", cache.get(snapshot -> snapshot));
+        assertNull(cache.get(snapshot -> null));
+        // 断言
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testReload_version() {
+        AtomicInteger loadCount = new AtomicInteger();
+        LocalCache<String> cache = new LocalCache<>("test", () -> "v" + loadCount.incrementAndGet());
+
+        // 调用，刷新到版本 2
+        cache.reload(2L);
+        assertEquals("v1", cache.get());
+        assertEquals(2L, cache.getVersion());
+        // 调用，Redis 数据丢失后版本号回退，以最新读取的为准
+        cache.reload(1L);
+        assertEquals("v2", cache.get());
+        assertEquals(1L, cache.getVersion());
+        // 调用，强制刷新，版本号不变
+        cache.reload();
+        assertEquals("v3", cache.get());
+        assertEquals(1L, cache.getVersion());
+    }
+
+    @Test
+    public void testReload_delta() {
+        LocalCache<String> cache = new LocalCache<>("test", new LocalCacheLoader<String>() {
+
+            @Override
+            public String load() {
+                return "full";
+            }
+
+            @Override
+            public String loadDelta(String snapshot) {
+                return snapshot + "+delta";
+            }
+
+        });
+
+        // 调用，首次全量加载，之后增量加载
+        cache.reload();
+        assertEquals("full", cache.get());
+        cache.reload();
+        assertEquals("full+delta", cache.get());
+    }
+
+    @Test
+    public void testReload_fail() {
+        AtomicInteger loadCount = new AtomicInteger();
+        LocalCache<String> cache = new LocalCache<>("test", () -> {
+            if (loadCount.incrementAndGet() > 1) {
+                throw new IllegalStateException("load fail");
+            }
+            return "v1";
+        });
+        cache.reload();
+
+        // 调用，加载失败时，保留原快照
+        assertThrows(IllegalStateException.class, cache::reload);
+        assertEquals("v1", cache.get());
+    }
+
+}
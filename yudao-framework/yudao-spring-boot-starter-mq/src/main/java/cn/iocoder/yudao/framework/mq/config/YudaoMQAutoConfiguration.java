@@ -6,11 +6,19 @@ import cn.hutool.system.SystemUtil;
 import cn.iocoder.yudao.framework.common.enums.DocumentEnum;
 import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
 import cn.iocoder.yudao.framework.mq.core.interceptor.RedisMessageInterceptor;
+import cn.iocoder.yudao.framework.mq.core.local.LocalMQTemplate;
+import cn.iocoder.yudao.framework.mq.core.local.LocalMessageListenerContainer;
 import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessageListener;
 import cn.iocoder.yudao.framework.mq.core.stream.AbstractStreamMessageListener;
+import cn.iocoder.yudao.framework.mq.core.stream.StreamPendingMessageReclaimer;
+import cn.iocoder.yudao.framework.mq.core.stream.StreamRetentionTrimmer;
 import cn.iocoder.yudao.framework.redis.config.YudaoRedisAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisServerCommands;
@@ -26,8 +34,10 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.stream.DefaultStreamMessageListenerContainerX;
 import org.springframework.data.redis.stream.StreamMessageListenerContainer;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * 消息队列配置类
@@ -36,10 +46,12 @@ import java.util.Properties;
  */
 @Configuration
 @AutoConfigureAfter(YudaoRedisAutoConfiguration.class)
+@EnableConfigurationProperties(YudaoMQProperties.class)
 @Slf4j
 public class YudaoMQAutoConfiguration {
 
     @Bean
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "redis", matchIfMissing = true)
     public RedisMQTemplate redisMQTemplate(StringRedisTemplate redisTemplate,
                                            List<RedisMessageInterceptor> interceptors) {
         RedisMQTemplate redisMQTemplate = new RedisMQTemplate(redisTemplate);
@@ -48,12 +60,51 @@ public class YudaoMQAutoConfiguration {
         return redisMQTemplate;
     }
 
+    // ========== JVM 进程内实现，适合单机部署 ==========
+
+    @Bean
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "local")
+    public LocalMQTemplate localMQTemplate(StringRedisTemplate redisTemplate,
+                                           List<RedisMessageInterceptor> interceptors) {
+        LocalMQTemplate localMQTemplate = new LocalMQTemplate(redisTemplate);
+        // 添加拦截器
+        interceptors.forEach(localMQTemplate::addInterceptor);
+        return localMQTemplate;
+    }
+
+    /**
+     * 创建 JVM 进程内的消费容器，替代 Redis Pub/Sub、Redis Stream 的消费容器
+     *
+     * 容器由 LocalMQTemplate 创建，这里只负责注册监听器，避免 LocalMQTemplate 依赖监听器导致循环依赖
+     */
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "local")
+    public LocalMessageListenerContainer localMessageListenerContainer(
+            LocalMQTemplate localMQTemplate, List<AbstractChannelMessageListener<?>> channelListeners,
+            List<AbstractStreamMessageListener<?>> streamListeners) {
+        LocalMessageListenerContainer container = localMQTemplate.getContainer();
+        channelListeners.forEach(listener -> {
+            listener.setRedisMQTemplate(localMQTemplate);
+            container.addChannelListener(listener);
+            log.info("[localMessageListenerContainer][注册 Channel({}) 对应的监听器({})]",
+                    listener.getChannel(), listener.getClass().getName());
+        });
+        streamListeners.forEach(listener -> {
+            listener.setRedisMQTemplate(localMQTemplate);
+            container.addStreamListener(listener);
+            log.info("[localMessageListenerContainer][注册 Stream({}) 对应的监听器({})]",
+                    listener.getStreamKey(), listener.getClass().getName());
+        });
+        return container;
+    }
+
     // ========== 消费者相关 ==========
 
     /**
      * 创建 Redis Pub/Sub 广播消费的容器
      */
     @Bean
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "redis", matchIfMissing = true)
     public RedisMessageListenerContainer redisMessageListenerContainer(
             RedisMQTemplate redisMQTemplate, List<AbstractChannelMessageListener<?>> listeners) {
         // 创建 RedisMessageListenerContainer 对象
@@ -76,6 +127,7 @@ public class YudaoMQAutoConfiguration {
      * Redis Stream 的 xreadgroup 命令：https://www.geek-book.com/src/docs/redis/redis/redis.io/commands/xreadgroup.html
      */
     @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "redis", matchIfMissing = true)
     public StreamMessageListenerContainer<String, ObjectRecord<String, String>> redisStreamMessageListenerContainer(
             RedisMQTemplate redisMQTemplate, List<AbstractStreamMessageListener<?>> listeners) {
         RedisTemplate<String, ?> redisTemplate = redisMQTemplate.getRedisTemplate();
@@ -84,7 +136,7 @@ public class YudaoMQAutoConfiguration {
         // 创建 options 配置
         StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, ObjectRecord<String, String>> containerOptions =
                 StreamMessageListenerContainer.StreamMessageListenerContainerOptions.builder()
-                        .batchSize(10) // 一次性最多拉取多少条消息
+                        .batchSize(10) // 一次性最多拉取多少条消息。AbstractStreamBatchMessageListener 使用自己的 batchSize、pollTimeout 配置
                         .targetType(String.class) // 目标类型。统一使用 String，通过自己封装的 AbstractStreamMessageListener 去反序列化
                         .build();
         // 创建 container 对象
@@ -115,6 +167,33 @@ public class YudaoMQAutoConfiguration {
         return container;
     }
 
+    /**
+     * 创建 Redis Stream pending 消息的认领器，负责消费失败的消息的重试、死信
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "redis", matchIfMissing = true)
+    public StreamPendingMessageReclaimer streamPendingMessageReclaimer(
+            RedisMQTemplate redisMQTemplate, List<AbstractStreamMessageListener<?>> listeners,
+            StreamMessageListenerContainer<String, ObjectRecord<String, String>> redisStreamMessageListenerContainer) {
+        // 依赖 redisStreamMessageListenerContainer 的原因：保证 listener 已经创建消费者分组、设置 redisTemplate
+        return new StreamPendingMessageReclaimer(redisMQTemplate, listeners, buildConsumerName());
+    }
+
+    /**
+     * 创建 Redis Stream 的裁剪器，按照保留策略裁剪 Stream，并暴露 Stream 的指标
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "yudao.mq", name = "transport", havingValue = "redis", matchIfMissing = true)
+    public StreamRetentionTrimmer streamRetentionTrimmer(RedisMQTemplate redisMQTemplate, YudaoMQProperties properties,
+                                                         List<AbstractStreamMessageListener<?>> listeners,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        // 当前应用有监听器的 Stream + 额外配置的 Stream
+        Set<String> streamKeys = new LinkedHashSet<>(properties.getStream().getKeys());
+        listeners.forEach(listener -> streamKeys.add(listener.getStreamKey()));
+        return new StreamRetentionTrimmer(redisMQTemplate, properties.getStream(), streamKeys,
+                meterRegistry.getIfAvailable()); // 未引入 Actuator 时，不暴露指标
+    }
+
     /**
      * 构建消费者名字，使用本地 IP + 进程编号的方式。
      * 参考自 RocketMQ clientId 的实现
@@ -0,0 +1,77 @@
+package cn.iocoder.yudao.framework.mq.config;
+
+import cn.iocoder.yudao.framework.mq.core.enums.MQTransportEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 消息队列配置
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.mq")
+@Data
+public class YudaoMQProperties {
+
+    /**
+     * 传输方式，默认基于 Redis 实现
+     */
+    private MQTransportEnum transport = MQTransportEnum.REDIS;
+    /**
+     * Redis Stream 配置
+     */
+    private Stream stream = new Stream();
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 裁剪 Stream、刷新指标的间隔
+         */
+        private Duration trimPeriod = Duration.ofMinutes(1);
+        /**
+         * 默认的保留策略，适用于未在 {@link #retentions} 中配置的 Stream
+         */
+        private Retention defaultRetention = new Retention();
+        /**
+         * 每个 Stream 的保留策略
+         *
+         * key：Stream Key
+         */
+        private Map<String, Retention> retentions = Collections.emptyMap();
+        /**
+         * 额外需要裁剪、监控的 Stream Key
+         *
+         * 默认只处理当前应用有监听器的 Stream；只发送、不消费的应用，可以在这里配置
+         */
+        private Set<String> keys = Collections.emptySet();
+
+    }
+
+    /**
+     * Stream 的保留策略。两者都配置时，同时生效
+     */
+    @Data
+    public static class Retention {
+
+        /**
+         * 最大长度，使用 XTRIM MAXLEN ~ 近似裁剪。为空时，不限制
+         *
+         * 不会裁剪还未投递、或者还在 pending 列表中的消息。消费积压时，Stream 的长度可能超过最大长度
+         */
+        private Long maxLength;
+        /**
+         * 最长保留时间，使用 XTRIM MINID ~ 近似裁剪，需要 Redis 6.2 版本。为空时，不限制
+         *
+         * 不会裁剪还未投递、或者还在 pending 列表中的消息
+         */
+        private Duration maxAge;
+
+    }
+
+}
@@ -9,9 +9,15 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -39,7 +45,7 @@ public class RedisMQTemplate {
         try {
             sendMessageBefore(message);
             // 发送消息
-            redisTemplate.convertAndSend(message.getChannel(), JsonUtils.toJsonString(message));
+            doSend(message.getChannel(), JsonUtils.toJsonString(message));
         } finally {
             sendMessageAfter(message);
         }
@@ -55,14 +61,133 @@ public class RedisMQTemplate {
         try {
             sendMessageBefore(message);
             // 发送消息
-            return redisTemplate.opsForStream().add(StreamRecords.newRecord()
-                    .ofObject(JsonUtils.toJsonString(message)) // 设置内容
-                    .withStreamKey(message.getStreamKey())); // 设置 stream key
+            return doSend(message, JsonUtils.toJsonString(message));
         } finally {
             sendMessageAfter(message);
         }
     }
 
+    /**
+     * 批量发送 Redis 消息，支持 pub/sub 和 Stream 消息混合发送
+     *
+     * 每条消息依然会执行拦截器，但是所有的 PUBLISH、XADD 命令，通过一次 pipeline 发送，只需要一次网络往返
+     *
+     * @param messages 消息数组
+     */
+    public void sendBatch(Collection<? extends AbstractRedisMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<AbstractRedisMessage> sentMessages = new ArrayList<>(messages.size());
+        try {
+            // 执行拦截器，并序列化消息
+            List<String> contents = new ArrayList<>(messages.size());
+            for (AbstractRedisMessage message : messages) {
+                sentMessages.add(message);
+                sendMessageBefore(message);
+                contents.add(JsonUtils.toJsonString(message));
+            }
+            // 发送消息
+            doSendBatch(sentMessages, contents);
+        } finally {
+            sentMessages.forEach(this::sendMessageAfter);
+        }
+    }
+
+    // ========== 消息的发送，子类可以重写，实现其它的传输方式 ==========
+
+    /**
+     * 发送 pub/sub 消息
+     *
+     * @param channel Redis Channel
+     * @param content 消息内容
+     */
+    protected void doSend(String channel, String content) {
+        redisTemplate.convertAndSend(channel, content);
+    }
+
+    /**
+     * 发送 Stream 消息
+     *
+     * @param message 消息
+     * @param content 消息内容
+     * @return 消息记录的编号对象
+     */
+    protected RecordId doSend(AbstractStreamMessage message, String content) {
+        return redisTemplate.opsForStream().add(StreamRecords.newRecord()
+                .ofObject(content) // 设置内容
+                .withStreamKey(message.getStreamKey())); // 设置 stream key
+    }
+
+    /**
+     * 批量发送消息，通过 pipeline 一次网络往返
+     *
+     * @param messages 消息数组
+     * @param contents 消息内容数组，和 messages 一一对应
+     */
+    protected void doSendBatch(List<AbstractRedisMessage> messages, List<String> contents) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, ?> stringOperations = (RedisOperations<String, ?>) operations;
+                for (int i = 0; i < messages.size(); i++) {
+                    AbstractRedisMessage message = messages.get(i);
+                    if (message instanceof AbstractChannelMessage) {
+                        stringOperations.convertAndSend(((AbstractChannelMessage) message).getChannel(), contents.get(i));
+                    } else if (message instanceof AbstractStreamMessage) {
+                        stringOperations.opsForStream().add(StreamRecords.newRecord()
+                                .ofObject(contents.get(i)) // 设置内容
+                                .withStreamKey(((AbstractStreamMessage) message).getStreamKey())); // 设置 stream key
+                    } else {
+                        throw new IllegalArgumentException(String.format("未知的消息类型(%s)", message.getClass().getName()));
+                    }
+                }
+                return null;
+            }
+
+        });
+    }
+
+    // ========== 事务相关 ==========
+
+    /**
+     * 在事务提交后，发送 Redis 消息
+     *
+     * 同一个事务中的多条消息，会在事务提交后，通过 {@link #sendBatch(Collection)} 一次性发送；事务回滚时，不发送。
+     * 如果当前不存在事务，则直接发送
+     *
+     * @param message 消息
+     */
+    @SuppressWarnings("unchecked")
+    public void sendAfterCommit(AbstractRedisMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sendBatch(Collections.singletonList(message));
+            return;
+        }
+        List<AbstractRedisMessage> messages = (List<AbstractRedisMessage>) TransactionSynchronizationManager.getResource(this);
+        if (messages == null) {
+            List<AbstractRedisMessage> pendingMessages = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, pendingMessages);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCommit() {
+                    sendBatch(pendingMessages);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RedisMQTemplate.this);
+                }
+
+            });
+            messages = pendingMessages;
+        }
+        messages.add(message);
+    }
+
     /**
      * 添加拦截器
      *
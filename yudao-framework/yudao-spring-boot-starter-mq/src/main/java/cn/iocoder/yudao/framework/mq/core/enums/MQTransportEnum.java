@@ -0,0 +1,33 @@
+package cn.iocoder.yudao.framework.mq.core.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 消息队列的传输方式枚举
+ *
+ * @author 芋道源码
+ */
+@Getter
+@AllArgsConstructor
+public enum MQTransportEnum {
+
+    /**
+     * 基于 Redis 实现，Channel 消息使用 pub/sub，Stream 消息使用 Stream
+     *
+     * 适合集群部署
+     */
+    REDIS("redis"),
+    /**
+     * 基于 JVM 进程内实现，消息不经过 Redis
+     *
+     * 适合单机部署。注意，Stream 消息只投递一次：消费失败、或者进程重启时，消息会丢失
+     */
+    LOCAL("local");
+
+    /**
+     * 传输方式
+     */
+    private final String transport;
+
+}
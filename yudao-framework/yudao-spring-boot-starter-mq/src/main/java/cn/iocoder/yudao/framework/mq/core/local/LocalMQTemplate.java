@@ -0,0 +1,60 @@
+package cn.iocoder.yudao.framework.mq.core.local;
+
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import cn.iocoder.yudao.framework.mq.core.message.AbstractRedisMessage;
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessage;
+import cn.iocoder.yudao.framework.mq.core.stream.AbstractStreamMessage;
+import lombok.Getter;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 JVM 进程内实现的 {@link RedisMQTemplate}，适合单机部署，消息不经过 Redis
+ *
+ * 发送、消费的拦截器和 Redis 实现保持一致，所以业务的 Producer、Consumer 无需修改
+ *
+ * @author 芋道源码
+ */
+public class LocalMQTemplate extends RedisMQTemplate {
+
+    @Getter
+    private final LocalMessageListenerContainer container = new LocalMessageListenerContainer();
+
+    /**
+     * Stream 消息编号的序号，用于生成 {@link RecordId}
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    public LocalMQTemplate(RedisTemplate<String, ?> redisTemplate) {
+        super(redisTemplate);
+    }
+
+    @Override
+    protected void doSend(String channel, String content) {
+        container.dispatchChannelMessage(channel, content);
+    }
+
+    @Override
+    protected RecordId doSend(AbstractStreamMessage message, String content) {
+        container.dispatchStreamMessage(message.getStreamKey(), content);
+        return RecordId.of(System.currentTimeMillis(), sequence.incrementAndGet());
+    }
+
+    @Override
+    protected void doSendBatch(List<AbstractRedisMessage> messages, List<String> contents) {
+        for (int i = 0; i < messages.size(); i++) {
+            AbstractRedisMessage message = messages.get(i);
+            if (message instanceof AbstractChannelMessage) {
+                doSend(((AbstractChannelMessage) message).getChannel(), contents.get(i));
+            } else if (message instanceof AbstractStreamMessage) {
+                doSend((AbstractStreamMessage) message, contents.get(i));
+            } else {
+                throw new IllegalArgumentException(String.format("未知的消息类型(%s)", message.getClass().getName()));
+            }
+        }
+    }
+
+}
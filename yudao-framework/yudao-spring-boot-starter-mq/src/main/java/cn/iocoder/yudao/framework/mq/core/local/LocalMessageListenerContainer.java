@@ -0,0 +1,124 @@
+package cn.iocoder.yudao.framework.mq.core.local;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessageListener;
+import cn.iocoder.yudao.framework.mq.core.stream.AbstractStreamMessageListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * JVM 进程内的消息监听器容器，替代 RedisMessageListenerContainer、StreamMessageListenerContainer
+ *
+ * 1. Channel 消息：同步广播给该 Channel 的所有监听器，发送方等待所有监听器消费完成
+ * 2. Stream 消息：投递给该 Stream 的所有监听器，由监听器的 lane 线程异步消费，见 {@link AbstractStreamMessageListener#onLocalMessage(String)}
+ *
+ * Channel 消息在独立的分发线程中消费，而不是发送方的线程，避免 consumer 的拦截器（例如说，清理租户上下文）影响发送方的上下文
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class LocalMessageListenerContainer {
+
+    /**
+     * 标记当前线程是否为 Channel 消息的分发线程，用于监听器内部再发送 Channel 消息时，直接在当前线程消费，避免死锁
+     */
+    private static final ThreadLocal<Boolean> DISPATCHING = new ThreadLocal<>();
+
+    /**
+     * Channel 的监听器
+     *
+     * key：Redis Channel
+     */
+    private final Map<String, List<AbstractChannelMessageListener<?>>> channelListeners = new ConcurrentHashMap<>();
+    /**
+     * Stream 的监听器
+     *
+     * key：Stream Key
+     */
+    private final Map<String, List<AbstractStreamMessageListener<?>>> streamListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Channel 消息的分发线程
+     */
+    private final ExecutorService channelExecutor = Executors.newSingleThreadExecutor(
+            new NamedThreadFactory("local-mq-channel-", true));
+
+    public void addChannelListener(AbstractChannelMessageListener<?> listener) {
+        channelListeners.computeIfAbsent(listener.getChannel(), key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void addStreamListener(AbstractStreamMessageListener<?> listener) {
+        streamListeners.computeIfAbsent(listener.getStreamKey(), key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * 同步广播 Channel 消息
+     *
+     * @param channel Redis Channel
+     * @param content 消息内容
+     */
+    public void dispatchChannelMessage(String channel, String content) {
+        List<AbstractChannelMessageListener<?>> listeners = channelListeners.getOrDefault(channel, Collections.emptyList());
+        if (listeners.isEmpty()) {
+            return;
+        }
+        // 情况一：已经在分发线程中，直接消费
+        if (Boolean.TRUE.equals(DISPATCHING.get())) {
+            doDispatchChannelMessage(listeners, channel, content);
+            return;
+        }
+        // 情况二：提交到分发线程，并等待消费完成
+        Future<?> future = channelExecutor.submit(() -> {
+            DISPATCHING.set(Boolean.TRUE);
+            try {
+                doDispatchChannelMessage(listeners, channel, content);
+            } finally {
+                DISPATCHING.remove();
+            }
+        });
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            log.error("[dispatchChannelMessage][Channel({}) 分发消息({}) 失败]", channel, content, ex.getCause());
+        }
+    }
+
+    private void doDispatchChannelMessage(List<AbstractChannelMessageListener<?>> listeners,
+                                          String channel, String content) {
+        DefaultMessage message = new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8),
+                content.getBytes(StandardCharsets.UTF_8));
+        // 单个监听器消费失败，不影响其它监听器
+        listeners.forEach(listener -> {
+            try {
+                listener.onMessage(message, null);
+            } catch (Exception ex) {
+                log.error("[doDispatchChannelMessage][Channel({}) 监听器({}) 消费消息({}) 失败]",
+                        channel, listener.getClass().getName(), content, ex);
+            }
+        });
+    }
+
+    /**
+     * 投递 Stream 消息
+     *
+     * @param streamKey Stream Key
+     * @param content 消息内容
+     */
+    public void dispatchStreamMessage(String streamKey, String content) {
+        streamListeners.getOrDefault(streamKey, Collections.emptyList())
+                .forEach(listener -> listener.onLocalMessage(content));
+    }
+
+    public void stop() {
+        channelExecutor.shutdown();
+    }
+
+}
@@ -0,0 +1,152 @@
+package cn.iocoder.yudao.framework.mq.core.stream;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.stream.DefaultStreamMessageListenerContainerX;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Redis Stream 批量消费的监听器抽象类，适合短时间内大量消息的场景
+ *
+ * 和 {@link AbstractStreamMessageListener} 的区别：
+ * 1. 一次拉取最多 {@link #batchSize} 条消息，整批回调 {@link #onMessages(List)} 方法
+ * 2. 整批消息处理完成后，只需要一次 XACK 命令，而不是每条消息一次。{@link #onMessages(List)} 返回的消费失败的消息不会 ack，由 pending 重试
+ * 3. 如果 concurrency 大于 1，整批消息按照 lane 拆分成多个子批次并发消费，每个子批次一次 XACK 命令
+ *
+ * 因为 {@link cn.iocoder.yudao.framework.mq.core.interceptor.RedisMessageInterceptor} 基于消息的 headers 设置上下文（例如说，租户编号），
+ * 所以会将 headers 相同的连续消息，作为一个子批次进行回调，保证同一次回调中的消息，上下文是一致的
+ *
+ * @param <T> 消息类型。一定要填写噢，不然会报错
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public abstract class AbstractStreamBatchMessageListener<T extends AbstractStreamMessage>
+        extends AbstractStreamMessageListener<T>
+        implements DefaultStreamMessageListenerContainerX.BatchStreamListener<String, ObjectRecord<String, String>> {
+
+    /**
+     * 一次最多拉取多少条消息
+     */
+    @Getter
+    @Setter
+    private int batchSize = 100;
+    /**
+     * 没有消息时，阻塞等待的时长
+     */
+    @Getter
+    @Setter
+    private Duration pollTimeout = Duration.ofSeconds(2);
+
+    @Override
+    public void onMessageBatch(List<ObjectRecord<String, String>> messages) {
+        dispatchMessages(messages);
+    }
+
+    /**
+     * 分发消息进行消费。如果 concurrency 大于 1，按照 lane 拆分成多个子批次，分发到 lane 中消费
+     *
+     * @param messages Stream 消息数组
+     */
+    private void dispatchMessages(List<ObjectRecord<String, String>> messages) {
+        List<T> messageObjs = new ArrayList<>(messages.size());
+        messages.forEach(message -> messageObjs.add(parseMessage(message)));
+        if (getConcurrency() <= 1) {
+            consumeMessages(messages, messageObjs);
+            return;
+        }
+        // 按照 lane 拆分成多个子批次，分发到 lane 中消费
+        StreamLaneExecutor executor = getLaneExecutor();
+        List<List<ObjectRecord<String, String>>> laneMessages = new ArrayList<>(executor.getLaneCount());
+        List<List<T>> laneMessageObjs = new ArrayList<>(executor.getLaneCount());
+        for (int i = 0; i < executor.getLaneCount(); i++) {
+            laneMessages.add(new ArrayList<>());
+            laneMessageObjs.add(new ArrayList<>());
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            int lane = executor.selectLane(messageObjs.get(i).getOrderKey());
+            laneMessages.get(lane).add(messages.get(i));
+            laneMessageObjs.get(lane).add(messageObjs.get(i));
+        }
+        for (int lane = 0; lane < executor.getLaneCount(); lane++) {
+            if (laneMessages.get(lane).isEmpty()) {
+                continue;
+            }
+            List<ObjectRecord<String, String>> subMessages = laneMessages.get(lane);
+            List<T> subMessageObjs = laneMessageObjs.get(lane);
+            executor.execute(lane, () -> consumeMessages(subMessages, subMessageObjs));
+        }
+    }
+
+    private void consumeMessages(List<ObjectRecord<String, String>> messages, List<T> messageObjs) {
+        // 已处理完成的消息编号，统一 ack
+        List<RecordId> recordIds = new ArrayList<>(messages.size());
+        try {
+            for (int from = 0; from < messageObjs.size(); ) {
+                // 获得 headers 相同的连续消息
+                int to = from + 1;
+                while (to < messageObjs.size()
+                        && Objects.equals(messageObjs.get(from).getHeaders(), messageObjs.get(to).getHeaders())) {
+                    to++;
+                }
+                List<T> subMessages = messageObjs.subList(from, to);
+                List<T> failedMessages;
+                consumeMessageBefore(subMessages.get(0));
+                try {
+                    failedMessages = this.onMessages(subMessages);
+                } finally {
+                    consumeMessageAfter(subMessages.get(0));
+                }
+                // 消费失败的消息不 ack，保留在 pending 列表中重试
+                Set<T> failedMessageSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                if (CollUtil.isNotEmpty(failedMessages)) {
+                    failedMessageSet.addAll(failedMessages);
+                    log.warn("[consumeMessages][Stream({}) {} 条消息消费失败，等待重试]", getStreamKey(), failedMessageSet.size());
+                }
+                for (int i = from; i < to; i++) {
+                    if (!failedMessageSet.contains(messageObjs.get(i))) {
+                        recordIds.add(messages.get(i).getId());
+                    }
+                }
+                from = to;
+            }
+        } finally {
+            // ack 消息消费完成。如果中途发生异常，只 ack 在此之前的子批次中处理成功的消息
+            if (!recordIds.isEmpty()) {
+                acknowledge(recordIds.toArray(new RecordId[0]));
+            }
+        }
+    }
+
+    @Override
+    void onRetryMessages(List<ObjectRecord<String, String>> messages) {
+        // 和拉取的消息一样分发到 lane 中，保证重试时 orderKey 相同的消息依然按顺序消费
+        dispatchMessages(messages);
+    }
+
+    /**
+     * 批量处理消息
+     *
+     * 返回的消费失败的消息不会 ack，保留在 pending 列表中重试，其它消息正常 ack。
+     * 注意，如果抛出异常，则整批消息都不会 ack，都会被重试。所以，对于发送短信等不幂等的操作，需要逐条 catch 异常，返回消费失败的消息
+     *
+     * @param messages 消息数组，不为空
+     * @return 消费失败的消息数组，需要是 messages 中的对象。全部成功时，返回空数组
+     */
+    public abstract List<T> onMessages(List<T> messages);
+
+    @Override
+    public final void onMessage(T message) {
+        List<T> failedMessages = onMessages(Collections.singletonList(message));
+        if (CollUtil.isNotEmpty(failedMessages)) {
+            throw new IllegalStateException(String.format("Stream(%s) 消息消费失败", getStreamKey()));
+        }
+    }
+
+}
@@ -18,4 +18,16 @@ public abstract class AbstractStreamMessage extends AbstractRedisMessage {
     @JsonIgnore // 避免序列化
     public abstract String getStreamKey();
 
+    /**
+     * 获得顺序消费的 key，相同 key 的消息按照发送顺序消费
+     *
+     * 只在监听器的 concurrency 大于 1 时生效，默认返回 null 表示无需保证顺序
+     *
+     * @return 顺序消费的 key
+     */
+    @JsonIgnore // 避免序列化
+    public String getOrderKey() {
+        return null;
+    }
+
 }
@@ -8,11 +8,15 @@ import cn.iocoder.yudao.framework.mq.core.message.AbstractRedisMessage;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.stream.StreamListener;
 
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -22,8 +26,9 @@ import java.util.List;
  *
  * @author 芋道源码
  */
+@Slf4j
 public abstract class AbstractStreamMessageListener<T extends AbstractStreamMessage>
-        implements StreamListener<String, ObjectRecord<String, String>> {
+        implements StreamListener<String, ObjectRecord<String, String>>, DisposableBean {
 
     /**
      * 消息类型
@@ -47,6 +52,34 @@ public abstract class AbstractStreamMessageListener<T extends AbstractStreamMess
     @Setter
     private RedisMQTemplate redisMQTemplate;
 
+    /**
+     * 消费失败的消息，处于 pending 状态超过该时长后，由 {@link StreamPendingMessageReclaimer} 进行重试
+     *
+     * 每多投递一次，重试间隔翻倍
+     */
+    @Getter
+    @Setter
+    private Duration retryInterval = Duration.ofMinutes(1);
+    /**
+     * 最大投递次数。超过后，移动到死信 Stream 中，见 {@link #getDeadLetterStreamKey()}
+     */
+    @Getter
+    @Setter
+    private int maxDeliveryCount = 5;
+    /**
+     * 消费的并发数
+     *
+     * 大于 1 时，拉取到的消息分发到 concurrency 个 lane 中并发消费，其中 {@link AbstractStreamMessage#getOrderKey()} 相同的消息，
+     * 分发到同一个 lane，从而保证同一个业务对象的消息按顺序消费
+     */
+    @Getter
+    @Setter
+    private int concurrency = 1;
+    /**
+     * 工作线程组，在 concurrency 大于 1 时，首次消费时创建
+     */
+    private volatile StreamLaneExecutor laneExecutor;
+
     @SneakyThrows
     protected AbstractStreamMessageListener() {
         this.messageType = getMessageClass();
@@ -55,19 +88,27 @@ public abstract class AbstractStreamMessageListener<T extends AbstractStreamMess
 
     @Override
     public void onMessage(ObjectRecord<String, String> message) {
-        // 消费消息
-        T messageObj = JsonUtils.parseObject(message.getValue(), messageType);
+        T messageObj = parseMessage(message);
+        if (concurrency <= 1) {
+            consumeMessage(message, messageObj);
+            return;
+        }
+        // 分发到 lane 中消费
+        StreamLaneExecutor executor = getLaneExecutor();
+        executor.execute(executor.selectLane(messageObj.getOrderKey()), () -> consumeMessage(message, messageObj));
+    }
+
+    private void consumeMessage(ObjectRecord<String, String> message, T messageObj) {
         try {
             consumeMessageBefore(messageObj);
             // 消费消息
             this.onMessage(messageObj);
             // ack 消息消费完成
             redisMQTemplate.getRedisTemplate().opsForStream().acknowledge(group, message);
+            // 消费失败时，消息保留在 pending 列表中，由 StreamPendingMessageReclaimer 进行重试
             // TODO 芋艿：需要额外考虑以下几个点：
-            // 1. 处理异常的情况
-            // 2. 发送日志；以及事务的结合
-            // 3. 消费日志；以及通用的幂等性
-            // 4. 消费失败的重试，https://zhuanlan.zhihu.com/p/60501638
+            // 1. 发送日志；以及事务的结合
+            // 2. 消费日志；以及通用的幂等性
         } finally {
             consumeMessageAfter(messageObj);
         }
@@ -80,6 +121,101 @@ public abstract class AbstractStreamMessageListener<T extends AbstractStreamMess
      */
     public abstract void onMessage(T message);
 
+    /**
+     * 消费 JVM 进程内投递的消息，由 LocalMessageListenerContainer 调用
+     *
+     * 消息分发到 lane 的有界队列中异步消费，相同 {@link AbstractStreamMessage#getOrderKey()} 的消息按顺序消费。
+     * 因为没有 pending 列表，所以消费失败时不会重试
+     *
+     * @param content 消息内容
+     */
+    public void onLocalMessage(String content) {
+        T messageObj = JsonUtils.parseObject(content, messageType);
+        StreamLaneExecutor executor = getLaneExecutor();
+        executor.execute(executor.selectLane(messageObj.getOrderKey()), () -> {
+            try {
+                consumeMessageBefore(messageObj);
+                // 消费消息
+                this.onMessage(messageObj);
+            } finally {
+                consumeMessageAfter(messageObj);
+            }
+        });
+    }
+
+    /**
+     * 重新消费 pending 列表中认领的消息，由 {@link StreamPendingMessageReclaimer} 调用
+     *
+     * @param messages Stream 消息数组
+     */
+    void onRetryMessages(List<ObjectRecord<String, String>> messages) {
+        for (ObjectRecord<String, String> message : messages) {
+            T messageObj = parseMessage(message);
+            if (concurrency > 1) {
+                // 和拉取的消息一样分发到 lane 中，保证重试时 orderKey 相同的消息依然按顺序消费
+                StreamLaneExecutor executor = getLaneExecutor();
+                executor.execute(executor.selectLane(messageObj.getOrderKey()), () -> consumeMessage(message, messageObj));
+                continue;
+            }
+            try {
+                consumeMessage(message, messageObj);
+            } catch (Exception ex) {
+                log.error("[onRetryMessages][Stream({}) 消息({}) 重试消费失败]", streamKey, message.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * 获得工作线程组。如果不存在，则进行创建
+     *
+     * @return 工作线程组
+     */
+    StreamLaneExecutor getLaneExecutor() {
+        if (laneExecutor == null) {
+            synchronized (this) {
+                if (laneExecutor == null) {
+                    laneExecutor = new StreamLaneExecutor(streamKey, concurrency);
+                }
+            }
+        }
+        return laneExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        if (laneExecutor != null) {
+            laneExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 获得死信 Stream，存储超过最大投递次数的消息
+     *
+     * @return 死信 Stream
+     */
+    public String getDeadLetterStreamKey() {
+        return streamKey + ":dlq";
+    }
+
+    /**
+     * 解析消息
+     *
+     * @param message Stream 消息
+     * @return 消息对象
+     */
+    T parseMessage(ObjectRecord<String, String> message) {
+        return JsonUtils.parseObject(message.getValue(), messageType);
+    }
+
+    /**
+     * 批量 ack 消息，只需要一次 XACK 命令
+     *
+     * @param recordIds 消息编号数组
+     */
+    void acknowledge(RecordId... recordIds) {
+        redisMQTemplate.getRedisTemplate().opsForStream().acknowledge(streamKey, group, recordIds);
+    }
+
     /**
      * 通过解析类上的泛型，获得消息类型
      *
@@ -94,14 +230,14 @@ public abstract class AbstractStreamMessageListener<T extends AbstractStreamMess
         return (Class<T>) type;
     }
 
-    private void consumeMessageBefore(AbstractRedisMessage message) {
+    void consumeMessageBefore(AbstractRedisMessage message) {
         assert redisMQTemplate != null;
         List<RedisMessageInterceptor> interceptors = redisMQTemplate.getInterceptors();
         // 正序
         interceptors.forEach(interceptor -> interceptor.consumeMessageBefore(message));
     }
 
-    private void consumeMessageAfter(AbstractRedisMessage message) {
+    void consumeMessageAfter(AbstractRedisMessage message) {
         assert redisMQTemplate != null;
         List<RedisMessageInterceptor> interceptors = redisMQTemplate.getInterceptors();
         // 倒序
@@ -0,0 +1,114 @@
+package cn.iocoder.yudao.framework.mq.core.stream;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Redis Stream 监听器的工作线程组，每个 lane 是一个单线程 + 有界队列的线程池
+ *
+ * 1. 相同 orderKey 的消息，分发到同一个 lane，保证按照拉取的顺序消费
+ * 2. 没有 orderKey 的消息，轮询分发到各个 lane
+ * 3. lane 的队列满时，阻塞拉取消息的线程，避免消息无限堆积在内存中
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+class StreamLaneExecutor {
+
+    /**
+     * 每个 lane 的队列大小
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+    /**
+     * 关闭时，等待 lane 中消息消费完成的时长，单位：秒
+     */
+    private static final long AWAIT_TERMINATION_SECONDS = 10;
+
+    private final String streamKey;
+    private final ThreadPoolExecutor[] lanes;
+    /**
+     * 轮询分发的计数器
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    StreamLaneExecutor(String streamKey, int concurrency) {
+        this.streamKey = streamKey;
+        this.lanes = new ThreadPoolExecutor[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                    new NamedThreadFactory(String.format("redis-stream-%s-lane-%d-", streamKey, i), true),
+                    (task, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException(String.format("Stream(%s) 的 lane 已关闭", streamKey));
+                        }
+                        // 队列已满，阻塞等待，实现背压
+                        try {
+                            executor.getQueue().put(task);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(ex);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 选择消息对应的 lane
+     *
+     * @param orderKey 顺序消费的 key，允许为空
+     * @return lane 编号
+     */
+    int selectLane(String orderKey) {
+        if (orderKey == null) {
+            return Math.floorMod(counter.getAndIncrement(), lanes.length);
+        }
+        return Math.floorMod(orderKey.hashCode(), lanes.length);
+    }
+
+    int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 提交任务到指定 lane。任务异常时，只打印日志，消息保留在 pending 列表中，由 {@link StreamPendingMessageReclaimer} 重试
+     *
+     * 注意，JVM 进程内投递的消息没有 pending 列表，不会重试
+     *
+     * @param lane lane 编号
+     * @param task 任务
+     */
+    void execute(int lane, Runnable task) {
+        lanes[lane].execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                log.error("[execute][Stream({}) lane({}) 消费消息失败]", streamKey, lane, ex);
+            }
+        });
+    }
+
+    /**
+     * 关闭所有 lane，等待已经分发的消息消费完成
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(AWAIT_TERMINATION_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("[shutdown][Stream({}) lane 未在 {} 秒内消费完成，剩余消息由 pending 重试]",
+                            streamKey, AWAIT_TERMINATION_SECONDS);
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package cn.iocoder.yudao.framework.mq.core.stream;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Stream 的 pending 消息认领器，负责消费失败的消息的重试、死信
+ *
+ * 消息消费失败时，不会被 ack，而是一直保留在消费者分组的 pending 列表（PEL）中。所以，定时扫描每个监听器的 pending 列表：
+ * 1. 使用 XPENDING 命令，分页获得消息的空闲时长、投递次数
+ * 2. 空闲时长超过重试间隔（每多投递一次，间隔翻倍）的消息，使用 XCLAIM 命令认领到当前消费者
+ * 3. 投递次数未超过 {@link AbstractStreamMessageListener#getMaxDeliveryCount()} 的消息，重新消费；否则，移动到死信 Stream 并 ack
+ *
+ * XCLAIM 命令带有 min-idle-time 参数，多个实例同时认领时，只有一个能够成功，所以无需分布式锁。
+ * 另外，因为 XAUTOCLAIM 命令需要 Redis 6.2 版本，所以使用 XPENDING + XCLAIM 命令实现
+ *
+ * 每个周期，从上次扫描到的位置继续，最多扫描 {@link #MAX_PENDING_PAGES} 页，扫描到末尾后从头开始。
+ * 从而 pending 列表较长时，也能扫描到后面的消息，不会只处理最老的一页
+ *
+ * 重试在独立的线程中执行，不会阻塞 StreamMessageListenerContainer 的消息拉取
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class StreamPendingMessageReclaimer {
+
+    /**
+     * 扫描 pending 列表的间隔，单位：毫秒
+     */
+    private static final long RECLAIM_PERIOD = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * 每页扫描 pending 列表的数量
+     */
+    private static final int PENDING_COUNT = 100;
+    /**
+     * 每个周期，每个监听器扫描 pending 列表的最大页数
+     */
+    private static final int MAX_PENDING_PAGES = 10;
+    /**
+     * 最大的重试间隔，避免翻倍后过大
+     */
+    private static final Duration MAX_RETRY_INTERVAL = Duration.ofHours(1);
+
+    private final RedisMQTemplate redisMQTemplate;
+    private final List<AbstractStreamMessageListener<?>> listeners;
+    /**
+     * 认领消息的消费者名字
+     */
+    private final String consumerName;
+    /**
+     * 下次扫描 pending 列表的起始消息编号（包含），为空时从头开始
+     *
+     * key：Stream Key
+     */
+    private final Map<String, RecordId> pendingCursors = new HashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    public StreamPendingMessageReclaimer(RedisMQTemplate redisMQTemplate,
+                                         List<AbstractStreamMessageListener<?>> listeners,
+                                         String consumerName) {
+        this.redisMQTemplate = redisMQTemplate;
+        this.listeners = listeners;
+        this.consumerName = consumerName;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("redis-stream-reclaim-", true));
+        executor.scheduleWithFixedDelay(this::reclaim, RECLAIM_PERIOD, RECLAIM_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 认领所有监听器的 pending 消息
+     */
+    void reclaim() {
+        listeners.forEach(listener -> {
+            try {
+                reclaim(listener);
+            } catch (Exception ex) {
+                log.error("[reclaim][Stream({}) 认领 pending 消息失败]", listener.getStreamKey(), ex);
+            }
+        });
+    }
+
+    private void reclaim(AbstractStreamMessageListener<?> listener) {
+        StreamOperations<String, Object, Object> streamOperations = redisMQTemplate.getRedisTemplate().opsForStream();
+        RecordId cursor = pendingCursors.get(listener.getStreamKey());
+        for (int i = 0; i < MAX_PENDING_PAGES; i++) {
+            // 因为 XPENDING 命令的开区间需要 Redis 6.2 版本，所以使用上一页最后一条消息的下一个编号作为闭区间的起点
+            Range<String> range = cursor != null ? Range.rightUnbounded(Range.Bound.inclusive(cursor.getValue()))
+                    : Range.unbounded();
+            PendingMessages pendingMessages = streamOperations.pending(listener.getStreamKey(), listener.getGroup(),
+                    range, PENDING_COUNT);
+            reclaim(listener, pendingMessages);
+            // 不足一页，说明已经扫描到末尾，下个周期从头开始
+            if (pendingMessages.size() < PENDING_COUNT) {
+                cursor = null;
+                break;
+            }
+            cursor = nextRecordId(pendingMessages.get(pendingMessages.size() - 1).getId());
+        }
+        if (cursor != null) {
+            pendingCursors.put(listener.getStreamKey(), cursor);
+        } else {
+            pendingCursors.remove(listener.getStreamKey());
+        }
+    }
+
+    private static RecordId nextRecordId(RecordId id) {
+        return RecordId.of(id.getTimestamp(), id.getSequence() + 1);
+    }
+
+    private void reclaim(AbstractStreamMessageListener<?> listener, PendingMessages pendingMessages) {
+        if (pendingMessages.isEmpty()) {
+            return;
+        }
+        // 按照投递次数分组，同一组的重试间隔相同，可以一次 XCLAIM 认领
+        Map<Long, List<RecordId>> deliveryCountRecordIds = new TreeMap<>();
+        for (PendingMessage pendingMessage : pendingMessages) {
+            long deliveryCount = pendingMessage.getTotalDeliveryCount();
+            if (pendingMessage.getElapsedTimeSinceLastDelivery().compareTo(getRetryInterval(listener, deliveryCount)) >= 0) {
+                deliveryCountRecordIds.computeIfAbsent(deliveryCount, key -> new ArrayList<>()).add(pendingMessage.getId());
+            }
+        }
+
+        // 认领消息，并重新消费或者移动到死信
+        deliveryCountRecordIds.forEach((deliveryCount, recordIds) -> {
+            List<ObjectRecord<String, String>> messages = claim(listener,
+                    getRetryInterval(listener, deliveryCount), recordIds);
+            if (messages.isEmpty()) {
+                return;
+            }
+            if (deliveryCount < listener.getMaxDeliveryCount()) {
+                log.warn("[reclaim][Stream({}) 重试消费 {} 条消息，已投递 {} 次]", listener.getStreamKey(),
+                        messages.size(), deliveryCount);
+                listener.onRetryMessages(messages);
+            } else {
+                moveToDeadLetter(listener, messages);
+            }
+        });
+    }
+
+    /**
+     * 计算重试间隔，每多投递一次，间隔翻倍
+     */
+    static Duration getRetryInterval(AbstractStreamMessageListener<?> listener, long deliveryCount) {
+        Duration retryInterval = listener.getRetryInterval();
+        for (long i = 1; i < deliveryCount && retryInterval.compareTo(MAX_RETRY_INTERVAL) < 0; i++) {
+            retryInterval = retryInterval.multipliedBy(2);
+        }
+        return retryInterval.compareTo(MAX_RETRY_INTERVAL) < 0 ? retryInterval : MAX_RETRY_INTERVAL;
+    }
+
+    /**
+     * 使用 XCLAIM 命令，将空闲时长超过 minIdle 的消息认领到当前消费者
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<ObjectRecord<String, String>> claim(AbstractStreamMessageListener<?> listener, Duration minIdle,
+                                                     List<RecordId> recordIds) {
+        RedisTemplate<String, ?> redisTemplate = redisMQTemplate.getRedisTemplate();
+        byte[] rawKey = RedisSerializer.string().serialize(listener.getStreamKey());
+        RedisStreamCommands.XClaimOptions options = RedisStreamCommands.XClaimOptions.minIdle(minIdle)
+                .ids(recordIds.toArray(new RecordId[0]));
+        List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xClaim(rawKey, listener.getGroup(), consumerName, options));
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        StreamOperations<String, Object, Object> streamOperations = redisTemplate.opsForStream();
+        List<ObjectRecord<String, String>> messages = new ArrayList<>(records.size());
+        records.forEach(record -> messages.add(streamOperations.map(
+                (MapRecord) record.deserialize(RedisSerializer.string()), String.class)));
+        return messages;
+    }
+
+    /**
+     * 移动到死信 Stream，并 ack 原消息
+     */
+    private void moveToDeadLetter(AbstractStreamMessageListener<?> listener, List<ObjectRecord<String, String>> messages) {
+        StreamOperations<String, Object, Object> streamOperations = redisMQTemplate.getRedisTemplate().opsForStream();
+        messages.forEach(message -> {
+            log.error("[moveToDeadLetter][Stream({}) 消息({}) 超过最大投递次数({})，移动到死信({})]", listener.getStreamKey(),
+                    message.getId(), listener.getMaxDeliveryCount(), listener.getDeadLetterStreamKey());
+            streamOperations.add(StreamRecords.newRecord().ofObject(message.getValue())
+                    .withStreamKey(listener.getDeadLetterStreamKey()));
+        });
+        listener.acknowledge(messages.stream().map(ObjectRecord::getId).toArray(RecordId[]::new));
+    }
+
+}
@@ -0,0 +1,254 @@
+package cn.iocoder.yudao.framework.mq.core.stream;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.StrUtil;
+import cn.iocoder.yudao.framework.mq.config.YudaoMQProperties;
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Stream 的裁剪器，定时按照 {@link YudaoMQProperties.Retention} 保留策略裁剪 Stream，避免 Redis 内存无限增长
+ *
+ * 1. maxLength：使用 XTRIM MAXLEN ~ 近似裁剪，Redis 只删除完整的 radix tree 节点，开销很小
+ * 2. maxAge：使用 XTRIM MINID ~ 近似裁剪
+ *
+ * 两者都不超过各个消费者分组最早的 pending 消息、最后投递的消息，避免裁剪未消费的消息。
+ * 对于 maxLength，如果存在未消费的消息，无法确认 MAXLEN 是否会裁剪到它们，所以改为只裁剪到已经消费的位置
+ *
+ * 同时，刷新每个 Stream 的指标，在引入 Micrometer 时暴露：
+ * 1. yudao.mq.stream.length：Stream 长度
+ * 2. yudao.mq.stream.pending：消费者分组的 pending 消息数量
+ * 3. yudao.mq.stream.lag：消费者分组的消费延迟，单位：毫秒。即 Stream 最新消息、分组最后投递消息的时间差
+ *
+ * 为什么不在 XADD 时裁剪？Spring Data Redis 的 XADD 只支持精确的 MAXLEN，每次发送都需要额外的裁剪开销
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class StreamRetentionTrimmer {
+
+    private final RedisMQTemplate redisMQTemplate;
+    private final YudaoMQProperties.Stream properties;
+    /**
+     * 需要裁剪、监控的 Stream Key 集合
+     */
+    private final Set<String> streamKeys;
+    /**
+     * Micrometer 指标注册器，允许为空
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Stream 指标
+     *
+     * key：Stream Key
+     */
+    private final Map<String, StreamStats> streamStats = new ConcurrentHashMap<>();
+    /**
+     * 消费者分组指标
+     *
+     * key：Stream Key + 消费者分组
+     */
+    private final Map<String, GroupStats> groupStats = new ConcurrentHashMap<>();
+    /**
+     * 是否支持 MINID 裁剪。Redis 6.2 以下版本不支持，返回语法错误或者未知命令后不再尝试
+     */
+    private volatile boolean minIdSupported = true;
+
+    private ScheduledExecutorService executor;
+
+    public StreamRetentionTrimmer(RedisMQTemplate redisMQTemplate, YudaoMQProperties.Stream properties,
+                                  Set<String> streamKeys, MeterRegistry meterRegistry) {
+        this.redisMQTemplate = redisMQTemplate;
+        this.properties = properties;
+        this.streamKeys = streamKeys;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void start() {
+        long period = properties.getTrimPeriod().toMillis();
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("redis-stream-trim-", true));
+        executor.scheduleWithFixedDelay(this::trim, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 裁剪所有 Stream，并刷新指标
+     */
+    void trim() {
+        streamKeys.forEach(streamKey -> {
+            try {
+                trim(streamKey);
+            } catch (Exception ex) {
+                log.error("[trim][Stream({}) 裁剪失败]", streamKey, ex);
+            }
+        });
+    }
+
+    private void trim(String streamKey) {
+        RedisTemplate<String, ?> redisTemplate = redisMQTemplate.getRedisTemplate();
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(streamKey))) {
+            return;
+        }
+        StreamOperations<String, Object, Object> streamOperations = redisTemplate.opsForStream();
+        YudaoMQProperties.Retention retention = properties.getRetentions()
+                .getOrDefault(streamKey, properties.getDefaultRetention());
+
+        // 第一步，获得各个消费者分组的进度，刷新指标
+        StreamInfo.XInfoStream info = streamOperations.info(streamKey);
+        RecordId lastGeneratedId = RecordId.of(info.lastGeneratedId());
+        RecordId safeMinId = lastGeneratedId; // 可以安全裁剪的消息编号，即所有分组都已经投递、且不在 pending 列表中
+        StreamInfo.XInfoGroups groups = streamOperations.groups(streamKey);
+        for (int i = 0; i < groups.size(); i++) {
+            StreamInfo.XInfoGroup group = groups.get(i);
+            RecordId lastDeliveredId = RecordId.of(group.lastDeliveredId());
+            safeMinId = min(safeMinId, lastDeliveredId);
+            if (group.pendingCount() > 0) {
+                PendingMessagesSummary summary = streamOperations.pending(streamKey, group.groupName());
+                if (summary.minRecordId() != null) {
+                    safeMinId = min(safeMinId, summary.minRecordId());
+                }
+            }
+            // 刷新分组指标
+            GroupStats stats = getGroupStats(streamKey, group.groupName());
+            stats.pending = group.pendingCount();
+            stats.lag = Math.max(lastGeneratedId.getTimestamp() - lastDeliveredId.getTimestamp(), 0);
+        }
+
+        // 第二步，按照最大长度裁剪
+        if (retention.getMaxLength() != null && info.streamLength() > retention.getMaxLength()) {
+            trimByMaxLength(streamKey, retention.getMaxLength(), safeMinId, lastGeneratedId);
+        }
+
+        // 第三步，按照最长保留时间裁剪
+        if (retention.getMaxAge() != null && minIdSupported) {
+            long minTimestamp = Math.min(System.currentTimeMillis() - retention.getMaxAge().toMillis(),
+                    safeMinId.getTimestamp());
+            trimByMinId(streamKey, minTimestamp);
+        }
+
+        // 刷新 Stream 指标
+        getStreamStats(streamKey).length = streamOperations.size(streamKey);
+    }
+
+    private void trimByMaxLength(String streamKey, long maxLength, RecordId safeMinId, RecordId lastGeneratedId) {
+        // 情况一，所有消息都已经投递、且不在 pending 列表中，直接按照最大长度裁剪
+        if (safeMinId.equals(lastGeneratedId)) {
+            redisMQTemplate.getRedisTemplate().opsForStream().trim(streamKey, maxLength, true);
+            return;
+        }
+        // 情况二，存在未消费的消息，只裁剪到已经消费的位置
+        log.warn("[trimByMaxLength][Stream({}) 超过最大长度({})，但存在未消费的消息({})，只裁剪已经消费的消息]",
+                streamKey, maxLength, safeMinId);
+        if (minIdSupported) {
+            trimByMinId(streamKey, safeMinId.getTimestamp());
+        }
+    }
+
+    private void trimByMinId(String streamKey, long minTimestamp) {
+        byte[] rawKey = RedisSerializer.string().serialize(streamKey);
+        byte[] minId = String.valueOf(minTimestamp).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisMQTemplate.getRedisTemplate().execute((RedisCallback<Object>) connection -> connection.execute("XTRIM",
+                    rawKey, "MINID".getBytes(StandardCharsets.UTF_8), "~".getBytes(StandardCharsets.UTF_8), minId));
+        } catch (Exception ex) {
+            // 网络超时等其它异常，下个周期重试
+            if (!isMinIdUnsupported(ex)) {
+                log.error("[trimByMinId][Stream({}) 使用 XTRIM MINID 裁剪失败，下个周期重试]", streamKey, ex);
+                return;
+            }
+            minIdSupported = false;
+            log.warn("[trimByMinId][Stream({}) 使用 XTRIM MINID 裁剪失败，Redis 需要 6.2 版本，不再使用 MINID 裁剪]",
+                    streamKey, ex);
+        }
+    }
+
+    /**
+     * 判断是否为 Redis 不支持 XTRIM MINID 的异常
+     *
+     * 1. Redis 5.0 ~ 6.0 版本，不支持 MINID 参数，返回 ERR syntax error
+     * 2. Redis 5.0 以下版本，不支持 XTRIM 命令，返回 ERR unknown command
+     */
+    private static boolean isMinIdUnsupported(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (StrUtil.containsAnyIgnoreCase(cause.getMessage(), "ERR syntax error", "ERR unknown command")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RecordId min(RecordId a, RecordId b) {
+        if (a.getTimestamp() != b.getTimestamp()) {
+            return a.getTimestamp() < b.getTimestamp() ? a : b;
+        }
+        return a.getSequence() <= b.getSequence() ? a : b;
+    }
+
+    // ========== 指标相关 ==========
+
+    private StreamStats getStreamStats(String streamKey) {
+        return streamStats.computeIfAbsent(streamKey, key -> {
+            StreamStats stats = new StreamStats();
+            if (meterRegistry != null) {
+                Gauge.builder("yudao.mq.stream.length", stats, StreamStats::getLength)
+                        .description("Redis Stream 长度").tag("stream", streamKey).register(meterRegistry);
+            }
+            return stats;
+        });
+    }
+
+    private GroupStats getGroupStats(String streamKey, String group) {
+        return groupStats.computeIfAbsent(streamKey + "\n" + group, key -> {
+            GroupStats stats = new GroupStats();
+            if (meterRegistry != null) {
+                Gauge.builder("yudao.mq.stream.pending", stats, GroupStats::getPending)
+                        .description("Redis Stream 消费者分组的 pending 消息数量")
+                        .tag("stream", streamKey).tag("group", group).register(meterRegistry);
+                Gauge.builder("yudao.mq.stream.lag", stats, GroupStats::getLag)
+                        .description("Redis Stream 消费者分组的消费延迟，单位：毫秒")
+                        .tag("stream", streamKey).tag("group", group).register(meterRegistry);
+            }
+            return stats;
+        });
+    }
+
+    @Getter
+    private static class StreamStats {
+
+        private volatile long length;
+
+    }
+
+    @Getter
+    private static class GroupStats {
+
+        private volatile long pending;
+        private volatile long lag;
+
+    }
+
+}
@@ -1,6 +1,6 @@
 /**
  * 消息队列，基于 Redis 提供：
  * 1. 基于 Pub/Sub 实现广播消费
- * 2. 基于 Stream 实现集群消费
+ * 2. 基于 Stream 实现集群消费，消费失败的消息会重试，超过最大投递次数后移动到死信 Stream
  */
 package cn.iocoder.yudao.framework.mq;
@@ -3,10 +3,18 @@ package org.springframework.data.redis.stream;
 import cn.hutool.core.util.ReflectUtil;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.ReadOffset;
 import org.springframework.data.redis.connection.stream.Record;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.Assert;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
@@ -16,6 +24,8 @@ import java.util.function.Function;
  * 对应 issue：https://github.com/spring-projects/spring-data-redis/issues/2147 和 https://github.com/redisson/redisson/issues/4006
  * 目前看下来 Spring Data Redis 不肯加 null 判断，Redisson 暂时也没改返回 null 到空 List 的打算，所以暂时只能自己改，哽咽！
  *
+ * 另外，拓展支持 {@link BatchStreamListener} 批量消费：使用监听器自己的 batchSize、pollTimeout 拉取消息，并将拉取到的消息整批回调
+ *
  * @author 芋道源码
  */
 public class DefaultStreamMessageListenerContainerX<K, V extends Record<K, ?>> extends DefaultStreamMessageListenerContainer<K, V> {
@@ -46,17 +56,79 @@ public class DefaultStreamMessageListenerContainerX<K, V extends Record<K, ?>> e
         StreamPollTask<K, V> task = ReflectUtil.invoke(this, "getReadTask", streamRequest, listener);
         // 修改 readFunction 方法
         Function<ReadOffset, List<ByteRecord>> readFunction = (Function<ReadOffset, List<ByteRecord>>) ReflectUtil.getFieldValue(task, "readFunction");
+        if (listener instanceof BatchStreamListener && streamRequest instanceof ConsumerStreamReadRequest) {
+            readFunction = getBatchReadFunction((ConsumerStreamReadRequest<K>) streamRequest, (BatchStreamListener<K, V>) listener,
+                    (Function<ByteRecord, V>) ReflectUtil.getFieldValue(task, "deserializer"));
+        }
+        Function<ReadOffset, List<ByteRecord>> finalReadFunction = readFunction;
         ReflectUtil.setFieldValue(task, "readFunction", (Function<ReadOffset, List<ByteRecord>>) readOffset -> {
-            List<ByteRecord> records = readFunction.apply(readOffset);
+            List<ByteRecord> records = finalReadFunction.apply(readOffset);
             //【重点】保证 records 不是空，避免 NPE 的问题！！！
             return records != null ? records : Collections.emptyList();
         });
         return task;
     }
 
+    /**
+     * 创建批量消费的 readFunction：按照监听器的 batchSize、pollTimeout 拉取消息，反序列化后整批回调 {@link BatchStreamListener#onMessageBatch(List)}
+     *
+     * 因为消息已经在 readFunction 中消费完成，所以返回空 List，避免 StreamPollTask 再逐条回调 {@link StreamListener#onMessage(Record)}
+     */
+    @SuppressWarnings("unchecked")
+    private Function<ReadOffset, List<ByteRecord>> getBatchReadFunction(ConsumerStreamReadRequest<K> streamRequest,
+                                                                        BatchStreamListener<K, V> listener,
+                                                                        Function<ByteRecord, V> deserializer) {
+        RedisTemplate<K, ?> template = (RedisTemplate<K, ?>) ReflectUtil.getFieldValue(this, "template");
+        byte[] rawKey = ((RedisSerializer<K>) template.getKeySerializer()).serialize(streamRequest.getStreamOffset().getKey());
+        Consumer consumer = streamRequest.getConsumer();
+        StreamReadOptions readOptions = StreamReadOptions.empty().count(listener.getBatchSize())
+                .block(listener.getPollTimeout());
+        if (streamRequest.isAutoAcknowledge()) {
+            readOptions = readOptions.autoAcknowledge();
+        }
+        StreamReadOptions finalReadOptions = readOptions;
+        return readOffset -> {
+            List<ByteRecord> records = template.execute((RedisCallback<List<ByteRecord>>) connection -> connection.streamCommands()
+                    .xReadGroup(consumer, finalReadOptions, StreamOffset.create(rawKey, readOffset)));
+            if (records == null || records.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<V> messages = new ArrayList<>(records.size());
+            records.forEach(record -> messages.add(deserializer.apply(record)));
+            listener.onMessageBatch(messages);
+            return Collections.emptyList();
+        };
+    }
+
     private Subscription doRegisterX(Task task) {
         return ReflectUtil.invoke(this, "doRegister", task);
     }
 
-}
+    /**
+     * 批量消费的 {@link StreamListener} 拓展
+     *
+     * @param <K> Stream 的 key 类型
+     * @param <V> Stream 的消息类型
+     */
+    public interface BatchStreamListener<K, V extends Record<K, ?>> extends StreamListener<K, V> {
+
+        /**
+         * 批量处理消息
+         *
+         * @param messages 一次拉取到的消息，不为空
+         */
+        void onMessageBatch(List<V> messages);
+
+        /**
+         * @return 一次最多拉取多少条消息
+         */
+        int getBatchSize();
+
+        /**
+         * @return 没有消息时，阻塞等待的时长
+         */
+        Duration getPollTimeout();
 
+    }
+
+}
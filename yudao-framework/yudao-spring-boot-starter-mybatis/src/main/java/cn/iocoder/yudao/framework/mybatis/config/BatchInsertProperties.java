@@ -0,0 +1,72 @@
+package cn.iocoder.yudao.framework.mybatis.config;
+
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertRejectPolicyEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 异步批量写入配置
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.batch-insert")
+@Data
+public class BatchInsertProperties {
+
+    /**
+     * 默认的配置
+     */
+    private Sink defaults = new Sink();
+    /**
+     * 指定 Sink 的配置，未配置的 Sink 使用 {@link #defaults}
+     *
+     * 注意，不会和 {@link #defaults} 合并，未填写的属性使用 {@link Sink} 的默认值
+     *
+     * key：Sink 名字，例如说 api-access-log
+     */
+    private Map<String, Sink> sinks = new HashMap<>();
+
+    /**
+     * 停止时，等待队列排空的最长时间
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    public Sink getSink(String name) {
+        return sinks.getOrDefault(name, defaults);
+    }
+
+    @Data
+    public static class Sink {
+
+        /**
+         * 队列容量，会向上取整为 2 的幂次
+         */
+        private int capacity = 8192;
+        /**
+         * 每批写入的最大条数。队列中积攒到该数量时，立即写入
+         */
+        private int batchSize = 500;
+        /**
+         * 写入的最大间隔。未积攒到 {@link #batchSize} 时，按照该间隔写入
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /**
+         * 队列满时的拒绝策略
+         */
+        private BatchInsertRejectPolicyEnum rejectPolicy = BatchInsertRejectPolicyEnum.DROP_OLDEST;
+        /**
+         * {@link BatchInsertRejectPolicyEnum#BLOCK} 策略下，等待队列空闲的最长时间，超过后丢弃
+         */
+        private Duration blockTimeout = Duration.ofSeconds(1);
+        /**
+         * {@link BatchInsertRejectPolicyEnum#SAMPLE} 策略下，队列超过半满后的采样率，取值范围 [0, 1]
+         */
+        private double sampleRate = 0.1D;
+
+    }
+
+}
@@ -1,6 +1,8 @@
 package cn.iocoder.yudao.framework.mybatis.config;
 
 import cn.hutool.core.util.StrUtil;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertGroupKeyResolver;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.framework.mybatis.core.handler.DefaultDBFieldHandler;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
@@ -11,12 +13,18 @@ import com.baomidou.mybatisplus.extension.incrementer.OracleKeyGenerator;
 import com.baomidou.mybatisplus.extension.incrementer.PostgreKeyGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * MyBaits 配置类
@@ -26,6 +34,7 @@ import org.springframework.core.env.ConfigurableEnvironment;
 @Configuration
 @MapperScan(value = "${yudao.info.base-package}", annotationClass = Mapper.class,
         lazyInitialization = "${mybatis.lazy-initialization:false}") // Mapper 懒加载，目前仅用于单元测试
+@EnableConfigurationProperties(BatchInsertProperties.class)
 public class YudaoMybatisAutoConfiguration {
 
     @Bean
@@ -40,6 +49,22 @@ public class YudaoMybatisAutoConfiguration {
         return new DefaultDBFieldHandler(); // 自动填充参数类
     }
 
+    /**
+     * 声明 SqlSessionFactory 参数的原因是，保证关闭时先于 SqlSessionFactory、DataSource 排空队列
+     */
+    @Bean(destroyMethod = "stop")
+    @SuppressWarnings("unused")
+    public BatchInsertSinkManager batchInsertSinkManager(BatchInsertProperties properties,
+                                                         ObjectProvider<MeterRegistry> meterRegistry,
+                                                         ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                         ObjectProvider<BatchInsertGroupKeyResolver> groupKeyResolver,
+                                                         SqlSessionFactory sqlSessionFactory) {
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        return new BatchInsertSinkManager(properties, meterRegistry.getIfAvailable(), // 未引入 Actuator 时，不暴露指标
+                manager != null ? new TransactionTemplate(manager) : null,
+                groupKeyResolver.getIfAvailable()); // 引入多租户时，按照租户分组写入
+    }
+
     @Bean
     @ConditionalOnProperty(prefix = "mybatis-plus.global-config.db-config", name = "id-type", havingValue = "INPUT")
     public IKeyGenerator keyGenerator(ConfigurableEnvironment environment) {
@@ -0,0 +1,25 @@
+package cn.iocoder.yudao.framework.mybatis.core.batch;
+
+/**
+ * {@link BatchInsertSink} 的分组 Key 解析器
+ *
+ * JDBC batch 中，SQL 相同的数据会复用同一个 PreparedStatement，而拦截器是在 prepare 时改写 SQL 的。
+ * 例如说，多租户拦截器会将租户编号作为常量拼接到 INSERT 语句中，如果不同租户的数据在同一个 JDBC batch 中写入，
+ * 会全部使用第一条数据的租户编号。
+ *
+ * 因此，{@link BatchInsertSink} 在入队时解析分组 Key，写入时只将分组 Key 相同的数据合并在同一个 JDBC batch 中
+ *
+ * @author 芋道源码
+ */
+public interface BatchInsertGroupKeyResolver {
+
+    /**
+     * 解析当前上下文的分组 Key
+     *
+     * 在调用 {@link BatchInsertSink#offer(Object)} 的线程中执行
+     *
+     * @return 分组 Key，允许为空
+     */
+    Object resolve();
+
+}
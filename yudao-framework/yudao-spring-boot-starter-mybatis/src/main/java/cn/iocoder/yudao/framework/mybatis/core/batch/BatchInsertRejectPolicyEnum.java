@@ -0,0 +1,27 @@
+package cn.iocoder.yudao.framework.mybatis.core.batch;
+
+/**
+ * 异步批量写入的拒绝策略枚举，即 {@link BatchInsertSink} 的队列满时的处理方式
+ *
+ * @author 芋道源码
+ */
+public enum BatchInsertRejectPolicyEnum {
+
+    /**
+     * 阻塞调用方，直到队列有空闲，或者等待超时后丢弃
+     *
+     * 适合不允许丢失的数据，例如说登录日志。代价是 DB 变慢时，会拖慢业务请求
+     */
+    BLOCK,
+    /**
+     * 丢弃队列中最老的数据，保留最新的数据
+     */
+    DROP_OLDEST,
+    /**
+     * 队列超过半满后，按照采样率保留数据；队列满时，丢弃最新的数据
+     *
+     * 适合量大、允许丢失的数据，例如说访问日志
+     */
+    SAMPLE,
+
+}
@@ -0,0 +1,340 @@
+package cn.iocoder.yudao.framework.mybatis.core.batch;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.framework.mybatis.config.BatchInsertProperties;
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.baomidou.mybatisplus.core.enums.SqlMethod;
+import com.baomidou.mybatisplus.core.toolkit.ClassUtils;
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步批量写入 DB 的 Sink，适合日志这类只写不读、允许延迟落库的数据
+ *
+ * 1. 调用方通过 {@link #offer(Object)} 方法，将数据放入 {@link BoundedRingBuffer} 无锁队列后立即返回
+ * 2. 写入线程在队列积攒到 batchSize 条，或者到达 flushInterval 间隔时，使用 JDBC batch 批量写入
+ * 3. 队列满时，按照 {@link BatchInsertRejectPolicyEnum} 处理
+ *
+ * 入队时，会捕获调用方的 TransmittableThreadLocal 上下文（例如说租户编号），写入时逐条恢复，
+ * 从而保证和 @Async 异步写入时一样，多租户等拦截器可以正常工作。
+ * 同时，按照 {@link BatchInsertGroupKeyResolver} 解析的分组 Key 拆分每批数据，避免不同租户的数据复用同一条 SQL
+ *
+ * 批量写入在事务中执行。失败时（例如说某条数据的字段超长），整批回滚后逐条重试，只丢弃重试后依然失败的数据
+ *
+ * 注意，MySQL 需要在连接 URL 上开启 rewriteBatchedStatements=true 参数，JDBC batch 才会合并为一条多行 INSERT 语句
+ *
+ * @param <T> 数据类型，即 DO 类型
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class BatchInsertSink<T> {
+
+    private static final Log MYBATIS_LOG = LogFactory.getLog(BatchInsertSink.class);
+
+    @Getter
+    private final String name;
+    private final Class<T> entityClass;
+    private final BatchInsertProperties.Sink config;
+    /**
+     * 批量写入的事务模板。为空时，不使用事务
+     */
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * 分组 Key 解析器。为空时，不分组
+     */
+    private final BatchInsertGroupKeyResolver groupKeyResolver;
+    private final BoundedRingBuffer<Event<T>> buffer;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    // ========== 指标相关 ==========
+
+    /**
+     * 被拒绝的数量，包括队列满、未被采样、阻塞超时、已经停止
+     */
+    private final LongAdder rejectedCount = new LongAdder();
+    /**
+     * 被 {@link BatchInsertRejectPolicyEnum#DROP_OLDEST} 策略丢弃的数量
+     */
+    private final LongAdder evictedCount = new LongAdder();
+    /**
+     * 写入 DB 失败的数量
+     */
+    private final LongAdder failedCount = new LongAdder();
+    /**
+     * 每批写入的耗时。未引入 Actuator 时为空
+     */
+    private final Timer flushTimer;
+
+    public BatchInsertSink(String name, Class<T> entityClass, BatchInsertProperties.Sink config,
+                           MeterRegistry meterRegistry, TransactionTemplate transactionTemplate,
+                           BatchInsertGroupKeyResolver groupKeyResolver) {
+        this.name = name;
+        this.entityClass = entityClass;
+        this.config = config;
+        this.transactionTemplate = transactionTemplate;
+        this.groupKeyResolver = groupKeyResolver;
+        this.buffer = new BoundedRingBuffer<>(config.getCapacity());
+        this.flusher = new NamedThreadFactory("batch-insert-" + name + "-", true).newThread(this::runFlushLoop);
+        this.flushTimer = registerMeters(meterRegistry);
+    }
+
+    void start() {
+        flusher.start();
+    }
+
+    /**
+     * 放入数据，等待异步写入
+     *
+     * @param entity 数据
+     * @return 是否放入成功。被拒绝时，返回 false
+     */
+    public boolean offer(T entity) {
+        if (!running) {
+            rejectedCount.increment();
+            return false;
+        }
+        Event<T> event = new Event<>(entity, TransmittableThreadLocal.Transmitter.capture(),
+                groupKeyResolver != null ? groupKeyResolver.resolve() : null);
+        boolean success;
+        switch (config.getRejectPolicy()) {
+            case BLOCK:
+                success = offerBlocking(event);
+                break;
+            case SAMPLE:
+                success = offerSampling(event);
+                break;
+            default:
+                success = offerDroppingOldest(event);
+        }
+        if (!success) {
+            rejectedCount.increment();
+            return false;
+        }
+        // 积攒到 batchSize 条，唤醒写入线程
+        if (buffer.size() >= config.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    private boolean offerBlocking(Event<T> event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        LockSupport.unpark(flusher);
+        long deadline = System.nanoTime() + config.getBlockTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean offerSampling(Event<T> event) {
+        if (buffer.size() >= buffer.capacity() / 2
+                && ThreadLocalRandom.current().nextDouble() >= config.getSampleRate()) {
+            return false;
+        }
+        return buffer.offer(event);
+    }
+
+    private boolean offerDroppingOldest(Event<T> event) {
+        while (!buffer.offer(event)) {
+            if (buffer.poll() != null) {
+                evictedCount.increment();
+            }
+        }
+        return true;
+    }
+
+    private void runFlushLoop() {
+        long intervalNanos = config.getFlushInterval().toNanos();
+        while (running) {
+            if (buffer.size() < config.getBatchSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            flush();
+        }
+        // 停止后，排空剩余的数据
+        flush();
+    }
+
+    /**
+     * 将队列中的数据，按照 batchSize 分批写入 DB
+     *
+     * 一般由写入线程调用，单元测试等场景可以主动调用，同步写入
+     */
+    public synchronized void flush() {
+        List<Event<T>> batch = new ArrayList<>(Math.min(buffer.size(), config.getBatchSize()));
+        Event<T> event;
+        while ((event = buffer.poll()) != null) {
+            batch.add(event);
+            if (batch.size() >= config.getBatchSize()) {
+                insertBatch(batch);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch);
+        }
+    }
+
+    private void insertBatch(List<Event<T>> batch) {
+        long startTime = System.nanoTime();
+        try {
+            // 按照分组 Key 拆分，每组使用独立的 JDBC batch 写入
+            Map<Object, List<Event<T>>> groups = new LinkedHashMap<>();
+            batch.forEach(event -> groups.computeIfAbsent(event.getGroupKey(), key -> new ArrayList<>()).add(event));
+            groups.values().forEach(this::insertGroup);
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void insertGroup(List<Event<T>> group) {
+        try {
+            executeGroup(group);
+        } catch (Throwable ex) {
+            log.warn("[insertGroup][Sink({}) 批量写入 {} 条数据失败，逐条重试]", name, group.size(), ex);
+            insertOneByOne(group);
+        }
+    }
+
+    /**
+     * 逐条写入，只丢弃写入失败的数据
+     */
+    private void insertOneByOne(List<Event<T>> group) {
+        for (Event<T> event : group) {
+            try {
+                executeGroup(Collections.singletonList(event));
+            } catch (Throwable ex) {
+                failedCount.increment();
+                log.error("[insertOneByOne][Sink({}) 写入数据({}) 失败]", name, event.getEntity(), ex);
+            }
+        }
+    }
+
+    /**
+     * 在事务中批量写入同一组的数据，失败时整组回滚，从而逐条重试时不会重复写入
+     *
+     * 事务和连接在首条数据的上下文中开启，保证按照租户路由的数据源，拿到的是该组数据对应的连接
+     */
+    private void executeGroup(List<Event<T>> group) {
+        TransmittableThreadLocal.Transmitter.runSupplierWithCaptured(group.get(0).getCaptured(), () -> {
+            if (transactionTemplate != null) {
+                transactionTemplate.executeWithoutResult(status -> executeBatch(group));
+            } else {
+                executeBatch(group);
+            }
+            return null;
+        });
+    }
+
+    private void executeBatch(List<Event<T>> batch) {
+        Class<?> mapperClass = ClassUtils.toClassConfident(SqlHelper.table(entityClass).getCurrentNamespace());
+        String sqlStatement = SqlHelper.getSqlStatement(mapperClass, SqlMethod.INSERT_ONE);
+        SqlHelper.executeBatch(entityClass, MYBATIS_LOG, batch, batch.size(), (sqlSession, event) ->
+                // 恢复入队时的上下文，再执行 INSERT，保证拦截器拿到的是调用方的上下文
+                TransmittableThreadLocal.Transmitter.runSupplierWithCaptured(event.getCaptured(),
+                        () -> sqlSession.insert(sqlStatement, event.getEntity())));
+    }
+
+    /**
+     * 停止接收数据。写入线程排空队列后退出
+     */
+    void stop() {
+        running = false;
+        LockSupport.unpark(flusher);
+    }
+
+    /**
+     * 等待写入线程排空队列后退出
+     *
+     * @param timeoutMillis 等待的最长时间
+     */
+    void awaitTermination(long timeoutMillis) throws InterruptedException {
+        flusher.join(Math.max(timeoutMillis, 1));
+        if (flusher.isAlive()) {
+            log.warn("[awaitTermination][Sink({}) 等待排空超时，剩余 {} 条数据未写入]", name, buffer.size());
+        }
+    }
+
+    public int getQueueSize() {
+        return buffer.size();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    private Timer registerMeters(MeterRegistry meterRegistry) {
+        if (meterRegistry == null) {
+            return null;
+        }
+        Gauge.builder("yudao.batch-insert.queue.size", this, BatchInsertSink::getQueueSize)
+                .description("异步批量写入的队列长度").tag("sink", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("yudao.batch-insert.dropped", this, BatchInsertSink::getRejectedCount)
+                .description("异步批量写入丢弃的数量").tag("sink", name).tag("reason", "rejected")
+                .register(meterRegistry);
+        FunctionCounter.builder("yudao.batch-insert.dropped", this, BatchInsertSink::getEvictedCount)
+                .description("异步批量写入丢弃的数量").tag("sink", name).tag("reason", "evicted")
+                .register(meterRegistry);
+        FunctionCounter.builder("yudao.batch-insert.dropped", this, BatchInsertSink::getFailedCount)
+                .description("异步批量写入丢弃的数量").tag("sink", name).tag("reason", "failed")
+                .register(meterRegistry);
+        return Timer.builder("yudao.batch-insert.flush")
+                .description("异步批量写入每批的耗时").tag("sink", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 队列中的数据，附带入队时捕获的上下文
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Event<T> {
+
+        private final T entity;
+        private final Object captured;
+        /**
+         * 分组 Key，由 {@link BatchInsertGroupKeyResolver} 解析
+         */
+        private final Object groupKey;
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package cn.iocoder.yudao.framework.mybatis.core.batch;
+
+import cn.iocoder.yudao.framework.mybatis.config.BatchInsertProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BatchInsertSink} 的管理器，负责 Sink 的创建与停止
+ *
+ * 停止时，先让所有 Sink 停止接收数据，再等待各自的写入线程排空队列，从而在关闭 DataSource 之前，尽量不丢失数据
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class BatchInsertSinkManager {
+
+    private final BatchInsertProperties properties;
+    /**
+     * Micrometer 指标注册器，允许为空
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * 批量写入的事务模板，允许为空
+     */
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * 分组 Key 解析器，允许为空
+     */
+    private final BatchInsertGroupKeyResolver groupKeyResolver;
+
+    /**
+     * Sink
+     *
+     * key：Sink 名字
+     */
+    private final Map<String, BatchInsertSink<?>> sinks = new ConcurrentHashMap<>();
+
+    public BatchInsertSinkManager(BatchInsertProperties properties, MeterRegistry meterRegistry,
+                                  TransactionTemplate transactionTemplate, BatchInsertGroupKeyResolver groupKeyResolver) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = transactionTemplate;
+        this.groupKeyResolver = groupKeyResolver;
+    }
+
+    /**
+     * 创建 Sink，并启动写入线程
+     *
+     * @param name Sink 名字，全局唯一，同时用于匹配 {@link BatchInsertProperties#getSinks()} 配置
+     * @param entityClass DO 类型
+     * @return Sink
+     */
+    public <T> BatchInsertSink<T> create(String name, Class<T> entityClass) {
+        BatchInsertSink<T> sink = new BatchInsertSink<>(name, entityClass, properties.getSink(name),
+                meterRegistry, transactionTemplate, groupKeyResolver);
+        if (sinks.putIfAbsent(name, sink) != null) {
+            throw new IllegalStateException(String.format("Sink(%s) 已经存在", name));
+        }
+        sink.start();
+        return sink;
+    }
+
+    /**
+     * 同步写入所有 Sink 中的数据
+     */
+    public void flush() {
+        sinks.values().forEach(BatchInsertSink::flush);
+    }
+
+    public void stop() throws InterruptedException {
+        // 先全部停止接收，再逐个等待排空，使各 Sink 并行排空
+        sinks.values().forEach(BatchInsertSink::stop);
+        long deadline = System.currentTimeMillis() + properties.getShutdownTimeout().toMillis();
+        for (BatchInsertSink<?> sink : sinks.values()) {
+            sink.awaitTermination(deadline - System.currentTimeMillis());
+        }
+        log.info("[stop][停止 {} 个 Sink 完成]", sinks.size());
+    }
+
+}
@@ -0,0 +1,118 @@
+package cn.iocoder.yudao.framework.mybatis.core.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界、无锁的环形队列，支持多生产者、多消费者
+ *
+ * 每个槽位有一个序号，生产者、消费者通过 CAS 抢占位置后，比对槽位的序号判断是否可写、可读，不需要加锁。
+ * 之所以需要支持多消费者，是因为 {@link BatchInsertRejectPolicyEnum#DROP_OLDEST} 策略下，生产者也会出队
+ *
+ * @param <E> 元素类型
+ *
+ * @author 芋道源码
+ */
+class BoundedRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    /**
+     * 槽位的序号
+     *
+     * 1. 等于入队位置时，槽位可写
+     * 2. 等于入队位置 + 1 时，槽位可读
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * 入队位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 出队位置
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    BoundedRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0");
+        }
+        // 向上取整为 2 的幂次，从而使用位运算计算下标
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队
+     *
+     * @param element 元素
+     * @return 是否成功。队列满时，返回 false
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.set(index, position + 1); // 标记为可读
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) { // 槽位还未被消费，说明队列已满
+                return false;
+            } else { // 被其它生产者抢占，重新获取位置
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return 元素。队列空时，返回 null
+     */
+    E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.set(index, null);
+                    sequences.set(index, position + capacity); // 标记为下一轮可写
+                    return element;
+                }
+                position = head.get();
+            } else if (diff < 0) { // 槽位还未被写入，说明队列为空
+                return null;
+            } else { // 被其它消费者抢占，重新获取位置
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * 获得队列中的元素数量。并发情况下，只是近似值
+     *
+     * @return 元素数量
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,37 @@
+package cn.iocoder.yudao.framework.mybatis.core.util;
+
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 按照 create_time 分区的表的工具类
+ *
+ * 日志表按照 create_time 分区，而查询条件一般是业务时间，例如说请求开始时间。
+ * 业务时间一定早于 create_time，但是日志可能异步写入，所以 create_time 会晚一些。
+ * 将业务时间范围换算成 create_time 范围，作为额外的查询条件，数据库就可以只扫描相关的分区
+ *
+ * @author 芋道源码
+ */
+public class PartitionUtils {
+
+    /**
+     * create_time 相对业务时间的最大延迟天数
+     */
+    private static final int CREATE_TIME_MAX_DELAY_DAYS = 1;
+
+    /**
+     * 根据业务时间的结束时间，计算 create_time 的结束时间
+     *
+     * @param endTime 业务时间的结束时间
+     * @return create_time 的结束时间。endTime 为空时，返回 null
+     */
+    public static Date buildCreateTimeEnd(Date endTime) {
+        if (endTime == null) {
+            return null;
+        }
+        return DateUtils.addDate(endTime, Calendar.DAY_OF_MONTH, CREATE_TIME_MAX_DELAY_DAYS);
+    }
+
+}
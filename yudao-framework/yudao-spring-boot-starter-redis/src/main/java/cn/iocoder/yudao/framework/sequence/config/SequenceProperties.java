@@ -0,0 +1,29 @@
+package cn.iocoder.yudao.framework.sequence.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 序列号配置
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.sequence")
+@Data
+public class SequenceProperties {
+
+    /**
+     * Worker 编号的租约时长
+     *
+     * 需要远大于续租周期，从而容忍 Redis 短暂不可用；实例宕机时，租约过期后编号才能被其它实例租用。
+     * 距离上次续租成功超过「租约时长 - 续租周期」时，实例停止生成编号，所以至少是续租周期的两倍
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(10);
+    /**
+     * Worker 编号的续租周期
+     */
+    private Duration renewPeriod = Duration.ofMinutes(1);
+
+}
@@ -0,0 +1,39 @@
+package cn.iocoder.yudao.framework.sequence.config;
+
+import cn.iocoder.yudao.framework.sequence.core.SequenceGenerator;
+import cn.iocoder.yudao.framework.sequence.core.SequenceWorkerIdLeaser;
+import cn.iocoder.yudao.framework.sequence.core.SnowflakeSequenceGenerator;
+import cn.iocoder.yudao.framework.sequence.core.util.SequenceUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 序列号配置类
+ *
+ * @author 芋道源码
+ */
+@Configuration
+@EnableConfigurationProperties(SequenceProperties.class)
+public class YudaoSequenceAutoConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SequenceWorkerIdLeaser sequenceWorkerIdLeaser(StringRedisTemplate stringRedisTemplate,
+                                                         SequenceProperties properties) {
+        return new SequenceWorkerIdLeaser(stringRedisTemplate, properties.getLeaseTimeout(), properties.getRenewPeriod());
+    }
+
+    @Bean
+    public SequenceGenerator sequenceGenerator(SequenceWorkerIdLeaser workerIdLeaser) {
+        return new SnowflakeSequenceGenerator(workerIdLeaser::getWorkerId);
+    }
+
+    @Bean
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    public SequenceUtils sequenceUtils(SequenceGenerator sequenceGenerator) {
+        SequenceUtils.init(sequenceGenerator);
+        return new SequenceUtils();
+    }
+
+}
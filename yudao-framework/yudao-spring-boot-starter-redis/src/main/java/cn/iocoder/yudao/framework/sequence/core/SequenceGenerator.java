@@ -0,0 +1,27 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+/**
+ * 序列号生成器，生成集群内唯一、趋势递增的编号
+ *
+ * @author 芋道源码
+ */
+public interface SequenceGenerator {
+
+    /**
+     * 生成编号
+     *
+     * @return 编号
+     */
+    long nextId();
+
+    /**
+     * 生成带前缀的编号，例如说订单号、退款单号
+     *
+     * @param prefix 前缀
+     * @return 编号
+     */
+    default String nextNo(String prefix) {
+        return prefix + nextId();
+    }
+
+}
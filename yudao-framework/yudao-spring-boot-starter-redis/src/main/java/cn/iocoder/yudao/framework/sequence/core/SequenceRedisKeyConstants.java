@@ -0,0 +1,18 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+import cn.iocoder.yudao.framework.redis.core.RedisKeyDefine;
+
+import static cn.iocoder.yudao.framework.redis.core.RedisKeyDefine.KeyTypeEnum.STRING;
+
+/**
+ * 序列号 Redis Key 枚举类
+ *
+ * @author 芋道源码
+ */
+public interface SequenceRedisKeyConstants {
+
+    RedisKeyDefine SEQUENCE_WORKER = new RedisKeyDefine("序列号的 Worker 编号租约",
+            "sequence:worker:%d", // 参数为 Worker 编号
+            STRING, String.class, RedisKeyDefine.TimeoutTypeEnum.DYNAMIC); // 值为租约的持有者，过期时间为 yudao.sequence.lease-timeout
+
+}
@@ -0,0 +1,168 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.RandomUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static cn.iocoder.yudao.framework.sequence.core.SequenceRedisKeyConstants.SEQUENCE_WORKER;
+
+/**
+ * {@link SnowflakeSequenceGenerator} 的 Worker 编号租用器
+ *
+ * 启动时，从随机位置开始，通过 SET NX PX 命令租用一个空闲的 Worker 编号，之后定时续租；关闭时，释放租约。
+ * 续租发现租约已经丢失（例如说 Redis 长时间不可用，导致过期后被其它节点租用）时，重新租用一个新的编号。
+ *
+ * 租约可能已经过期时，Worker 编号可能已经被其它节点租用，此时 {@link #getWorkerId()} 返回 -1，使生成编号直接失败，避免生成重复的编号：
+ * 1. 距离上次续租成功，超过「租约时长 - 续租周期」，即下次续租前租约可能过期。例如说，Redis 长时间不可用
+ * 2. 租约丢失后，重新租用失败
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class SequenceWorkerIdLeaser {
+
+    /**
+     * 续租，KEYS[1] 为租约，ARGV[1] 为持有者，ARGV[2] 为过期时间
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "    return redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "end\n"
+                    + "return 0", Long.class);
+    /**
+     * 释放租约，KEYS[1] 为租约，ARGV[1] 为持有者
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "    return redis.call('DEL', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration leaseTimeout;
+    private final Duration renewPeriod;
+    /**
+     * 租约的持有者，每个实例唯一
+     */
+    private final String owner = IdUtil.fastSimpleUUID();
+
+    /**
+     * 当前租用的 Worker 编号，未租用时为 -1
+     */
+    private volatile int workerId = -1;
+    /**
+     * 最后一次租用或续租成功的时间，取发起请求前的时间，保证不晚于 Redis 中租约的实际开始时间
+     */
+    private volatile long lastRenewTime;
+
+    private ScheduledExecutorService executor;
+
+    public SequenceWorkerIdLeaser(StringRedisTemplate stringRedisTemplate, Duration leaseTimeout, Duration renewPeriod) {
+        Assert.isTrue(leaseTimeout.compareTo(renewPeriod.multipliedBy(2)) >= 0,
+                "租约时长({}) 需要至少是续租周期({}) 的两倍", leaseTimeout, renewPeriod);
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.leaseTimeout = leaseTimeout;
+        this.renewPeriod = renewPeriod;
+    }
+
+    public void start() {
+        lease(); // 启动时租用失败，直接抛出异常，避免生成重复的编号
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("sequence-worker-lease-", true));
+        executor.scheduleWithFixedDelay(this::renew, renewPeriod.toMillis(), renewPeriod.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        int currentWorkerId = workerId;
+        if (currentWorkerId < 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(formatKey(currentWorkerId)), owner);
+        } catch (Exception ex) {
+            log.error("[stop][释放 Worker 编号({}) 失败，等待租约过期]", currentWorkerId, ex);
+        }
+    }
+
+    /**
+     * 获得当前租用的 Worker 编号
+     *
+     * @return Worker 编号。未租用，或者租约可能已经过期时，返回 -1
+     */
+    public int getWorkerId() {
+        if (isLeaseExpiring(System.currentTimeMillis())) {
+            return -1;
+        }
+        return workerId;
+    }
+
+    void lease() {
+        int start = RandomUtil.randomInt(SnowflakeSequenceGenerator.MAX_WORKER_ID + 1);
+        for (int i = 0; i <= SnowflakeSequenceGenerator.MAX_WORKER_ID; i++) {
+            int candidate = (start + i) & SnowflakeSequenceGenerator.MAX_WORKER_ID;
+            long now = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(formatKey(candidate), owner, leaseTimeout))) {
+                lastRenewTime = now;
+                workerId = candidate;
+                log.info("[lease][租用 Worker 编号({}) 成功]", candidate);
+                return;
+            }
+        }
+        throw new IllegalStateException("无空闲的 Worker 编号，已经全部被租用");
+    }
+
+    void renew() {
+        int currentWorkerId = workerId;
+        try {
+            // 情况一：未持有租约（上次重新租用失败），重新租用
+            if (currentWorkerId < 0) {
+                lease();
+                return;
+            }
+            // 情况二：续租
+            long now = System.currentTimeMillis();
+            Long result = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(formatKey(currentWorkerId)),
+                    owner, String.valueOf(leaseTimeout.toMillis()));
+            if (result != null && result > 0) {
+                lastRenewTime = now;
+                return;
+            }
+            // 情况三：租约已经丢失，可能已经被其它节点租用，先停止使用，再重新租用
+            log.warn("[renew][Worker 编号({}) 的租约已经丢失，重新租用]", currentWorkerId);
+            workerId = -1;
+            lease();
+        } catch (Exception ex) {
+            log.error("[renew][续租 Worker 编号({}) 失败]", currentWorkerId, ex);
+            // 租约时长大于续租周期，可以容忍 Redis 短暂不可用；但是下次续租前租约可能过期时，停止使用当前的编号
+            if (workerId >= 0 && isLeaseExpiring(System.currentTimeMillis())) {
+                log.error("[renew][Worker 编号({}) 的租约即将过期，停止生成编号]", workerId);
+                workerId = -1;
+            }
+        }
+    }
+
+    /**
+     * 判断租约是否可能在下次续租前过期
+     */
+    private boolean isLeaseExpiring(long now) {
+        return now - lastRenewTime >= leaseTimeout.toMillis() - renewPeriod.toMillis();
+    }
+
+    private static String formatKey(int workerId) {
+        return String.format(SEQUENCE_WORKER.getKeyTemplate(), workerId);
+    }
+
+}
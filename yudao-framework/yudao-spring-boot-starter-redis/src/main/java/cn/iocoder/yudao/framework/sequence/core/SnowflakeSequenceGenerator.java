@@ -0,0 +1,69 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 基于 Snowflake 算法的 {@link SequenceGenerator} 实现类
+ *
+ * 编号由 41 位毫秒时间戳、10 位 Worker 编号、12 位序号组成，Worker 编号由 {@link SequenceWorkerIdLeaser} 从 Redis 租用，保证集群内不重复。
+ *
+ * 生成时无锁，只通过一次 CAS 更新「时间戳 + 序号」：
+ * 1. 同一毫秒内的序号用完时，借用下一毫秒，不会阻塞等待
+ * 2. 时钟回拨时，继续在上一个编号的基础上递增，不会生成重复的编号
+ *
+ * @author 芋道源码
+ */
+public class SnowflakeSequenceGenerator implements SequenceGenerator {
+
+    /**
+     * 起始时间，2022-01-01 00:00:00 UTC
+     */
+    public static final long EPOCH = 1640995200000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    /**
+     * 最大的 Worker 编号
+     */
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final IntSupplier workerIdSupplier;
+    /**
+     * 时钟，单位：毫秒
+     */
+    private final LongSupplier clock;
+    /**
+     * 上一个编号的「时间戳 + 序号」部分，即 (时间戳 << SEQUENCE_BITS) | 序号，单调递增
+     */
+    private final AtomicLong lastState = new AtomicLong();
+
+    /**
+     * @param workerIdSupplier Worker 编号的提供者。租约丢失重新租用时，Worker 编号会变化，所以每次生成时获取
+     */
+    public SnowflakeSequenceGenerator(IntSupplier workerIdSupplier) {
+        this(workerIdSupplier, System::currentTimeMillis);
+    }
+
+    SnowflakeSequenceGenerator(IntSupplier workerIdSupplier, LongSupplier clock) {
+        this.workerIdSupplier = workerIdSupplier;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        int workerId = workerIdSupplier.getAsInt();
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalStateException(String.format("Worker 编号(%d) 不合法，可能是未租用成功", workerId));
+        }
+        long state = lastState.updateAndGet(last -> Math.max(last + 1,
+                (clock.getAsLong() - EPOCH) << SEQUENCE_BITS));
+        return ((state >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS))
+                | ((long) workerId << SEQUENCE_BITS)
+                | (state & SEQUENCE_MASK);
+    }
+
+}
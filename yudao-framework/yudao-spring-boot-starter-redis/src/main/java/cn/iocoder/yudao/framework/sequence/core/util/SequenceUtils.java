@@ -0,0 +1,26 @@
+package cn.iocoder.yudao.framework.sequence.core.util;
+
+import cn.iocoder.yudao.framework.sequence.core.SequenceGenerator;
+
+/**
+ * 序列号工具类，用于无法注入 {@link SequenceGenerator} 的静态方法
+ *
+ * @author 芋道源码
+ */
+public class SequenceUtils {
+
+    private static SequenceGenerator sequenceGenerator;
+
+    public static void init(SequenceGenerator sequenceGenerator) {
+        SequenceUtils.sequenceGenerator = sequenceGenerator;
+    }
+
+    public static long nextId() {
+        return sequenceGenerator.nextId();
+    }
+
+    public static String nextNo(String prefix) {
+        return sequenceGenerator.nextNo(prefix);
+    }
+
+}
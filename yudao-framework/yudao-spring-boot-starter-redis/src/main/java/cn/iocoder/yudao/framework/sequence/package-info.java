@@ -0,0 +1,4 @@
+/**
+ * 序列号组件，基于 Snowflake 算法生成集群内唯一的编号，Worker 编号通过 Redis 租用
+ */
+package cn.iocoder.yudao.framework.sequence;
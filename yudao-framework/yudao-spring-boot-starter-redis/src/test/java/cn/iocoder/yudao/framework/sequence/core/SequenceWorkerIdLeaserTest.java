@@ -0,0 +1,117 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SequenceWorkerIdLeaserTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+
+    private SequenceWorkerIdLeaser leaser;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (leaser != null) {
+            leaser.stop();
+        }
+    }
+
+    @Test
+    public void testRenew_success() {
+        // mock 方法
+        mockRenew(1L);
+        leaser = new SequenceWorkerIdLeaser(stringRedisTemplate, Duration.ofMinutes(10), Duration.ofMinutes(1));
+        leaser.lease();
+        int workerId = leaser.getWorkerId();
+
+        // 调用
+        leaser.renew();
+        // 断言
+        assertTrue(workerId >= 0);
+        assertEquals(workerId, leaser.getWorkerId());
+    }
+
+    @Test
+    public void testRenew_redisUnavailable() throws InterruptedException {
+        // mock 方法
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("Redis 不可用"));
+        leaser = new SequenceWorkerIdLeaser(stringRedisTemplate, Duration.ofMillis(400), Duration.ofMillis(200));
+        leaser.lease();
+
+        // 调用，租约未过期，继续使用当前的编号
+        leaser.renew();
+        assertTrue(leaser.getWorkerId() >= 0);
+        // mock 方法，重新租用也失败
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis 不可用"));
+        // 调用，下次续租前租约可能过期，停止使用
+        Thread.sleep(250);
+        leaser.renew();
+        assertEquals(-1, leaser.getWorkerId());
+        leaser.renew();
+        assertEquals(-1, leaser.getWorkerId());
+    }
+
+    @Test
+    public void testGetWorkerId_renewStalled() throws InterruptedException {
+        // mock 方法
+        mockRenew(1L);
+        leaser = new SequenceWorkerIdLeaser(stringRedisTemplate, Duration.ofMillis(400), Duration.ofMillis(200));
+        leaser.lease();
+        assertTrue(leaser.getWorkerId() >= 0);
+
+        // 调用，未续租（例如说续租线程卡住），租约可能过期
+        Thread.sleep(250);
+        // 断言
+        assertEquals(-1, leaser.getWorkerId());
+    }
+
+    @Test
+    public void testRenew_leaseLost() {
+        // mock 方法，租约已经丢失
+        mockRenew(0L);
+        leaser = new SequenceWorkerIdLeaser(stringRedisTemplate, Duration.ofMinutes(10), Duration.ofMinutes(1));
+        leaser.lease();
+        // mock 方法，无空闲的编号
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        // 调用，重新租用失败，停止使用
+        leaser.renew();
+        assertEquals(-1, leaser.getWorkerId());
+
+        // mock 方法，存在空闲的编号
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        // 调用，重新租用成功
+        leaser.renew();
+        assertTrue(leaser.getWorkerId() >= 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockRenew(Long result) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(result);
+    }
+
+}
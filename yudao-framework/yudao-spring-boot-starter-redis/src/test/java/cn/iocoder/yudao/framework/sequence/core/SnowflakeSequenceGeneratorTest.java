@@ -0,0 +1,117 @@
+package cn.iocoder.yudao.framework.sequence.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeSequenceGeneratorTest {
+
+    private static final long NOW = SnowflakeSequenceGenerator.EPOCH + TimeUnit.DAYS.toMillis(365);
+
+    @Test
+    public void testNextId_concurrent() throws Exception {
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(() -> 1);
+        int threadCount = 8;
+        int countPerThread = 50000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            // 调用，多线程并发生成
+            CountDownLatch startLatch = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < countPerThread; j++) {
+                        ids.add(generator.nextId());
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // 断言，不重复
+        assertEquals(threadCount * countPerThread, ids.size());
+    }
+
+    @Test
+    public void testNextId_sequenceOverflow() {
+        // 准备参数，时钟不前进
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(() -> 3, () -> NOW);
+
+        // 调用，用完同一毫秒的全部序号
+        long lastId = -1;
+        for (int i = 0; i < 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > lastId);
+            assertEquals(NOW - SnowflakeSequenceGenerator.EPOCH, getTimestamp(id));
+            assertEquals(i, getSequence(id));
+            lastId = id;
+        }
+        // 调用，借用下一毫秒
+        long id = generator.nextId();
+        // 断言
+        assertTrue(id > lastId);
+        assertEquals(NOW - SnowflakeSequenceGenerator.EPOCH + 1, getTimestamp(id));
+        assertEquals(0, getSequence(id));
+        assertEquals(3, getWorkerId(id));
+    }
+
+    @Test
+    public void testNextId_clockRollback() {
+        // 准备参数
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(() -> 3, clock::get);
+        long id1 = generator.nextId();
+
+        // 调用，时钟回拨 1 秒
+        clock.addAndGet(-1000);
+        long id2 = generator.nextId();
+        long id3 = generator.nextId();
+        // 断言，在上一个编号的基础上递增
+        assertTrue(id2 > id1);
+        assertTrue(id3 > id2);
+        assertEquals(getTimestamp(id1), getTimestamp(id3));
+
+        // 调用，时钟恢复后前进
+        clock.set(NOW + 1);
+        long id4 = generator.nextId();
+        // 断言
+        assertTrue(id4 > id3);
+        assertEquals(NOW - SnowflakeSequenceGenerator.EPOCH + 1, getTimestamp(id4));
+        assertEquals(0, getSequence(id4));
+    }
+
+    @Test
+    public void testNextId_invalidWorkerId() {
+        // 场景一：未租用
+        assertThrows(IllegalStateException.class, () -> new SnowflakeSequenceGenerator(() -> -1).nextId());
+        // 场景二：超过最大值
+        assertThrows(IllegalStateException.class,
+                () -> new SnowflakeSequenceGenerator(() -> SnowflakeSequenceGenerator.MAX_WORKER_ID + 1).nextId());
+    }
+
+    private static long getTimestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long getWorkerId(long id) {
+        return (id >>> 12) & SnowflakeSequenceGenerator.MAX_WORKER_ID;
+    }
+
+    private static long getSequence(long id) {
+        return id & 4095;
+    }
+
+}
@@ -1,9 +1,11 @@
 package cn.iocoder.yudao.framework.security.config;
 
+import cn.hutool.core.util.StrUtil;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import java.time.Duration;
@@ -31,6 +33,36 @@ public class SecurityProperties {
     @NotNull(message = "Session 过期时间不能为空")
     private Duration sessionTimeout;
 
+    /**
+     * 签名 Token 模式的开关
+     *
+     * 开启后，Token 携带用户编号、租户编号、角色编号、过期时间等信息，并使用 HmacSHA256 签名，
+     * 校验时在本地验签即可，只在本地缓存过期时读取 Redis 中刷新过的登录用户。此时，Token 的有效期为 {@link #tokenTimeout}
+     */
+    @NotNull(message = "签名 Token 模式的开关不能为空")
+    private Boolean signedTokenEnable = false;
+    /**
+     * 签名 Token 的密钥
+     * 开启签名 Token 模式时，一定要配置密钥，并且各节点保持一致
+     */
+    private String signedTokenSecret;
+
+    @AssertTrue(message = "开启签名 Token 模式时，签名 Token 的密钥不能为空")
+    public boolean isSignedTokenSecretValid() {
+        return !Boolean.TRUE.equals(signedTokenEnable) || StrUtil.isNotBlank(signedTokenSecret);
+    }
+
+    /**
+     * 登录用户缓存到 Redis 时，使用的编码器名字
+     *
+     * 1. json：JSON 格式，可读性好
+     * 2. binary：紧凑的二进制格式，体积更小、编解码更快
+     *
+     * 读取时，会根据内容自动识别格式，所以滚动发布时，可以先全部发布新版本，再切换成 binary
+     */
+    @NotEmpty(message = "登录用户的编码器不能为空")
+    private String loginUserCodec = "json";
+
     /**
      * mock 模式的开关
      */
@@ -0,0 +1,132 @@
+package cn.iocoder.yudao.framework.security.core.util;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
+import cn.iocoder.yudao.framework.security.core.LoginUser;
+import lombok.SneakyThrows;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
+
+/**
+ * 自包含签名 Token 的工具类
+ *
+ * Token 格式为 {sessionId}.{expireTime}.{payload}.{signature}，其中：
+ * 1. sessionId：Session 编号，用于吊销、在线用户的记录
+ * 2. expireTime：过期时间戳，单位：毫秒
+ * 3. payload：{@link LoginUser} 的 JSON，使用 Base64 URL Safe 编码
+ * 4. signature：前三段内容的 HmacSHA256 签名，使用 Base64 URL Safe 编码
+ *
+ * 这样，校验 Token 时只需要本地计算签名，无需读取 Redis
+ *
+ * @author 芋道源码
+ */
+public class SignedTokenUtils {
+
+    private static final String SEPARATOR = ".";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * 判断是否为签名 Token
+     *
+     * @param token Token 令牌
+     * @return 是否
+     */
+    public static boolean isSignedToken(String token) {
+        return StrUtil.contains(token, SEPARATOR);
+    }
+
+    /**
+     * 获得 Token 对应的 Session 编号
+     * 如果不是签名 Token，则直接返回 Token 本身
+     *
+     * @param token Token 令牌
+     * @return Session 编号
+     */
+    public static String getSessionId(String token) {
+        return isSignedToken(token) ? StrUtil.subBefore(token, SEPARATOR, false) : token;
+    }
+
+    /**
+     * 获得 Token 的过期时间
+     *
+     * 注意，该方法不校验签名
+     *
+     * @param token 签名 Token
+     * @return 过期时间。如果 Token 格式不正确，则返回 null
+     */
+    public static Date getExpireTime(String token) {
+        String[] parts = StrUtil.split(token, SEPARATOR);
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new Date(Long.parseLong(parts[1]));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 生成签名 Token
+     *
+     * @param sessionId Session 编号
+     * @param loginUser 登录用户
+     * @param expireTime 过期时间
+     * @param secret 签名密钥
+     * @return 签名 Token
+     */
+    public static String sign(String sessionId, LoginUser loginUser, Date expireTime, String secret) {
+        Assert.isFalse(StrUtil.contains(sessionId, SEPARATOR), "Session 编号({}) 不能包含分隔符", sessionId);
+        String content = sessionId + SEPARATOR + expireTime.getTime()
+                + SEPARATOR + Base64.encodeUrlSafe(JsonUtils.toJsonByte(loginUser));
+        return content + SEPARATOR + Base64.encodeUrlSafe(hmac(content, secret));
+    }
+
+    /**
+     * 校验签名 Token，并解析出登录用户
+     *
+     * @param token 签名 Token
+     * @param secret 签名密钥
+     * @return 登录用户。如果签名不正确，或者已经过期，则返回 null
+     */
+    public static LoginUser verify(String token, String secret) {
+        int index = token.lastIndexOf(SEPARATOR);
+        String[] parts = StrUtil.split(token, SEPARATOR);
+        if (parts.length != 4) {
+            return null;
+        }
+        // 校验过期时间，放在校验签名之前，因为更轻量
+        long expireTime;
+        try {
+            expireTime = Long.parseLong(parts[1]);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (expireTime < System.currentTimeMillis()) {
+            return null;
+        }
+        // 校验签名，使用 MessageDigest#isEqual 常量时间比较，避免时序攻击
+        byte[] signature = hmac(token.substring(0, index), secret);
+        if (!MessageDigest.isEqual(signature, Base64.decode(parts[3]))) {
+            return null;
+        }
+        // 解析 LoginUser
+        return JsonUtils.parseObject(Base64.decode(parts[2]), LoginUser.class);
+    }
+
+    @SneakyThrows
+    private static byte[] hmac(String content, String secret) {
+        Assert.notEmpty(secret, "签名 Token 的密钥不能为空");
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        return mac.doFinal(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,69 @@
+package cn.iocoder.yudao.framework.apilog.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotEmpty;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * API 访问日志配置属性
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.access-log")
+@Validated
+@Data
+public class ApiAccessLogProperties {
+
+    /**
+     * 是否开启，默认为 true
+     */
+    private boolean enable = true;
+    /**
+     * 需要排除的 URL，默认为空
+     */
+    private List<String> excludeUrls = Collections.emptyList();
+
+    /**
+     * 默认的采样率，取值范围 [0, 1]
+     */
+    @DecimalMin("0")
+    @DecimalMax("1")
+    private double sampleRate = 1.0D;
+    /**
+     * 指定 URL 的采样率，按照顺序匹配，未匹配到的使用 {@link #sampleRate}
+     */
+    @Valid
+    private List<SampleRule> sampleRules = Collections.emptyList();
+
+    /**
+     * 记录的请求内容的最大字节数，超过的部分被截断
+     *
+     * 请求内容在业务读取时，同步复制到日志的缓冲区，不会提前读取整个请求内容
+     */
+    private int maxBodyBytes = 4096;
+
+    @Data
+    public static class SampleRule {
+
+        /**
+         * URL 的 Ant 路径规则
+         */
+        @NotEmpty(message = "URL 路径规则不能为空")
+        private String urlPattern;
+        /**
+         * 采样率，取值范围 [0, 1]
+         */
+        @DecimalMin("0")
+        @DecimalMax("1")
+        private double rate;
+
+    }
+
+}
@@ -7,14 +7,17 @@ import cn.iocoder.yudao.framework.web.config.YudaoWebAutoConfiguration;
 import cn.iocoder.yudao.framework.common.enums.WebFilterOrderEnum;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.PathMatcher;
 
 import javax.servlet.Filter;
 
 @Configuration
 @AutoConfigureAfter(YudaoWebAutoConfiguration.class)
+@EnableConfigurationProperties(ApiAccessLogProperties.class)
 public class YudaoApiLogAutoConfiguration {
 
     /**
@@ -22,9 +25,12 @@ public class YudaoApiLogAutoConfiguration {
      */
     @Bean
     public FilterRegistrationBean<ApiAccessLogFilter> apiAccessLogFilter(WebProperties webProperties,
+                                                                         ApiAccessLogProperties properties,
+                                                                         PathMatcher pathMatcher,
                                                                          @Value("${spring.application.name}") String applicationName,
                                                                          ApiAccessLogFrameworkService apiAccessLogFrameworkService) {
-        ApiAccessLogFilter filter = new ApiAccessLogFilter(webProperties, applicationName, apiAccessLogFrameworkService);
+        ApiAccessLogFilter filter = new ApiAccessLogFilter(webProperties, properties, pathMatcher,
+                applicationName, apiAccessLogFrameworkService);
         return createFilterBean(filter, WebFilterOrderEnum.API_ACCESS_LOG_FILTER);
     }
 
@@ -3,6 +3,7 @@ package cn.iocoder.yudao.framework.apilog.core.filter;
 import cn.hutool.core.exceptions.ExceptionUtil;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.extra.servlet.ServletUtil;
+import cn.iocoder.yudao.framework.apilog.config.ApiAccessLogProperties;
 import cn.iocoder.yudao.framework.apilog.core.service.ApiAccessLogFrameworkService;
 import cn.iocoder.yudao.framework.apilog.core.service.dto.ApiAccessLogCreateReqDTO;
 import cn.iocoder.yudao.framework.common.exception.enums.GlobalErrorCodeConstants;
@@ -14,6 +15,7 @@ import cn.iocoder.yudao.framework.web.config.WebProperties;
 import cn.iocoder.yudao.framework.web.core.filter.ApiRequestFilter;
 import cn.iocoder.yudao.framework.web.core.util.WebFrameworkUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.PathMatcher;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -22,52 +24,94 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static cn.iocoder.yudao.framework.common.util.json.JsonUtils.toJsonString;
 
 /**
  * API 访问日志 Filter
  *
+ * 1. 按照 {@link ApiAccessLogProperties} 配置的排除 URL、采样率，在请求开始前决定是否记录，未被采样的请求不做任何处理
+ * 2. 请求内容通过 {@link ApiAccessLogRequestWrapper} 在业务读取时同步复制，最多复制 maxBodyBytes 个字节
+ * 3. 请求参数的序列化，延迟到请求结束后进行
+ *
  * @author 芋道源码
  */
 @Slf4j
 public class ApiAccessLogFilter extends ApiRequestFilter {
 
+    private final ApiAccessLogProperties properties;
+    /**
+     * 路径匹配器
+     */
+    private final PathMatcher pathMatcher;
+
     private final String applicationName;
 
     private final ApiAccessLogFrameworkService apiAccessLogFrameworkService;
 
-    public ApiAccessLogFilter(WebProperties webProperties, String applicationName, ApiAccessLogFrameworkService apiAccessLogFrameworkService) {
+    public ApiAccessLogFilter(WebProperties webProperties, ApiAccessLogProperties properties, PathMatcher pathMatcher,
+                              String applicationName, ApiAccessLogFrameworkService apiAccessLogFrameworkService) {
         super(webProperties);
+        this.properties = properties;
+        this.pathMatcher = pathMatcher;
         this.applicationName = applicationName;
         this.apiAccessLogFrameworkService = apiAccessLogFrameworkService;
     }
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 非 API 请求，或者关闭，则不记录
+        if (super.shouldNotFilter(request) || !properties.isEnable()) {
+            return true;
+        }
+        // 如果匹配到排除的 URL，则不记录
+        String uri = request.getRequestURI();
+        if (properties.getExcludeUrls().stream().anyMatch(excludeUrl -> pathMatcher.match(excludeUrl, uri))) {
+            return true;
+        }
+        // 按照采样率，决定是否记录
+        double sampleRate = getSampleRate(uri);
+        return sampleRate < 1.0D && ThreadLocalRandom.current().nextDouble() >= sampleRate;
+    }
+
+    private double getSampleRate(String uri) {
+        for (ApiAccessLogProperties.SampleRule rule : properties.getSampleRules()) {
+            if (pathMatcher.match(rule.getUrlPattern(), uri)) {
+                return rule.getRate();
+            }
+        }
+        return properties.getSampleRate();
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         // 获得开始时间
         Date beginTim = new Date();
-        // 提前获得参数，避免 XssFilter 过滤处理
-        Map<String, String> queryString = ServletUtil.getParamMap(request);
-        String requestBody = ServletUtils.isJsonRequest(request) ? ServletUtil.getBody(request) : null;
+        // 只复制 json 请求的内容。XssFilter 在后面执行，所以复制到的是过滤前的内容
+        ApiAccessLogRequestWrapper requestWrapper = ServletUtils.isJsonRequest(request)
+                ? new ApiAccessLogRequestWrapper(request, properties.getMaxBodyBytes()) : null;
 
         try {
             // 继续过滤器
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(requestWrapper != null ? requestWrapper : request, response);
             // 正常执行，记录日志
-            createApiAccessLog(request, beginTim, queryString, requestBody, null);
+            createApiAccessLog(request, requestWrapper, beginTim, null);
         } catch (Exception ex) {
             // 异常执行，记录日志
-            createApiAccessLog(request, beginTim, queryString, requestBody, ex);
+            createApiAccessLog(request, requestWrapper, beginTim, ex);
             throw ex;
         }
     }
 
-    private void createApiAccessLog(HttpServletRequest request, Date beginTime,
-                                    Map<String, String> queryString, String requestBody, Exception ex) {
+    private void createApiAccessLog(HttpServletRequest request, ApiAccessLogRequestWrapper requestWrapper,
+                                    Date beginTime, Exception ex) {
         ApiAccessLogCreateReqDTO accessLog = new ApiAccessLogCreateReqDTO();
         try {
+            // 请求结束后，才获得参数。XssFilter 包装的是下游的 request，所以这里获得的是过滤前的参数
+            Map<String, String> queryString = ServletUtil.getParamMap(request);
+            String requestBody = requestWrapper != null ? requestWrapper.getBody() : null;
             this.buildApiAccessLogDTO(accessLog, request, beginTime, queryString, requestBody, ex);
             apiAccessLogFrameworkService.createApiAccessLogAsync(accessLog);
         } catch (Throwable th) {
@@ -0,0 +1,171 @@
+package cn.iocoder.yudao.framework.apilog.core.filter;
+
+import cn.hutool.core.util.CharsetUtil;
+import cn.hutool.core.util.StrUtil;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * API 访问日志的请求 Wrapper
+ *
+ * 业务读取请求内容时，同步复制最多 maxBodyBytes 个字节，用于记录日志。
+ * 相比提前读取整个请求内容，不会额外占用大请求体的内存，也不会改变业务读取请求内容的方式
+ *
+ * 每次调用 {@link #getInputStream()} 都会包装新的上游输入流，因此 {@link cn.iocoder.yudao.framework.web.core.filter.CacheRequestBodyWrapper}
+ * 缓存的请求内容依然可以重复读取。重复读取时，只复制尚未复制过的部分
+ *
+ * @author 芋道源码
+ */
+public class ApiAccessLogRequestWrapper extends HttpServletRequestWrapper {
+
+    /**
+     * 截断时，追加的后缀
+     */
+    private static final String TRUNCATED_SUFFIX = "...(truncated)";
+
+    private final int maxBodyBytes;
+    /**
+     * 复制的请求内容
+     */
+    private final ByteArrayOutputStream body;
+    /**
+     * 已经读取的最大字节数，即所有输入流中读取最远的位置
+     */
+    private long readBytes;
+
+    public ApiAccessLogRequestWrapper(HttpServletRequest request, int maxBodyBytes) {
+        super(request);
+        this.maxBodyBytes = maxBodyBytes;
+        this.body = new ByteArrayOutputStream(Math.min(Math.max(request.getContentLength(), 0), maxBodyBytes));
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), getCharset()));
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        return new TeeServletInputStream(super.getInputStream());
+    }
+
+    /**
+     * 获得业务已经读取的请求内容。超过 maxBodyBytes 时，会被截断
+     *
+     * @return 请求内容。业务未读取时，返回 null
+     */
+    public String getBody() {
+        if (body.size() == 0) {
+            return null;
+        }
+        String content = new String(body.toByteArray(), getCharset());
+        return readBytes > maxBodyBytes ? content + TRUNCATED_SUFFIX : content;
+    }
+
+    private Charset getCharset() {
+        String encoding = getCharacterEncoding();
+        return StrUtil.isNotEmpty(encoding) ? CharsetUtil.charset(encoding) : CharsetUtil.CHARSET_UTF_8;
+    }
+
+    /**
+     * 复制输入流中 position 位置的字节，已经复制过时跳过
+     *
+     * @param position 输入流中的位置
+     * @param b 读取到的字节
+     */
+    private void copy(long position, int b) {
+        if (position < readBytes) {
+            return;
+        }
+        if (position < maxBodyBytes) {
+            body.write(b);
+        }
+        readBytes = position + 1;
+    }
+
+    /**
+     * 复制输入流中 [position, position + length) 位置的内容，跳过已经复制过的部分
+     *
+     * @param position 输入流中的位置
+     * @param bytes 读取到的内容
+     * @param offset bytes 的偏移
+     * @param length 读取到的长度
+     */
+    private void copy(long position, byte[] bytes, int offset, int length) {
+        long end = position + length;
+        if (end <= readBytes) {
+            return;
+        }
+        // 只复制新读到的部分，并且不超过 maxBodyBytes
+        long copyEnd = Math.min(end, maxBodyBytes);
+        if (copyEnd > readBytes) {
+            body.write(bytes, (int) (offset + readBytes - position), (int) (copyEnd - readBytes));
+        }
+        readBytes = end;
+    }
+
+    /**
+     * 读取时，同步复制到 {@link #body} 的 ServletInputStream
+     */
+    private class TeeServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        /**
+         * 当前输入流已经读取的字节数
+         */
+        private long position;
+
+        private TeeServletInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b != -1) {
+                copy(position++, b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = delegate.read(bytes, offset, length);
+            if (count > 0) {
+                copy(position, bytes, offset, count);
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+    }
+
+}
@@ -0,0 +1,147 @@
+package cn.iocoder.yudao.framework.apilog.core.filter;
+
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.extra.servlet.ServletUtil;
+import cn.iocoder.yudao.framework.apilog.config.ApiAccessLogProperties;
+import cn.iocoder.yudao.framework.apilog.core.service.ApiAccessLogFrameworkService;
+import cn.iocoder.yudao.framework.apilog.core.service.dto.ApiAccessLogCreateReqDTO;
+import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
+import cn.iocoder.yudao.framework.web.config.WebProperties;
+import cn.iocoder.yudao.framework.web.core.filter.CacheRequestBodyWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link ApiAccessLogFilter} 的单元测试
+ *
+ * @author 芋道源码
+ */
+public class ApiAccessLogFilterTest {
+
+    private static final String BODY = "{\"username\":\"yudao\"}";
+
+    private ApiAccessLogProperties properties;
+    private ApiAccessLogFrameworkService apiAccessLogFrameworkService;
+    private ApiAccessLogFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        WebProperties webProperties = new WebProperties();
+        webProperties.setAdminApi(new WebProperties.Api().setPrefix("/admin-api"));
+        webProperties.setAppApi(new WebProperties.Api().setPrefix("/app-api"));
+        properties = new ApiAccessLogProperties();
+        apiAccessLogFrameworkService = mock(ApiAccessLogFrameworkService.class);
+        filter = new ApiAccessLogFilter(webProperties, properties, new AntPathMatcher(),
+                "yudao-server", apiAccessLogFrameworkService);
+    }
+
+    @Test
+    public void testDoFilter_readBodyTwice() throws Exception {
+        // 准备参数，和线上一样，由 CacheRequestBodyFilter 先缓存请求内容
+        HttpServletRequest request = new CacheRequestBodyWrapper(mockRequest("/admin-api/system/user/create"));
+        // 准备参数，业务读取请求内容后，GlobalExceptionHandler 再次读取
+        String[] bodies = new String[2];
+        FilterChain chain = (req, resp) -> {
+            bodies[0] = IoUtil.read(req.getReader());
+            bodies[1] = ServletUtil.getBody(req);
+        };
+
+        // 调用
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        // 断言，两次都能读到完整的请求内容
+        assertEquals(BODY, bodies[0]);
+        assertEquals(BODY, bodies[1]);
+        // 断言，日志中的请求内容不重复
+        assertEquals(BODY, getLoggedBody());
+    }
+
+    @Test
+    public void testDoFilter_truncated() throws Exception {
+        // 准备参数
+        properties.setMaxBodyBytes(8);
+        HttpServletRequest request = new CacheRequestBodyWrapper(mockRequest("/admin-api/system/user/create"));
+        FilterChain chain = (req, resp) -> {
+            // 逐字节读取一半，再整体读取
+            for (int i = 0; i < 4; i++) {
+                req.getInputStream().read();
+            }
+            IoUtil.read(req.getInputStream(), StandardCharsets.UTF_8);
+        };
+
+        // 调用
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        // 断言
+        assertEquals(BODY.substring(0, 8) + "...(truncated)", getLoggedBody());
+    }
+
+    @Test
+    public void testDoFilter_notRead() throws Exception {
+        // 准备参数，业务未读取请求内容
+        HttpServletRequest request = mockRequest("/admin-api/system/user/get");
+
+        // 调用
+        filter.doFilter(request, new MockHttpServletResponse(), (req, resp) -> {});
+        // 断言
+        assertNull(getLoggedBody());
+    }
+
+    @Test
+    public void testShouldNotFilter() {
+        // 准备参数
+        properties.setExcludeUrls(Collections.singletonList("/admin-api/infra/api-access-log/**"));
+        properties.setSampleRate(0D);
+        ApiAccessLogProperties.SampleRule rule = new ApiAccessLogProperties.SampleRule();
+        rule.setUrlPattern("/admin-api/system/**");
+        rule.setRate(1D);
+        properties.setSampleRules(Collections.singletonList(rule));
+
+        // 调用，并断言非 API 请求
+        assertTrue(filter.shouldNotFilter(mockRequest("/actuator/health")));
+        // 调用，并断言排除的 URL
+        assertTrue(filter.shouldNotFilter(mockRequest("/admin-api/infra/api-access-log/page")));
+        // 调用，并断言匹配采样规则的 URL
+        assertFalse(filter.shouldNotFilter(mockRequest("/admin-api/system/user/get")));
+        // 调用，并断言使用默认采样率的 URL
+        assertTrue(filter.shouldNotFilter(mockRequest("/app-api/member/user/get")));
+    }
+
+    @Test
+    public void testShouldNotFilter_disable() {
+        // 准备参数
+        properties.setEnable(false);
+
+        // 调用，并断言
+        assertTrue(filter.shouldNotFilter(mockRequest("/admin-api/system/user/get")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String getLoggedBody() {
+        ArgumentCaptor<ApiAccessLogCreateReqDTO> accessLogCaptor = ArgumentCaptor.forClass(ApiAccessLogCreateReqDTO.class);
+        verify(apiAccessLogFrameworkService).createApiAccessLogAsync(accessLogCaptor.capture());
+        Map<String, Object> requestParams = JsonUtils.parseObject(accessLogCaptor.getValue().getRequestParams(), Map.class);
+        return (String) requestParams.get("body");
+    }
+
+    private static MockHttpServletRequest mockRequest(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+}
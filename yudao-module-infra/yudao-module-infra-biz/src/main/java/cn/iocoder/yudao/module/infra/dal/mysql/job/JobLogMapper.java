@@ -24,6 +24,7 @@ public interface JobLogMapper extends BaseMapperX<JobLogDO> {
                 .likeIfPresent("handler_name", reqVO.getHandlerName())
                 .geIfPresent("begin_time", reqVO.getBeginTime())
                 .leIfPresent("end_time", reqVO.getEndTime())
+                .betweenIfPresent("create_time", reqVO.getBeginTime(), reqVO.getEndTime()) // 分区裁剪，日志在任务开始时创建
                 .eqIfPresent("status", reqVO.getStatus())
                 .orderByDesc("id") // ID 倒序
         );
@@ -35,6 +36,7 @@ public interface JobLogMapper extends BaseMapperX<JobLogDO> {
                 .likeIfPresent("handler_name", reqVO.getHandlerName())
                 .geIfPresent("begin_time", reqVO.getBeginTime())
                 .leIfPresent("end_time", reqVO.getEndTime())
+                .betweenIfPresent("create_time", reqVO.getBeginTime(), reqVO.getEndTime()) // 分区裁剪，日志在任务开始时创建
                 .eqIfPresent("status", reqVO.getStatus())
                 .orderByDesc("id") // ID 倒序
         );
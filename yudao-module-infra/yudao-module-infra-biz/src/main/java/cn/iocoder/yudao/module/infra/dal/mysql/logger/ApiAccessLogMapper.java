@@ -5,6 +5,7 @@ import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apiaccesslog.Api
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
 import cn.iocoder.yudao.framework.mybatis.core.query.QueryWrapperX;
+import cn.iocoder.yudao.framework.mybatis.core.util.PartitionUtils;
 import cn.iocoder.yudao.module.infra.dal.dataobject.logger.ApiAccessLogDO;
 import org.apache.ibatis.annotations.Mapper;
 
@@ -25,6 +26,7 @@ public interface ApiAccessLogMapper extends BaseMapperX<ApiAccessLogDO> {
                 .eqIfPresent("application_name", reqVO.getApplicationName())
                 .likeIfPresent("request_url", reqVO.getRequestUrl())
                 .betweenIfPresent("begin_time", reqVO.getBeginBeginTime(), reqVO.getEndBeginTime())
+                .betweenIfPresent("create_time", reqVO.getBeginBeginTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndBeginTime())) // 分区裁剪
                 .geIfPresent("duration", reqVO.getDuration())
                 .eqIfPresent("result_code", reqVO.getResultCode())
                 .orderByDesc("id")
@@ -38,6 +40,7 @@ public interface ApiAccessLogMapper extends BaseMapperX<ApiAccessLogDO> {
                 .eqIfPresent("application_name", reqVO.getApplicationName())
                 .likeIfPresent("request_url", reqVO.getRequestUrl())
                 .betweenIfPresent("begin_time", reqVO.getBeginBeginTime(), reqVO.getEndBeginTime())
+                .betweenIfPresent("create_time", reqVO.getBeginBeginTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndBeginTime())) // 分区裁剪
                 .geIfPresent("duration", reqVO.getDuration())
                 .eqIfPresent("result_code", reqVO.getResultCode())
                 .orderByDesc("id")
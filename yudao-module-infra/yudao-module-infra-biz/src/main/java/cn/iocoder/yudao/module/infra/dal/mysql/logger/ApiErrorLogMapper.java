@@ -3,6 +3,7 @@ package cn.iocoder.yudao.module.infra.dal.mysql.logger;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
 import cn.iocoder.yudao.framework.mybatis.core.query.QueryWrapperX;
+import cn.iocoder.yudao.framework.mybatis.core.util.PartitionUtils;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apierrorlog.ApiErrorLogExportReqVO;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apierrorlog.ApiErrorLogPageReqVO;
 import cn.iocoder.yudao.module.infra.dal.dataobject.logger.ApiErrorLogDO;
@@ -25,6 +26,7 @@ public interface ApiErrorLogMapper extends BaseMapperX<ApiErrorLogDO> {
                 .eqIfPresent("application_name", reqVO.getApplicationName())
                 .likeIfPresent("request_url", reqVO.getRequestUrl())
                 .betweenIfPresent("exception_time", reqVO.getBeginExceptionTime(), reqVO.getEndExceptionTime())
+                .betweenIfPresent("create_time", reqVO.getBeginExceptionTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndExceptionTime())) // 分区裁剪
                 .eqIfPresent("process_status", reqVO.getProcessStatus())
                 .orderByDesc("id")
         );
@@ -37,6 +39,7 @@ public interface ApiErrorLogMapper extends BaseMapperX<ApiErrorLogDO> {
                 .eqIfPresent("application_name", reqVO.getApplicationName())
                 .likeIfPresent("request_url", reqVO.getRequestUrl())
                 .betweenIfPresent("exception_time", reqVO.getBeginExceptionTime(), reqVO.getEndExceptionTime())
+                .betweenIfPresent("create_time", reqVO.getBeginExceptionTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndExceptionTime())) // 分区裁剪
                 .eqIfPresent("process_status", reqVO.getProcessStatus())
 				.orderByDesc("id")
         );
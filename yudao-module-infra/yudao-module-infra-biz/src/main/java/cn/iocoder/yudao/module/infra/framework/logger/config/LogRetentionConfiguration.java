@@ -0,0 +1,9 @@
+package cn.iocoder.yudao.module.infra.framework.logger.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LogRetentionProperties.class)
+public class LogRetentionConfiguration {
+}
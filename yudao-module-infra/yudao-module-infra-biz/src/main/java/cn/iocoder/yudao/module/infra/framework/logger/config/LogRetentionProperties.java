@@ -0,0 +1,55 @@
+package cn.iocoder.yudao.module.infra.framework.logger.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 日志表的保留配置
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.log-retention")
+@Validated
+@Data
+public class LogRetentionProperties {
+
+    /**
+     * 预先创建的分区月数，不包括当月
+     *
+     * 只对按照 create_time 分区的表生效，见 sql/mysql/log-partition.sql 脚本
+     */
+    @Min(value = 1, message = "预先创建的分区月数不能小于 1")
+    private int premakeMonths = 2;
+
+    /**
+     * 日志表数组
+     */
+    @Valid
+    private List<Table> tables = Collections.emptyList();
+
+    @Data
+    public static class Table {
+
+        /**
+         * 表名
+         */
+        @NotEmpty(message = "表名不能为空")
+        private String name;
+        /**
+         * 保留的月数，超过的日志会被清理
+         */
+        @NotNull(message = "保留的月数不能为空")
+        @Min(value = 1, message = "保留的月数不能小于 1")
+        private Integer retentionMonths;
+
+    }
+
+}
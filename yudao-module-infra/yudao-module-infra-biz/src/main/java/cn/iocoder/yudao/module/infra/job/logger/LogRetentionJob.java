@@ -0,0 +1,63 @@
+package cn.iocoder.yudao.module.infra.job.logger;
+
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
+import cn.iocoder.yudao.framework.quartz.core.handler.JobHandler;
+import cn.iocoder.yudao.module.infra.framework.logger.config.LogRetentionProperties;
+import cn.iocoder.yudao.module.infra.service.logger.LogRetentionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 日志保留 Job
+ *
+ * 按照 yudao.log-retention 配置，清理各个日志表的过期数据。
+ * 日志表跨所有租户清理，所以不使用 @TenantJob 注解
+ *
+ * @author 芋道源码
+ */
+@Component
+@Slf4j
+public class LogRetentionJob implements JobHandler {
+
+    @Resource
+    private LogRetentionProperties logRetentionProperties;
+
+    @Resource
+    private LogRetentionService logRetentionService;
+
+    @Override
+    public String execute(String param) throws Exception {
+        List<String> results = new ArrayList<>();
+        for (LogRetentionProperties.Table table : logRetentionProperties.getTables()) {
+            // 单个表失败，不影响其它表的清理
+            try {
+                results.add(cleanTable(table));
+            } catch (Exception ex) {
+                log.error("[execute][表({}) 清理失败]", table.getName(), ex);
+                results.add(String.format("表(%s) 清理失败：%s", table.getName(), ex.getMessage()));
+            }
+        }
+        // 返回结果，记录每个表的清理情况
+        return String.join("；", results);
+    }
+
+    private String cleanTable(LogRetentionProperties.Table table) {
+        Date expireTime = DateUtils.addDate(Calendar.MONTH, -table.getRetentionMonths());
+        // 情况一：分区表，预先创建分区，并删除过期分区
+        if (logRetentionService.isPartitioned(table.getName())) {
+            int createCount = logRetentionService.createPartitions(table.getName(), logRetentionProperties.getPremakeMonths());
+            int dropCount = logRetentionService.dropExpiredPartitions(table.getName(), expireTime);
+            return String.format("表(%s) 创建分区 %s 个，删除分区 %s 个", table.getName(), createCount, dropCount);
+        }
+        // 情况二：普通表，分批删除过期日志
+        int deleteCount = logRetentionService.deleteExpiredLogs(table.getName(), expireTime);
+        return String.format("表(%s) 删除日志 %s 条", table.getName(), deleteCount);
+    }
+
+}
@@ -1,16 +1,18 @@
 package cn.iocoder.yudao.module.infra.service.logger;
 
 import cn.iocoder.yudao.framework.apilog.core.service.dto.ApiAccessLogCreateReqDTO;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apiaccesslog.ApiAccessLogExportReqVO;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apiaccesslog.ApiAccessLogPageReqVO;
 import cn.iocoder.yudao.module.infra.convert.logger.ApiAccessLogConvert;
 import cn.iocoder.yudao.module.infra.dal.dataobject.logger.ApiAccessLogDO;
 import cn.iocoder.yudao.module.infra.dal.mysql.logger.ApiAccessLogMapper;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.List;
 
@@ -26,6 +28,19 @@ public class ApiAccessLogServiceImpl implements ApiAccessLogService {
     @Resource
     private ApiAccessLogMapper apiAccessLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
+    /**
+     * API 访问日志的异步批量写入
+     */
+    private BatchInsertSink<ApiAccessLogDO> apiAccessLogSink;
+
+    @PostConstruct
+    public void initSink() {
+        apiAccessLogSink = batchInsertSinkManager.create("api-access-log", ApiAccessLogDO.class);
+    }
+
     @Override
     public PageResult<ApiAccessLogDO> getApiAccessLogPage(ApiAccessLogPageReqVO pageReqVO) {
         return apiAccessLogMapper.selectPage(pageReqVO);
@@ -37,10 +52,9 @@ public class ApiAccessLogServiceImpl implements ApiAccessLogService {
     }
 
     @Override
-    @Async
     public void createApiAccessLogAsync(ApiAccessLogCreateReqDTO createDTO) {
         ApiAccessLogDO apiAccessLog = ApiAccessLogConvert.INSTANCE.convert(createDTO);
-        apiAccessLogMapper.insert(apiAccessLog);
+        apiAccessLogSink.offer(apiAccessLog);
     }
 
 }
@@ -1,6 +1,8 @@
 package cn.iocoder.yudao.module.infra.service.logger;
 
 import cn.iocoder.yudao.framework.apilog.core.service.dto.ApiErrorLogCreateReqDTO;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apierrorlog.ApiErrorLogExportReqVO;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apierrorlog.ApiErrorLogPageReqVO;
 import cn.iocoder.yudao.module.infra.convert.logger.ApiErrorLogConvert;
@@ -10,10 +12,10 @@ import cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.module.infra.enums.ErrorCodeConstants;
 import cn.iocoder.yudao.module.infra.enums.logger.ApiErrorLogProcessStatusEnum;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.Date;
 import java.util.List;
@@ -30,6 +32,19 @@ public class ApiErrorLogServiceImpl implements ApiErrorLogService {
     @Resource
     private ApiErrorLogMapper apiErrorLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
+    /**
+     * API 错误日志的异步批量写入
+     */
+    private BatchInsertSink<ApiErrorLogDO> apiErrorLogSink;
+
+    @PostConstruct
+    public void initSink() {
+        apiErrorLogSink = batchInsertSinkManager.create("api-error-log", ApiErrorLogDO.class);
+    }
+
     @Override
     public PageResult<ApiErrorLogDO> getApiErrorLogPage(ApiErrorLogPageReqVO pageReqVO) {
         return apiErrorLogMapper.selectPage(pageReqVO);
@@ -55,11 +70,10 @@ public class ApiErrorLogServiceImpl implements ApiErrorLogService {
     }
 
     @Override
-    @Async
     public void createApiErrorLogAsync(ApiErrorLogCreateReqDTO createDTO) {
         ApiErrorLogDO apiErrorLog = ApiErrorLogConvert.INSTANCE.convert(createDTO);
         apiErrorLog.setProcessStatus(ApiErrorLogProcessStatusEnum.INIT.getStatus());
-        apiErrorLogMapper.insert(apiErrorLog);
+        apiErrorLogSink.offer(apiErrorLog);
     }
 
 }
@@ -0,0 +1,51 @@
+package cn.iocoder.yudao.module.infra.service.logger;
+
+import java.util.Date;
+
+/**
+ * 日志保留 Service 接口
+ *
+ * 日志表按照 create_time 清理过期数据：
+ * 1. MySQL 按月分区的表，预先创建未来的分区，并 DROP 整个过期的分区，不会锁表
+ * 2. 未分区的表，按照 id 范围分批 DELETE，避免长时间锁表
+ *
+ * @author 芋道源码
+ */
+public interface LogRetentionService {
+
+    /**
+     * 判断表是否按照 create_time 分区
+     *
+     * @param tableName 表名
+     * @return 是否分区
+     */
+    boolean isPartitioned(String tableName);
+
+    /**
+     * 预先创建当月及未来 months 个月的分区，已经存在的分区会跳过
+     *
+     * @param tableName 表名
+     * @param months 未来的月数
+     * @return 创建的分区数量
+     */
+    int createPartitions(String tableName, int months);
+
+    /**
+     * 删除过期的分区，即分区内所有数据的 create_time 都早于 expireTime 的分区
+     *
+     * @param tableName 表名
+     * @param expireTime 过期时间
+     * @return 删除的分区数量
+     */
+    int dropExpiredPartitions(String tableName, Date expireTime);
+
+    /**
+     * 分批删除 create_time 早于 expireTime 的日志，用于未分区的表
+     *
+     * @param tableName 表名
+     * @param expireTime 过期时间
+     * @return 删除的数量
+     */
+    int deleteExpiredLogs(String tableName, Date expireTime);
+
+}
@@ -0,0 +1,212 @@
+package cn.iocoder.yudao.module.infra.service.logger;
+
+import cn.hutool.core.util.ReUtil;
+import cn.iocoder.yudao.framework.mybatis.core.util.JdbcUtils;
+import com.baomidou.mybatisplus.annotation.DbType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 日志保留 Service 实现类
+ *
+ * 分区、删除都是 DDL 或者全表的维护操作，所以直接使用 JdbcTemplate 执行，不经过 MyBatis 的多租户、数据权限等拦截器
+ *
+ * @author 芋道源码
+ */
+@Service
+@Slf4j
+public class LogRetentionServiceImpl implements LogRetentionService {
+
+    /**
+     * MySQL TO_DAYS('1970-01-01') 的值，用于计算 TO_DAYS 函数的结果
+     */
+    private static final long MYSQL_TO_DAYS_EPOCH = 719528L;
+    /**
+     * MAXVALUE 分区的描述
+     */
+    private static final String MAX_VALUE = "MAXVALUE";
+    /**
+     * 分区名的月份格式，例如说 p202610
+     */
+    private static final DateTimeFormatter PARTITION_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMM");
+    /**
+     * 每批删除的 id 范围
+     */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    @Resource
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    /**
+     * DB 类型，首次使用时获得
+     */
+    private volatile DbType dbType;
+
+    @PostConstruct
+    public void initJdbcTemplate() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public boolean isPartitioned(String tableName) {
+        validateTableName(tableName);
+        if (getDbType() != DbType.MYSQL && getDbType() != DbType.MARIADB) {
+            return false;
+        }
+        return !getPartitions(tableName).isEmpty();
+    }
+
+    @Override
+    public int createPartitions(String tableName, int months) {
+        validateTableName(tableName);
+        List<Partition> partitions = getPartitions(tableName);
+        long maxLessThan = partitions.stream().filter(partition -> !partition.isMaxValue())
+                .mapToLong(Partition::getLessThan).max().orElse(Long.MIN_VALUE);
+        Partition maxValuePartition = partitions.stream().filter(Partition::isMaxValue).findFirst().orElse(null);
+
+        // 计算需要创建的分区，每月一个
+        List<String> definitions = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= months; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDate lessThanDate = month.plusMonths(1).atDay(1);
+            if (toDays(lessThanDate) <= maxLessThan) { // 已经存在
+                continue;
+            }
+            definitions.add(String.format("PARTITION p%s VALUES LESS THAN (TO_DAYS('%s'))",
+                    month.format(PARTITION_NAME_FORMATTER), lessThanDate));
+        }
+        if (definitions.isEmpty()) {
+            return 0;
+        }
+
+        // 存在 MAXVALUE 分区时，需要拆分它；否则，直接追加
+        int count = definitions.size();
+        String sql;
+        if (maxValuePartition != null) {
+            definitions.add(String.format("PARTITION %s VALUES LESS THAN MAXVALUE", maxValuePartition.getName()));
+            sql = String.format("ALTER TABLE %s REORGANIZE PARTITION %s INTO (%s)", tableName,
+                    maxValuePartition.getName(), String.join(", ", definitions));
+        } else {
+            sql = String.format("ALTER TABLE %s ADD PARTITION (%s)", tableName, String.join(", ", definitions));
+        }
+        jdbcTemplate.execute(sql);
+        log.info("[createPartitions][表({}) 创建分区 {} 个]", tableName, count);
+        return count;
+    }
+
+    @Override
+    public int dropExpiredPartitions(String tableName, Date expireTime) {
+        validateTableName(tableName);
+        long expireDays = toDays(expireTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+        // 分区内数据的 TO_DAYS(create_time) 都小于 lessThan，所以 lessThan 不大于 expireDays 时，整个分区都过期了
+        List<String> expiredNames = getPartitions(tableName).stream()
+                .filter(partition -> !partition.isMaxValue() && partition.getLessThan() <= expireDays)
+                .map(Partition::getName).collect(Collectors.toList());
+        if (expiredNames.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.execute(String.format("ALTER TABLE %s DROP PARTITION %s", tableName, String.join(", ", expiredNames)));
+        log.info("[dropExpiredPartitions][表({}) 删除过期分区({})]", tableName, expiredNames);
+        return expiredNames.size();
+    }
+
+    @Override
+    public int deleteExpiredLogs(String tableName, Date expireTime) {
+        validateTableName(tableName);
+        // 按照 id 范围分批删除，每次只锁定少量的行。下一批从剩余的最小过期 id 开始，跳过 id 不连续的空洞
+        String selectSql = String.format("SELECT MIN(id) FROM %s WHERE id >= ? AND create_time < ?", tableName);
+        String deleteSql = String.format("DELETE FROM %s WHERE id >= ? AND id < ? AND create_time < ?", tableName);
+        int count = 0;
+        Long fromId = jdbcTemplate.queryForObject(selectSql, Long.class, Long.MIN_VALUE, expireTime);
+        while (fromId != null) {
+            long toId = fromId + DELETE_BATCH_SIZE;
+            count += jdbcTemplate.update(deleteSql, fromId, toId, expireTime);
+            fromId = jdbcTemplate.queryForObject(selectSql, Long.class, toId, expireTime);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        log.info("[deleteExpiredLogs][表({}) 删除过期日志 {} 条]", tableName, count);
+        return count;
+    }
+
+    private List<Partition> getPartitions(String tableName) {
+        return jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL"
+                        + " ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> {
+                    String description = rs.getString("PARTITION_DESCRIPTION");
+                    boolean maxValue = MAX_VALUE.equalsIgnoreCase(description);
+                    return new Partition(rs.getString("PARTITION_NAME"), maxValue,
+                            maxValue ? Long.MAX_VALUE : Long.parseLong(description));
+                }, tableName);
+    }
+
+    @SneakyThrows
+    private DbType getDbType() {
+        if (dbType == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                dbType = JdbcUtils.getDbType(connection.getMetaData().getURL());
+            }
+        }
+        return dbType;
+    }
+
+    /**
+     * 计算 MySQL TO_DAYS 函数的结果
+     */
+    private static long toDays(LocalDate date) {
+        return date.toEpochDay() + MYSQL_TO_DAYS_EPOCH;
+    }
+
+    /**
+     * 校验表名，因为表名会拼接到 SQL 中
+     */
+    private static void validateTableName(String tableName) {
+        if (!ReUtil.isMatch("[a-zA-Z0-9_]+", tableName)) {
+            throw new IllegalArgumentException(String.format("表名(%s) 不合法", tableName));
+        }
+    }
+
+    /**
+     * MySQL 的 RANGE 分区
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Partition {
+
+        /**
+         * 分区名
+         */
+        private final String name;
+        /**
+         * 是否为 MAXVALUE 分区
+         */
+        private final boolean maxValue;
+        /**
+         * 分区的上界，即 VALUES LESS THAN 的值
+         */
+        private final long lessThan;
+
+    }
+
+}
@@ -98,6 +98,7 @@ public class JobLogServiceTest extends BaseDbUnitTest {
             o.setStatus(JobLogStatusEnum.SUCCESS.getStatus());
             o.setBeginTime(buildTime(2021, 1, 8));
             o.setEndTime(buildTime(2021, 1, 8));
+            o.setCreateTime(buildTime(2021, 1, 8));
         });
         jobLogMapper.insert(dbJobLog);
         // 测试 jobId 不匹配
@@ -134,6 +135,7 @@ public class JobLogServiceTest extends BaseDbUnitTest {
             o.setStatus(JobLogStatusEnum.SUCCESS.getStatus());
             o.setBeginTime(buildTime(2021, 1, 8));
             o.setEndTime(buildTime(2021, 1, 8));
+            o.setCreateTime(buildTime(2021, 1, 8));
         });
         jobLogMapper.insert(dbJobLog);
         // 测试 jobId 不匹配
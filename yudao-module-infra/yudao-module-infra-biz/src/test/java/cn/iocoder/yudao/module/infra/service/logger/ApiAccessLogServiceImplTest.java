@@ -6,6 +6,7 @@ import cn.iocoder.yudao.framework.common.enums.UserTypeEnum;
 import cn.iocoder.yudao.framework.common.exception.enums.GlobalErrorCodeConstants;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import cn.iocoder.yudao.framework.test.core.util.RandomUtils;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apiaccesslog.ApiAccessLogExportReqVO;
@@ -33,6 +34,9 @@ public class ApiAccessLogServiceImplTest extends BaseDbUnitTest {
     @Resource
     private ApiAccessLogMapper apiAccessLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
     @Test
     public void testGetApiAccessLogPage() {
         // 构造测试数据
@@ -50,6 +54,7 @@ public class ApiAccessLogServiceImplTest extends BaseDbUnitTest {
             dto.setApplicationName(applicationName);
             dto.setRequestUrl(requestUrl);
             dto.setBeginTime(beginTime);
+            dto.setCreateTime(beginTime);
             dto.setDuration(duration);
             dto.setResultCode(resultCode);
         });
@@ -108,6 +113,7 @@ public class ApiAccessLogServiceImplTest extends BaseDbUnitTest {
             dto.setApplicationName(applicationName);
             dto.setRequestUrl(requestUrl);
             dto.setBeginTime(beginTime);
+            dto.setCreateTime(beginTime);
             dto.setDuration(duration);
             dto.setResultCode(resultCode);
         });
@@ -156,6 +162,7 @@ public class ApiAccessLogServiceImplTest extends BaseDbUnitTest {
 
         // 调用
         apiAccessLogService.createApiAccessLogAsync(createDTO);
+        batchInsertSinkManager.flush();
         // 断言
         ApiAccessLogDO infApiAccessLogDO = apiAccessLogMapper.selectOne(null);
         assertNotNull(infApiAccessLogDO);
@@ -5,6 +5,7 @@ import cn.iocoder.yudao.framework.apilog.core.service.dto.ApiErrorLogCreateReqDT
 import cn.iocoder.yudao.framework.common.enums.UserTypeEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import cn.iocoder.yudao.framework.test.core.util.RandomUtils;
 import cn.iocoder.yudao.module.infra.controller.admin.logger.vo.apierrorlog.ApiErrorLogExportReqVO;
@@ -37,6 +38,9 @@ public class ApiErrorLogServiceImplTest extends BaseDbUnitTest {
     @Resource
     private ApiErrorLogMapper infApiErrorLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
     @Test
     public void testGetApiErrorLogPage() {
         // 构造测试数据
@@ -53,6 +57,7 @@ public class ApiErrorLogServiceImplTest extends BaseDbUnitTest {
             logDO.setApplicationName(applicationName);
             logDO.setRequestUrl(requestUrl);
             logDO.setExceptionTime(beginTime);
+            logDO.setCreateTime(beginTime);
             logDO.setProcessStatus(progressStatus);
         });
         infApiErrorLogMapper.insert(infApiErrorLogDO);
@@ -106,6 +111,7 @@ public class ApiErrorLogServiceImplTest extends BaseDbUnitTest {
             logDO.setApplicationName(applicationName);
             logDO.setRequestUrl(requestUrl);
             logDO.setExceptionTime(beginTime);
+            logDO.setCreateTime(beginTime);
             logDO.setProcessStatus(progressStatus);
         });
         infApiErrorLogMapper.insert(infApiErrorLogDO);
@@ -188,6 +194,7 @@ public class ApiErrorLogServiceImplTest extends BaseDbUnitTest {
 
         // 调用
         apiErrorLogService.createApiErrorLogAsync(createDTO);
+        batchInsertSinkManager.flush();
         // 断言
         ApiErrorLogDO infApiErrorLogDO = infApiErrorLogMapper.selectOne(null);
         assertNotNull(infApiErrorLogDO);
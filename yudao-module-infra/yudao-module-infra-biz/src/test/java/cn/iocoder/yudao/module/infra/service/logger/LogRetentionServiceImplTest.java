@@ -0,0 +1,81 @@
+package cn.iocoder.yudao.module.infra.service.logger;
+
+import cn.iocoder.yudao.framework.common.enums.UserTypeEnum;
+import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
+import cn.iocoder.yudao.framework.test.core.util.RandomUtils;
+import cn.iocoder.yudao.module.infra.dal.dataobject.logger.ApiAccessLogDO;
+import cn.iocoder.yudao.module.infra.dal.mysql.logger.ApiAccessLogMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Import;
+
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.List;
+
+import static cn.iocoder.yudao.framework.common.util.date.DateUtils.buildTime;
+import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(LogRetentionServiceImpl.class)
+public class LogRetentionServiceImplTest extends BaseDbUnitTest {
+
+    @Resource
+    private LogRetentionServiceImpl logRetentionService;
+
+    @Resource
+    private ApiAccessLogMapper apiAccessLogMapper;
+
+    @Test
+    public void testIsPartitioned_notMySQL() {
+        // 调用，并断言
+        assertFalse(logRetentionService.isPartitioned("infra_api_access_log"));
+    }
+
+    @Test
+    public void testIsPartitioned_invalidTableName() {
+        // 调用，并断言
+        assertThrows(IllegalArgumentException.class,
+                () -> logRetentionService.isPartitioned("infra_api_access_log; DROP TABLE infra_api_access_log"));
+    }
+
+    @Test
+    public void testDeleteExpiredLogs() {
+        // mock 数据
+        ApiAccessLogDO dbLog = randomApiAccessLog(buildTime(2021, 3, 13));
+        apiAccessLogMapper.insert(dbLog);
+        // 过期的数据
+        for (int i = 0; i < 3; i++) {
+            apiAccessLogMapper.insert(ObjectUtils.cloneIgnoreId(dbLog, o -> o.setCreateTime(buildTime(2021, 2, 6))));
+        }
+
+        // 调用
+        int count = logRetentionService.deleteExpiredLogs("infra_api_access_log", buildTime(2021, 3, 1));
+        // 断言
+        assertEquals(3, count);
+        List<ApiAccessLogDO> logs = apiAccessLogMapper.selectList();
+        assertEquals(1, logs.size());
+        assertPojoEquals(dbLog, logs.get(0));
+    }
+
+    @Test
+    public void testDeleteExpiredLogs_none() {
+        // mock 数据
+        apiAccessLogMapper.insert(randomApiAccessLog(buildTime(2021, 3, 13)));
+
+        // 调用
+        int count = logRetentionService.deleteExpiredLogs("infra_api_access_log", buildTime(2021, 3, 1));
+        // 断言
+        assertEquals(0, count);
+        assertEquals(1, apiAccessLogMapper.selectCount());
+    }
+
+    private static ApiAccessLogDO randomApiAccessLog(Date createTime) {
+        return RandomUtils.randomPojo(ApiAccessLogDO.class, o -> {
+            o.setId(null);
+            o.setUserType(UserTypeEnum.ADMIN.getValue());
+            o.setCreateTime(createTime);
+        });
+    }
+
+}
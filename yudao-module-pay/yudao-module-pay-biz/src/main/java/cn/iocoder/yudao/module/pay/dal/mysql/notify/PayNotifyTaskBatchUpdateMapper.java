@@ -0,0 +1,28 @@
+package cn.iocoder.yudao.module.pay.dal.mysql.notify;
+
+import cn.iocoder.yudao.module.pay.dal.dataobject.notify.PayNotifyTaskDO;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * 实体 {@link PayNotifyTaskDO} 的批量更新 Mapper
+ *
+ * 基于 JDBC Batch 实现，多条 UPDATE 语句只需要一次 DB 交互
+ *
+ * @author 芋道源码
+ */
+@Repository
+public class PayNotifyTaskBatchUpdateMapper extends ServiceImpl<PayNotifyTaskCoreMapper, PayNotifyTaskDO> {
+
+    /**
+     * 基于编号，批量更新
+     *
+     * @param updateObjs 更新对象数组，需要设置编号
+     */
+    public void updateBatch(Collection<PayNotifyTaskDO> updateObjs) {
+        updateBatchById(updateObjs, DEFAULT_BATCH_SIZE);
+    }
+
+}
@@ -16,15 +16,16 @@ public interface PayNotifyTaskCoreMapper extends BaseMapperX<PayNotifyTaskDO> {
      * 获得需要通知的 PayNotifyTaskDO 记录。需要满足如下条件：
      *
      * 1. status 非成功
-     * 2. nextNotifyTime 小于当前时间
+     * 2. nextNotifyTime 小于 maxNextNotifyTime
      *
+     * @param maxNextNotifyTime 最大的下次通知时间
      * @return PayTransactionNotifyTaskDO 数组
      */
-    default List<PayNotifyTaskDO> selectListByNotify() {
+    default List<PayNotifyTaskDO> selectListByNotify(Date maxNextNotifyTime) {
         return selectList(new QueryWrapper<PayNotifyTaskDO>()
                 .in("status", PayNotifyStatusEnum.WAITING.getStatus(), PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus(),
                         PayNotifyStatusEnum.REQUEST_FAILURE.getStatus())
-                .le("next_notify_time", new Date()));
+                .le("next_notify_time", maxNextNotifyTime));
     }
 
 }
@@ -1,7 +1,6 @@
 package cn.iocoder.yudao.module.pay.dal.redis;
 
 import cn.iocoder.yudao.framework.redis.core.RedisKeyDefine;
-import org.redisson.api.RLock;
 
 /**
  * 支付 Redis Key 枚举类
@@ -11,7 +10,11 @@ import org.redisson.api.RLock;
 public interface RedisKeyConstants {
 
     RedisKeyDefine PAY_NOTIFY_LOCK = new RedisKeyDefine("通知任务的分布式锁",
-            "pay_notify:lock:", // 参数来自 DefaultLockKeyBuilder 类
-            RedisKeyDefine.KeyTypeEnum.HASH, RLock.class, RedisKeyDefine.TimeoutTypeEnum.DYNAMIC); // Redisson 的 Lock 锁，使用 Hash 数据结构
+            "pay_notify:lock:%d", // 参数为通知任务编号
+            RedisKeyDefine.KeyTypeEnum.STRING, Boolean.class, RedisKeyDefine.TimeoutTypeEnum.DYNAMIC);
+
+    RedisKeyDefine PAY_NOTIFY_DELAY_QUEUE = new RedisKeyDefine("通知任务的延迟队列",
+            "pay_notify:delay_queue", // value 为 "通知任务编号:租户编号"，score 为下次通知时间
+            RedisKeyDefine.KeyTypeEnum.ZSET, String.class, RedisKeyDefine.TimeoutTypeEnum.FOREVER);
 
 }
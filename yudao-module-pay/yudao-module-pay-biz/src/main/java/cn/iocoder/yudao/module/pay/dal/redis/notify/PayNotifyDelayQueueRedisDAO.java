@@ -0,0 +1,113 @@
+package cn.iocoder.yudao.module.pay.dal.redis.notify;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.yudao.module.pay.dal.redis.RedisKeyConstants.PAY_NOTIFY_DELAY_QUEUE;
+
+/**
+ * 支付通知的延迟队列 Redis DAO
+ *
+ * 基于 Sorted Set 实现，value 为 "通知任务编号:租户编号"，score 为下次通知时间。
+ * 到期的任务通过 Lua 脚本原子出队，保证多个节点不会重复获取
+ *
+ * @author 芋道源码
+ */
+@Repository
+public class PayNotifyDelayQueueRedisDAO {
+
+    /**
+     * 获取并移除到期的任务，KEYS[1] 为延迟队列，ARGV[1] 为当前时间，ARGV[2] 为最大数量
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POLL_SCRIPT = new DefaultRedisScript<>(
+            "local members = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])\n"
+                    + "if #members > 0 then\n"
+                    + "    redis.call('ZREM', KEYS[1], unpack(members))\n"
+                    + "end\n"
+                    + "return members", List.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 批量添加任务。任务已经存在时，更新它的通知时间
+     *
+     * @param tasks 任务数组
+     */
+    public void addAll(Collection<DelayedTask> tasks) {
+        if (CollUtil.isEmpty(tasks)) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = tasks.stream()
+                .map(task -> new DefaultTypedTuple<>(formatMember(task), (double) task.getNotifyTime().getTime()))
+                .collect(Collectors.toSet());
+        stringRedisTemplate.opsForZSet().add(PAY_NOTIFY_DELAY_QUEUE.getKeyTemplate(), tuples);
+    }
+
+    /**
+     * 获取并移除到期的任务
+     *
+     * @param count 最大数量
+     * @return 到期的任务数组，按照通知时间升序
+     */
+    @SuppressWarnings("unchecked")
+    public List<DelayedTask> pollDue(int count) {
+        List<String> members = stringRedisTemplate.execute(POLL_SCRIPT,
+                Collections.singletonList(PAY_NOTIFY_DELAY_QUEUE.getKeyTemplate()),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(count));
+        if (CollUtil.isEmpty(members)) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(PayNotifyDelayQueueRedisDAO::parseMember).collect(Collectors.toList());
+    }
+
+    private static String formatMember(DelayedTask task) {
+        return task.getTaskId() + ":" + (task.getTenantId() != null ? task.getTenantId() : "");
+    }
+
+    private static DelayedTask parseMember(String member) {
+        List<String> parts = StrUtil.split(member, ':');
+        Long tenantId = parts.size() > 1 && StrUtil.isNotEmpty(parts.get(1)) ? Long.valueOf(parts.get(1)) : null;
+        return new DelayedTask(Long.valueOf(parts.get(0)), tenantId, null);
+    }
+
+    /**
+     * 延迟队列中的任务
+     */
+    @Data
+    @AllArgsConstructor
+    public static class DelayedTask {
+
+        /**
+         * 通知任务编号
+         */
+        private Long taskId;
+        /**
+         * 租户编号。未开启多租户时，为空
+         */
+        private Long tenantId;
+        /**
+         * 通知时间。出队时为空
+         */
+        private Date notifyTime;
+
+    }
+
+}
@@ -1,10 +1,11 @@
 package cn.iocoder.yudao.module.pay.dal.redis.notify;
 
-import org.redisson.api.RLock;
+import cn.hutool.core.collection.CollUtil;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Resource;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 import static cn.iocoder.yudao.module.pay.dal.redis.RedisKeyConstants.PAY_NOTIFY_LOCK;
@@ -12,6 +13,8 @@ import static cn.iocoder.yudao.module.pay.dal.redis.RedisKeyConstants.PAY_NOTIFY
 /**
  * 支付通知的锁 Redis DAO
  *
+ * 通知是异步执行的，加锁和解锁不在同一个线程，所以使用 SET NX PX 实现，而不是 Redisson 的 RLock
+ *
  * @author 芋道源码
  */
 @Repository
@@ -20,16 +23,27 @@ public class PayNotifyLockRedisDAO {
     @Resource
     private RedissonClient redissonClient;
 
-    public void lock(Long id, Long timeoutMillis, Runnable runnable) {
-        String lockKey = formatKey(id);
-        RLock lock = redissonClient.getLock(lockKey);
-        try {
-            lock.lock(timeoutMillis, TimeUnit.MILLISECONDS);
-            // 执行逻辑
-            runnable.run();
-        } finally {
-            lock.unlock();
+    /**
+     * 尝试加锁
+     *
+     * @param id 通知任务编号
+     * @param timeoutMillis 锁的过期时间，避免节点宕机后无法解锁
+     * @return 是否加锁成功
+     */
+    public boolean tryLock(Long id, long timeoutMillis) {
+        return redissonClient.getBucket(formatKey(id)).trySet(Boolean.TRUE, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 批量解锁
+     *
+     * @param ids 通知任务编号数组
+     */
+    public void unlock(Collection<Long> ids) {
+        if (CollUtil.isEmpty(ids)) {
+            return;
         }
+        redissonClient.getKeys().delete(ids.stream().map(PayNotifyLockRedisDAO::formatKey).toArray(String[]::new));
     }
 
     private static String formatKey(Long id) {
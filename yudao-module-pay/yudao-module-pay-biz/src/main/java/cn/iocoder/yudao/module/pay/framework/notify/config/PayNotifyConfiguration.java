@@ -0,0 +1,55 @@
+package cn.iocoder.yudao.module.pay.framework.notify.config;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyCircuitBreaker;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyConcurrencyLimiter;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyHttpClient;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 支付通知配置类
+ *
+ * @author 芋道源码
+ */
+@Configuration
+@EnableConfigurationProperties(PayNotifyProperties.class)
+public class PayNotifyConfiguration {
+
+    /**
+     * 处理通知结果的线程数
+     */
+    private static final int RESULT_THREADS = 2;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public PayNotifyHttpClient payNotifyHttpClient(PayNotifyProperties properties) {
+        return new PayNotifyHttpClient(properties);
+    }
+
+    @Bean
+    public PayNotifyConcurrencyLimiter payNotifyConcurrencyLimiter(PayNotifyProperties properties) {
+        return new PayNotifyConcurrencyLimiter(properties.getMaxConcurrencyPerMerchant(),
+                properties.getMaxConcurrencyPerHost());
+    }
+
+    @Bean
+    public PayNotifyCircuitBreaker payNotifyCircuitBreaker(PayNotifyProperties properties) {
+        return new PayNotifyCircuitBreaker(properties.getCircuitBreaker());
+    }
+
+    /**
+     * 处理通知结果的线程池
+     *
+     * 通知完成的回调在 HttpAsyncClient 的 I/O 线程中执行，而解析响应、写入日志可能阻塞，所以交给该线程池处理，
+     * 避免阻塞同一 I/O 线程上的其它通知。进行中的通知数受连接池大小限制，所以队列不会无限增长
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService payNotifyResultExecutor() {
+        return Executors.newFixedThreadPool(RESULT_THREADS, new NamedThreadFactory("pay-notify-result-", true));
+    }
+
+}
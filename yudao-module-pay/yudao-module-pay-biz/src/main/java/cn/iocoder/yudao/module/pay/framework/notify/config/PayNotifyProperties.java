@@ -0,0 +1,100 @@
+package cn.iocoder.yudao.module.pay.framework.notify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * 支付通知的配置属性类
+ *
+ * @author 芋道源码
+ */
+@ConfigurationProperties(prefix = "yudao.pay.notify")
+@Validated
+@Data
+public class PayNotifyProperties {
+
+    /**
+     * 建立连接的超时时间
+     */
+    @NotNull(message = "连接超时时间不能为空")
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    /**
+     * 读取响应的超时时间
+     */
+    @NotNull(message = "读取超时时间不能为空")
+    private Duration readTimeout = Duration.ofSeconds(10);
+    /**
+     * 空闲连接的保活时间，商户未返回 Keep-Alive 响应头时使用
+     */
+    @NotNull(message = "连接保活时间不能为空")
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * 连接池的最大连接数
+     */
+    @Min(value = 1, message = "最大连接数不能小于 1")
+    private int maxConnections = 200;
+    /**
+     * 每个商户回调域名的最大并发通知数，同时也是连接池中该域名的最大连接数
+     */
+    @Min(value = 1, message = "每个域名的最大并发数不能小于 1")
+    private int maxConcurrencyPerHost = 20;
+    /**
+     * 每个商户的最大并发通知数
+     */
+    @Min(value = 1, message = "每个商户的最大并发数不能小于 1")
+    private int maxConcurrencyPerMerchant = 50;
+
+    /**
+     * 每个回调域名的熔断配置
+     */
+    @Valid
+    @NotNull(message = "熔断配置不能为空")
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 失败率的阈值，单位：百分比。超过时，熔断器打开
+         */
+        @DecimalMin(value = "1", message = "失败率阈值不能小于 1")
+        @DecimalMax(value = "100", message = "失败率阈值不能大于 100")
+        private float failureRateThreshold = 50;
+        /**
+         * 统计失败率的滑动窗口大小，即最近的通知次数
+         */
+        @Min(value = 1, message = "滑动窗口大小不能小于 1")
+        private int slidingWindowSize = 20;
+        /**
+         * 计算失败率的最少通知次数，避免少量失败就熔断
+         */
+        @Min(value = 1, message = "最少通知次数不能小于 1")
+        private int minimumNumberOfCalls = 10;
+        /**
+         * 熔断器打开的时长，之后进入半开状态，发起一次探测
+         */
+        @NotNull(message = "熔断打开时长不能为空")
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        /**
+         * 探测成功后的恢复期时长，期间按照 recoveryRate 放行积压的通知
+         */
+        @NotNull(message = "恢复期时长不能为空")
+        private Duration recoveryDuration = Duration.ofMinutes(1);
+        /**
+         * 恢复期内，每秒放行的通知数
+         */
+        @Min(value = 1, message = "恢复期放行速率不能小于 1")
+        private int recoveryRate = 10;
+
+    }
+
+}
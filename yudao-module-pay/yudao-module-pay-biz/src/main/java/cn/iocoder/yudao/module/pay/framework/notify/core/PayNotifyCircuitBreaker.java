@@ -0,0 +1,159 @@
+package cn.iocoder.yudao.module.pay.framework.notify.core;
+
+import cn.hutool.core.util.RandomUtil;
+import cn.iocoder.yudao.module.pay.framework.notify.config.PayNotifyProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.circuitbreaker.event.CircuitBreakerOnStateTransitionEvent;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付通知的熔断器，基于 Resilience4j 实现，每个回调域名一个
+ *
+ * 1. 域名的失败率超过阈值时，熔断器打开，该域名的通知直接延迟，不再发起注定失败的 HTTP 调用，也不消耗通知次数
+ * 2. 打开一段时间后，进入半开状态，只允许一个通知作为探测
+ * 3. 探测成功后，熔断器关闭。在随后的恢复期内，按照限定的速率放行积压的通知，避免瞬间压垮刚恢复的商户
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class PayNotifyCircuitBreaker {
+
+    private final PayNotifyProperties.CircuitBreaker properties;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RateLimiterRegistry rateLimiterRegistry;
+
+    /**
+     * 处于恢复期的域名
+     *
+     * key：回调域名
+     * value：恢复期的结束时间
+     */
+    private final Map<String, Long> recoveringHosts = new ConcurrentHashMap<>();
+
+    public PayNotifyCircuitBreaker(PayNotifyProperties.CircuitBreaker properties) {
+        this.properties = properties;
+        this.circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(1) // 半开时，只允许一个探测请求
+                .recordExceptions(Throwable.class)
+                .build());
+        this.circuitBreakerRegistry.getEventPublisher().onEntryAdded(event ->
+                event.getAddedEntry().getEventPublisher().onStateTransition(this::onStateTransition));
+        this.rateLimiterRegistry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(properties.getRecoveryRate())
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ZERO) // 不等待，获取不到时由调用方延迟
+                .build());
+    }
+
+    /**
+     * 尝试获取通知的许可
+     *
+     * @param host 回调域名
+     * @return 是否获取成功。成功时，通知完成后需要调用 {@link #onSuccess(String, long)} 或 {@link #onError(String, long, Throwable)} 方法，
+     *         未发起通知时需要调用 {@link #release(String)} 方法；失败时，通过 {@link #getDeferMillis(String)} 获得延迟的时间
+     */
+    public boolean tryAcquire(String host) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        CircuitBreaker.State state = circuitBreaker.getState();
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return false;
+        }
+        // Resilience4j 由 OPEN 转换为 HALF_OPEN 的这次获取，不占用半开状态的许可，所以这里补占一次，保证只有一个探测请求
+        if (state == CircuitBreaker.State.OPEN && circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN) {
+            circuitBreaker.tryAcquirePermission();
+        }
+        // 恢复期内，限制放行的速率
+        if (isRecovering(host) && !rateLimiterRegistry.rateLimiter(host).acquirePermission()) {
+            circuitBreaker.releasePermission();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 释放 {@link #tryAcquire(String)} 获取的许可，用于未发起通知的情况
+     *
+     * @param host 回调域名
+     */
+    public void release(String host) {
+        getCircuitBreaker(host).releasePermission();
+    }
+
+    /**
+     * 记录通知成功。商户响应了请求，即使业务结果是失败，也说明域名可用
+     *
+     * @param host 回调域名
+     * @param durationNanos 耗时，单位：纳秒
+     */
+    public void onSuccess(String host, long durationNanos) {
+        getCircuitBreaker(host).onSuccess(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录通知失败，例如说连接失败、超时、HTTP 状态码非 2XX 等
+     *
+     * @param host 回调域名
+     * @param durationNanos 耗时，单位：纳秒
+     * @param ex 异常
+     */
+    public void onError(String host, long durationNanos, Throwable ex) {
+        getCircuitBreaker(host).onError(durationNanos, TimeUnit.NANOSECONDS, ex);
+    }
+
+    /**
+     * 获得 {@link #tryAcquire(String)} 失败时，通知需要延迟的时间
+     *
+     * 1. 熔断时，等待熔断器进入半开状态
+     * 2. 恢复期限流时，在 1 秒到熔断打开时长之间随机延迟，避免积压的通知同时到期
+     *
+     * @param host 回调域名
+     * @return 延迟的时间，单位：毫秒
+     */
+    public long getDeferMillis(String host) {
+        long waitMillis = properties.getWaitDurationInOpenState().toMillis();
+        if (getCircuitBreaker(host).getState() != CircuitBreaker.State.CLOSED) {
+            return waitMillis;
+        }
+        return RandomUtil.randomLong(TimeUnit.SECONDS.toMillis(1), Math.max(waitMillis, TimeUnit.SECONDS.toMillis(1)) + 1);
+    }
+
+    private CircuitBreaker getCircuitBreaker(String host) {
+        return circuitBreakerRegistry.circuitBreaker(host);
+    }
+
+    private void onStateTransition(CircuitBreakerOnStateTransitionEvent event) {
+        String host = event.getCircuitBreakerName();
+        log.warn("[onStateTransition][域名({}) 的熔断器状态变更({})]", host, event.getStateTransition());
+        // 探测成功后，进入恢复期
+        if (event.getStateTransition() == CircuitBreaker.StateTransition.HALF_OPEN_TO_CLOSED) {
+            recoveringHosts.put(host, System.currentTimeMillis() + properties.getRecoveryDuration().toMillis());
+        }
+    }
+
+    private boolean isRecovering(String host) {
+        Long recoveringEndTime = recoveringHosts.get(host);
+        if (recoveringEndTime == null) {
+            return false;
+        }
+        if (recoveringEndTime > System.currentTimeMillis()) {
+            return true;
+        }
+        recoveringHosts.remove(host, recoveringEndTime);
+        return false;
+    }
+
+}
@@ -0,0 +1,81 @@
+package cn.iocoder.yudao.module.pay.framework.notify.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 支付通知的并发限制器，限制每个商户、每个回调域名同时进行中的通知数
+ *
+ * 获取失败时立即返回，不会阻塞调用方，由调用方稍后重试。
+ * 从而保证个别商户的接口响应慢时，只会积压该商户自己的通知，不影响其它商户
+ *
+ * @author 芋道源码
+ */
+public class PayNotifyConcurrencyLimiter {
+
+    private final int maxConcurrencyPerMerchant;
+    private final int maxConcurrencyPerHost;
+
+    /**
+     * 商户进行中的通知数
+     *
+     * key：商户编号
+     */
+    private final Map<Long, AtomicInteger> merchantCounts = new ConcurrentHashMap<>();
+    /**
+     * 回调域名进行中的通知数
+     *
+     * key：回调域名
+     */
+    private final Map<String, AtomicInteger> hostCounts = new ConcurrentHashMap<>();
+
+    public PayNotifyConcurrencyLimiter(int maxConcurrencyPerMerchant, int maxConcurrencyPerHost) {
+        this.maxConcurrencyPerMerchant = maxConcurrencyPerMerchant;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+    }
+
+    /**
+     * 尝试获取一个通知的名额
+     *
+     * @param merchantId 商户编号
+     * @param host 回调域名
+     * @return 是否获取成功。成功时，通知完成后需要调用 {@link #release(Long, String)} 方法
+     */
+    public boolean tryAcquire(Long merchantId, String host) {
+        AtomicInteger merchantCount = merchantCounts.computeIfAbsent(merchantId, key -> new AtomicInteger());
+        if (!tryIncrement(merchantCount, maxConcurrencyPerMerchant)) {
+            return false;
+        }
+        AtomicInteger hostCount = hostCounts.computeIfAbsent(host, key -> new AtomicInteger());
+        if (!tryIncrement(hostCount, maxConcurrencyPerHost)) {
+            merchantCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 释放 {@link #tryAcquire(Long, String)} 获取的名额
+     *
+     * @param merchantId 商户编号
+     * @param host 回调域名
+     */
+    public void release(Long merchantId, String host) {
+        hostCounts.get(host).decrementAndGet();
+        merchantCounts.get(merchantId).decrementAndGet();
+    }
+
+    private static boolean tryIncrement(AtomicInteger count, int max) {
+        while (true) {
+            int current = count.get();
+            if (current >= max) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package cn.iocoder.yudao.module.pay.framework.notify.core;
+
+import cn.iocoder.yudao.module.pay.framework.notify.config.PayNotifyProperties;
+import lombok.SneakyThrows;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 支付通知的 HTTP 客户端
+ *
+ * 基于 HttpAsyncClient 的 NIO 实现，少量的 IO 线程即可支撑大量的并发请求，不会因为商户接口响应慢而占用线程。
+ * 连接池复用 Keep-Alive 的长连接，并且每个域名的连接数有上限
+ *
+ * @author 芋道源码
+ */
+public class PayNotifyHttpClient {
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    @SneakyThrows
+    public PayNotifyHttpClient(PayNotifyProperties properties) {
+        // 连接池
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSoTimeout((int) properties.getReadTimeout().toMillis())
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConcurrencyPerHost());
+        // 客户端
+        long keepAliveMillis = properties.getKeepAlive().toMillis();
+        this.httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) properties.getConnectTimeout().toMillis())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> { // 未返回 Keep-Alive 响应头时，使用配置的保活时间
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : keepAliveMillis;
+                })
+                .build();
+    }
+
+    public void start() {
+        httpClient.start();
+    }
+
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * 发起 JSON 格式的 POST 请求
+     *
+     * @param url 请求地址
+     * @param body 请求内容
+     * @return 响应内容。HTTP 状态码非 2XX 时，异常结束
+     */
+    public CompletableFuture<String> post(String url, String body) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        HttpPost request = new HttpPost(url);
+        request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    String content = response.getEntity() != null
+                            ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : null;
+                    if (statusCode < 200 || statusCode >= 300) {
+                        future.completeExceptionally(new IOException(String.format("HTTP 状态码(%d) 响应(%s)", statusCode, content)));
+                        return;
+                    }
+                    future.complete(content);
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+
+        });
+        return future;
+    }
+
+}
@@ -9,7 +9,10 @@ import javax.annotation.Resource;
 
 /**
  * 支付通知 Job
- * 通过不断扫描待通知的 PayNotifyTaskDO 记录，回调业务线的回调接口
+ * 通过扫描待通知的 PayNotifyTaskDO 记录，回调业务线的回调接口
+ *
+ * 正常情况下，通知由 Redis 延迟队列到期后立即发起。该 Job 只作为兜底，例如说延迟队列写入失败、节点宕机等，
+ * 所以执行频率可以较低，例如说每分钟一次
  *
  * @author 芋道源码
  */
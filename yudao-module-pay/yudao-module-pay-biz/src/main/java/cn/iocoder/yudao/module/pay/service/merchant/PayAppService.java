@@ -21,6 +21,11 @@ import java.util.Map;
  */
 public interface PayAppService {
 
+    /**
+     * 初始化支付应用的本地缓存
+     */
+    void initLocalCache();
+
     /**
      * 创建支付应用信息
      *
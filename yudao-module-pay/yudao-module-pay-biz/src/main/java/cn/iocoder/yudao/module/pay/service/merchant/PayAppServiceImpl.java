@@ -4,6 +4,9 @@ import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
+import cn.iocoder.yudao.framework.localcache.core.ReadThroughLocalCache;
+import cn.iocoder.yudao.framework.tenant.core.util.TenantUtils;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.app.PayAppCreateReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.app.PayAppExportReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.app.PayAppPageReqVO;
@@ -23,6 +26,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.*;
 
@@ -39,6 +43,11 @@ import static cn.iocoder.yudao.module.pay.enums.ErrorCodeConstants.*;
 @Validated
 public class PayAppServiceImpl implements PayAppService {
 
+    /**
+     * 支付应用的本地缓存名
+     */
+    private static final String CACHE_NAME = "pay_app";
+
     @Resource
     private PayAppMapper appMapper;
     // TODO @aquan：使用对方的 Service。模块与模块之间，避免直接调用对方的 mapper
@@ -49,6 +58,22 @@ public class PayAppServiceImpl implements PayAppService {
     @Resource
     private PayRefundMapper refundMapper;
 
+    @Resource
+    private LocalCacheManager localCacheManager;
+
+    /**
+     * 支付应用缓存，按需加载，用于支付、退款时的校验
+     *
+     * key：租户编号 + 应用编号，因为 pay_app 表是多租户的
+     */
+    private final ReadThroughLocalCache<String, PayAppDO> appCache = new ReadThroughLocalCache<>(CACHE_NAME);
+
+    @Override
+    @PostConstruct
+    public void initLocalCache() {
+        localCacheManager.register(appCache);
+    }
+
     @Override
     public Long createApp(PayAppCreateReqVO createReqVO) {
         // 插入
@@ -65,6 +90,9 @@ public class PayAppServiceImpl implements PayAppService {
         // 更新
         PayAppDO updateObj = PayAppConvert.INSTANCE.convert(updateReqVO);
         appMapper.updateById(updateObj);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -75,6 +103,9 @@ public class PayAppServiceImpl implements PayAppService {
 
         // 删除
         appMapper.deleteById(id);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     private void validateAppExists(Long id) {
@@ -133,6 +164,9 @@ public class PayAppServiceImpl implements PayAppService {
         app.setId(id);
         app.setStatus(status);
         appMapper.updateById(app);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -174,7 +208,7 @@ public class PayAppServiceImpl implements PayAppService {
 
     @Override
     public PayAppDO validPayApp(Long id) {
-        PayAppDO app = appMapper.selectById(id);
+        PayAppDO app = appCache.get(TenantUtils.formatTenantKey(id), key -> appMapper.selectById(id));
         // 校验是否存在
         if (app == null) {
             throw ServiceExceptionUtil.exception(ErrorCodeConstants.PAY_APP_NOT_FOUND);
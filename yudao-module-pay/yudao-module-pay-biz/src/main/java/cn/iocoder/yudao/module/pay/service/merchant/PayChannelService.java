@@ -24,6 +24,11 @@ public interface PayChannelService {
      */
     void initPayClients();
 
+    /**
+     * 初始化支付渠道的本地缓存
+     */
+    void initLocalCache();
+
     /**
      * 创建支付渠道
      *
@@ -7,10 +7,13 @@ import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
+import cn.iocoder.yudao.framework.localcache.core.ReadThroughLocalCache;
 import cn.iocoder.yudao.framework.pay.core.client.PayClientConfig;
 import cn.iocoder.yudao.framework.pay.core.client.PayClientFactory;
 import cn.iocoder.yudao.framework.pay.core.enums.PayChannelEnum;
 import cn.iocoder.yudao.framework.tenant.core.aop.TenantIgnore;
+import cn.iocoder.yudao.framework.tenant.core.util.TenantUtils;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.channel.PayChannelCreateReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.channel.PayChannelExportReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.channel.PayChannelPageReqVO;
@@ -52,6 +55,11 @@ public class PayChannelServiceImpl implements PayChannelService {
      */
     private static final long SCHEDULER_PERIOD = 5 * 60 * 1000L;
 
+    /**
+     * 支付渠道的本地缓存名
+     */
+    private static final String CACHE_NAME = "pay_channel";
+
     /**
      * 缓存菜单的最大更新时间，用于后续的增量轮询，判断是否有更新
      */
@@ -66,6 +74,16 @@ public class PayChannelServiceImpl implements PayChannelService {
     @Resource
     private Validator validator;
 
+    @Resource
+    private LocalCacheManager localCacheManager;
+
+    /**
+     * 支付渠道缓存，按需加载，用于支付、退款时的校验
+     *
+     * key：租户编号 + 渠道编号，或者租户编号 + 应用编号 + 渠道编码，因为 pay_channel 表是多租户的
+     */
+    private final ReadThroughLocalCache<String, PayChannelDO> channelCache = new ReadThroughLocalCache<>(CACHE_NAME);
+
     @Resource
     @Lazy // 注入自己，所以延迟加载
     private PayChannelService self;
@@ -89,6 +107,12 @@ public class PayChannelServiceImpl implements PayChannelService {
         log.info("[initPayClients][初始化 PayChannel 数量为 {}]", payChannels.size());
     }
 
+    @Override
+    @PostConstruct
+    public void initLocalCache() {
+        localCacheManager.register(channelCache);
+    }
+
     @Scheduled(fixedDelay = SCHEDULER_PERIOD, initialDelay = SCHEDULER_PERIOD)
     public void schedulePeriodicRefresh() {
         self.initPayClients();
@@ -127,7 +151,8 @@ public class PayChannelServiceImpl implements PayChannelService {
         PayChannelDO channel = PayChannelConvert.INSTANCE.convert(reqVO);
         settingConfigAndCheckParam(channel, reqVO.getConfig());
         channelMapper.insert(channel);
-        // TODO 芋艿：缺少刷新本地缓存的机制
+        // 刷新缓存。支付 Client 的刷新，由 schedulePeriodicRefresh 定时执行
+        localCacheManager.invalidate(CACHE_NAME);
         return channel.getId();
     }
 
@@ -139,7 +164,8 @@ public class PayChannelServiceImpl implements PayChannelService {
         PayChannelDO channel = PayChannelConvert.INSTANCE.convert(updateReqVO);
         settingConfigAndCheckParam(channel, updateReqVO.getConfig());
         channelMapper.updateById(channel);
-        // TODO 芋艿：缺少刷新本地缓存的机制
+        // 刷新缓存。支付 Client 的刷新，由 schedulePeriodicRefresh 定时执行
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -148,7 +174,8 @@ public class PayChannelServiceImpl implements PayChannelService {
         this.validateChannelExists(id);
         // 删除
         channelMapper.deleteById(id);
-        // TODO 芋艿：缺少刷新本地缓存的机制
+        // 刷新缓存。支付 Client 的刷新，由 schedulePeriodicRefresh 定时执行
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     private void validateChannelExists(Long id) {
@@ -237,14 +264,15 @@ public class PayChannelServiceImpl implements PayChannelService {
 
     @Override
     public PayChannelDO validPayChannel(Long id) {
-        PayChannelDO channel = channelMapper.selectById(id);
+        PayChannelDO channel = channelCache.get(TenantUtils.formatTenantKey(id), key -> channelMapper.selectById(id));
         this.validPayChannel(channel);
         return channel;
     }
 
     @Override
     public PayChannelDO validPayChannel(Long appId, String code) {
-        PayChannelDO channel = channelMapper.selectByAppIdAndCode(appId, code);
+        PayChannelDO channel = channelCache.get(TenantUtils.formatTenantKey(appId + ":" + code),
+                key -> channelMapper.selectByAppIdAndCode(appId, code));
         this.validPayChannel(channel);
         return channel;
     }
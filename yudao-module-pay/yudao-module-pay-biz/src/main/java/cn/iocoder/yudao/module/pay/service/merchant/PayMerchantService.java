@@ -20,6 +20,11 @@ import java.util.Map;
  */
 public interface PayMerchantService {
 
+    /**
+     * 初始化支付商户的本地缓存
+     */
+    void initLocalCache();
+
     /**
      * 创建支付商户信息
      *
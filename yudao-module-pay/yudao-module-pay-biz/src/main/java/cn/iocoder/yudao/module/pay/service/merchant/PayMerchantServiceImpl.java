@@ -2,6 +2,9 @@ package cn.iocoder.yudao.module.pay.service.merchant;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.ObjectUtil;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
+import cn.iocoder.yudao.framework.localcache.core.ReadThroughLocalCache;
+import cn.iocoder.yudao.framework.tenant.core.util.TenantUtils;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerchantCreateReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerchantExportReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerchantPageReqVO;
@@ -15,6 +18,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -32,12 +36,33 @@ import static cn.iocoder.yudao.module.pay.enums.ErrorCodeConstants.*;
 @Validated
 public class PayMerchantServiceImpl implements PayMerchantService {
 
+    /**
+     * 支付商户的本地缓存名
+     */
+    private static final String CACHE_NAME = "pay_merchant";
+
     @Resource
     private PayMerchantMapper merchantMapper;
 
     @Resource
     private PayAppMapper appMapper;
 
+    @Resource
+    private LocalCacheManager localCacheManager;
+
+    /**
+     * 支付商户缓存，按需加载
+     *
+     * key：租户编号 + 商户编号，因为 pay_merchant 表是多租户的
+     */
+    private final ReadThroughLocalCache<String, PayMerchantDO> merchantCache = new ReadThroughLocalCache<>(CACHE_NAME);
+
+    @Override
+    @PostConstruct
+    public void initLocalCache() {
+        localCacheManager.register(merchantCache);
+    }
+
     @Override
     public Long createMerchant(PayMerchantCreateReqVO createReqVO) {
         // 插入
@@ -55,6 +80,9 @@ public class PayMerchantServiceImpl implements PayMerchantService {
         // 更新
         PayMerchantDO updateObj = PayMerchantConvert.INSTANCE.convert(updateReqVO);
         merchantMapper.updateById(updateObj);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -64,11 +92,14 @@ public class PayMerchantServiceImpl implements PayMerchantService {
         this.validateAppExists(id);
         // 删除
         merchantMapper.deleteById(id);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
     public PayMerchantDO getMerchant(Long id) {
-        return merchantMapper.selectById(id);
+        return merchantCache.get(TenantUtils.formatTenantKey(id), key -> merchantMapper.selectById(id));
     }
 
     @Override
@@ -95,6 +126,9 @@ public class PayMerchantServiceImpl implements PayMerchantService {
         merchant.setId(id);
         merchant.setStatus(status);
         merchantMapper.updateById(merchant);
+
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -22,8 +22,10 @@ public interface PayNotifyService {
      * 执行支付通知
      *
      * 注意，该方法提供给定时任务调用。目前是 yudao-server 进行调用
-     * @return 通知数量
+     * 通知是异步发起的，不会等待通知完成
+     *
+     * @return 发起的通知数量
      */
-    int executeNotify() throws InterruptedException;
+    int executeNotify();
 
 }
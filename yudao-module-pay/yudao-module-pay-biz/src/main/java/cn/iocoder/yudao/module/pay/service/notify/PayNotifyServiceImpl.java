@@ -2,43 +2,79 @@ package cn.iocoder.yudao.module.pay.service.notify;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.exceptions.ExceptionUtil;
-import cn.hutool.http.HttpUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.iocoder.yudao.framework.common.pojo.CommonResult;
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
+import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.tenant.core.util.TenantUtils;
 import cn.iocoder.yudao.module.pay.dal.dataobject.notify.PayNotifyLogDO;
 import cn.iocoder.yudao.module.pay.dal.dataobject.notify.PayNotifyTaskDO;
 import cn.iocoder.yudao.module.pay.dal.dataobject.order.PayOrderDO;
 import cn.iocoder.yudao.module.pay.dal.dataobject.refund.PayRefundDO;
-import cn.iocoder.yudao.module.pay.dal.mysql.notify.PayNotifyLogCoreMapper;
+import cn.iocoder.yudao.module.pay.dal.mysql.notify.PayNotifyTaskBatchUpdateMapper;
 import cn.iocoder.yudao.module.pay.dal.mysql.notify.PayNotifyTaskCoreMapper;
+import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyDelayQueueRedisDAO;
+import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyDelayQueueRedisDAO.DelayedTask;
 import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyLockRedisDAO;
 import cn.iocoder.yudao.module.pay.enums.notify.PayNotifyStatusEnum;
 import cn.iocoder.yudao.module.pay.enums.notify.PayNotifyTypeEnum;
+import cn.iocoder.yudao.module.pay.framework.notify.config.PayNotifyProperties;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyCircuitBreaker;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyConcurrencyLimiter;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyHttpClient;
 import cn.iocoder.yudao.module.pay.service.notify.dto.PayNotifyTaskCreateReqDTO;
 import cn.iocoder.yudao.module.pay.service.notify.vo.PayNotifyOrderReqVO;
 import cn.iocoder.yudao.module.pay.service.notify.vo.PayRefundOrderReqVO;
-import cn.iocoder.yudao.framework.common.pojo.CommonResult;
-import cn.iocoder.yudao.framework.common.util.date.DateUtils;
-import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
 import cn.iocoder.yudao.module.pay.service.order.PayOrderService;
 import cn.iocoder.yudao.module.pay.service.refund.PayRefundService;
+import com.alibaba.ttl.TransmittableThreadLocal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.validation.Valid;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertList;
+import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertSet;
 
 /**
  * 支付通知 Core Service 实现类
  *
+ * 通知通过 {@link PayNotifyHttpClient} 异步发起，不占用线程等待商户响应；
+ * 每个商户、每个回调域名的并发数，由 {@link PayNotifyConcurrencyLimiter} 限制；
+ * 回调域名不可用时，由 {@link PayNotifyCircuitBreaker} 熔断，该域名的通知延迟执行；
+ * 通知结果先放入内存队列，由 {@link #flushNotifyResults()} 定时批量写入 DB；
+ * 需要重试的任务，按照下次通知时间放入 Redis 延迟队列，由 {@link #pollDelayQueue()} 到期后立即发起，
+ * 定时任务 {@link #executeNotify()} 只作为兜底，扫描延迟队列遗漏的任务
+ *
  * @author 芋道源码
  */
 @Service
@@ -47,13 +83,29 @@ import java.util.concurrent.TimeUnit;
 public class PayNotifyServiceImpl implements PayNotifyService {
 
     /**
-     * 通知超时时间，单位：秒
+     * 定时执行 {@link #flushNotifyResults()} 的周期
+     */
+    private static final long NOTIFY_RESULT_FLUSH_PERIOD = 1000L;
+    /**
+     * 通知锁的过期时间，在 HTTP 超时时间的基础上额外预留的时间，用于写入通知结果
+     */
+    private static final long NOTIFY_LOCK_EXTRA_MILLIS = 10 * DateUtils.SECOND_MILLIS;
+    /**
+     * 定时执行 {@link #pollDelayQueue()} 的周期
+     */
+    private static final long NOTIFY_DELAY_QUEUE_POLL_PERIOD = 500L;
+    /**
+     * 每次从延迟队列获取的最大任务数
+     */
+    private static final int NOTIFY_DELAY_QUEUE_POLL_SIZE = 200;
+    /**
+     * 超过并发数时，延迟重新通知的时间
      */
-    public static final int NOTIFY_TIMEOUT = 120;
+    private static final long NOTIFY_DEFER_MILLIS = DateUtils.SECOND_MILLIS;
     /**
-     * {@link #NOTIFY_TIMEOUT} 的毫秒
+     * {@link #executeNotify()} 兜底扫描时，只扫描超过该时间仍未通知的任务，正常情况下它们已经由延迟队列发起
      */
-    public static final long NOTIFY_TIMEOUT_MILLIS = 120 * DateUtils.SECOND_MILLIS;
+    private static final long NOTIFY_SCAN_DELAY_MILLIS = 60 * DateUtils.SECOND_MILLIS;
 
     @Resource
     @Lazy // 循环依赖，避免报错
@@ -65,17 +117,41 @@ public class PayNotifyServiceImpl implements PayNotifyService {
     @Resource
     private PayNotifyTaskCoreMapper payNotifyTaskCoreMapper;
     @Resource
-    private PayNotifyLogCoreMapper payNotifyLogCoreMapper;
+    private PayNotifyTaskBatchUpdateMapper payNotifyTaskBatchUpdateMapper;
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
 
     @Resource
-    private ThreadPoolTaskExecutor threadPoolTaskExecutor; // TODO 芋艿：未来提供独立的线程池
+    private PayNotifyProperties notifyProperties;
+    @Resource
+    private PayNotifyHttpClient notifyHttpClient;
+    @Resource
+    private PayNotifyConcurrencyLimiter notifyConcurrencyLimiter;
+    @Resource
+    private PayNotifyCircuitBreaker notifyCircuitBreaker;
+    @Resource
+    private Executor payNotifyResultExecutor;
 
     @Resource
     private PayNotifyLockRedisDAO payNotifyLockCoreRedisDAO;
-
     @Resource
-    @Lazy // 循环依赖（自己依赖自己），避免报错
-    private PayNotifyServiceImpl self;
+    private PayNotifyDelayQueueRedisDAO payNotifyDelayQueueRedisDAO;
+
+    /**
+     * 本节点进行中的通知任务编号，避免定时任务重复发起
+     */
+    private final Set<Long> notifyingTaskIds = ConcurrentHashMap.newKeySet();
+    /**
+     * 待写入 DB 的通知结果，通过 {@link #flushNotifyResults()} 定时批量写入
+     */
+    private final Queue<NotifyResult> notifyResults = new ConcurrentLinkedQueue<>();
+
+    private BatchInsertSink<PayNotifyLogDO> notifyLogSink;
+
+    @PostConstruct
+    public void initNotifyLogSink() {
+        notifyLogSink = batchInsertSinkManager.create("pay-notify-log", PayNotifyLogDO.class);
+    }
 
     @Override
     public void createPayNotifyTask(PayNotifyTaskCreateReqDTO reqDTO) {
@@ -97,136 +173,220 @@ public class PayNotifyServiceImpl implements PayNotifyService {
         // 执行插入
         payNotifyTaskCoreMapper.insert(task);
 
-        // 异步直接发起任务。虽然会有定时任务扫描，但是会导致延迟
-        self.executeNotifyAsync(task);
+        // 事务提交后，直接发起通知。虽然会有定时任务扫描，但是会导致延迟
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCommit() {
+                    executeNotifyAsync(task);
+                }
+
+            });
+        } else {
+            executeNotifyAsync(task);
+        }
     }
 
     @Override
-    public int executeNotify() throws InterruptedException {
+    public int executeNotify() {
         // 获得需要通知的任务
-        List<PayNotifyTaskDO> tasks = payNotifyTaskCoreMapper.selectListByNotify();
+        List<PayNotifyTaskDO> tasks = payNotifyTaskCoreMapper.selectListByNotify(
+                new Date(System.currentTimeMillis() - NOTIFY_SCAN_DELAY_MILLIS));
         if (CollUtil.isEmpty(tasks)) {
             return 0;
         }
 
-        // 遍历，逐个通知
-        CountDownLatch latch = new CountDownLatch(tasks.size());
-        tasks.forEach(task -> threadPoolTaskExecutor.execute(() -> {
-            try {
-                executeNotifySync(task);
-            } finally {
-                latch.countDown();
+        // 遍历，逐个发起通知。通知是异步的，无需等待完成
+        log.warn("[executeNotify][扫描到延迟队列遗漏的任务({}) 个]", tasks.size());
+        int count = 0;
+        for (PayNotifyTaskDO task : tasks) {
+            if (executeNotifyAsync(task)) {
+                count++;
             }
-        }));
-        // 等待完成
-        this.awaitExecuteNotify(latch);
-        // 返回执行完成的任务数（成功 + 失败)
-        return tasks.size();
+        }
+        // 返回发起的任务数
+        return count;
     }
 
     /**
-     * 等待全部支付通知的完成
-     * 每 1 秒会打印一次剩余任务数量
+     * 异步执行单个支付通知
      *
-     * @param latch Latch
-     * @throws InterruptedException 如果被打断
+     * @param task 通知任务
+     * @return 是否发起。本节点进行中、熔断中、超过并发数、其它节点进行中时，返回 false，等待下次执行
      */
-    private void awaitExecuteNotify(CountDownLatch latch) throws InterruptedException {
-        long size = latch.getCount();
-        for (int i = 0; i < NOTIFY_TIMEOUT; i++) {
-            if (latch.await(1L, TimeUnit.SECONDS)) {
-                return;
+    boolean executeNotifyAsync(PayNotifyTaskDO task) {
+        if (!notifyingTaskIds.add(task.getId())) {
+            return false;
+        }
+        boolean started = false;
+        try {
+            started = executeNotifyAsync0(task);
+            return started;
+        } finally {
+            if (!started) {
+                notifyingTaskIds.remove(task.getId());
+            }
+        }
+    }
+
+    private boolean executeNotifyAsync0(PayNotifyTaskDO task) {
+        // 熔断，商户域名不可用时直接延迟，不发起注定失败的调用，也不消耗通知次数
+        String host = getNotifyHost(task.getNotifyUrl());
+        if (!notifyCircuitBreaker.tryAcquire(host)) {
+            log.debug("[executeNotifyAsync][task({}) 的域名({}) 熔断中，延迟执行]", task.getId(), host);
+            deferNotify(task, notifyCircuitBreaker.getDeferMillis(host));
+            return false;
+        }
+        // 并发数限制，避免个别商户的接口响应慢，占满连接
+        if (!notifyConcurrencyLimiter.tryAcquire(task.getMerchantId(), host)) {
+            log.debug("[executeNotifyAsync][task({}) 超过商户或域名({}) 的并发数，延迟执行]", task.getId(), host);
+            notifyCircuitBreaker.release(host);
+            deferNotify(task, NOTIFY_DEFER_MILLIS);
+            return false;
+        }
+        boolean started = false;
+        try {
+            // 分布式锁，避免多个节点并发通知。写入通知结果后，才会解锁
+            if (!payNotifyLockCoreRedisDAO.tryLock(task.getId(), getNotifyLockTimeoutMillis())) {
+                return false;
+            }
+            // 校验，当前任务是否已经被通知过
+            // 虽然已经通过分布式加锁，但是 task 可能是之前查询的，期间其它节点已经通知完成并解锁
+            PayNotifyTaskDO dbTask = payNotifyTaskCoreMapper.selectById(task.getId());
+            if (dbTask == null || isNotifyFinished(dbTask) || DateUtils.afterNow(dbTask.getNextNotifyTime())) {
+                log.info("[executeNotifyAsync][dbTask({}) 任务被忽略，原因是已经结束或未到达下次通知时间，可能是因为并发执行了]",
+                        JsonUtils.toJsonString(dbTask));
+                payNotifyLockCoreRedisDAO.unlock(Collections.singleton(task.getId()));
+                return false;
+            }
+
+            // 发起通知。完成时，在发起时的上下文（例如说租户）中处理结果
+            Object captured = TransmittableThreadLocal.Transmitter.capture();
+            long startTime = System.nanoTime();
+            executeNotifyInvoke(dbTask).whenComplete((response, ex) -> {
+                notifyConcurrencyLimiter.release(task.getMerchantId(), host);
+                if (ex != null) {
+                    notifyCircuitBreaker.onError(host, System.nanoTime() - startTime, ex);
+                } else {
+                    notifyCircuitBreaker.onSuccess(host, System.nanoTime() - startTime);
+                }
+                // 解析响应、写入日志可能阻塞，交给独立的线程池处理，不占用 HttpAsyncClient 的 I/O 线程
+                try {
+                    payNotifyResultExecutor.execute(() -> processNotifyResponse(dbTask, captured, response, ex));
+                } catch (RejectedExecutionException rejectEx) { // 关闭中，等待锁过期后重新通知
+                    log.error("[executeNotifyAsync][dbTask({}) 提交通知结果的处理失败]", dbTask.getId(), rejectEx);
+                    notifyingTaskIds.remove(dbTask.getId());
+                }
+            });
+            started = true;
+            return true;
+        } finally {
+            if (!started) {
+                notifyConcurrencyLimiter.release(task.getMerchantId(), host);
+                notifyCircuitBreaker.release(host);
             }
-            log.info("[awaitExecuteNotify][任务处理中， 总任务数({}) 剩余任务数({})]", size, latch.getCount());
         }
-        log.error("[awaitExecuteNotify][任务未处理完，总任务数({}) 剩余任务数({})]", size, latch.getCount());
     }
 
     /**
-     * 异步执行单个支付通知
+     * 延迟通知，放入延迟队列
      *
      * @param task 通知任务
+     * @param deferMillis 延迟的时间，单位：毫秒
      */
-    @Async
-    public void executeNotifyAsync(PayNotifyTaskDO task) {
-        self.executeNotifySync(task); // 使用 self，避免事务不发起
+    private void deferNotify(PayNotifyTaskDO task, long deferMillis) {
+        payNotifyDelayQueueRedisDAO.addAll(Collections.singleton(new DelayedTask(task.getId(),
+                TenantContextHolder.getTenantId(), new Date(System.currentTimeMillis() + deferMillis))));
     }
 
     /**
-     * 同步执行单个支付通知
+     * 执行单个支付任务的 HTTP 调用
      *
      * @param task 通知任务
+     * @return HTTP 响应
      */
-    public void executeNotifySync(PayNotifyTaskDO task) {
-        // 分布式锁，避免并发问题
-        payNotifyLockCoreRedisDAO.lock(task.getId(), NOTIFY_TIMEOUT_MILLIS, () -> {
-            // 校验，当前任务是否已经被通知过
-            // 虽然已经通过分布式加锁，但是可能同时满足通知的条件，然后都去获得锁。此时，第一个执行完后，第二个还是能拿到锁，然后会再执行一次。
-            PayNotifyTaskDO dbTask = payNotifyTaskCoreMapper.selectById(task.getId());
-            if (DateUtils.afterNow(dbTask.getNextNotifyTime())) {
-                log.info("[executeNotify][dbTask({}) 任务被忽略，原因是未到达下次通知时间，可能是因为并发执行了]", JsonUtils.toJsonString(dbTask));
-                return;
+    private CompletableFuture<String> executeNotifyInvoke(PayNotifyTaskDO task) {
+        try {
+            // 拼接参数
+            Object request;
+            if (Objects.equals(task.getType(), PayNotifyTypeEnum.ORDER.getType())) {
+                request = PayNotifyOrderReqVO.builder().merchantOrderId(task.getMerchantOrderId())
+                        .payOrderId(task.getDataId()).build();
+            } else if (Objects.equals(task.getType(), PayNotifyTypeEnum.REFUND.getType())) {
+                request = PayRefundOrderReqVO.builder().merchantOrderId(task.getMerchantOrderId())
+                        .payRefundId(task.getDataId()).build();
+            } else {
+                throw new RuntimeException("未知的通知任务类型：" + JsonUtils.toJsonString(task));
             }
-
-            // 执行通知
-            executeNotify(dbTask);
-        });
+            // 请求地址
+            return notifyHttpClient.post(task.getNotifyUrl(), JsonUtils.toJsonString(request));
+        } catch (Throwable ex) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
     }
 
-    @Transactional
-    public void executeNotify(PayNotifyTaskDO task) {
-        // 发起回调
-        CommonResult<?> invokeResult = null;
-        Throwable invokeException = null;
+    /**
+     * 在发起通知时的上下文中，处理通知的 HTTP 响应
+     *
+     * @param task 通知任务
+     * @param captured 发起通知时捕获的上下文
+     * @param response HTTP 响应
+     * @param exception HTTP 调用异常
+     */
+    private void processNotifyResponse(PayNotifyTaskDO task, Object captured, String response, Throwable exception) {
         try {
-            invokeResult = executeNotifyInvoke(task);
-        } catch (Throwable e) {
-            invokeException = e;
+            TransmittableThreadLocal.Transmitter.runSupplierWithCaptured(captured, () -> {
+                processNotifyResponse(task, response, exception);
+                return null;
+            });
+        } catch (Throwable processEx) { // 处理失败时，等待锁过期后重新通知
+            log.error("[processNotifyResponse][task({}) 处理通知结果失败]", task.getId(), processEx);
+            notifyingTaskIds.remove(task.getId());
         }
-
-        // 处理
-        Integer newStatus = this.processNotifyResult(task, invokeResult, invokeException);
-
-        // 记录 PayNotifyLog 日志
-        String response = invokeException != null ? ExceptionUtil.getRootCauseMessage(invokeException) : JsonUtils.toJsonString(invokeResult);
-        payNotifyLogCoreMapper.insert(PayNotifyLogDO.builder().taskId(task.getId())
-                .notifyTimes(task.getNotifyTimes() + 1).status(newStatus).response(response).build());
     }
 
     /**
-     * 执行单个支付任务的 HTTP 调用
+     * 处理通知的 HTTP 响应，放入待写入 DB 的队列
      *
      * @param task 通知任务
-     * @return HTTP 响应
+     * @param response HTTP 响应
+     * @param exception HTTP 调用异常
      */
-    private CommonResult<?> executeNotifyInvoke(PayNotifyTaskDO task) {
-        // 拼接参数
-        Object request;
-        if (Objects.equals(task.getType(), PayNotifyTypeEnum.ORDER.getType())) {
-            request = PayNotifyOrderReqVO.builder().merchantOrderId(task.getMerchantOrderId())
-                            .payOrderId(task.getDataId()).build();
-        } else if (Objects.equals(task.getType(), PayNotifyTypeEnum.REFUND.getType())) {
-            request = PayRefundOrderReqVO.builder().merchantOrderId(task.getMerchantOrderId())
-                    .payRefundId(task.getDataId()).build();
-        } else {
-            throw new RuntimeException("未知的通知任务类型：" + JsonUtils.toJsonString(task));
-        }
-        // 请求地址
-        String response = HttpUtil.post(task.getNotifyUrl(), JsonUtils.toJsonString(request),
-                (int) NOTIFY_TIMEOUT_MILLIS);
+    private void processNotifyResponse(PayNotifyTaskDO task, String response, Throwable exception) {
         // 解析结果
-        return JsonUtils.parseObject(response, CommonResult.class);
+        CommonResult<?> invokeResult = null;
+        Throwable invokeException = exception;
+        if (invokeException == null) {
+            try {
+                invokeResult = JsonUtils.parseObject(response, CommonResult.class);
+            } catch (Throwable e) {
+                invokeException = e;
+            }
+        }
+
+        // 处理
+        PayNotifyTaskDO updateTask = this.processNotifyResult(task, invokeResult, invokeException);
+        notifyResults.add(new NotifyResult(updateTask, TenantContextHolder.getTenantId()));
+
+        // 记录 PayNotifyLog 日志
+        String logResponse = invokeException != null ? ExceptionUtil.getRootCauseMessage(invokeException)
+                : JsonUtils.toJsonString(invokeResult);
+        notifyLogSink.offer(PayNotifyLogDO.builder().taskId(task.getId())
+                .notifyTimes(updateTask.getNotifyTimes()).status(updateTask.getStatus()).response(logResponse).build());
     }
 
     /**
-     * 处理并更新通知结果
+     * 处理通知结果
      *
      * @param task 通知任务
      * @param invokeResult 通知结果
      * @param invokeException 通知异常
-     * @return 最终任务的状态
+     * @return 需要更新的 PayNotifyTaskDO
      */
-    private Integer processNotifyResult(PayNotifyTaskDO task, CommonResult<?> invokeResult, Throwable invokeException) {
+    private PayNotifyTaskDO processNotifyResult(PayNotifyTaskDO task, CommonResult<?> invokeResult, Throwable invokeException) {
         // 设置通用的更新 PayNotifyTaskDO 的字段
         PayNotifyTaskDO updateTask = new PayNotifyTaskDO()
                 .setId(task.getId())
@@ -236,23 +396,152 @@ public class PayNotifyServiceImpl implements PayNotifyService {
         // 情况一：调用成功
         if (invokeResult != null && invokeResult.isSuccess()) {
             updateTask.setStatus(PayNotifyStatusEnum.SUCCESS.getStatus());
-            return updateTask.getStatus();
+            return updateTask;
         }
         // 情况二：调用失败、调用异常
         // 2.1 超过最大回调次数
         if (updateTask.getNotifyTimes() >= PayNotifyTaskDO.NOTIFY_FREQUENCY.length) {
             updateTask.setStatus(PayNotifyStatusEnum.FAILURE.getStatus());
-            return updateTask.getStatus();
+            return updateTask;
         }
         // 2.2 未超过最大回调次数
         updateTask.setNextNotifyTime(DateUtils.addDate(Calendar.SECOND, PayNotifyTaskDO.NOTIFY_FREQUENCY[updateTask.getNotifyTimes()]));
         updateTask.setStatus(invokeException != null ? PayNotifyStatusEnum.REQUEST_FAILURE.getStatus()
                 : PayNotifyStatusEnum.REQUEST_SUCCESS.getStatus());
-        return updateTask.getStatus();
+        return updateTask;
+    }
+
+    @Scheduled(fixedDelay = NOTIFY_RESULT_FLUSH_PERIOD, initialDelay = NOTIFY_RESULT_FLUSH_PERIOD)
+    @PreDestroy // 关闭时，写入剩余的通知结果
+    public void flushNotifyResults() {
+        if (notifyResults.isEmpty()) {
+            return;
+        }
+        List<NotifyResult> results = new ArrayList<>(notifyResults.size());
+        NotifyResult result;
+        while ((result = notifyResults.poll()) != null) {
+            results.add(result);
+        }
+        // 写入 DB
+        List<PayNotifyTaskDO> updateObjs = convertList(results, NotifyResult::getUpdateTask);
+        Set<Long> updatedTaskIds = updateNotifyTasks(updateObjs);
+        // 需要重试的任务，放入延迟队列。放入失败时，由 executeNotify 兜底
+        try {
+            payNotifyDelayQueueRedisDAO.addAll(results.stream()
+                    .filter(item -> item.getUpdateTask().getNextNotifyTime() != null)
+                    .filter(item -> updatedTaskIds.contains(item.getUpdateTask().getId()))
+                    .map(item -> new DelayedTask(item.getUpdateTask().getId(), item.getTenantId(),
+                            item.getUpdateTask().getNextNotifyTime()))
+                    .collect(Collectors.toList()));
+        } catch (Exception ex) {
+            log.error("[flushNotifyResults][放入延迟队列({}) 个失败]", updatedTaskIds.size(), ex);
+        }
+        // 写入后才解锁，允许再次通知。逐条写入依然失败时也解锁，由下次通知重试
+        Set<Long> taskIds = convertSet(updateObjs, PayNotifyTaskDO::getId);
+        try {
+            payNotifyLockCoreRedisDAO.unlock(taskIds);
+        } catch (Exception ex) {
+            log.error("[flushNotifyResults][解锁通知任务({}) 失败，等待锁过期]", taskIds, ex);
+        }
+        notifyingTaskIds.removeAll(taskIds);
+    }
+
+    /**
+     * 写入通知结果。批量写入失败时（例如说个别任务的数据异常），逐条写入，避免整批的通知结果丢失
+     *
+     * 因为任务编号是全局唯一的，所以忽略租户。另外，按照编号更新是幂等的，所以批量写入部分成功后，逐条重新写入也没问题
+     *
+     * @param updateObjs 更新对象数组
+     * @return 写入成功的任务编号
+     */
+    private Set<Long> updateNotifyTasks(List<PayNotifyTaskDO> updateObjs) {
+        try {
+            TenantUtils.executeIgnore(() -> payNotifyTaskBatchUpdateMapper.updateBatch(updateObjs));
+            return convertSet(updateObjs, PayNotifyTaskDO::getId);
+        } catch (Exception ex) {
+            log.warn("[updateNotifyTasks][批量写入通知结果({}) 个失败，逐条写入]", updateObjs.size(), ex);
+        }
+        Set<Long> updatedTaskIds = new HashSet<>();
+        for (PayNotifyTaskDO updateObj : updateObjs) {
+            try {
+                TenantUtils.executeIgnore(() -> payNotifyTaskCoreMapper.updateById(updateObj));
+                updatedTaskIds.add(updateObj.getId());
+            } catch (Exception ex) {
+                log.error("[updateNotifyTasks][写入通知结果({}) 失败]", JsonUtils.toJsonString(updateObj), ex);
+            }
+        }
+        return updatedTaskIds;
+    }
+
+    @Scheduled(fixedDelay = NOTIFY_DELAY_QUEUE_POLL_PERIOD, initialDelay = NOTIFY_DELAY_QUEUE_POLL_PERIOD)
+    public void pollDelayQueue() {
+        List<DelayedTask> delayedTasks;
+        do {
+            delayedTasks = payNotifyDelayQueueRedisDAO.pollDue(NOTIFY_DELAY_QUEUE_POLL_SIZE);
+            if (delayedTasks.isEmpty()) {
+                return;
+            }
+            // 按照租户分组，批量查询后，逐个发起通知
+            Map<Long, List<Long>> tenantTaskIds = new HashMap<>();
+            delayedTasks.forEach(task -> tenantTaskIds.computeIfAbsent(task.getTenantId(), key -> new ArrayList<>())
+                    .add(task.getTaskId()));
+            tenantTaskIds.forEach((tenantId, taskIds) -> {
+                try {
+                    executeWithTenant(tenantId, () -> payNotifyTaskCoreMapper.selectBatchIds(taskIds)
+                            .forEach(this::executeNotifyAsync));
+                } catch (Exception ex) { // 发起失败的任务，由 executeNotify 兜底
+                    log.error("[pollDelayQueue][租户({}) 任务({}) 发起通知失败]", tenantId, taskIds, ex);
+                }
+            });
+        } while (delayedTasks.size() >= NOTIFY_DELAY_QUEUE_POLL_SIZE);
+    }
+
+    private long getNotifyLockTimeoutMillis() {
+        // 连接池等待、建立连接、读取响应，三者的超时时间之和
+        return notifyProperties.getConnectTimeout().multipliedBy(2).plus(notifyProperties.getReadTimeout()).toMillis()
+                + NOTIFY_LOCK_EXTRA_MILLIS;
     }
 
-    private void processNotifySuccess(PayNotifyTaskDO task, PayNotifyTaskDO updateTask) {
-        payNotifyTaskCoreMapper.updateById(updateTask);
+    private static void executeWithTenant(Long tenantId, Runnable runnable) {
+        if (tenantId == null) {
+            runnable.run();
+            return;
+        }
+        TenantUtils.execute(tenantId, runnable);
+    }
+
+    private static boolean isNotifyFinished(PayNotifyTaskDO task) {
+        return Objects.equals(task.getStatus(), PayNotifyStatusEnum.SUCCESS.getStatus())
+                || Objects.equals(task.getStatus(), PayNotifyStatusEnum.FAILURE.getStatus());
+    }
+
+    /**
+     * 获得回调地址的域名，用于并发数限制。地址不合法时，使用地址本身，后续 HTTP 调用会失败
+     */
+    private static String getNotifyHost(String notifyUrl) {
+        try {
+            return URLUtil.url(notifyUrl).getHost();
+        } catch (Exception ex) {
+            return String.valueOf(notifyUrl);
+        }
+    }
+
+    /**
+     * 待写入 DB 的通知结果
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class NotifyResult {
+
+        /**
+         * 需要更新的通知任务
+         */
+        private final PayNotifyTaskDO updateTask;
+        /**
+         * 发起通知时的租户编号，用于放入延迟队列
+         */
+        private final Long tenantId;
+
     }
 
 }
@@ -0,0 +1,79 @@
+package cn.iocoder.yudao.module.pay.framework.notify.core;
+
+import cn.iocoder.yudao.module.pay.framework.notify.config.PayNotifyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link PayNotifyCircuitBreaker} 的单元测试
+ *
+ * @author 芋道源码
+ */
+public class PayNotifyCircuitBreakerTest {
+
+    private static final String HOST = "merchant.test";
+
+    @Test
+    public void testTryAcquire_open() {
+        PayNotifyCircuitBreaker circuitBreaker = new PayNotifyCircuitBreaker(buildProperties(Duration.ofMinutes(1)));
+
+        // 调用，失败率超过阈值
+        openCircuitBreaker(circuitBreaker);
+        // 断言，熔断打开，延迟到半开
+        assertFalse(circuitBreaker.tryAcquire(HOST));
+        assertEquals(Duration.ofMinutes(1).toMillis(), circuitBreaker.getDeferMillis(HOST));
+        // 断言，其它域名不受影响
+        assertTrue(circuitBreaker.tryAcquire("other.test"));
+    }
+
+    @Test
+    public void testTryAcquire_halfOpenAndRecovery() throws InterruptedException {
+        PayNotifyCircuitBreaker circuitBreaker = new PayNotifyCircuitBreaker(buildProperties(Duration.ofMillis(100)));
+        openCircuitBreaker(circuitBreaker);
+        Thread.sleep(150);
+
+        // 调用，半开时只允许一个探测
+        assertTrue(circuitBreaker.tryAcquire(HOST));
+        assertFalse(circuitBreaker.tryAcquire(HOST));
+        // 调用，探测成功后关闭，进入恢复期，按照速率放行
+        circuitBreaker.onSuccess(HOST, 1L);
+        assertTrue(circuitBreaker.tryAcquire(HOST));
+        assertTrue(circuitBreaker.tryAcquire(HOST));
+        assertFalse(circuitBreaker.tryAcquire(HOST));
+        long deferMillis = circuitBreaker.getDeferMillis(HOST);
+        assertTrue(deferMillis >= 1000L, "恢复期限流时，至少延迟 1 秒");
+    }
+
+    @Test
+    public void testRelease() throws InterruptedException {
+        PayNotifyCircuitBreaker circuitBreaker = new PayNotifyCircuitBreaker(buildProperties(Duration.ofMillis(100)));
+        openCircuitBreaker(circuitBreaker);
+        Thread.sleep(150);
+
+        // 调用，半开时未发起的探测，释放后可以再次获取
+        assertTrue(circuitBreaker.tryAcquire(HOST));
+        circuitBreaker.release(HOST);
+        assertTrue(circuitBreaker.tryAcquire(HOST));
+    }
+
+    private static PayNotifyProperties.CircuitBreaker buildProperties(Duration waitDurationInOpenState) {
+        PayNotifyProperties.CircuitBreaker properties = new PayNotifyProperties.CircuitBreaker();
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setWaitDurationInOpenState(waitDurationInOpenState);
+        properties.setRecoveryRate(2);
+        return properties;
+    }
+
+    private static void openCircuitBreaker(PayNotifyCircuitBreaker circuitBreaker) {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(circuitBreaker.tryAcquire(HOST));
+            circuitBreaker.onError(HOST, 1L, new IOException("connect timed out"));
+        }
+    }
+
+}
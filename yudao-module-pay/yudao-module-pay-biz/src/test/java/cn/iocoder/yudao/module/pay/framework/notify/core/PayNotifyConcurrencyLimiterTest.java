@@ -0,0 +1,41 @@
+package cn.iocoder.yudao.module.pay.framework.notify.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PayNotifyConcurrencyLimiter} 的单元测试
+ *
+ * @author 芋道源码
+ */
+public class PayNotifyConcurrencyLimiterTest {
+
+    @Test
+    public void testTryAcquire_merchantLimit() {
+        PayNotifyConcurrencyLimiter limiter = new PayNotifyConcurrencyLimiter(2, 10);
+
+        // 调用，同一商户超过并发数
+        assertTrue(limiter.tryAcquire(1L, "a.test"));
+        assertTrue(limiter.tryAcquire(1L, "b.test"));
+        assertFalse(limiter.tryAcquire(1L, "c.test"));
+        // 调用，其它商户不受影响
+        assertTrue(limiter.tryAcquire(2L, "c.test"));
+        // 调用，释放后可以再次获取
+        limiter.release(1L, "a.test");
+        assertTrue(limiter.tryAcquire(1L, "c.test"));
+    }
+
+    @Test
+    public void testTryAcquire_hostLimit() {
+        PayNotifyConcurrencyLimiter limiter = new PayNotifyConcurrencyLimiter(1, 1);
+
+        // 调用，同一域名超过并发数
+        assertTrue(limiter.tryAcquire(1L, "a.test"));
+        assertFalse(limiter.tryAcquire(2L, "a.test"));
+        // 断言，域名获取失败时，归还了商户的名额
+        assertTrue(limiter.tryAcquire(2L, "b.test"));
+    }
+
+}
@@ -3,6 +3,8 @@ package cn.iocoder.yudao.module.pay.service.merchant;
 import cn.hutool.core.util.RandomUtil;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
+import cn.iocoder.yudao.framework.localcache.core.LocalCache;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.app.PayAppCreateReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.app.PayAppExportReqVO;
@@ -27,8 +29,13 @@ import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEq
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertServiceException;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomLongId;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomPojo;
+import static cn.iocoder.yudao.module.pay.enums.ErrorCodeConstants.PAY_APP_IS_DISABLE;
 import static cn.iocoder.yudao.module.pay.enums.ErrorCodeConstants.PAY_APP_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 
 @Import(PayAppServiceImpl.class)
 public class PayAppServiceTest extends BaseDbUnitTest {
@@ -41,6 +48,8 @@ public class PayAppServiceTest extends BaseDbUnitTest {
 
     @MockBean(name = "payMerchantMapper")
     private PayMerchantMapper payMerchantMapper;
+    @MockBean
+    private LocalCacheManager localCacheManager;
 
     @Test
     public void testCreateApp_success() {
@@ -236,4 +245,25 @@ public class PayAppServiceTest extends BaseDbUnitTest {
         assertPojoEquals(dbApp, list.get(0));
     }
 
+    @Test
+    public void testValidPayApp_cache() {
+        // mock 数据
+        PayAppDO dbApp = randomPojo(PayAppDO.class, o -> o.setStatus(CommonStatusEnum.ENABLE.getStatus()));
+        appMapper.insert(dbApp);// @Sql: 先插入出一条存在的数据
+
+        // 调用，首次从 DB 加载
+        assertPojoEquals(dbApp, appService.validPayApp(dbApp.getId()));
+        // 调用，DB 变更后，命中缓存
+        appService.updateAppStatus(dbApp.getId(), CommonStatusEnum.DISABLE.getStatus());
+        verify(localCacheManager).invalidate(eq("pay_app"));
+        assertPojoEquals(dbApp, appService.validPayApp(dbApp.getId()));
+        // 调用，缓存刷新后，重新从 DB 加载
+        doAnswer(invocation -> { // mock 注册缓存时，立即加载，模拟 LocalCacheManager 的刷新
+            ((LocalCache<?>) invocation.getArgument(0)).reload();
+            return null;
+        }).when(localCacheManager).register(any());
+        appService.initLocalCache();
+        assertServiceException(() -> appService.validPayApp(dbApp.getId()), PAY_APP_IS_DISABLE);
+    }
+
 }
@@ -2,6 +2,7 @@ package cn.iocoder.yudao.module.pay.service.merchant;
 
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.framework.pay.core.client.PayClientFactory;
 import cn.iocoder.yudao.framework.pay.core.client.impl.alipay.AlipayPayClientConfig;
 import cn.iocoder.yudao.framework.pay.core.client.impl.wx.WXPayClientConfig;
@@ -44,6 +45,8 @@ public class PayChannelServiceTest extends BaseDbUnitTest {
     private PayClientFactory payClientFactory;
     @MockBean
     private Validator validator;
+    @MockBean
+    private LocalCacheManager localCacheManager;
 
     @Test
     public void testCreateWechatVersion2Channel_success() {
@@ -3,6 +3,7 @@ package cn.iocoder.yudao.module.pay.service.merchant;
 import cn.hutool.core.util.RandomUtil;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerchantCreateReqVO;
 import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerchantExportReqVO;
@@ -11,6 +12,7 @@ import cn.iocoder.yudao.module.pay.controller.admin.merchant.vo.merchant.PayMerc
 import cn.iocoder.yudao.module.pay.dal.dataobject.merchant.PayMerchantDO;
 import cn.iocoder.yudao.module.pay.dal.mysql.merchant.PayMerchantMapper;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.Resource;
@@ -39,6 +41,9 @@ public class PayMerchantServiceTest extends BaseDbUnitTest {
     @Resource
     private PayMerchantMapper merchantMapper;
 
+    @MockBean
+    private LocalCacheManager localCacheManager;
+
     @Test
     public void testCreateMerchant_success() {
         // 准备参数
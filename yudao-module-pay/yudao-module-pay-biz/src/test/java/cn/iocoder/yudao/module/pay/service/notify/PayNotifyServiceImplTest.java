@@ -0,0 +1,292 @@
+package cn.iocoder.yudao.module.pay.service.notify;
+
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import cn.iocoder.yudao.framework.test.core.ut.BaseMockitoUnitTest;
+import cn.iocoder.yudao.module.pay.dal.dataobject.notify.PayNotifyLogDO;
+import cn.iocoder.yudao.module.pay.dal.dataobject.notify.PayNotifyTaskDO;
+import cn.iocoder.yudao.module.pay.dal.mysql.notify.PayNotifyTaskBatchUpdateMapper;
+import cn.iocoder.yudao.module.pay.dal.mysql.notify.PayNotifyTaskCoreMapper;
+import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyDelayQueueRedisDAO;
+import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyDelayQueueRedisDAO.DelayedTask;
+import cn.iocoder.yudao.module.pay.dal.redis.notify.PayNotifyLockRedisDAO;
+import cn.iocoder.yudao.module.pay.enums.notify.PayNotifyStatusEnum;
+import cn.iocoder.yudao.module.pay.enums.notify.PayNotifyTypeEnum;
+import cn.iocoder.yudao.module.pay.framework.notify.config.PayNotifyProperties;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyCircuitBreaker;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyConcurrencyLimiter;
+import cn.iocoder.yudao.module.pay.framework.notify.core.PayNotifyHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link PayNotifyServiceImpl} 的单元测试
+ *
+ * @author 芋道源码
+ */
+public class PayNotifyServiceImplTest extends BaseMockitoUnitTest {
+
+    private static final String NOTIFY_URL = "http://merchant.test/notify";
+
+    @InjectMocks
+    private PayNotifyServiceImpl notifyService;
+
+    @Mock
+    private PayNotifyTaskCoreMapper payNotifyTaskCoreMapper;
+    @Mock
+    private PayNotifyTaskBatchUpdateMapper payNotifyTaskBatchUpdateMapper;
+    @Mock
+    private BatchInsertSinkManager batchInsertSinkManager;
+    @Mock
+    private BatchInsertSink<PayNotifyLogDO> notifyLogSink;
+    @Mock
+    private PayNotifyHttpClient notifyHttpClient;
+    @Mock
+    private PayNotifyLockRedisDAO payNotifyLockCoreRedisDAO;
+    @Mock
+    private PayNotifyDelayQueueRedisDAO payNotifyDelayQueueRedisDAO;
+
+    @Spy
+    private PayNotifyProperties notifyProperties = new PayNotifyProperties();
+    @Spy
+    private PayNotifyConcurrencyLimiter notifyConcurrencyLimiter = new PayNotifyConcurrencyLimiter(1, 1);
+    @Spy
+    private PayNotifyCircuitBreaker notifyCircuitBreaker = new PayNotifyCircuitBreaker(new PayNotifyProperties.CircuitBreaker());
+    @Spy
+    private SyncTaskExecutor payNotifyResultExecutor = new SyncTaskExecutor();
+
+    @BeforeEach
+    public void setUp() {
+        when(batchInsertSinkManager.create(eq("pay-notify-log"), eq(PayNotifyLogDO.class))).thenReturn(notifyLogSink);
+        notifyService.initNotifyLogSink();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TenantContextHolder.clear();
+    }
+
+    @Test
+    public void testExecuteNotifyAsync_success() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法
+        when(payNotifyLockCoreRedisDAO.tryLock(eq(1L), anyLong())).thenReturn(true);
+        when(notifyHttpClient.post(eq(NOTIFY_URL), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("{\"code\":0}"));
+
+        // 调用
+        assertTrue(notifyService.executeNotifyAsync(task));
+        // 断言，通知完成后归还并发名额，并记录日志
+        assertTrue(notifyConcurrencyLimiter.tryAcquire(task.getMerchantId(), "merchant.test"));
+        notifyConcurrencyLimiter.release(task.getMerchantId(), "merchant.test");
+        verify(notifyLogSink).offer(argThat(log -> log.getTaskId().equals(1L)
+                && log.getStatus().equals(PayNotifyStatusEnum.SUCCESS.getStatus())));
+        // 断言，写入通知结果前，不解锁，也不会重复发起
+        verify(payNotifyLockCoreRedisDAO, never()).unlock(any());
+        assertFalse(notifyService.executeNotifyAsync(task));
+
+        // 调用，批量写入通知结果
+        notifyService.flushNotifyResults();
+        // 断言，批量写入后解锁
+        verify(payNotifyTaskBatchUpdateMapper).updateBatch(argThat(updateObjs -> updateObjs.size() == 1
+                && updateObjs.iterator().next().getStatus().equals(PayNotifyStatusEnum.SUCCESS.getStatus())));
+        verify(payNotifyTaskCoreMapper, never()).updateById(any(PayNotifyTaskDO.class));
+        verify(payNotifyDelayQueueRedisDAO).addAll(argThat(Collection::isEmpty));
+        verify(payNotifyLockCoreRedisDAO).unlock(eq(Collections.singleton(1L)));
+    }
+
+    @Test
+    public void testExecuteNotifyAsync_processOnResultExecutor() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法，暂不执行提交到线程池的任务
+        when(payNotifyLockCoreRedisDAO.tryLock(eq(1L), anyLong())).thenReturn(true);
+        when(notifyHttpClient.post(eq(NOTIFY_URL), anyString()))
+                .thenReturn(CompletableFuture.completedFuture("{\"code\":0}"));
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        doNothing().when(payNotifyResultExecutor).execute(runnableCaptor.capture());
+
+        // 调用
+        assertTrue(notifyService.executeNotifyAsync(task));
+        // 断言，HTTP 回调中只归还并发名额，不处理通知结果
+        assertTrue(notifyConcurrencyLimiter.tryAcquire(task.getMerchantId(), "merchant.test"));
+        notifyConcurrencyLimiter.release(task.getMerchantId(), "merchant.test");
+        verify(notifyLogSink, never()).offer(any());
+
+        // 调用，线程池执行
+        runnableCaptor.getValue().run();
+        // 断言，处理通知结果
+        verify(notifyLogSink).offer(argThat(log -> log.getTaskId().equals(1L)));
+    }
+
+    @Test
+    public void testExecuteNotifyAsync_lockFail() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法，其它节点已经加锁
+        when(payNotifyLockCoreRedisDAO.tryLock(eq(1L), anyLong())).thenReturn(false);
+
+        // 调用
+        assertFalse(notifyService.executeNotifyAsync(task));
+        // 断言，未发起通知，并且归还并发名额、熔断许可
+        verify(notifyHttpClient, never()).post(anyString(), anyString());
+        verify(notifyConcurrencyLimiter).release(task.getMerchantId(), "merchant.test");
+        verify(notifyCircuitBreaker).release("merchant.test");
+    }
+
+    @Test
+    public void testExecuteNotifyAsync_concurrencyLimited() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法，商户的并发名额已经用完
+        assertTrue(notifyConcurrencyLimiter.tryAcquire(task.getMerchantId(), "other.test"));
+
+        // 调用
+        assertFalse(notifyService.executeNotifyAsync(task));
+        // 断言，放入延迟队列，稍后重试
+        verify(payNotifyLockCoreRedisDAO, never()).tryLock(anyLong(), anyLong());
+        verify(payNotifyDelayQueueRedisDAO).addAll(argThat(tasks -> tasks.size() == 1
+                && tasks.iterator().next().getTaskId().equals(1L)
+                && tasks.iterator().next().getNotifyTime().after(new Date())));
+        verify(notifyCircuitBreaker).release("merchant.test");
+    }
+
+    @Test
+    public void testExecuteNotifyAsync_circuitOpen() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法，域名的熔断器打开
+        for (int i = 0; i < 10; i++) {
+            assertTrue(notifyCircuitBreaker.tryAcquire("merchant.test"));
+            notifyCircuitBreaker.onError("merchant.test", 1L, new IOException("connect timed out"));
+        }
+
+        // 调用
+        assertFalse(notifyService.executeNotifyAsync(task));
+        // 断言，不消耗并发名额，按照熔断打开的时长延迟
+        verify(notifyConcurrencyLimiter, never()).tryAcquire(anyLong(), anyString());
+        long waitMillis = notifyProperties.getCircuitBreaker().getWaitDurationInOpenState().toMillis();
+        verify(payNotifyDelayQueueRedisDAO).addAll(argThat(tasks -> tasks.size() == 1
+                && tasks.iterator().next().getNotifyTime().getTime() > System.currentTimeMillis() + waitMillis / 2));
+    }
+
+    @Test
+    public void testFlushNotifyResults_enqueueRetry() {
+        // mock 数据
+        PayNotifyTaskDO task = mockTask(1L);
+        // mock 方法，租户 1 发起的通知失败，需要重试
+        when(payNotifyLockCoreRedisDAO.tryLock(eq(1L), anyLong())).thenReturn(true);
+        CompletableFuture<String> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IOException("read timed out"));
+        when(notifyHttpClient.post(eq(NOTIFY_URL), anyString())).thenReturn(failure);
+        TenantContextHolder.setTenantId(1L);
+        assertTrue(notifyService.executeNotifyAsync(task));
+        TenantContextHolder.clear();
+
+        // 调用
+        notifyService.flushNotifyResults();
+        // 断言，按照下次通知时间，放入延迟队列，并且记录发起时的租户
+        verify(payNotifyDelayQueueRedisDAO).addAll(argThat(tasks -> {
+            if (tasks.size() != 1) {
+                return false;
+            }
+            DelayedTask delayedTask = tasks.iterator().next();
+            return delayedTask.getTaskId().equals(1L) && delayedTask.getTenantId().equals(1L)
+                    && delayedTask.getNotifyTime().after(new Date());
+        }));
+    }
+
+    @Test
+    public void testPollDelayQueue() {
+        // mock 数据
+        PayNotifyTaskDO task01 = mockTask(1L);
+        PayNotifyTaskDO task02 = mockTask(2L).setMerchantId(20L).setNotifyUrl("http://other.test/notify");
+        // mock 方法，两个租户各有一个到期的任务
+        when(payNotifyDelayQueueRedisDAO.pollDue(anyInt())).thenReturn(Arrays.asList(
+                new DelayedTask(1L, 1L, null), new DelayedTask(2L, 2L, null)));
+        Map<Long, Long> taskTenantIds = new HashMap<>();
+        when(payNotifyTaskCoreMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            ids.forEach(id -> taskTenantIds.put(id, TenantContextHolder.getTenantId()));
+            return ids.contains(1L) ? Collections.singletonList(task01) : Collections.singletonList(task02);
+        });
+        when(payNotifyLockCoreRedisDAO.tryLock(anyLong(), anyLong())).thenReturn(true);
+        when(notifyHttpClient.post(anyString(), anyString())).thenReturn(new CompletableFuture<>());
+
+        // 调用
+        notifyService.pollDelayQueue();
+        // 断言，在各自的租户下查询任务，并发起通知
+        assertEquals(1L, taskTenantIds.get(1L));
+        assertEquals(2L, taskTenantIds.get(2L));
+        verify(notifyHttpClient).post(eq(NOTIFY_URL), anyString());
+        verify(notifyHttpClient).post(eq("http://other.test/notify"), anyString());
+        // 断言，未取满一批，不再继续拉取
+        verify(payNotifyDelayQueueRedisDAO, times(1)).pollDue(anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushNotifyResults_batchFail() {
+        // mock 数据，两个任务都通知失败，需要重试
+        PayNotifyTaskDO task01 = mockTask(1L);
+        PayNotifyTaskDO task02 = mockTask(2L).setMerchantId(20L).setNotifyUrl("http://other.test/notify");
+        // mock 方法
+        when(payNotifyLockCoreRedisDAO.tryLock(anyLong(), anyLong())).thenReturn(true);
+        CompletableFuture<String> failure = new CompletableFuture<>();
+        failure.completeExceptionally(new IOException("read timed out"));
+        when(notifyHttpClient.post(anyString(), anyString())).thenReturn(failure);
+        assertTrue(notifyService.executeNotifyAsync(task01));
+        assertTrue(notifyService.executeNotifyAsync(task02));
+        // mock 方法，批量写入失败；逐条写入时，任务 2 依然失败
+        doThrow(new IllegalStateException("batch fail")).when(payNotifyTaskBatchUpdateMapper).updateBatch(anyCollection());
+        doReturn(1).when(payNotifyTaskCoreMapper).updateById(argThat((PayNotifyTaskDO updateObj) -> updateObj.getId().equals(1L)));
+        doThrow(new IllegalStateException("row fail")).when(payNotifyTaskCoreMapper)
+                .updateById(argThat((PayNotifyTaskDO updateObj) -> updateObj.getId().equals(2L)));
+
+        // 调用
+        notifyService.flushNotifyResults();
+        // 断言，只有写入成功的任务放入延迟队列
+        ArgumentCaptor<Collection<DelayedTask>> delayedTasksCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(payNotifyDelayQueueRedisDAO).addAll(delayedTasksCaptor.capture());
+        List<DelayedTask> delayedTasks = Arrays.asList(delayedTasksCaptor.getValue().toArray(new DelayedTask[0]));
+        assertEquals(1, delayedTasks.size());
+        assertEquals(1L, delayedTasks.get(0).getTaskId());
+        assertNotNull(delayedTasks.get(0).getNotifyTime());
+        // 断言，写入后全部解锁，写入失败的任务由下次通知重试
+        verify(payNotifyLockCoreRedisDAO).unlock(eq(new HashSet<>(Arrays.asList(1L, 2L))));
+    }
+
+    private PayNotifyTaskDO mockTask(Long id) {
+        PayNotifyTaskDO task = new PayNotifyTaskDO().setId(id).setMerchantId(10L).setDataId(100L + id)
+                .setType(PayNotifyTypeEnum.ORDER.getType()).setStatus(PayNotifyStatusEnum.WAITING.getStatus())
+                .setNotifyTimes(0).setMaxNotifyTimes(PayNotifyTaskDO.NOTIFY_FREQUENCY.length + 1)
+                .setNextNotifyTime(new Date(System.currentTimeMillis() - 1000L))
+                .setMerchantOrderId("MOT" + id).setNotifyUrl(NOTIFY_URL);
+        lenient().when(payNotifyTaskCoreMapper.selectById(eq(id))).thenReturn(task);
+        return task;
+    }
+
+}
@@ -21,4 +21,6 @@ public interface LoginLogConvert {
 
     LoginLogDO convert(LoginLogCreateReqDTO bean);
 
+    List<LoginLogDO> convertList02(List<LoginLogCreateReqDTO> list);
+
 }
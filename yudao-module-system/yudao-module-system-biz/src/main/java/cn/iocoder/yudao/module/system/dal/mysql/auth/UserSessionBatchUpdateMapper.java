@@ -0,0 +1,39 @@
+package cn.iocoder.yudao.module.system.dal.mysql.auth;
+
+import cn.iocoder.yudao.framework.mybatis.core.query.LambdaQueryWrapperX;
+import cn.iocoder.yudao.module.system.dal.dataobject.auth.UserSessionDO;
+import com.baomidou.mybatisplus.core.enums.SqlMethod;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.apache.ibatis.binding.MapperMethod;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * 实体 {@link UserSessionDO} 的批量更新 Mapper
+ *
+ * 基于 JDBC Batch 实现，多条 UPDATE 语句只需要一次 DB 交互
+ *
+ * @author 芋道源码
+ */
+@Repository
+public class UserSessionBatchUpdateMapper extends ServiceImpl<UserSessionMapper, UserSessionDO> {
+
+    /**
+     * 基于 {@link UserSessionDO#getToken()} 令牌，批量更新
+     *
+     * @param updateObjs 更新对象数组，需要设置 token 令牌
+     */
+    public void updateBatchByToken(Collection<UserSessionDO> updateObjs) {
+        String sqlStatement = getSqlStatement(SqlMethod.UPDATE);
+        executeBatch(updateObjs, DEFAULT_BATCH_SIZE, (sqlSession, updateObj) -> {
+            MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+            param.put(Constants.ENTITY, updateObj);
+            param.put(Constants.WRAPPER, new LambdaQueryWrapperX<UserSessionDO>()
+                    .eq(UserSessionDO::getToken, updateObj.getToken()));
+            sqlSession.update(sqlStatement, param);
+        });
+    }
+
+}
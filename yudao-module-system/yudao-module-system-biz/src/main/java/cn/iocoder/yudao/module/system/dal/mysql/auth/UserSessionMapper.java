@@ -5,6 +5,7 @@ import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
 import cn.iocoder.yudao.framework.mybatis.core.query.LambdaQueryWrapperX;
 import cn.iocoder.yudao.module.system.controller.admin.auth.vo.session.UserSessionPageReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.auth.UserSessionDO;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import org.apache.ibatis.annotations.Mapper;
 
 import java.util.Collection;
@@ -20,9 +21,19 @@ public interface UserSessionMapper extends BaseMapperX<UserSessionDO> {
                 .likeIfPresent(UserSessionDO::getUserIp, reqVO.getUserIp()));
     }
 
-    default List<UserSessionDO> selectListBySessionTimoutLt() {
-        return selectList(new LambdaQueryWrapperX<UserSessionDO>()
-                .lt(UserSessionDO::getSessionTimeout, new Date()));
+    /**
+     * 基于编号游标，分页获得已经超时的在线用户列表
+     *
+     * @param minId 最小编号，不包含
+     * @param size 数量
+     * @return 在线用户列表，按照编号升序
+     */
+    default List<UserSessionDO> selectListBySessionTimoutLt(Long minId, Integer size) {
+        Page<UserSessionDO> page = new Page<>(1, size, false); // 无需 count 总数
+        return selectPage(page, new LambdaQueryWrapperX<UserSessionDO>()
+                .lt(UserSessionDO::getSessionTimeout, new Date())
+                .gt(UserSessionDO::getId, minId)
+                .orderByAsc(UserSessionDO::getId)).getRecords();
     }
 
     default void updateByToken(String token, UserSessionDO updateObj) {
@@ -0,0 +1,14 @@
+package cn.iocoder.yudao.module.system.dal.mysql.logger;
+
+import cn.iocoder.yudao.module.system.dal.dataobject.logger.LoginLogDO;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 实体 {@link LoginLogDO} 的批量插入 Mapper
+ *
+ * @author 芋道源码
+ */
+@Repository
+public class LoginLogBatchInsertMapper extends ServiceImpl<LoginLogMapper, LoginLogDO> {
+}
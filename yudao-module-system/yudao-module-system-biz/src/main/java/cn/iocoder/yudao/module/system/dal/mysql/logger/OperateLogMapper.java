@@ -4,6 +4,7 @@ import cn.iocoder.yudao.framework.common.exception.enums.GlobalErrorCodeConstant
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
 import cn.iocoder.yudao.framework.mybatis.core.query.LambdaQueryWrapperX;
+import cn.iocoder.yudao.framework.mybatis.core.util.PartitionUtils;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.operatelog.OperateLogExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.operatelog.OperateLogPageReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.logger.OperateLogDO;
@@ -20,7 +21,8 @@ public interface OperateLogMapper extends BaseMapperX<OperateLogDO> {
                 .likeIfPresent(OperateLogDO::getModule, reqVO.getModule())
                 .inIfPresent(OperateLogDO::getUserId, userIds)
                 .eqIfPresent(OperateLogDO::getType, reqVO.getType())
-                .betweenIfPresent(OperateLogDO::getStartTime, reqVO.getBeginTime(), reqVO.getEndTime());
+                .betweenIfPresent(OperateLogDO::getStartTime, reqVO.getBeginTime(), reqVO.getEndTime())
+                .betweenIfPresent(OperateLogDO::getCreateTime, reqVO.getBeginTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndTime())); // 分区裁剪
         if (Boolean.TRUE.equals(reqVO.getSuccess())) {
             query.eq(OperateLogDO::getResultCode, GlobalErrorCodeConstants.SUCCESS.getCode());
         } else if (Boolean.FALSE.equals(reqVO.getSuccess())) {
@@ -35,7 +37,8 @@ public interface OperateLogMapper extends BaseMapperX<OperateLogDO> {
                 .likeIfPresent(OperateLogDO::getModule, reqVO.getModule())
                 .inIfPresent(OperateLogDO::getUserId, userIds)
                 .eqIfPresent(OperateLogDO::getType, reqVO.getType())
-                .betweenIfPresent(OperateLogDO::getStartTime, reqVO.getBeginTime(), reqVO.getEndTime());
+                .betweenIfPresent(OperateLogDO::getStartTime, reqVO.getBeginTime(), reqVO.getEndTime())
+                .betweenIfPresent(OperateLogDO::getCreateTime, reqVO.getBeginTime(), PartitionUtils.buildCreateTimeEnd(reqVO.getEndTime())); // 分区裁剪
         if (Boolean.TRUE.equals(reqVO.getSuccess())) {
             query.eq(OperateLogDO::getResultCode, GlobalErrorCodeConstants.SUCCESS.getCode());
         } else if (Boolean.FALSE.equals(reqVO.getSuccess())) {
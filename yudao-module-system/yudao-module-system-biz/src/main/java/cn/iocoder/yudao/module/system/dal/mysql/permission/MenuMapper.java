@@ -5,6 +5,7 @@ import cn.iocoder.yudao.framework.mybatis.core.query.LambdaQueryWrapperX;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuListReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.MenuDO;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
@@ -28,7 +29,23 @@ public interface MenuMapper extends BaseMapperX<MenuDO> {
                 .eqIfPresent(MenuDO::getStatus, reqVO.getStatus()));
     }
 
-    @Select("SELECT COUNT(*) FROM system_menu WHERE update_time > #{maxUpdateTime}")
-    Long selectCountByUpdateTimeGt(Date maxUpdateTime);
+    /**
+     * 逻辑删除菜单，并且更新 update_time 字段，保证增量刷新缓存可以感知到删除
+     *
+     * @param id 菜单编号
+     */
+    default void deleteByIdWithUpdateTime(Long id) {
+        update(null, new UpdateWrapper<MenuDO>().set("deleted", true).set("update_time", new Date())
+                .eq("id", id));
+    }
+
+    /**
+     * 获得更新时间大于等于指定时间的菜单列表，包括已经删除的，用于增量刷新缓存
+     *
+     * @param minUpdateTime 指定时间
+     * @return 菜单列表
+     */
+    @Select("SELECT * FROM system_menu WHERE update_time >= #{minUpdateTime}")
+    List<MenuDO> selectListByUpdateTimeGe(Date minUpdateTime);
 
 }
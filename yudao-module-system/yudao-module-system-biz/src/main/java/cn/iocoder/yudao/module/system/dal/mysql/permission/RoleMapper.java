@@ -7,7 +7,9 @@ import cn.iocoder.yudao.framework.mybatis.core.query.LambdaQueryWrapperX;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.role.RoleExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.role.RolePageReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleDO;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.ResultMap;
 import org.apache.ibatis.annotations.Select;
 import org.springframework.lang.Nullable;
 
@@ -46,7 +48,24 @@ public interface RoleMapper extends BaseMapperX<RoleDO> {
         return selectList(RoleDO::getStatus, statuses);
     }
 
-    @Select("SELECT COUNT(*) FROM system_role WHERE update_time > #{maxUpdateTime}")
-    Long selectCountByUpdateTimeGt(Date maxUpdateTime);
+    /**
+     * 逻辑删除角色，并且更新 update_time 字段，保证增量刷新缓存可以感知到删除
+     *
+     * @param id 角色编号
+     */
+    default void deleteByIdWithUpdateTime(Long id) {
+        update(null, new UpdateWrapper<RoleDO>().set("deleted", true).set("update_time", new Date())
+                .eq("id", id));
+    }
+
+    /**
+     * 获得更新时间大于等于指定时间的角色列表，包括已经删除的，用于增量刷新缓存
+     *
+     * @param minUpdateTime 指定时间
+     * @return 角色列表
+     */
+    @Select("SELECT * FROM system_role WHERE update_time >= #{minUpdateTime}")
+    @ResultMap("mybatis-plus_RoleDO") // 使用 autoResultMap，保证 dataScopeDeptIds 字段的 TypeHandler 生效
+    List<RoleDO> selectListByUpdateTimeGe(Date minUpdateTime);
 
 }
@@ -3,6 +3,7 @@ package cn.iocoder.yudao.module.system.dal.mysql.permission;
 import cn.iocoder.yudao.framework.mybatis.core.mapper.BaseMapperX;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleMenuDO;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
@@ -24,19 +25,37 @@ public interface RoleMenuMapper extends BaseMapperX<RoleMenuDO> {
     }
 
     default void deleteListByRoleIdAndMenuIds(Long roleId, Collection<Long> menuIds) {
-        delete(new QueryWrapper<RoleMenuDO>().eq("role_id", roleId)
+        deleteWithUpdateTime(new UpdateWrapper<RoleMenuDO>().eq("role_id", roleId)
                 .in("menu_id", menuIds));
     }
 
     default void deleteListByMenuId(Long menuId) {
-        delete(new QueryWrapper<RoleMenuDO>().eq("menu_id", menuId));
+        deleteWithUpdateTime(new UpdateWrapper<RoleMenuDO>().eq("menu_id", menuId));
     }
 
     default void deleteListByRoleId(Long roleId) {
-        delete(new QueryWrapper<RoleMenuDO>().eq("role_id", roleId));
+        deleteWithUpdateTime(new UpdateWrapper<RoleMenuDO>().eq("role_id", roleId));
     }
 
-    @Select("SELECT COUNT(*) FROM system_role_menu WHERE update_time > #{maxUpdateTime}")
-    Long selectCountByUpdateTimeGt(Date maxUpdateTime);
+    /**
+     * 逻辑删除，并且更新 update_time 字段
+     *
+     * 因为逻辑删除不会填充 update_time 字段，而增量刷新缓存依赖它感知删除，所以需要显式更新。
+     * 不依赖 MySQL 的 ON UPDATE CURRENT_TIMESTAMP，保证其它数据库也能生效
+     *
+     * @param wrapper 删除条件
+     */
+    default void deleteWithUpdateTime(UpdateWrapper<RoleMenuDO> wrapper) {
+        update(null, wrapper.set("deleted", true).set("update_time", new Date()));
+    }
+
+    /**
+     * 获得更新时间大于等于指定时间的角色与菜单的关联列表，包括已经删除的，用于增量刷新缓存
+     *
+     * @param minUpdateTime 指定时间
+     * @return 角色与菜单的关联列表
+     */
+    @Select("SELECT * FROM system_role_menu WHERE update_time >= #{minUpdateTime}")
+    List<RoleMenuDO> selectListByUpdateTimeGe(Date minUpdateTime);
 
 }
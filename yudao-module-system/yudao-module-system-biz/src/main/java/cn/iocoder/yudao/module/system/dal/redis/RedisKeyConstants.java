@@ -6,6 +6,7 @@ import cn.iocoder.yudao.framework.security.core.LoginUser;
 import java.time.Duration;
 
 import static cn.iocoder.yudao.framework.redis.core.RedisKeyDefine.KeyTypeEnum.STRING;
+import static cn.iocoder.yudao.framework.redis.core.RedisKeyDefine.KeyTypeEnum.ZSET;
 
 /**
  * System Redis Key 枚举类
@@ -22,6 +23,10 @@ public interface RedisKeyConstants {
             "login_user:%s", // 参数为 token 令牌
             STRING, LoginUser.class, RedisKeyDefine.TimeoutTypeEnum.DYNAMIC);
 
+    RedisKeyDefine LOGIN_USER_REVOKED = new RedisKeyDefine("已吊销的签名 Token",
+            "login_user_revoked", // 值为 Session 编号，分数为 Token 的过期时间
+            ZSET, String.class, RedisKeyDefine.TimeoutTypeEnum.FOREVER);
+
     RedisKeyDefine SOCIAL_AUTH_STATE = new RedisKeyDefine("社交登陆的 state", // 注意，它是被 JustAuth 的 justauth.type.prefix 使用到
             "social_auth_state:%s", // 参数为 state
             STRING, String.class, Duration.ofHours(24)); // 值为 state
@@ -1,12 +1,18 @@
 package cn.iocoder.yudao.module.system.dal.redis.auth;
 
-import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.lang.Assert;
 import cn.iocoder.yudao.framework.security.config.SecurityProperties;
 import cn.iocoder.yudao.framework.security.core.LoginUser;
+import cn.iocoder.yudao.module.system.framework.security.core.codec.LoginUserCodec;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Resource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static cn.iocoder.yudao.module.system.dal.redis.RedisKeyConstants.LOGIN_USER;
 
@@ -24,9 +30,22 @@ public class LoginUserRedisDAO {
     @Resource
     private SecurityProperties securityProperties;
 
+    /**
+     * 编解码器数组
+     */
+    @Resource
+    private List<LoginUserCodec> loginUserCodecs;
+
     public LoginUser get(String token) {
-        String redisKey = formatKey(token);
-        return JsonUtils.parseObject(stringRedisTemplate.opsForValue().get(redisKey), LoginUser.class);
+        byte[] redisKey = serializeKey(token);
+        byte[] bytes = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(redisKey));
+        if (bytes == null) {
+            return null;
+        }
+        // 根据内容自动识别格式，兼容滚动发布时新老格式共存的情况
+        LoginUserCodec codec = CollUtil.findOne(loginUserCodecs, o -> o.supports(bytes));
+        Assert.notNull(codec, "无法识别 Token({}) 对应的 LoginUser 格式", token);
+        return codec.decode(bytes);
     }
 
     public Boolean exists(String token) {
@@ -34,10 +53,41 @@ public class LoginUserRedisDAO {
         return stringRedisTemplate.hasKey(redisKey);
     }
 
+    /**
+     * 批量判断 Token 是否存在，基于 Pipeline 实现，只需要一次 Redis 交互
+     *
+     * @param tokens Token 数组
+     * @return 存在的 Token 集合
+     */
+    public Set<String> filterExists(List<String> tokens) {
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            tokens.forEach(token -> connection.exists(serializeKey(token)));
+            return null;
+        });
+        Set<String> existsTokens = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                existsTokens.add(tokens.get(i));
+            }
+        }
+        return existsTokens;
+    }
+
     public void set(String token, LoginUser loginUser) {
-        String redisKey = formatKey(token);
-        stringRedisTemplate.opsForValue().set(redisKey, JsonUtils.toJsonString(loginUser),
-                securityProperties.getSessionTimeout());
+        set(token, loginUser, securityProperties.getSessionTimeout().toMillis());
+    }
+
+    /**
+     * 写入 LoginUser，并指定过期时间
+     *
+     * @param token Token。签名 Token 时，为 Session 编号
+     * @param loginUser LoginUser
+     * @param timeout 过期时间，单位：毫秒
+     */
+    public void set(String token, LoginUser loginUser, long timeout) {
+        byte[] redisKey = serializeKey(token);
+        byte[] bytes = getWriteCodec().encode(loginUser);
+        stringRedisTemplate.execute((RedisCallback<Object>) connection -> connection.pSetEx(redisKey, timeout, bytes));
     }
 
     public void delete(String token) {
@@ -49,4 +99,15 @@ public class LoginUserRedisDAO {
         return LOGIN_USER.formatKey(token);
     }
 
+    private byte[] serializeKey(String token) {
+        return stringRedisTemplate.getStringSerializer().serialize(formatKey(token));
+    }
+
+    private LoginUserCodec getWriteCodec() {
+        String name = securityProperties.getLoginUserCodec();
+        LoginUserCodec codec = CollUtil.findOne(loginUserCodecs, o -> o.getName().equals(name));
+        Assert.notNull(codec, "LoginUser 编解码器({}) 不存在", name);
+        return codec;
+    }
+
 }
@@ -0,0 +1,45 @@
+package cn.iocoder.yudao.module.system.dal.redis.auth;
+
+import cn.iocoder.yudao.framework.security.core.util.SignedTokenUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+import static cn.iocoder.yudao.module.system.dal.redis.RedisKeyConstants.LOGIN_USER_REVOKED;
+
+/**
+ * 已吊销的签名 Token 的 RedisDAO
+ *
+ * 基于 Sorted Set 实现，value 为 {@link SignedTokenUtils#getSessionId(String)} Session 编号，score 为 Token 的过期时间。
+ * 过期后的 Token 本身就无法通过校验，所以可以直接清理掉，从而保证集合足够小
+ *
+ * @author 芋道源码
+ */
+@Repository
+public class RevokedTokenRedisDAO {
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    public void add(String sessionId, Date expireTime) {
+        stringRedisTemplate.opsForZSet().add(LOGIN_USER_REVOKED.getKeyTemplate(), sessionId, expireTime.getTime());
+    }
+
+    /**
+     * 获得未过期的已吊销 Session 编号集合，同时清理已过期的
+     *
+     * @return Session 编号集合
+     */
+    public Set<String> getUnexpiredSessionIds() {
+        String redisKey = LOGIN_USER_REVOKED.getKeyTemplate();
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(redisKey, 0, now);
+        Set<String> sessionIds = stringRedisTemplate.opsForZSet().rangeByScore(redisKey, now, Double.MAX_VALUE);
+        return sessionIds != null ? sessionIds : Collections.emptySet();
+    }
+
+}
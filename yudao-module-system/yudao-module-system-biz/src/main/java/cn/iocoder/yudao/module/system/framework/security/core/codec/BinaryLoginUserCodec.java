@@ -0,0 +1,177 @@
+package cn.iocoder.yudao.module.system.framework.security.core.codec;
+
+import cn.hutool.core.util.ArrayUtil;
+import cn.iocoder.yudao.framework.security.core.LoginUser;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 基于紧凑二进制格式的 {@link LoginUserCodec} 实现类
+ *
+ * 格式为 {version}{flags}{fields...}，其中：
+ * 1. version：版本号，固定 1 个字节。不会与 JSON 的首字节 '{' 冲突
+ * 2. flags：字段是否存在的位图，固定 1 个字节，每个 bit 对应一个字段
+ * 3. fields：按照位图的顺序，依次写入存在的字段。
+ *      数值使用 ZigZag + Varint 编码；字符串使用 Varint 长度 + UTF-8 编码；
+ *      角色编号数组排序后，使用 Varint 数量 + 差值编码，大多数编号只需要 1~2 个字节
+ *
+ * 和 JSON 格式一致，{@link LoginUser#getPassword()} 和 {@link LoginUser#getContext()} 不进行持久化
+ *
+ * @author 芋道源码
+ */
+@Component
+public class BinaryLoginUserCodec implements LoginUserCodec {
+
+    public static final String NAME = "binary";
+
+    private static final byte VERSION = 1;
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_USER_TYPE = 1 << 1;
+    private static final int FLAG_UPDATE_TIME = 1 << 2;
+    private static final int FLAG_USERNAME = 1 << 3;
+    private static final int FLAG_STATUS = 1 << 4;
+    private static final int FLAG_TENANT_ID = 1 << 5;
+    private static final int FLAG_ROLE_IDS = 1 << 6;
+    private static final int FLAG_DEPT_ID = 1 << 7;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(byte[] bytes) {
+        return ArrayUtil.isNotEmpty(bytes) && bytes[0] == VERSION;
+    }
+
+    @Override
+    public byte[] encode(LoginUser loginUser) {
+        int flags = 0;
+        flags |= loginUser.getId() != null ? FLAG_ID : 0;
+        flags |= loginUser.getUserType() != null ? FLAG_USER_TYPE : 0;
+        flags |= loginUser.getUpdateTime() != null ? FLAG_UPDATE_TIME : 0;
+        flags |= loginUser.getUsername() != null ? FLAG_USERNAME : 0;
+        flags |= loginUser.getStatus() != null ? FLAG_STATUS : 0;
+        flags |= loginUser.getTenantId() != null ? FLAG_TENANT_ID : 0;
+        flags |= loginUser.getRoleIds() != null ? FLAG_ROLE_IDS : 0;
+        flags |= loginUser.getDeptId() != null ? FLAG_DEPT_ID : 0;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        out.write(flags);
+        if (loginUser.getId() != null) {
+            writeVarLong(out, loginUser.getId());
+        }
+        if (loginUser.getUserType() != null) {
+            writeVarLong(out, loginUser.getUserType());
+        }
+        if (loginUser.getUpdateTime() != null) {
+            writeVarLong(out, loginUser.getUpdateTime().getTime());
+        }
+        if (loginUser.getUsername() != null) {
+            byte[] username = loginUser.getUsername().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, username.length);
+            out.write(username, 0, username.length);
+        }
+        if (loginUser.getStatus() != null) {
+            writeVarLong(out, loginUser.getStatus());
+        }
+        if (loginUser.getTenantId() != null) {
+            writeVarLong(out, loginUser.getTenantId());
+        }
+        if (loginUser.getRoleIds() != null) {
+            long[] roleIds = loginUser.getRoleIds().stream().mapToLong(Long::longValue).sorted().toArray();
+            writeVarLong(out, roleIds.length);
+            long previous = 0;
+            for (long roleId : roleIds) {
+                writeVarLong(out, roleId - previous);
+                previous = roleId;
+            }
+        }
+        if (loginUser.getDeptId() != null) {
+            writeVarLong(out, loginUser.getDeptId());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public LoginUser decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("不支持的 LoginUser 二进制版本(%d)", version));
+        }
+        int flags = buffer.get() & 0xFF;
+
+        LoginUser loginUser = new LoginUser();
+        if ((flags & FLAG_ID) != 0) {
+            loginUser.setId(readVarLong(buffer));
+        }
+        if ((flags & FLAG_USER_TYPE) != 0) {
+            loginUser.setUserType((int) readVarLong(buffer));
+        }
+        if ((flags & FLAG_UPDATE_TIME) != 0) {
+            loginUser.setUpdateTime(new Date(readVarLong(buffer)));
+        }
+        if ((flags & FLAG_USERNAME) != 0) {
+            byte[] username = new byte[(int) readVarLong(buffer)];
+            buffer.get(username);
+            loginUser.setUsername(new String(username, StandardCharsets.UTF_8));
+        }
+        if ((flags & FLAG_STATUS) != 0) {
+            loginUser.setStatus((int) readVarLong(buffer));
+        }
+        if ((flags & FLAG_TENANT_ID) != 0) {
+            loginUser.setTenantId(readVarLong(buffer));
+        }
+        if ((flags & FLAG_ROLE_IDS) != 0) {
+            int size = (int) readVarLong(buffer);
+            Set<Long> roleIds = new HashSet<>(Math.max(size * 4 / 3 + 1, 16));
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += readVarLong(buffer);
+                roleIds.add(previous);
+            }
+            loginUser.setRoleIds(roleIds);
+        }
+        if ((flags & FLAG_DEPT_ID) != 0) {
+            loginUser.setDeptId(readVarLong(buffer));
+        }
+        return loginUser;
+    }
+
+    /**
+     * 写入 ZigZag + Varint 编码的 long 值
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    /**
+     * 读取 ZigZag + Varint 编码的 long 值
+     */
+    private static long readVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Varint 格式不正确");
+    }
+
+}
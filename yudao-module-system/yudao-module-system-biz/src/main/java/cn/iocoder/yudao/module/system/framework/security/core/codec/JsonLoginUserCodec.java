@@ -0,0 +1,40 @@
+package cn.iocoder.yudao.module.system.framework.security.core.codec;
+
+import cn.hutool.core.util.ArrayUtil;
+import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
+import cn.iocoder.yudao.framework.security.core.LoginUser;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 JSON 的 {@link LoginUserCodec} 实现类
+ *
+ * 默认的编解码器，同时也是老版本的存储格式
+ *
+ * @author 芋道源码
+ */
+@Component
+public class JsonLoginUserCodec implements LoginUserCodec {
+
+    public static final String NAME = "json";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(byte[] bytes) {
+        return ArrayUtil.isNotEmpty(bytes) && bytes[0] == '{';
+    }
+
+    @Override
+    public byte[] encode(LoginUser loginUser) {
+        return JsonUtils.toJsonByte(loginUser);
+    }
+
+    @Override
+    public LoginUser decode(byte[] bytes) {
+        return JsonUtils.parseObject(bytes, LoginUser.class);
+    }
+
+}
@@ -0,0 +1,48 @@
+package cn.iocoder.yudao.module.system.framework.security.core.codec;
+
+import cn.iocoder.yudao.framework.security.core.LoginUser;
+
+/**
+ * {@link LoginUser} 的编解码器，用于 {@link LoginUser} 在 Redis 中的存储格式
+ *
+ * 每个实现需要可以通过 {@link #supports(byte[])} 识别自己编码的内容，
+ * 这样不同格式的数据可以共存，便于滚动发布时切换格式
+ *
+ * @author 芋道源码
+ */
+public interface LoginUserCodec {
+
+    /**
+     * 获得编解码器的名字
+     *
+     * 对应 {@link cn.iocoder.yudao.framework.security.config.SecurityProperties#getLoginUserCodec()}
+     *
+     * @return 名字
+     */
+    String getName();
+
+    /**
+     * 判断是否可以解码该内容
+     *
+     * @param bytes 内容
+     * @return 是否
+     */
+    boolean supports(byte[] bytes);
+
+    /**
+     * 编码
+     *
+     * @param loginUser 登录用户
+     * @return 内容
+     */
+    byte[] encode(LoginUser loginUser);
+
+    /**
+     * 解码
+     *
+     * @param bytes 内容
+     * @return 登录用户
+     */
+    LoginUser decode(byte[] bytes);
+
+}
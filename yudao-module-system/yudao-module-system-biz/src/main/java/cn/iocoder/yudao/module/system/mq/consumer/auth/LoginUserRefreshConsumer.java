@@ -0,0 +1,29 @@
+package cn.iocoder.yudao.module.system.mq.consumer.auth;
+
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessageListener;
+import cn.iocoder.yudao.module.system.mq.message.auth.LoginUserRefreshMessage;
+import cn.iocoder.yudao.module.system.service.auth.UserSessionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * 针对 {@link LoginUserRefreshMessage} 的消费者
+ *
+ * @author 芋道源码
+ */
+@Component
+@Slf4j
+public class LoginUserRefreshConsumer extends AbstractChannelMessageListener<LoginUserRefreshMessage> {
+
+    @Resource
+    private UserSessionService userSessionService;
+
+    @Override
+    public void onMessage(LoginUserRefreshMessage message) {
+        log.debug("[onMessage][收到 LoginUser({}) 刷新消息]", message.getToken());
+        userSessionService.invalidateLocalCache(message.getToken());
+    }
+
+}
@@ -2,28 +2,52 @@ package cn.iocoder.yudao.module.system.mq.consumer.sms;
 
 import cn.iocoder.yudao.module.system.mq.message.sms.SmsSendMessage;
 import cn.iocoder.yudao.module.system.service.sms.SmsSendService;
-import cn.iocoder.yudao.framework.mq.core.stream.AbstractStreamMessageListener;
+import cn.iocoder.yudao.framework.mq.core.stream.AbstractStreamBatchMessageListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 针对 {@link SmsSendMessage} 的消费者
  *
+ * 使用批量消费，短时间大量发送短信时，减少拉取消息、ack 消息的次数；
+ * 同时，按照手机号分发到多个 lane 并发发送，同一个手机号的短信保持顺序
+ *
  * @author zzf
  */
 @Component
 @Slf4j
-public class SmsSendConsumer extends AbstractStreamMessageListener<SmsSendMessage> {
+public class SmsSendConsumer extends AbstractStreamBatchMessageListener<SmsSendMessage> {
+
+    /**
+     * 消费的并发数
+     */
+    private static final int CONCURRENCY = 4;
 
     @Resource
     private SmsSendService smsSendService;
 
+    public SmsSendConsumer() {
+        setConcurrency(CONCURRENCY);
+    }
+
     @Override
-    public void onMessage(SmsSendMessage message) {
-        log.info("[onMessage][消息内容({})]", message);
-        smsSendService.doSendSms(message);
+    public List<SmsSendMessage> onMessages(List<SmsSendMessage> messages) {
+        // 逐条 catch 异常，只重试发送失败的短信，避免已经发送的短信被重复发送
+        List<SmsSendMessage> failedMessages = new ArrayList<>();
+        messages.forEach(message -> {
+            log.info("[onMessages][消息内容({})]", message);
+            try {
+                smsSendService.doSendSms(message);
+            } catch (Exception ex) {
+                log.error("[onMessages][消息({}) 发送短信失败]", message, ex);
+                failedMessages.add(message);
+            }
+        });
+        return failedMessages;
     }
 
 }
@@ -0,0 +1,26 @@
+package cn.iocoder.yudao.module.system.mq.message.auth;
+
+import cn.iocoder.yudao.framework.mq.core.pubsub.AbstractChannelMessage;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 登录用户的本地缓存失效 Message
+ *
+ * @author 芋道源码
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class LoginUserRefreshMessage extends AbstractChannelMessage {
+
+    /**
+     * Session 编号。非签名 Token 时，即 Token 令牌
+     */
+    private String token;
+
+    @Override
+    public String getChannel() {
+        return "system.login-user.refresh";
+    }
+
+}
@@ -47,4 +47,9 @@ public class SmsSendMessage extends AbstractStreamMessage {
         return "system.sms.send";
     }
 
+    @Override
+    public String getOrderKey() {
+        return mobile; // 同一个手机号的短信，按照顺序发送
+    }
+
 }
@@ -0,0 +1,31 @@
+package cn.iocoder.yudao.module.system.mq.producer.auth;
+
+import cn.iocoder.yudao.framework.mq.core.RedisMQTemplate;
+import cn.iocoder.yudao.module.system.mq.message.auth.LoginUserRefreshMessage;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+
+/**
+ * LoginUser 登录用户相关消息的 Producer
+ *
+ * @author 芋道源码
+ */
+@Component
+public class LoginUserProducer {
+
+    @Resource
+    private RedisMQTemplate redisMQTemplate;
+
+    /**
+     * 发送 {@link LoginUserRefreshMessage} 消息
+     *
+     * @param token Session 编号。非签名 Token 时，即 Token 令牌
+     */
+    public void sendLoginUserRefreshMessage(String token) {
+        LoginUserRefreshMessage message = new LoginUserRefreshMessage();
+        message.setToken(token);
+        redisMQTemplate.send(message);
+    }
+
+}
@@ -17,10 +17,12 @@ public class PermissionProducer {
 
     /**
      * 发送 {@link RoleMenuRefreshMessage} 消息
+     *
+     * 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
      */
     public void sendRoleMenuRefreshMessage() {
         RoleMenuRefreshMessage message = new RoleMenuRefreshMessage();
-        redisMQTemplate.send(message);
+        redisMQTemplate.sendAfterCommit(message);
     }
 
 }
@@ -29,7 +29,7 @@ public class SmsProducer {
      */
     public void sendSmsChannelRefreshMessage() {
         SmsChannelRefreshMessage message = new SmsChannelRefreshMessage();
-        redisMQTemplate.send(message);
+        redisMQTemplate.sendAfterCommit(message);
     }
 
     /**
@@ -37,7 +37,7 @@ public class SmsProducer {
      */
     public void sendSmsTemplateRefreshMessage() {
         SmsTemplateRefreshMessage message = new SmsTemplateRefreshMessage();
-        redisMQTemplate.send(message);
+        redisMQTemplate.sendAfterCommit(message);
     }
 
     /**
@@ -67,6 +67,13 @@ public interface UserSessionService {
      */
     LoginUser getLoginUser(String token);
 
+    /**
+     * 失效 Session 对应的 {@link LoginUser} 本地缓存
+     *
+     * @param sessionId Session 编号。非签名 Token 时，即 Token 令牌
+     */
+    void invalidateLocalCache(String sessionId);
+
     /**
      * 获得 Session 超时时间，单位：毫秒
      *
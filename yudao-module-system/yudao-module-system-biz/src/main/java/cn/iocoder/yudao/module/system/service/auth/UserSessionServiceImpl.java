@@ -1,32 +1,55 @@
 package cn.iocoder.yudao.module.system.service.auth;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.monitor.TracerUtils;
 import cn.iocoder.yudao.framework.security.config.SecurityProperties;
 import cn.iocoder.yudao.framework.security.core.LoginUser;
+import cn.iocoder.yudao.framework.security.core.util.SignedTokenUtils;
+import cn.iocoder.yudao.framework.tenant.core.util.TenantUtils;
 import cn.iocoder.yudao.module.system.api.logger.dto.LoginLogCreateReqDTO;
 import cn.iocoder.yudao.module.system.controller.admin.auth.vo.session.UserSessionPageReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.auth.UserSessionDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.user.AdminUserDO;
+import cn.iocoder.yudao.module.system.dal.mysql.auth.UserSessionBatchUpdateMapper;
 import cn.iocoder.yudao.module.system.dal.mysql.auth.UserSessionMapper;
 import cn.iocoder.yudao.module.system.dal.redis.auth.LoginUserRedisDAO;
+import cn.iocoder.yudao.module.system.dal.redis.auth.RevokedTokenRedisDAO;
 import cn.iocoder.yudao.module.system.enums.logger.LoginLogTypeEnum;
 import cn.iocoder.yudao.module.system.enums.logger.LoginResultEnum;
+import cn.iocoder.yudao.module.system.mq.producer.auth.LoginUserProducer;
 import cn.iocoder.yudao.module.system.service.logger.LoginLogService;
 import cn.iocoder.yudao.module.system.service.user.AdminUserService;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertList;
 import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertSet;
+import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.filterList;
 import static cn.iocoder.yudao.framework.common.util.date.DateUtils.addTime;
 
 /**
@@ -38,8 +61,59 @@ import static cn.iocoder.yudao.framework.common.util.date.DateUtils.addTime;
 @Service
 public class UserSessionServiceImpl implements UserSessionService {
 
+    /**
+     * {@link LoginUser} 本地缓存的最大数量
+     */
+    private static final long LOGIN_USER_CACHE_MAXIMUM_SIZE = 10000L;
+    /**
+     * {@link LoginUser} 本地缓存的过期时间
+     *
+     * 因为已经通过 Redis Pub/Sub 机制，失效各节点的本地缓存，所以过期时间只是兜底，避免消息丢失时长期不一致
+     */
+    private static final Duration LOGIN_USER_CACHE_EXPIRE = Duration.ofMinutes(1);
+
+    /**
+     * 定时执行 {@link #scheduleRevokedTokenSync()} 的周期
+     */
+    private static final long REVOKED_TOKEN_SYNC_PERIOD = 10 * 1000L;
+    /**
+     * 定时执行 {@link #flushRefreshedSessions()} 的周期
+     */
+    private static final long REFRESHED_SESSION_FLUSH_PERIOD = 1000L;
+    /**
+     * {@link #deleteTimeoutSession()} 每页处理的超时 Session 数量
+     */
+    private static final int TIMEOUT_SESSION_PAGE_SIZE = 1000;
+
+    /**
+     * {@link LoginUser} 本地缓存，位于 Redis 之前，避免每个请求都读取 Redis 并反序列化
+     * key：Session 编号。非签名 Token 时，即 Token 令牌
+     */
+    @VisibleForTesting
+    final Cache<String, LoginUser> loginUserCache = CacheBuilder.newBuilder()
+            .maximumSize(LOGIN_USER_CACHE_MAXIMUM_SIZE)
+            .expireAfterWrite(LOGIN_USER_CACHE_EXPIRE)
+            .recordStats() // 记录命中率等统计
+            .build();
+
+    /**
+     * 已吊销的签名 Token 的 Session 编号缓存，定时从 Redis 同步
+     *
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     */
+    private volatile Set<String> revokedSessionIds = Collections.emptySet();
+
+    /**
+     * 待写入 DB 的 Session 刷新，通过 {@link #flushRefreshedSessions()} 定时批量写入，避免在认证的请求线程中同步写 DB
+     * key：Session 编号
+     * value：更新对象。同一个 Session 多次刷新时，只保留最后一次
+     */
+    private final Map<String, UserSessionDO> refreshedSessions = new ConcurrentHashMap<>();
+
     @Resource
     private UserSessionMapper userSessionMapper;
+    @Resource
+    private UserSessionBatchUpdateMapper userSessionBatchUpdateMapper;
 
     @Resource
     private AdminUserService userService;
@@ -48,10 +122,56 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     @Resource
     private LoginUserRedisDAO loginUserRedisDAO;
+    @Resource
+    private RevokedTokenRedisDAO revokedTokenRedisDAO;
+
+    @Resource
+    private LoginUserProducer loginUserProducer;
 
     @Resource
     private SecurityProperties securityProperties;
 
+    @Autowired(required = false) // 未引入 Actuator 时，不暴露指标
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void initLocalCacheMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        GuavaCacheMetrics.monitor(meterRegistry, loginUserCache, "system.login-user");
+    }
+
+    @Scheduled(fixedDelay = REVOKED_TOKEN_SYNC_PERIOD)
+    public void scheduleRevokedTokenSync() {
+        if (!isSignedTokenEnable()) {
+            return;
+        }
+        revokedSessionIds = revokedTokenRedisDAO.getUnexpiredSessionIds();
+    }
+
+    @Scheduled(fixedDelay = REFRESHED_SESSION_FLUSH_PERIOD, initialDelay = REFRESHED_SESSION_FLUSH_PERIOD)
+    @PreDestroy // 关闭时，写入剩余的 Session 刷新
+    public void flushRefreshedSessions() {
+        if (refreshedSessions.isEmpty()) {
+            return;
+        }
+        // 逐个移除，保证并发写入的刷新，会留到下一次写入
+        List<UserSessionDO> updateObjs = new ArrayList<>(refreshedSessions.size());
+        for (String sessionId : refreshedSessions.keySet()) {
+            UserSessionDO updateObj = refreshedSessions.remove(sessionId);
+            if (updateObj != null) {
+                updateObjs.add(updateObj);
+            }
+        }
+        // 批量写入 DB。因为令牌是全局唯一的，所以忽略租户
+        try {
+            TenantUtils.executeIgnore(() -> userSessionBatchUpdateMapper.updateBatchByToken(updateObjs));
+        } catch (Exception ex) {
+            log.error("[flushRefreshedSessions][写入 Session 刷新({}) 个失败]", updateObjs.size(), ex);
+        }
+    }
+
     @Override
     public PageResult<UserSessionDO> getUserSessionPage(UserSessionPageReqVO reqVO) {
         // 处理基于用户昵称的查询
@@ -67,28 +187,42 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     @Override
     public long deleteTimeoutSession() {
-        // 获取 db 里已经超时的用户列表
-        List<UserSessionDO> timeoutSessions = userSessionMapper.selectListBySessionTimoutLt();
-        if (CollUtil.isEmpty(timeoutSessions)) {
-            return 0L;
-        }
+        long count = 0;
+        Long minId = 0L;
+        while (true) {
+            // 分页获取 db 里已经超时的用户列表，基于编号游标，避免一次性加载到内存
+            List<UserSessionDO> timeoutSessions = userSessionMapper.selectListBySessionTimoutLt(minId, TIMEOUT_SESSION_PAGE_SIZE);
+            if (CollUtil.isEmpty(timeoutSessions)) {
+                break;
+            }
+            minId = timeoutSessions.get(timeoutSessions.size() - 1).getId();
 
-        // 由于过期的用户一般不多，所以顺序遍历，进行清理
-        int count = 0;
-        for (UserSessionDO session : timeoutSessions) {
             // 基于 Redis 二次判断，同时也保证 Redis Key 的立即过期，避免延迟导致浪费内存空间
-            if (loginUserRedisDAO.exists(session.getToken())) {
-                continue;
+            // 通过 Pipeline 批量判断，每页只需要一次 Redis 交互
+            Set<String> existsTokens = loginUserRedisDAO.filterExists(convertList(timeoutSessions, UserSessionDO::getToken));
+            List<UserSessionDO> deleteSessions = filterList(timeoutSessions, session -> !existsTokens.contains(session.getToken()));
+            if (CollUtil.isNotEmpty(deleteSessions)) {
+                // 批量删除
+                userSessionMapper.deleteBatchIds(convertList(deleteSessions, UserSessionDO::getId));
+                // 批量记录退出日志
+                loginLogService.createLoginLogs(convertList(deleteSessions,
+                        session -> buildLogoutLog(session, LoginLogTypeEnum.LOGOUT_TIMEOUT)));
+                count += deleteSessions.size();
+            }
+
+            // 不足一页，说明已经处理完成
+            if (timeoutSessions.size() < TIMEOUT_SESSION_PAGE_SIZE) {
+                break;
             }
-            userSessionMapper.deleteById(session.getId());
-            // 记录退出日志
-            createLogoutLog(session, LoginLogTypeEnum.LOGOUT_TIMEOUT);
-            count++;
         }
         return count;
     }
 
     private void createLogoutLog(UserSessionDO session, LoginLogTypeEnum type) {
+        loginLogService.createLoginLog(buildLogoutLog(session, type));
+    }
+
+    private static LoginLogCreateReqDTO buildLogoutLog(UserSessionDO session, LoginLogTypeEnum type) {
         LoginLogCreateReqDTO reqDTO = new LoginLogCreateReqDTO();
         reqDTO.setLogType(type.getType());
         reqDTO.setTraceId(TracerUtils.getTraceId());
@@ -98,21 +232,31 @@ public class UserSessionServiceImpl implements UserSessionService {
         reqDTO.setUserAgent(session.getUserAgent());
         reqDTO.setUserIp(session.getUserIp());
         reqDTO.setResult(LoginResultEnum.SUCCESS.getResult());
-        loginLogService.createLoginLog(reqDTO);
+        return reqDTO;
     }
 
     @Override
     public String createUserSession(LoginUser loginUser, String userIp, String userAgent) {
         // 生成 Session 编号
-        String token = generateToken();
-        // 写入 Redis 缓存
+        String sessionId = generateToken();
         loginUser.setUpdateTime(new Date());
-        loginUserRedisDAO.set(token, loginUser);
+        String token;
+        Date sessionTimeout;
+        if (isSignedTokenEnable()) {
+            // 签名 Token 模式，无需写入 Redis 缓存
+            sessionTimeout = addTime(securityProperties.getTokenTimeout());
+            token = SignedTokenUtils.sign(sessionId, loginUser, sessionTimeout, securityProperties.getSignedTokenSecret());
+        } else {
+            // 写入 Redis 缓存
+            sessionTimeout = addTime(Duration.ofMillis(getSessionTimeoutMillis()));
+            token = sessionId;
+            loginUserRedisDAO.set(token, loginUser);
+        }
         // 写入 DB 中
-        UserSessionDO userSession = UserSessionDO.builder().token(token)
+        UserSessionDO userSession = UserSessionDO.builder().token(sessionId)
                 .userId(loginUser.getId()).userType(loginUser.getUserType())
                 .userIp(userIp).userAgent(userAgent).username(loginUser.getUsername())
-                .sessionTimeout(addTime(Duration.ofMillis(getSessionTimeoutMillis())))
+                .sessionTimeout(sessionTimeout)
                 .build();
         userSessionMapper.insert(userSession);
         // 返回 Token 令牌
@@ -121,23 +265,49 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     @Override
     public void refreshUserSession(String token, LoginUser loginUser) {
-        // 写入 Redis 缓存
         loginUser.setUpdateTime(new Date());
+        // 签名 Token 无法修改，并且有效期固定，所以将刷新后的 LoginUser 按照 Session 编号写入 Redis，各节点以它为准
+        if (SignedTokenUtils.isSignedToken(token)) {
+            String sessionId = SignedTokenUtils.getSessionId(token);
+            Date expireTime = SignedTokenUtils.getExpireTime(token);
+            long timeout = expireTime != null ? expireTime.getTime() - System.currentTimeMillis() : 0;
+            if (timeout > 0) {
+                loginUserRedisDAO.set(sessionId, loginUser, timeout);
+            }
+            invalidateClusterLocalCache(sessionId);
+            addRefreshedSession(sessionId, loginUser, null);
+            return;
+        }
+
+        // 写入 Redis 缓存
         loginUserRedisDAO.set(token, loginUser);
-        // 更新 DB 中
-        UserSessionDO updateObj = UserSessionDO.builder().build();
-        updateObj.setUsername(loginUser.getUsername());
+        // 失效本地缓存，包括其它节点
+        invalidateClusterLocalCache(token);
+        // 更新 DB 中，异步批量写入
+        addRefreshedSession(token, loginUser, addTime(Duration.ofMillis(getSessionTimeoutMillis())));
+    }
+
+    private void addRefreshedSession(String sessionId, LoginUser loginUser, Date sessionTimeout) {
+        UserSessionDO updateObj = UserSessionDO.builder().token(sessionId)
+                .username(loginUser.getUsername()).sessionTimeout(sessionTimeout).build();
         updateObj.setUpdateTime(new Date());
-        updateObj.setSessionTimeout(addTime(Duration.ofMillis(getSessionTimeoutMillis())));
-        userSessionMapper.updateByToken(token, updateObj);
+        refreshedSessions.put(sessionId, updateObj);
     }
 
     @Override
     public void deleteUserSession(String token) {
-        // 删除 Redis 缓存
-        loginUserRedisDAO.delete(token);
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        if (SignedTokenUtils.isSignedToken(token)) {
+            // 吊销签名 Token
+            revokeSignedToken(sessionId, SignedTokenUtils.getExpireTime(token));
+        }
+        // 删除 Redis 缓存。签名 Token 时，为刷新过的 LoginUser
+        loginUserRedisDAO.delete(sessionId);
+        // 失效本地缓存，包括其它节点
+        invalidateClusterLocalCache(sessionId);
         // 删除 DB 记录
-        userSessionMapper.deleteByToken(token);
+        refreshedSessions.remove(sessionId);
+        userSessionMapper.deleteByToken(sessionId);
         // 无需记录日志，因为退出那已经记录
     }
 
@@ -147,8 +317,14 @@ public class UserSessionServiceImpl implements UserSessionService {
         if (session == null) {
             return;
         }
-        // 删除 Redis 缓存
+        // 删除 Redis 缓存。签名 Token 时，为刷新过的 LoginUser
         loginUserRedisDAO.delete(session.getToken());
+        // 吊销签名 Token。因为 DB 只记录 Session 编号，无法判断是否为签名 Token，所以开启时都进行吊销
+        if (isSignedTokenEnable()) {
+            revokeSignedToken(session.getToken(), session.getSessionTimeout());
+        }
+        // 失效本地缓存，包括其它节点。本地缓存的 key 为 Session 编号，所以签名 Token 也可以失效
+        invalidateClusterLocalCache(session.getToken());
         // 删除 DB 记录
         userSessionMapper.deleteById(id);
         // 记录退出日志
@@ -157,7 +333,116 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     @Override
     public LoginUser getLoginUser(String token) {
-        return loginUserRedisDAO.get(token);
+        // 签名 Token，在本地校验即可，无需读取 Redis
+        if (SignedTokenUtils.isSignedToken(token)) {
+            return getSignedLoginUser(token);
+        }
+
+        // 优先从本地缓存中获取
+        LoginUser loginUser = loginUserCache.getIfPresent(token);
+        if (loginUser != null) {
+            // 本地缓存可能晚于 Redis 过期，此时以 Redis 为准
+            if (loginUser.getUpdateTime().getTime() + getSessionTimeoutMillis() > System.currentTimeMillis()) {
+                return copyLoginUser(loginUser);
+            }
+            loginUserCache.invalidate(token);
+        }
+        // 本地缓存不存在，则从 Redis 中获取
+        loginUser = loginUserRedisDAO.get(token);
+        if (loginUser == null || loginUser.getUpdateTime() == null) {
+            return loginUser;
+        }
+        loginUserCache.put(token, loginUser);
+        return copyLoginUser(loginUser);
+    }
+
+    private LoginUser getSignedLoginUser(String token) {
+        if (!isSignedTokenEnable()) {
+            return null;
+        }
+        // 校验签名与过期时间
+        LoginUser loginUser = SignedTokenUtils.verify(token, securityProperties.getSignedTokenSecret());
+        if (loginUser == null) {
+            return null;
+        }
+        // 校验是否被吊销
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        if (revokedSessionIds.contains(sessionId)) {
+            return null;
+        }
+        // 如果有刷新过的 LoginUser，则以它为准。优先从本地缓存中获取，不存在时从 Redis 中获取
+        LoginUser cachedLoginUser = loginUserCache.getIfPresent(sessionId);
+        if (cachedLoginUser == null) {
+            try {
+                LoginUser refreshedLoginUser = loginUserRedisDAO.get(sessionId);
+                cachedLoginUser = refreshedLoginUser != null ? refreshedLoginUser : loginUser;
+                loginUserCache.put(sessionId, cachedLoginUser);
+            } catch (Exception ex) {
+                // Redis 不可用时，使用 Token 携带的 LoginUser，保证签名 Token 依然可用
+                log.error("[getSignedLoginUser][Session({}) 读取刷新过的 LoginUser 失败]", sessionId, ex);
+                return loginUser;
+            }
+        }
+        return copyLoginUser(cachedLoginUser);
+    }
+
+    /**
+     * 吊销签名 Token
+     *
+     * 先加入本地的吊销集合，立即生效；其它节点，通过 {@link #scheduleRevokedTokenSync()} 定时同步
+     *
+     * @param sessionId Session 编号
+     * @param expireTime Token 过期时间
+     */
+    private void revokeSignedToken(String sessionId, Date expireTime) {
+        if (expireTime == null) { // 格式不正确的 Token，本身就无法通过校验
+            return;
+        }
+        revokedTokenRedisDAO.add(sessionId, expireTime);
+        Set<String> newRevokedSessionIds = new HashSet<>(revokedSessionIds);
+        newRevokedSessionIds.add(sessionId);
+        revokedSessionIds = newRevokedSessionIds;
+    }
+
+    private boolean isSignedTokenEnable() {
+        return BooleanUtil.isTrue(securityProperties.getSignedTokenEnable());
+    }
+
+    @Override
+    public void invalidateLocalCache(String sessionId) {
+        loginUserCache.invalidate(sessionId);
+    }
+
+    /**
+     * 失效 Session 对应的本地缓存，并通过 Redis Pub/Sub 通知其它节点
+     *
+     * @param sessionId Session 编号
+     */
+    private void invalidateClusterLocalCache(String sessionId) {
+        invalidateLocalCache(sessionId);
+        loginUserProducer.sendLoginUserRefreshMessage(sessionId);
+    }
+
+    /**
+     * 复制本地缓存中的 LoginUser 对象
+     *
+     * 因为 {@link LoginUser#getContext()} 是请求维度的临时缓存，会被修改，所以不能直接返回共享的缓存对象
+     *
+     * @param loginUser 缓存的登录用户
+     * @return 登录用户
+     */
+    private static LoginUser copyLoginUser(LoginUser loginUser) {
+        LoginUser copy = new LoginUser();
+        copy.setId(loginUser.getId());
+        copy.setUserType(loginUser.getUserType());
+        copy.setUpdateTime(loginUser.getUpdateTime());
+        copy.setUsername(loginUser.getUsername());
+        copy.setPassword(loginUser.getPassword());
+        copy.setStatus(loginUser.getStatus());
+        copy.setTenantId(loginUser.getTenantId());
+        copy.setRoleIds(loginUser.getRoleIds());
+        copy.setDeptId(loginUser.getDeptId());
+        return copy;
     }
 
     @Override
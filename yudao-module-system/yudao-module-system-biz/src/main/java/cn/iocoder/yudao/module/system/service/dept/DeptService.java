@@ -63,6 +63,14 @@ public interface DeptService {
      */
     List<DeptDO> getDeptsByParentIdFromCache(Long parentId, boolean recursive);
 
+    /**
+     * 获得所有子部门的编号数组，递归获取，从缓存中
+     *
+     * @param parentId 部门编号
+     * @return 子部门编号数组，不包括自身
+     */
+    long[] getChildDeptIdsFromCache(Long parentId);
+
     /**
      * 获得部门信息数组
      *
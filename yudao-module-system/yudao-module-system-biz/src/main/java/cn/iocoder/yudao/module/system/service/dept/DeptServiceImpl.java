@@ -61,6 +61,12 @@ public class DeptServiceImpl implements DeptService {
      * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
      */
     private volatile Multimap<Long, DeptDO> parentDeptCache;
+    /**
+     * 部门树的索引，用于快速获取所有子部门
+     *
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     */
+    private volatile DeptTreeIndex deptTreeIndex = new DeptTreeIndex(Collections.emptyMap(), ImmutableMultimap.of());
     /**
      * 缓存部门的最大更新时间，用于后续的增量轮询，判断是否有更新
      */
@@ -96,6 +102,7 @@ public class DeptServiceImpl implements DeptService {
         // 设置缓存
         deptCache = builder.build();
         parentDeptCache = parentBuilder.build();
+        deptTreeIndex = new DeptTreeIndex(deptCache, parentDeptCache);
         maxUpdateTime = CollectionUtils.getMaxValue(deptList, DeptDO::getUpdateTime);
         log.info("[initLocalCache][初始化 Dept 数量为 {}]", deptList.size());
     }
@@ -179,37 +186,17 @@ public class DeptServiceImpl implements DeptService {
         if (parentId == null) {
             return Collections.emptyList();
         }
-        List<DeptDO> result = new ArrayList<>(); // TODO 芋艿：待优化，新增缓存，避免每次遍历的计算
-        // 递归，简单粗暴
-        this.getDeptsByParentIdFromCache(result, parentId,
-                recursive ? Integer.MAX_VALUE : 1, // 如果递归获取，则无限；否则，只递归 1 次
-                parentDeptCache);
-        return result;
+        // 如果递归获取，则基于部门树的索引；否则，直接获取子部门即可
+        return recursive ? deptTreeIndex.getChildDepts(parentId)
+                : new ArrayList<>(parentDeptCache.get(parentId));
     }
 
-    /**
-     * 递归获取所有的子部门，添加到 result 结果
-     *
-     * @param result 结果
-     * @param parentId 父编号
-     * @param recursiveCount 递归次数
-     * @param parentDeptMap 父部门 Map，使用缓存，避免变化
-     */
-    private void getDeptsByParentIdFromCache(List<DeptDO> result, Long parentId, int recursiveCount,
-                                             Multimap<Long, DeptDO> parentDeptMap) {
-        // 递归次数为 0，结束！
-        if (recursiveCount == 0) {
-            return;
-        }
-        // 获得子部门
-        Collection<DeptDO> depts = parentDeptMap.get(parentId);
-        if (CollUtil.isEmpty(depts)) {
-            return;
+    @Override
+    public long[] getChildDeptIdsFromCache(Long parentId) {
+        if (parentId == null) {
+            return new long[0];
         }
-        result.addAll(depts);
-        // 继续递归
-        depts.forEach(dept -> getDeptsByParentIdFromCache(result, dept.getId(),
-                recursiveCount - 1, parentDeptMap));
+        return deptTreeIndex.getChildIds(parentId);
     }
 
     private void checkCreateOrUpdate(Long id, Long parentId, String name) {
@@ -239,8 +226,7 @@ public class DeptServiceImpl implements DeptService {
             throw ServiceExceptionUtil.exception(DEPT_NOT_ENABLE);
         }
         // 父部门不能是原来的子部门
-        List<DeptDO> children = this.getDeptsByParentIdFromCache(id, true);
-        if (children.stream().anyMatch(dept1 -> dept1.getId().equals(parentId))) {
+        if (id != null && deptTreeIndex.isChild(id, parentId)) {
             throw ServiceExceptionUtil.exception(DEPT_PARENT_IS_CHILD);
         }
     }
@@ -304,4 +290,125 @@ public class DeptServiceImpl implements DeptService {
         return deptMapper.selectBatchIds(ids);
     }
 
+    /**
+     * 部门树的索引，基于先序遍历（欧拉序）实现
+     *
+     * 先序遍历时，每个部门的子孙部门，在遍历序列中是连续的一段区间 [position + 1, end]。所以：
+     * 1. 获取所有子部门：直接复制该区间即可，无需递归
+     * 2. 判断 X 是否为 Y 的子部门：判断 X 的位置，是否在 Y 的区间内即可，O(1) 复杂度
+     *
+     * 对象构建后不可变，部门缓存刷新时整体替换
+     */
+    static class DeptTreeIndex {
+
+        /**
+         * 父部门缓存，用于处理不存在的部门（例如说，根节点 {@link DeptIdEnum#ROOT}）
+         */
+        private final Multimap<Long, DeptDO> parentDeptCache;
+        /**
+         * 部门编号与遍历位置的映射
+         */
+        private final Map<Long, Integer> positions;
+        /**
+         * 遍历序列的部门编号
+         */
+        private final long[] ids;
+        /**
+         * 遍历序列的部门
+         */
+        private final DeptDO[] depts;
+        /**
+         * 每个位置的部门，其子孙部门在遍历序列中的结束位置（包含）
+         */
+        private final int[] ends;
+
+        DeptTreeIndex(Map<Long, DeptDO> deptCache, Multimap<Long, DeptDO> parentDeptCache) {
+            this.parentDeptCache = parentDeptCache;
+            int size = deptCache.size();
+            this.positions = new HashMap<>(size * 4 / 3 + 1);
+            this.ids = new long[size];
+            this.depts = new DeptDO[size];
+            this.ends = new int[size];
+            int[] parentPositions = new int[size];
+
+            // 先序遍历，父部门不存在的部门视为根部门。基于栈实现，避免层级过深时栈溢出
+            Deque<DeptDO> stack = new ArrayDeque<>();
+            Deque<Integer> parentStack = new ArrayDeque<>();
+            deptCache.values().stream().filter(dept -> !deptCache.containsKey(dept.getParentId()))
+                    .forEach(dept -> {
+                        stack.push(dept);
+                        parentStack.push(-1);
+                    });
+            int count = 0;
+            while (!stack.isEmpty()) {
+                DeptDO dept = stack.pop();
+                int parentPosition = parentStack.pop();
+                if (positions.containsKey(dept.getId())) { // 避免脏数据导致的环
+                    continue;
+                }
+                positions.put(dept.getId(), count);
+                ids[count] = dept.getId();
+                depts[count] = dept;
+                ends[count] = count;
+                parentPositions[count] = parentPosition;
+                for (DeptDO child : parentDeptCache.get(dept.getId())) {
+                    stack.push(child);
+                    parentStack.push(count);
+                }
+                count++;
+            }
+            // 逆序计算结束位置：子部门的位置一定大于父部门，所以逆序遍历时，子部门的结束位置已经计算完成
+            for (int i = count - 1; i >= 0; i--) {
+                if (parentPositions[i] >= 0) {
+                    ends[parentPositions[i]] = Math.max(ends[parentPositions[i]], ends[i]);
+                }
+            }
+        }
+
+        /**
+         * 获得所有子部门的编号数组，不包括自身
+         */
+        long[] getChildIds(Long id) {
+            Integer position = positions.get(id);
+            if (position != null) {
+                return Arrays.copyOfRange(ids, position + 1, ends[position] + 1);
+            }
+            // 部门不存在时，合并其直接子部门的区间
+            return parentDeptCache.get(id).stream().map(child -> positions.get(child.getId()))
+                    .filter(Objects::nonNull)
+                    .flatMapToLong(childPosition -> Arrays.stream(ids, childPosition, ends[childPosition] + 1))
+                    .toArray();
+        }
+
+        /**
+         * 获得所有子部门，不包括自身
+         */
+        List<DeptDO> getChildDepts(Long id) {
+            Integer position = positions.get(id);
+            if (position != null) {
+                return new ArrayList<>(Arrays.asList(depts).subList(position + 1, ends[position] + 1));
+            }
+            // 部门不存在时，合并其直接子部门的区间
+            List<DeptDO> result = new ArrayList<>();
+            parentDeptCache.get(id).forEach(child -> {
+                Integer childPosition = positions.get(child.getId());
+                if (childPosition != null) {
+                    result.addAll(Arrays.asList(depts).subList(childPosition, ends[childPosition] + 1));
+                }
+            });
+            return result;
+        }
+
+        /**
+         * 判断 childId 是否为 parentId 的子孙部门
+         */
+        boolean isChild(Long parentId, Long childId) {
+            Integer parentPosition = positions.get(parentId);
+            Integer childPosition = positions.get(childId);
+            return parentPosition != null && childPosition != null
+                    && parentPosition < childPosition && childPosition <= ends[parentPosition];
+        }
+
+    }
+
 }
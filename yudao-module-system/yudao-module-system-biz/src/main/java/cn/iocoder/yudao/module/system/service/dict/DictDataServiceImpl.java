@@ -3,8 +3,9 @@ package cn.iocoder.yudao.module.system.service.dict;
 import cn.hutool.core.collection.CollUtil;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
-import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
 import cn.iocoder.yudao.framework.dict.core.dto.DictDataRespDTO;
+import cn.iocoder.yudao.framework.localcache.core.LocalCache;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.module.system.controller.admin.dict.vo.data.DictDataCreateReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.dict.vo.data.DictDataExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.dict.vo.data.DictDataPageReqVO;
@@ -13,19 +14,18 @@ import cn.iocoder.yudao.module.system.convert.dict.DictDataConvert;
 import cn.iocoder.yudao.module.system.dal.dataobject.dict.DictDataDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.dict.DictTypeDO;
 import cn.iocoder.yudao.module.system.dal.mysql.dict.DictDataMapper;
-import cn.iocoder.yudao.module.system.mq.producer.dict.DictDataProducer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableTable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.List;
 
 import static cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil.exception;
@@ -40,6 +40,11 @@ import static cn.iocoder.yudao.module.system.enums.ErrorCodeConstants.*;
 @Slf4j
 public class DictDataServiceImpl implements DictDataService {
 
+    /**
+     * 字典数据的本地缓存名
+     */
+    private static final String CACHE_NAME = "dict_data";
+
     /**
      * 排序 dictType > sort
      */
@@ -47,12 +52,6 @@ public class DictDataServiceImpl implements DictDataService {
             .comparing(DictDataDO::getDictType)
             .thenComparingInt(DictDataDO::getSort);
 
-    /**
-     * 定时执行 {@link #schedulePeriodicRefresh()} 的周期
-     * 因为已经通过 Redis Pub/Sub 机制，所以频率不需要高
-     */
-    private static final long SCHEDULER_PERIOD = 5 * 60 * 1000L;
-
     @Resource
     private DictTypeService dictTypeService;
 
@@ -60,73 +59,34 @@ public class DictDataServiceImpl implements DictDataService {
     private DictDataMapper dictDataMapper;
 
     @Resource
-    private DictDataProducer dictDataProducer;
+    private LocalCacheManager localCacheManager;
 
     /**
-     * 字典数据缓存，第二个 key 使用 label
-     *
-     * key1：字典类型 dictType
-     * key2：字典标签 label
-     */
-    private ImmutableTable<String, String, DictDataDO> labelDictDataCache;
-    /**
-     * 字典数据缓存，第二个 key 使用 value
-     *
-     * key1：字典类型 dictType
-     * key2：字典值 value
-     */
-    private ImmutableTable<String, String, DictDataDO> valueDictDataCache;
-    /**
-     * 缓存字典数据的最大更新时间，用于后续的增量轮询，判断是否有更新
+     * 字典数据缓存
      */
-    private volatile Date maxUpdateTime;
+    private final LocalCache<DictDataCache> dictDataCache = new LocalCache<>(CACHE_NAME, this::loadDictDataCache);
 
     @Override
     @PostConstruct
-    public synchronized void initLocalCache() {
-        // 获取字典数据列表，如果有更新
-        List<DictDataDO> dataList = loadDictDataIfUpdate(maxUpdateTime);
-        if (CollUtil.isEmpty(dataList)) {
-            return;
-        }
+    public void initLocalCache() {
+        localCacheManager.register(dictDataCache);
+    }
 
-        // 构建缓存
+    /**
+     * 从数据库中加载全量字典数据，构建缓存
+     *
+     * @return 字典数据缓存
+     */
+    private DictDataCache loadDictDataCache() {
+        List<DictDataDO> dataList = dictDataMapper.selectList();
         ImmutableTable.Builder<String, String, DictDataDO> labelDictDataBuilder = ImmutableTable.builder();
         ImmutableTable.Builder<String, String, DictDataDO> valueDictDataBuilder = ImmutableTable.builder();
         dataList.forEach(dictData -> {
             labelDictDataBuilder.put(dictData.getDictType(), dictData.getLabel(), dictData);
             valueDictDataBuilder.put(dictData.getDictType(), dictData.getValue(), dictData);
         });
-        labelDictDataCache = labelDictDataBuilder.build();
-        valueDictDataCache = valueDictDataBuilder.build();
-        maxUpdateTime = CollectionUtils.getMaxValue(dataList, DictDataDO::getUpdateTime);
-        log.info("[initLocalCache][缓存字典数据，数量为:{}]", dataList.size());
-    }
-
-    /**
-     * 如果字典数据发生变化，从数据库中获取最新的全量字典数据。
-     * 如果未发生变化，则返回空
-     *
-     * @param maxUpdateTime 当前字典数据的最大更新时间
-     * @return 字典数据列表
-     */
-    private List<DictDataDO> loadDictDataIfUpdate(Date maxUpdateTime) {
-        // 第一步，判断是否要更新。
-        if (maxUpdateTime == null) { // 如果更新时间为空，说明 DB 一定有新数据
-            log.info("[loadDictDataIfUpdate][首次加载全量字典数据]");
-        } else { // 判断数据库中是否有更新的字典数据
-            if (dictDataMapper.selectCountByUpdateTimeGt(maxUpdateTime) == 0) {
-                return null;
-            }
-            log.info("[loadDictDataIfUpdate][增量加载全量字典数据]");
-        }
-        // 第二步，如果有更新，则从数据库加载所有字典数据
-        return dictDataMapper.selectList();
-    }
-
-    @Scheduled(fixedDelay = SCHEDULER_PERIOD, initialDelay = SCHEDULER_PERIOD)
-    public void schedulePeriodicRefresh() {
-        initLocalCache();
+        log.info("[loadDictDataCache][缓存字典数据，数量为:{}]", dataList.size());
+        return new DictDataCache(labelDictDataBuilder.build(), valueDictDataBuilder.build());
     }
 
     @Override
@@ -155,17 +115,17 @@ public class DictDataServiceImpl implements DictDataService {
 
     @Override
     public DictDataRespDTO getDictDataFromCache(String type, String value) {
-        return DictDataConvert.INSTANCE.convert02(valueDictDataCache.get(type, value));
+        return DictDataConvert.INSTANCE.convert02(dictDataCache.get(cache -> cache.getValueDictDatas().get(type, value)));
     }
 
     @Override
     public DictDataRespDTO parseDictDataFromCache(String type, String label) {
-        return DictDataConvert.INSTANCE.convert02(labelDictDataCache.get(type, label));
+        return DictDataConvert.INSTANCE.convert02(dictDataCache.get(cache -> cache.getLabelDictDatas().get(type, label)));
     }
 
     @Override
     public List<DictDataRespDTO> listDictDatasFromCache(String type) {
-        return DictDataConvert.INSTANCE.convertList03(labelDictDataCache.row(type).values());
+        return DictDataConvert.INSTANCE.convertList03(dictDataCache.get().getLabelDictDatas().row(type).values());
     }
 
     @Override
@@ -177,8 +137,8 @@ public class DictDataServiceImpl implements DictDataService {
         DictDataDO dictData = DictDataConvert.INSTANCE.convert(reqVO);
         dictDataMapper.insert(dictData);
 
-        // 发送刷新消息
-        dictDataProducer.sendDictDataRefreshMessage();
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
         return dictData.getId();
     }
 
@@ -191,8 +151,8 @@ public class DictDataServiceImpl implements DictDataService {
         DictDataDO updateObj = DictDataConvert.INSTANCE.convert(reqVO);
         dictDataMapper.updateById(updateObj);
 
-        // 发送刷新消息
-        dictDataProducer.sendDictDataRefreshMessage();
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -203,8 +163,8 @@ public class DictDataServiceImpl implements DictDataService {
         // 删除字典数据
         dictDataMapper.deleteById(id);
 
-        // 发送刷新消息
-        dictDataProducer.sendDictDataRefreshMessage();
+        // 刷新缓存
+        localCacheManager.invalidate(CACHE_NAME);
     }
 
     @Override
@@ -264,7 +224,7 @@ public class DictDataServiceImpl implements DictDataService {
         if (CollUtil.isEmpty(values)) {
             return;
         }
-        ImmutableMap<String, DictDataDO> dictDataMap = valueDictDataCache.row(dictType);
+        ImmutableMap<String, DictDataDO> dictDataMap = dictDataCache.get().getValueDictDatas().row(dictType);
         // 校验
         values.forEach(value -> {
             DictDataDO dictData = dictDataMap.get(value);
@@ -277,4 +237,28 @@ public class DictDataServiceImpl implements DictDataService {
         });
     }
 
+    /**
+     * 字典数据缓存的快照
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class DictDataCache {
+
+        /**
+         * 字典数据缓存，第二个 key 使用 label
+         *
+         * key1：字典类型 dictType
+         * key2：字典标签 label
+         */
+        private final ImmutableTable<String, String, DictDataDO> labelDictDatas;
+        /**
+         * 字典数据缓存，第二个 key 使用 value
+         *
+         * key1：字典类型 dictType
+         * key2：字典值 value
+         */
+        private final ImmutableTable<String, String, DictDataDO> valueDictDatas;
+
+    }
+
 }
@@ -37,4 +37,11 @@ public interface LoginLogService {
      */
     void createLoginLog(@Valid LoginLogCreateReqDTO reqDTO);
 
+    /**
+     * 批量创建登录日志
+     *
+     * @param reqDTOs 日志信息数组
+     */
+    void createLoginLogs(@Valid List<LoginLogCreateReqDTO> reqDTOs);
+
 }
@@ -1,15 +1,20 @@
 package cn.iocoder.yudao.module.system.service.logger;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.module.system.api.logger.dto.LoginLogCreateReqDTO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.loginlog.LoginLogExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.loginlog.LoginLogPageReqVO;
 import cn.iocoder.yudao.module.system.convert.logger.LoginLogConvert;
 import cn.iocoder.yudao.module.system.dal.dataobject.logger.LoginLogDO;
+import cn.iocoder.yudao.module.system.dal.mysql.logger.LoginLogBatchInsertMapper;
 import cn.iocoder.yudao.module.system.dal.mysql.logger.LoginLogMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.List;
 
@@ -22,6 +27,20 @@ public class LoginLogServiceImpl implements LoginLogService {
 
     @Resource
     private LoginLogMapper loginLogMapper;
+    @Resource
+    private LoginLogBatchInsertMapper loginLogBatchInsertMapper;
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
+    /**
+     * 登录日志的异步批量写入
+     */
+    private BatchInsertSink<LoginLogDO> loginLogSink;
+
+    @PostConstruct
+    public void initSink() {
+        loginLogSink = batchInsertSinkManager.create("login-log", LoginLogDO.class);
+    }
 
     @Override
     public PageResult<LoginLogDO> getLoginLogPage(LoginLogPageReqVO reqVO) {
@@ -36,7 +55,16 @@ public class LoginLogServiceImpl implements LoginLogService {
     @Override
     public void createLoginLog(LoginLogCreateReqDTO reqDTO) {
         LoginLogDO loginLog = LoginLogConvert.INSTANCE.convert(reqDTO);
-        loginLogMapper.insert(loginLog);
+        loginLogSink.offer(loginLog);
+    }
+
+    @Override
+    public void createLoginLogs(List<LoginLogCreateReqDTO> reqDTOs) {
+        if (CollUtil.isEmpty(reqDTOs)) {
+            return;
+        }
+        List<LoginLogDO> loginLogs = LoginLogConvert.INSTANCE.convertList02(reqDTOs);
+        loginLogBatchInsertMapper.saveBatch(loginLogs);
     }
 
 }
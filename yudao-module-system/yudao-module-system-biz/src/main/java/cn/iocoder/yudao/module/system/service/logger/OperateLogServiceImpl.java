@@ -4,6 +4,8 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.string.StrUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSink;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.framework.operatelog.core.dto.OperateLogCreateReqDTO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.operatelog.OperateLogExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.operatelog.OperateLogPageReqVO;
@@ -13,11 +15,11 @@ import cn.iocoder.yudao.module.system.dal.dataobject.user.AdminUserDO;
 import cn.iocoder.yudao.module.system.dal.mysql.logger.OperateLogMapper;
 import cn.iocoder.yudao.module.system.service.user.AdminUserService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.Collection;
 import java.util.Collections;
@@ -39,15 +41,27 @@ public class OperateLogServiceImpl implements OperateLogService {
     @Resource
     private AdminUserService userService;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
+    /**
+     * 操作日志的异步批量写入
+     */
+    private BatchInsertSink<OperateLogDO> operateLogSink;
+
+    @PostConstruct
+    public void initSink() {
+        operateLogSink = batchInsertSinkManager.create("operate-log", OperateLogDO.class);
+    }
+
     @Override
-    @Async
     public Future<Boolean> createOperateLogAsync(OperateLogCreateReqDTO reqVO) {
         boolean success = false;
         try {
             OperateLogDO logDO = OperateLogConvert.INSTANCE.convert(reqVO);
             logDO.setJavaMethodArgs(StrUtils.maxLength(logDO.getJavaMethodArgs(), JAVA_METHOD_ARGS_MAX_LENGTH));
             logDO.setResultData(StrUtils.maxLength(logDO.getResultData(), RESULT_MAX_LENGTH));
-            success = operateLogMapper.insert(logDO) == 1;
+            success = operateLogSink.offer(logDO);
         } catch (Throwable throwable) {
             // 仅仅打印日志，不对外抛出。原因是，还是要保留现场数据。
             log.error("[createOperateLogAsync][记录操作日志异常，日志为 ({})]", reqVO, throwable);
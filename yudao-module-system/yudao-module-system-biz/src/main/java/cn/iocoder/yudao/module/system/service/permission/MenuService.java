@@ -4,6 +4,7 @@ import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuCr
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuListReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuUpdateReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.MenuDO;
+import com.google.common.collect.Multimap;
 
 import java.util.Collection;
 import java.util.List;
@@ -98,6 +99,15 @@ public interface MenuService {
      */
     List<MenuDO> getMenuListByPermissionFromCache(String permission);
 
+    /**
+     * 获得权限与菜单的缓存映射
+     *
+     * 注意，返回的是不可变的缓存对象本身。每次缓存刷新时，会替换成新的对象，所以可以通过引用判断缓存是否刷新
+     *
+     * @return 缓存映射。key：权限标识；value：菜单数组
+     */
+    Multimap<String, MenuDO> getPermissionMenuMultimapFromCache();
+
     /**
      * 获得菜单
      *
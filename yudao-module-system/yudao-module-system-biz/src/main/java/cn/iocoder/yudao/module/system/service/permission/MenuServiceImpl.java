@@ -4,6 +4,7 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil;
 import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
+import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuCreateReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuListReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuUpdateReqVO;
@@ -29,6 +30,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static cn.iocoder.yudao.module.system.enums.ErrorCodeConstants.*;
@@ -48,6 +50,18 @@ public class MenuServiceImpl implements MenuService {
      */
     private static final long SCHEDULER_PERIOD = 5 * 60 * 1000L;
 
+    /**
+     * 增量刷新时，向前重叠查询的时长，单位：毫秒
+     *
+     * 事务提交的顺序，和 update_time 的顺序可能不一致，例如说 update_time 较早的事务较晚提交。
+     * 如果严格查询 update_time > maxUpdateTime，会永久遗漏该变化，所以向前多查询一段时间，并过滤掉未变化的菜单
+     */
+    private static final long INCREMENTAL_OVERLAP = 60 * 1000L;
+    /**
+     * 每隔多少个 {@link #schedulePeriodicRefresh()} 周期，进行一次全量刷新，兜底增量刷新遗漏的变化
+     */
+    private static final int FULL_REFRESH_CYCLES = 12;
+
     /**
      * 菜单缓存
      * key：菜单编号
@@ -67,6 +81,10 @@ public class MenuServiceImpl implements MenuService {
      * 缓存菜单的最大更新时间，用于后续的增量轮询，判断是否有更新
      */
     private volatile Date maxUpdateTime;
+    /**
+     * {@link #schedulePeriodicRefresh()} 的执行次数，用于判断是否全量刷新
+     */
+    private final AtomicInteger refreshCycles = new AtomicInteger();
 
     @Resource
     private MenuMapper menuMapper;
@@ -80,21 +98,38 @@ public class MenuServiceImpl implements MenuService {
     private MenuProducer menuProducer;
 
     /**
-     * 初始化 {@link #menuCache} 和 {@link #permissionMenuCache} 缓存
+     * 初始化或增量刷新 {@link #menuCache} 和 {@link #permissionMenuCache} 缓存
      */
     @Override
     @PostConstruct
     public synchronized void initLocalCache() {
         // 获取菜单列表，如果有更新
-        List<MenuDO> menuList = this.loadMenuIfUpdate(maxUpdateTime);
+        Date lastMaxUpdateTime = maxUpdateTime;
+        List<MenuDO> menuList = this.loadMenuIfUpdate(lastMaxUpdateTime);
         if (CollUtil.isEmpty(menuList)) {
             return;
         }
+        maxUpdateTime = ObjectUtils.max(lastMaxUpdateTime, CollectionUtils.getMaxValue(menuList, MenuDO::getUpdateTime));
 
-        // 构建缓存
+        // 合并变化的菜单。已经删除的菜单，从缓存中移除；全量加载时，基于空缓存合并
+        Map<Long, MenuDO> menuMap = lastMaxUpdateTime != null && menuCache != null
+                ? new LinkedHashMap<>(menuCache) : new LinkedHashMap<>();
+        int changedCount = 0;
+        for (MenuDO menuDO : menuList) {
+            if (Boolean.TRUE.equals(menuDO.getDeleted())) {
+                changedCount += menuMap.remove(menuDO.getId()) != null ? 1 : 0;
+            } else if (!menuDO.equals(menuMap.get(menuDO.getId()))) { // 过滤重叠查询到的、未变化的菜单
+                menuMap.put(menuDO.getId(), menuDO);
+                changedCount++;
+            }
+        }
+        if (changedCount == 0 && lastMaxUpdateTime != null) {
+            return;
+        }
+        // 构建缓存。菜单的数量不多，所以基于合并后的菜单重新构建即可，无需读取数据库
         ImmutableMap.Builder<Long, MenuDO> menuCacheBuilder = ImmutableMap.builder();
         ImmutableMultimap.Builder<String, MenuDO> permMenuCacheBuilder = ImmutableMultimap.builder();
-        menuList.forEach(menuDO -> {
+        menuMap.values().forEach(menuDO -> {
             menuCacheBuilder.put(menuDO.getId(), menuDO);
             if (StrUtil.isNotEmpty(menuDO.getPermission())) { // 会存在 permission 为 null 的情况，导致 put 报 NPE 异常
                 permMenuCacheBuilder.put(menuDO.getPermission(), menuDO);
@@ -102,34 +137,40 @@ public class MenuServiceImpl implements MenuService {
         });
         menuCache = menuCacheBuilder.build();
         permissionMenuCache = permMenuCacheBuilder.build();
-        maxUpdateTime = CollectionUtils.getMaxValue(menuList, MenuDO::getUpdateTime);
-        log.info("[initLocalCache][缓存菜单，数量为:{}]", menuList.size());
+        log.info("[initLocalCache][缓存菜单，数量为:{}，变化数量为:{}]", menuMap.size(), changedCount);
     }
 
     @Scheduled(fixedDelay = SCHEDULER_PERIOD, initialDelay = SCHEDULER_PERIOD)
     public void schedulePeriodicRefresh() {
+        // 每 FULL_REFRESH_CYCLES 个周期，清空 maxUpdateTime，从而全量刷新
+        if (refreshCycles.incrementAndGet() % FULL_REFRESH_CYCLES == 0) {
+            synchronized (this) {
+                maxUpdateTime = null;
+            }
+        }
         initLocalCache();
     }
 
     /**
-     * 如果菜单发生变化，从数据库中获取最新的全量菜单。
-     * 如果未发生变化，则返回空
+     * 如果是首次加载或者定时全量刷新，从数据库中获取全量菜单；
+     * 否则，只获取发生变化的菜单，包括已经删除的，以及重叠查询到的未变化的菜单
      *
      * @param maxUpdateTime 当前菜单的最大更新时间
      * @return 菜单列表
      */
     private List<MenuDO> loadMenuIfUpdate(Date maxUpdateTime) {
-        // 第一步，判断是否要更新。
-        if (maxUpdateTime == null) { // 如果更新时间为空，说明 DB 一定有新数据
-            log.info("[loadMenuIfUpdate][首次加载全量菜单]");
-        } else { // 判断数据库中是否有更新的菜单
-            if (menuMapper.selectCountByUpdateTimeGt(maxUpdateTime) == 0) {
-                return null;
-            }
-            log.info("[loadMenuIfUpdate][增量加载全量菜单]");
+        // 情况一，如果更新时间为空，说明是首次加载或者定时全量刷新，则从数据库加载所有菜单
+        if (maxUpdateTime == null) {
+            log.info("[loadMenuIfUpdate][全量加载菜单]");
+            return menuMapper.selectList();
         }
-        // 第二步，如果有更新，则从数据库加载所有菜单
-        return menuMapper.selectList();
+        // 情况二，只加载变化的菜单
+        List<MenuDO> menuList = menuMapper.selectListByUpdateTimeGe(
+                new Date(maxUpdateTime.getTime() - INCREMENTAL_OVERLAP));
+        if (CollUtil.isNotEmpty(menuList)) {
+            log.info("[loadMenuIfUpdate][增量加载菜单，数量为 {}]", menuList.size());
+        }
+        return menuList;
     }
 
     @Override
@@ -183,7 +224,7 @@ public class MenuServiceImpl implements MenuService {
             throw ServiceExceptionUtil.exception(MENU_NOT_EXISTS);
         }
         // 标记删除
-        menuMapper.deleteById(menuId);
+        menuMapper.deleteByIdWithUpdateTime(menuId);
         // 删除授予给角色的权限
         permissionService.processMenuDeleted(menuId);
         // 发送刷新消息. 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
@@ -245,6 +286,11 @@ public class MenuServiceImpl implements MenuService {
         return new ArrayList<>(permissionMenuCache.get(permission));
     }
 
+    @Override
+    public Multimap<String, MenuDO> getPermissionMenuMultimapFromCache() {
+        return permissionMenuCache;
+    }
+
     @Override
     public MenuDO getMenu(Long id) {
         return menuMapper.selectById(id);
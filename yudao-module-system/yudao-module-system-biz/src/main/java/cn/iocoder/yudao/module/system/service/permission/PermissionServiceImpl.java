@@ -4,13 +4,13 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.ArrayUtil;
 import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
+import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
 import cn.iocoder.yudao.framework.common.util.collection.MapUtils;
 import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
 import cn.iocoder.yudao.framework.datapermission.core.dept.service.dto.DeptDataPermissionRespDTO;
 import cn.iocoder.yudao.framework.security.core.LoginUser;
 import cn.iocoder.yudao.framework.security.core.util.SecurityFrameworkUtils;
 import cn.iocoder.yudao.framework.tenant.core.aop.TenantIgnore;
-import cn.iocoder.yudao.module.system.dal.dataobject.dept.DeptDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.MenuDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleMenuDO;
@@ -22,7 +22,10 @@ import cn.iocoder.yudao.module.system.dal.mysql.permission.UserRoleMapper;
 import cn.iocoder.yudao.module.system.enums.permission.DataScopeEnum;
 import cn.iocoder.yudao.module.system.mq.producer.permission.PermissionProducer;
 import cn.iocoder.yudao.module.system.service.dept.DeptService;
-import com.google.common.collect.ImmutableMultimap;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
@@ -30,12 +33,12 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * 权限 Service 实现类
@@ -57,26 +60,51 @@ public class PermissionServiceImpl implements PermissionService {
      */
     private static final long SCHEDULER_PERIOD = 5 * 60 * 1000L;
 
+    /**
+     * 增量刷新时，向前重叠查询的时长，单位：毫秒
+     *
+     * 事务提交的顺序，和 update_time 的顺序可能不一致，例如说 update_time 较早的事务较晚提交。
+     * 如果严格查询 update_time > maxUpdateTime，会永久遗漏该变化，所以向前多查询一段时间，并过滤掉未变化的关联
+     */
+    private static final long INCREMENTAL_OVERLAP = 60 * 1000L;
+    /**
+     * 每隔多少个 {@link #schedulePeriodicRefresh()} 周期，进行一次全量刷新，兜底增量刷新遗漏的变化
+     */
+    private static final int FULL_REFRESH_CYCLES = 12;
+
     /**
      * 角色编号与菜单编号的缓存映射
      * key：角色编号
      * value：菜单编号的数组
      *
-     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向。
+     * 刷新时采用写时复制，只复制外层 Map 和发生变化的 value，未变化的 value 在新老对象之间共享
      */
-    private volatile Multimap<Long, Long> roleMenuCache;
+    private volatile Map<Long, Set<Long>> roleMenuCache = Collections.emptyMap();
     /**
      * 菜单编号与角色编号的缓存映射
      * key：菜单编号
      * value：角色编号的数组
      *
-     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向。
+     * 刷新时采用写时复制，同 {@link #roleMenuCache}
      */
-    private volatile Multimap<Long, Long> menuRoleCache;
+    private volatile Map<Long, Set<Long>> menuRoleCache = Collections.emptyMap();
     /**
      * 缓存菜单的最大更新时间，用于后续的增量轮询，判断是否有更新
      */
     private volatile Date maxUpdateTime;
+    /**
+     * {@link #schedulePeriodicRefresh()} 的执行次数，用于判断是否全量刷新
+     */
+    private final AtomicInteger refreshCycles = new AtomicInteger();
+    /**
+     * 权限位图索引，用于 {@link #hasAnyPermissions(String...)} 的快速判断
+     *
+     * 基于 {@link #menuRoleCache} 和 {@link MenuService#getPermissionMenuMultimapFromCache()} 构建，
+     * 任一缓存刷新后，在下次使用时重新构建
+     */
+    private volatile PermissionBitSetIndex permissionIndex;
 
     @Resource
     private RoleMenuMapper roleMenuMapper;
@@ -102,55 +130,107 @@ public class PermissionServiceImpl implements PermissionService {
     private PermissionService self;
 
     /**
-     * 初始化 {@link #roleMenuCache} 和 {@link #menuRoleCache} 缓存
+     * 初始化或增量刷新 {@link #roleMenuCache} 和 {@link #menuRoleCache} 缓存
      */
     @Override
     @PostConstruct
     @TenantIgnore // 初始化缓存，无需租户过滤
-    public void initLocalCache() {
+    public synchronized void initLocalCache() {
         // 获取角色与菜单的关联列表，如果有更新
-        List<RoleMenuDO> roleMenuList = loadRoleMenuIfUpdate(maxUpdateTime);
+        Date lastMaxUpdateTime = maxUpdateTime;
+        List<RoleMenuDO> roleMenuList = loadRoleMenuIfUpdate(lastMaxUpdateTime);
         if (CollUtil.isEmpty(roleMenuList)) {
             return;
         }
+        maxUpdateTime = ObjectUtils.max(lastMaxUpdateTime, CollectionUtils.getMaxValue(roleMenuList, RoleMenuDO::getUpdateTime));
+
+        // 合并到 roleMenuCache 和 menuRoleCache 缓存；全量加载时，基于空缓存合并
+        Map<Long, Set<Long>> oldRoleMenuCache = lastMaxUpdateTime != null ? roleMenuCache : Collections.emptyMap();
+        Map<Long, Set<Long>> oldMenuRoleCache = lastMaxUpdateTime != null ? menuRoleCache : Collections.emptyMap();
+        Map<Long, Set<Long>> newRoleMenuCache = mergeCache(oldRoleMenuCache, roleMenuList, RoleMenuDO::getRoleId, RoleMenuDO::getMenuId);
+        Map<Long, Set<Long>> newMenuRoleCache = mergeCache(oldMenuRoleCache, roleMenuList, RoleMenuDO::getMenuId, RoleMenuDO::getRoleId);
+        // 未发生变化，例如说只查询到重叠的关联，则不替换缓存，避免权限位图索引重建
+        if (newRoleMenuCache == oldRoleMenuCache && newMenuRoleCache == oldMenuRoleCache && lastMaxUpdateTime != null) {
+            return;
+        }
+        roleMenuCache = newRoleMenuCache;
+        menuRoleCache = newMenuRoleCache;
+        log.info("[initLocalCache][合并角色与菜单的关联数量为 {}]", roleMenuList.size());
+    }
+
+    /**
+     * 将变化的角色与菜单的关联，合并到缓存中，返回新的缓存
+     *
+     * 采用写时复制，老的缓存不会被修改，并且只有发生变化的 key 才会复制其 value
+     *
+     * @param cache 老的缓存
+     * @param changes 变化的角色与菜单的关联，包括已经删除的
+     * @param keyFunc key 的获取方法
+     * @param valueFunc value 的获取方法
+     * @return 新的缓存。如果未发生变化，则返回老的缓存
+     */
+    private static Map<Long, Set<Long>> mergeCache(Map<Long, Set<Long>> cache, List<RoleMenuDO> changes,
+                                                   Function<RoleMenuDO, Long> keyFunc,
+                                                   Function<RoleMenuDO, Long> valueFunc) {
+        // 计算发生变化的 key 的新 value
+        Map<Long, Set<Long>> changedValues = new HashMap<>();
+        Function<Long, Set<Long>> valuesGetter = key -> changedValues.computeIfAbsent(key,
+                k -> new HashSet<>(cache.getOrDefault(k, Collections.emptySet())));
+        // 先处理删除，再处理新增。避免同一关联先取消授权、再重新授权时，被误删除
+        changes.stream().filter(roleMenu -> Boolean.TRUE.equals(roleMenu.getDeleted()))
+                .forEach(roleMenu -> valuesGetter.apply(keyFunc.apply(roleMenu)).remove(valueFunc.apply(roleMenu)));
+        changes.stream().filter(roleMenu -> !Boolean.TRUE.equals(roleMenu.getDeleted()))
+                .forEach(roleMenu -> valuesGetter.apply(keyFunc.apply(roleMenu)).add(valueFunc.apply(roleMenu)));
+
+        // 过滤掉未变化的 key，例如说重叠查询到的关联
+        changedValues.entrySet().removeIf(entry -> entry.getValue().equals(cache.getOrDefault(entry.getKey(), Collections.emptySet())));
+        if (changedValues.isEmpty()) {
+            return cache;
+        }
 
-        // 初始化 roleMenuCache 和 menuRoleCache 缓存
-        ImmutableMultimap.Builder<Long, Long> roleMenuCacheBuilder = ImmutableMultimap.builder();
-        ImmutableMultimap.Builder<Long, Long> menuRoleCacheBuilder = ImmutableMultimap.builder();
-        roleMenuList.forEach(roleMenuDO -> {
-            roleMenuCacheBuilder.put(roleMenuDO.getRoleId(), roleMenuDO.getMenuId());
-            menuRoleCacheBuilder.put(roleMenuDO.getMenuId(), roleMenuDO.getRoleId());
+        // 构建新的缓存
+        Map<Long, Set<Long>> newCache = new HashMap<>(cache);
+        changedValues.forEach((key, values) -> {
+            if (values.isEmpty()) {
+                newCache.remove(key);
+            } else {
+                newCache.put(key, ImmutableSet.copyOf(values));
+            }
         });
-        roleMenuCache = roleMenuCacheBuilder.build();
-        menuRoleCache = menuRoleCacheBuilder.build();
-        maxUpdateTime = CollectionUtils.getMaxValue(roleMenuList, RoleMenuDO::getUpdateTime);
-        log.info("[initLocalCache][初始化角色与菜单的关联数量为 {}]", roleMenuList.size());
+        return Collections.unmodifiableMap(newCache);
     }
 
     @Scheduled(fixedDelay = SCHEDULER_PERIOD, initialDelay = SCHEDULER_PERIOD)
     public void schedulePeriodicRefresh() {
+        // 每 FULL_REFRESH_CYCLES 个周期，清空 maxUpdateTime，从而全量刷新
+        if (refreshCycles.incrementAndGet() % FULL_REFRESH_CYCLES == 0) {
+            synchronized (this) {
+                maxUpdateTime = null;
+            }
+        }
         self.initLocalCache();
     }
 
     /**
-     * 如果角色与菜单的关联发生变化，从数据库中获取最新的全量角色与菜单的关联。
-     * 如果未发生变化，则返回空
+     * 如果是首次加载或者定时全量刷新，从数据库中获取全量角色与菜单的关联；
+     * 否则，只获取发生变化的角色与菜单的关联，包括已经删除的，以及重叠查询到的未变化的关联
      *
      * @param maxUpdateTime 当前角色与菜单的关联的最大更新时间
      * @return 角色与菜单的关联列表
      */
     protected List<RoleMenuDO> loadRoleMenuIfUpdate(Date maxUpdateTime) {
-        // 第一步，判断是否要更新。
-        if (maxUpdateTime == null) { // 如果更新时间为空，说明 DB 一定有新数据
-            log.info("[loadRoleMenuIfUpdate][首次加载全量角色与菜单的关联]");
-        } else { // 判断数据库中是否有更新的角色与菜单的关联
-            if (roleMenuMapper.selectCountByUpdateTimeGt(maxUpdateTime) == 0) {
-                return null;
-            }
-            log.info("[loadRoleMenuIfUpdate][增量加载全量角色与菜单的关联]");
+        // 情况一，如果更新时间为空，说明是首次加载或者定时全量刷新，则从数据库加载所有角色与菜单的关联
+        if (maxUpdateTime == null) {
+            log.info("[loadRoleMenuIfUpdate][全量加载角色与菜单的关联]");
+            return roleMenuMapper.selectList();
         }
-        // 第二步，如果有更新，则从数据库加载所有角色与菜单的关联
-        return roleMenuMapper.selectList();
+        // 情况二，只加载变化的角色与菜单的关联
+        List<RoleMenuDO> roleMenuList = roleMenuMapper.selectListByUpdateTimeGe(
+                new Date(maxUpdateTime.getTime() - INCREMENTAL_OVERLAP));
+        if (CollUtil.isNotEmpty(roleMenuList)) {
+            log.info("[loadRoleMenuIfUpdate][增量加载角色与菜单的关联，数量为 {}]", roleMenuList.size());
+        }
+        return roleMenuList;
     }
 
     @Override
@@ -218,15 +298,8 @@ public class PermissionServiceImpl implements PermissionService {
         if (!CollectionUtil.isEmpty(deleteMenuIds)) {
             roleMenuMapper.deleteListByRoleIdAndMenuIds(roleId, deleteMenuIds);
         }
-        // 发送刷新消息. 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-
-            @Override
-            public void afterCommit() {
-                permissionProducer.sendRoleMenuRefreshMessage();
-            }
-
-        });
+        // 发送刷新消息。在事务提交后发送，同一事务中的多条消息合并为一次 pipeline
+        permissionProducer.sendRoleMenuRefreshMessage();
     }
 
     @Override
@@ -275,30 +348,16 @@ public class PermissionServiceImpl implements PermissionService {
         userRoleMapper.deleteListByRoleId(roleId);
         // 标记删除 RoleMenu
         roleMenuMapper.deleteListByRoleId(roleId);
-        // 发送刷新消息. 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-
-            @Override
-            public void afterCommit() {
-                permissionProducer.sendRoleMenuRefreshMessage();
-            }
-
-        });
+        // 发送刷新消息。在事务提交后发送，同一事务中的多条消息合并为一次 pipeline
+        permissionProducer.sendRoleMenuRefreshMessage();
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void processMenuDeleted(Long menuId) {
         roleMenuMapper.deleteListByMenuId(menuId);
-        // 发送刷新消息. 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-
-            @Override
-            public void afterCommit() {
-                permissionProducer.sendRoleMenuRefreshMessage();
-            }
-
-        });
+        // 发送刷新消息。在事务提交后发送，同一事务中的多条消息合并为一次 pipeline
+        permissionProducer.sendRoleMenuRefreshMessage();
     }
 
     @Override
@@ -328,17 +387,42 @@ public class PermissionServiceImpl implements PermissionService {
             return true;
         }
 
+        // 获得角色拥有的权限位图
+        PermissionBitSetIndex index = getPermissionIndex();
+        BitSet permissionBits = index.getPermissionBits(roleIds);
         // 遍历权限，判断是否有一个满足
-        return Arrays.stream(permissions).anyMatch(permission -> {
-            List<MenuDO> menuList = menuService.getMenuListByPermissionFromCache(permission);
-            // 采用严格模式，如果权限找不到对应的 Menu 的话，认为
-            if (CollUtil.isEmpty(menuList)) {
-                return false;
+        for (String permission : permissions) {
+            // 采用严格模式，如果权限找不到对应的 Menu 的话，认为没有权限
+            Integer permissionId = index.getPermissionId(permission);
+            if (permissionId != null && permissionBits.get(permissionId)) {
+                return true;
             }
-            // 获得是否拥有该权限，任一一个
-            return menuList.stream().anyMatch(menu -> CollUtil.containsAny(roleIds,
-                    menuRoleCache.get(menu.getId())));
-        });
+        }
+        return false;
+    }
+
+    /**
+     * 获得权限位图索引。如果依赖的缓存已经刷新，则重新构建
+     *
+     * @return 权限位图索引
+     */
+    @VisibleForTesting
+    PermissionBitSetIndex getPermissionIndex() {
+        Multimap<String, MenuDO> permissionMenuCache = menuService.getPermissionMenuMultimapFromCache();
+        PermissionBitSetIndex index = permissionIndex;
+        if (index != null && index.isLatest(permissionMenuCache, menuRoleCache)) {
+            return index;
+        }
+        synchronized (this) {
+            index = permissionIndex;
+            if (index != null && index.isLatest(permissionMenuCache, menuRoleCache)) {
+                return index;
+            }
+            index = new PermissionBitSetIndex(permissionMenuCache, menuRoleCache);
+            permissionIndex = index;
+            log.info("[getPermissionIndex][构建权限位图索引，权限数量为 {}]", index.permissionIds.size());
+            return index;
+        }
     }
 
     @Override
@@ -403,8 +487,9 @@ public class PermissionServiceImpl implements PermissionService {
             }
             // 情况四，DEPT_DEPT_AND_CHILD
             if (Objects.equals(role.getDataScope(), DataScopeEnum.DEPT_AND_CHILD.getScope())) {
-                List<DeptDO> depts = deptService.getDeptsByParentIdFromCache(loginUser.getDeptId(), true);
-                CollUtil.addAll(result.getDeptIds(), CollectionUtils.convertList(depts, DeptDO::getId));
+                for (long deptId : deptService.getChildDeptIdsFromCache(loginUser.getDeptId())) {
+                    result.getDeptIds().add(deptId);
+                }
                 //添加本身部门id
                 CollUtil.addAll(result.getDeptIds(), loginUser.getDeptId());
                 continue;
@@ -429,4 +514,82 @@ public class PermissionServiceImpl implements PermissionService {
                 UserRoleDO::getUserId);
     }
 
+    /**
+     * 权限位图索引
+     *
+     * 1. 将每个权限标识，分配一个连续的权限编号
+     * 2. 将每个角色拥有的权限，编译成以权限编号为下标的 {@link BitSet}
+     * 3. 将用户的角色编号集合，合并后的 {@link BitSet} 进行缓存。因为大多数用户的角色组合是相同的，命中率很高
+     *
+     * 这样，权限判断只需要一次 Hash 查找 + 一次位判断。对象构建后不可变，缓存刷新时整体替换
+     */
+    static class PermissionBitSetIndex {
+
+        /**
+         * 构建时使用的 {@link MenuService#getPermissionMenuMultimapFromCache()}，用于判断是否需要重建
+         */
+        private final Multimap<String, MenuDO> permissionMenuCache;
+        /**
+         * 构建时使用的 {@link #menuRoleCache}，用于判断是否需要重建
+         */
+        private final Map<Long, Set<Long>> menuRoleCache;
+
+        /**
+         * 权限标识与权限编号的映射
+         */
+        private final Map<String, Integer> permissionIds;
+        /**
+         * 角色编号与权限位图的映射
+         */
+        private final Map<Long, BitSet> rolePermissionBits;
+        /**
+         * 角色编号集合与合并后的权限位图的缓存
+         */
+        private final Cache<Set<Long>, BitSet> roleSetPermissionBitsCache = CacheBuilder.newBuilder()
+                .maximumSize(1000).build();
+
+        PermissionBitSetIndex(Multimap<String, MenuDO> permissionMenuCache, Map<Long, Set<Long>> menuRoleCache) {
+            this.permissionMenuCache = permissionMenuCache;
+            this.menuRoleCache = menuRoleCache;
+            Map<String, Integer> permissionIds = new HashMap<>();
+            Map<Long, BitSet> rolePermissionBits = new HashMap<>();
+            if (permissionMenuCache != null) {
+                permissionMenuCache.forEach((permission, menu) -> {
+                    Integer permissionId = permissionIds.computeIfAbsent(permission, key -> permissionIds.size());
+                    menuRoleCache.getOrDefault(menu.getId(), Collections.emptySet()).forEach(roleId ->
+                            rolePermissionBits.computeIfAbsent(roleId, key -> new BitSet()).set(permissionId));
+                });
+            }
+            this.permissionIds = permissionIds;
+            this.rolePermissionBits = rolePermissionBits;
+        }
+
+        boolean isLatest(Multimap<String, MenuDO> permissionMenuCache, Map<Long, Set<Long>> menuRoleCache) {
+            return this.permissionMenuCache == permissionMenuCache && this.menuRoleCache == menuRoleCache;
+        }
+
+        Integer getPermissionId(String permission) {
+            return permissionIds.get(permission);
+        }
+
+        BitSet getPermissionBits(Set<Long> roleIds) {
+            BitSet bits = roleSetPermissionBitsCache.getIfPresent(roleIds);
+            if (bits != null) {
+                return bits;
+            }
+            // 合并每个角色的权限位图
+            bits = new BitSet();
+            for (Long roleId : roleIds) {
+                BitSet roleBits = rolePermissionBits.get(roleId);
+                if (roleBits != null) {
+                    bits.or(roleBits);
+                }
+            }
+            // 使用不可变的副本作为 key，避免 LoginUser 的角色编号集合被修改后，缓存错乱
+            roleSetPermissionBitsCache.put(ImmutableSet.copyOf(roleIds), bits);
+            return bits;
+        }
+
+    }
+
 }
@@ -6,6 +6,7 @@ import cn.hutool.core.util.ObjectUtil;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
+import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
 import cn.iocoder.yudao.module.system.enums.permission.DataScopeEnum;
 import cn.iocoder.yudao.framework.tenant.core.aop.TenantIgnore;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.role.RoleCreateReqVO;
@@ -33,6 +34,7 @@ import org.springframework.util.StringUtils;
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static cn.iocoder.yudao.framework.common.exception.util.ServiceExceptionUtil.exception;
@@ -53,19 +55,35 @@ public class RoleServiceImpl implements RoleService {
      */
     private static final long SCHEDULER_PERIOD = 5 * 60 * 1000L;
 
+    /**
+     * 增量刷新时，向前重叠查询的时长，单位：毫秒
+     *
+     * 事务提交的顺序，和 update_time 的顺序可能不一致，例如说 update_time 较早的事务较晚提交。
+     * 如果严格查询 update_time > maxUpdateTime，会永久遗漏该变化，所以向前多查询一段时间，并过滤掉未变化的角色
+     */
+    private static final long INCREMENTAL_OVERLAP = 60 * 1000L;
+    /**
+     * 每隔多少个 {@link #schedulePeriodicRefresh()} 周期，进行一次全量刷新，兜底增量刷新遗漏的变化
+     */
+    private static final int FULL_REFRESH_CYCLES = 12;
+
     /**
      * 角色缓存
      * key：角色编号 {@link RoleDO#getId()}
      *
-     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向
+     * 这里声明 volatile 修饰的原因是，每次刷新时，直接修改指向。刷新时采用写时复制，只合并发生变化的角色
      */
     @Getter
-    private volatile Map<Long, RoleDO> roleCache;
+    private volatile Map<Long, RoleDO> roleCache = Collections.emptyMap();
     /**
      * 缓存角色的最大更新时间，用于后续的增量轮询，判断是否有更新
      */
     @Getter
     private volatile Date maxUpdateTime;
+    /**
+     * {@link #schedulePeriodicRefresh()} 的执行次数，用于判断是否全量刷新
+     */
+    private final AtomicInteger refreshCycles = new AtomicInteger();
 
     @Resource
     private PermissionService permissionService;
@@ -81,48 +99,69 @@ public class RoleServiceImpl implements RoleService {
     private RoleService self;
 
     /**
-     * 初始化 {@link #roleCache} 缓存
+     * 初始化或增量刷新 {@link #roleCache} 缓存
      */
     @Override
     @PostConstruct
     @TenantIgnore // 忽略自动多租户，全局初始化缓存
-    public void initLocalCache() {
+    public synchronized void initLocalCache() {
         // 获取角色列表，如果有更新
-        List<RoleDO> roleList = loadRoleIfUpdate(maxUpdateTime);
+        Date lastMaxUpdateTime = maxUpdateTime;
+        List<RoleDO> roleList = loadRoleIfUpdate(lastMaxUpdateTime);
         if (CollUtil.isEmpty(roleList)) {
             return;
         }
-
-        // 写入缓存
-        roleCache = CollectionUtils.convertMap(roleList, RoleDO::getId);
-        maxUpdateTime = CollectionUtils.getMaxValue(roleList, RoleDO::getUpdateTime);
-        log.info("[initLocalCache][初始化 Role 数量为 {}]", roleList.size());
+        maxUpdateTime = ObjectUtils.max(lastMaxUpdateTime, CollectionUtils.getMaxValue(roleList, RoleDO::getUpdateTime));
+
+        // 合并到缓存。已经删除的角色，从缓存中移除；全量加载时，基于空缓存合并
+        Map<Long, RoleDO> newRoleCache = lastMaxUpdateTime != null ? new HashMap<>(roleCache) : new HashMap<>();
+        int changedCount = 0;
+        for (RoleDO role : roleList) {
+            if (Boolean.TRUE.equals(role.getDeleted())) {
+                changedCount += newRoleCache.remove(role.getId()) != null ? 1 : 0;
+            } else if (!role.equals(newRoleCache.get(role.getId()))) { // 过滤重叠查询到的、未变化的角色
+                newRoleCache.put(role.getId(), role);
+                changedCount++;
+            }
+        }
+        if (changedCount == 0 && lastMaxUpdateTime != null) {
+            return;
+        }
+        roleCache = newRoleCache;
+        log.info("[initLocalCache][合并 Role 数量为 {}]", changedCount);
     }
 
     @Scheduled(fixedDelay = SCHEDULER_PERIOD, initialDelay = SCHEDULER_PERIOD)
     public void schedulePeriodicRefresh() {
-       self.initLocalCache();
+        // 每 FULL_REFRESH_CYCLES 个周期，清空 maxUpdateTime，从而全量刷新
+        if (refreshCycles.incrementAndGet() % FULL_REFRESH_CYCLES == 0) {
+            synchronized (this) {
+                maxUpdateTime = null;
+            }
+        }
+        self.initLocalCache();
     }
 
     /**
-     * 如果角色发生变化，从数据库中获取最新的全量角色。
-     * 如果未发生变化，则返回空
+     * 如果是首次加载或者定时全量刷新，从数据库中获取全量角色；
+     * 否则，只获取发生变化的角色，包括已经删除的，以及重叠查询到的未变化的角色
      *
      * @param maxUpdateTime 当前角色的最大更新时间
      * @return 角色列表
      */
     private List<RoleDO> loadRoleIfUpdate(Date maxUpdateTime) {
-        // 第一步，判断是否要更新。
-        if (maxUpdateTime == null) { // 如果更新时间为空，说明 DB 一定有新数据
-            log.info("[loadRoleIfUpdate][首次加载全量角色]");
-        } else { // 判断数据库中是否有更新的角色
-            if (roleMapper.selectCountByUpdateTimeGt(maxUpdateTime) == 0) {
-                return null;
-            }
-            log.info("[loadRoleIfUpdate][增量加载全量角色]");
+        // 情况一，如果更新时间为空，说明是首次加载或者定时全量刷新，则从数据库加载所有角色
+        if (maxUpdateTime == null) {
+            log.info("[loadRoleIfUpdate][全量加载角色]");
+            return roleMapper.selectList();
+        }
+        // 情况二，只加载变化的角色
+        List<RoleDO> roleList = roleMapper.selectListByUpdateTimeGe(
+                new Date(maxUpdateTime.getTime() - INCREMENTAL_OVERLAP));
+        if (CollUtil.isNotEmpty(roleList)) {
+            log.info("[loadRoleIfUpdate][增量加载角色，数量为 {}]", roleList.size());
         }
-        // 第二步，如果有更新，则从数据库加载所有角色
-        return roleMapper.selectList();
+        return roleList;
     }
 
     @Override
@@ -194,7 +233,7 @@ public class RoleServiceImpl implements RoleService {
         // 校验是否可以更新
         this.checkUpdateRole(id);
         // 标记删除
-        roleMapper.deleteById(id);
+        roleMapper.deleteByIdWithUpdateTime(id);
         // 删除相关数据
         permissionService.processRoleDeleted(id);
         // 发送刷新消息. 注意，需要事务提交后，在进行发送刷新消息。不然 db 还未提交，结果缓存先刷新了
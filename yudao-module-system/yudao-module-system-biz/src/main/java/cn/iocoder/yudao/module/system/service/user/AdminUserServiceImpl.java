@@ -13,7 +13,6 @@ import cn.iocoder.yudao.module.system.controller.admin.user.vo.profile.UserProfi
 import cn.iocoder.yudao.module.system.controller.admin.user.vo.profile.UserProfileUpdateReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.user.vo.user.*;
 import cn.iocoder.yudao.module.system.convert.user.UserConvert;
-import cn.iocoder.yudao.module.system.dal.dataobject.dept.DeptDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.dept.UserPostDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.user.AdminUserDO;
 import cn.iocoder.yudao.module.system.dal.mysql.dept.UserPostMapper;
@@ -295,8 +294,11 @@ public class AdminUserServiceImpl implements AdminUserService {
         if (deptId == null) {
             return Collections.emptySet();
         }
-        Set<Long> deptIds = convertSet(deptService.getDeptsByParentIdFromCache(
-                deptId, true), DeptDO::getId);
+        long[] childDeptIds = deptService.getChildDeptIdsFromCache(deptId);
+        Set<Long> deptIds = new HashSet<>(childDeptIds.length * 4 / 3 + 2);
+        for (long childDeptId : childDeptIds) {
+            deptIds.add(childDeptId);
+        }
         deptIds.add(deptId); // 包括自身
         return deptIds;
     }
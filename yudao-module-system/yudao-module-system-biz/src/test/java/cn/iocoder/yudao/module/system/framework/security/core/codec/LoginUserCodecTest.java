@@ -0,0 +1,140 @@
+package cn.iocoder.yudao.module.system.framework.security.core.codec;
+
+import cn.iocoder.yudao.framework.common.enums.UserTypeEnum;
+import cn.iocoder.yudao.framework.security.core.LoginUser;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static cn.hutool.core.util.RandomUtil.randomEle;
+import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
+import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomPojo;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LoginUserCodec} 的单元测试，包括 {@link JsonLoginUserCodec} 和 {@link BinaryLoginUserCodec} 的大小、耗时对比
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class LoginUserCodecTest {
+
+    private final JsonLoginUserCodec jsonCodec = new JsonLoginUserCodec();
+    private final BinaryLoginUserCodec binaryCodec = new BinaryLoginUserCodec();
+
+    @Test
+    public void testBinary_encodeAndDecode() {
+        // 准备参数
+        LoginUser loginUser = randomLoginUser(10);
+
+        // 调用
+        byte[] bytes = binaryCodec.encode(loginUser);
+        LoginUser result = binaryCodec.decode(bytes);
+        // 断言
+        assertPojoEquals(loginUser, result, "password", "context");
+        assertNull(result.getPassword());
+    }
+
+    @Test
+    public void testBinary_nullFields() {
+        // 准备参数
+        LoginUser loginUser = new LoginUser();
+        loginUser.setId(-1L); // 负数
+        loginUser.setRoleIds(new HashSet<>());
+
+        // 调用
+        LoginUser result = binaryCodec.decode(binaryCodec.encode(loginUser));
+        // 断言
+        assertEquals(loginUser, result);
+    }
+
+    @Test
+    public void testSupports() {
+        // 准备参数
+        LoginUser loginUser = randomLoginUser(3);
+        byte[] jsonBytes = jsonCodec.encode(loginUser);
+        byte[] binaryBytes = binaryCodec.encode(loginUser);
+
+        // 断言，不同格式可以相互区分
+        assertTrue(jsonCodec.supports(jsonBytes));
+        assertFalse(jsonCodec.supports(binaryBytes));
+        assertTrue(binaryCodec.supports(binaryBytes));
+        assertFalse(binaryCodec.supports(jsonBytes));
+        // 断言，两种格式解码的结果一致
+        assertEquals(jsonCodec.decode(jsonBytes), binaryCodec.decode(binaryBytes));
+    }
+
+    @Test
+    public void testSize() {
+        for (int roleCount : new int[]{1, 10, 100, 1000}) {
+            // 准备参数
+            LoginUser loginUser = randomLoginUser(roleCount);
+
+            // 调用
+            byte[] jsonBytes = jsonCodec.encode(loginUser);
+            byte[] binaryBytes = binaryCodec.encode(loginUser);
+            // 断言，二进制格式更小，并且可以还原
+            assertTrue(binaryBytes.length < jsonBytes.length);
+            assertPojoEquals(loginUser, binaryCodec.decode(binaryBytes), "password", "context");
+        }
+    }
+
+    /**
+     * 对比 JSON 和二进制格式的大小、编码耗时、解码耗时
+     *
+     * 耗时受运行环境影响，只输出日志不断言，并且默认不执行。需要时，使用 -Dyudao.benchmark=true 参数开启
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "yudao.benchmark", matches = "true")
+    public void testBenchmark() {
+        for (int roleCount : new int[]{1, 10, 100, 1000}) {
+            LoginUser loginUser = randomLoginUser(roleCount);
+            byte[] jsonBytes = jsonCodec.encode(loginUser);
+            byte[] binaryBytes = binaryCodec.encode(loginUser);
+            log.info("[testBenchmark][角色数量({}) json 大小({} 字节) 编码({} ns/次) 解码({} ns/次)，binary 大小({} 字节) 编码({} ns/次) 解码({} ns/次)]",
+                    roleCount, jsonBytes.length, benchmarkEncode(jsonCodec, loginUser), benchmarkDecode(jsonCodec, jsonBytes),
+                    binaryBytes.length, benchmarkEncode(binaryCodec, loginUser), benchmarkDecode(binaryCodec, binaryBytes));
+        }
+    }
+
+    private static long benchmarkEncode(LoginUserCodec codec, LoginUser loginUser) {
+        return benchmark(() -> codec.encode(loginUser));
+    }
+
+    private static long benchmarkDecode(LoginUserCodec codec, byte[] bytes) {
+        return benchmark(() -> codec.decode(bytes));
+    }
+
+    /**
+     * 预热后执行多次，返回平均每次的耗时，单位：纳秒
+     */
+    private static long benchmark(Runnable task) {
+        int warmup = 2000, iterations = 5000;
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static LoginUser randomLoginUser(int roleCount) {
+        Set<Long> roleIds = new HashSet<>();
+        for (long i = 1; roleIds.size() < roleCount; i += 1 + i % 3) {
+            roleIds.add(i);
+        }
+        return randomPojo(LoginUser.class, o -> {
+            o.setUserType(randomEle(UserTypeEnum.values()).getValue());
+            o.setUpdateTime(new Date());
+            o.setRoleIds(roleIds);
+            o.setContext(null);
+        });
+    }
+
+}
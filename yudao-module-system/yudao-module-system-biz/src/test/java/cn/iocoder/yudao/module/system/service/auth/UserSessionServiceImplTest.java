@@ -7,15 +7,22 @@ import cn.iocoder.yudao.framework.common.util.date.DateUtils;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
 import cn.iocoder.yudao.framework.security.config.SecurityProperties;
 import cn.iocoder.yudao.framework.security.core.LoginUser;
+import cn.iocoder.yudao.framework.security.core.util.SignedTokenUtils;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbAndRedisUnitTest;
+import cn.iocoder.yudao.module.system.api.logger.dto.LoginLogCreateReqDTO;
 import cn.iocoder.yudao.module.system.controller.admin.auth.vo.session.UserSessionPageReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.auth.UserSessionDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.user.AdminUserDO;
+import cn.iocoder.yudao.module.system.dal.mysql.auth.UserSessionBatchUpdateMapper;
 import cn.iocoder.yudao.module.system.dal.mysql.auth.UserSessionMapper;
 import cn.iocoder.yudao.module.system.dal.redis.auth.LoginUserRedisDAO;
+import cn.iocoder.yudao.module.system.dal.redis.auth.RevokedTokenRedisDAO;
 import cn.iocoder.yudao.module.system.enums.common.SexEnum;
+import cn.iocoder.yudao.module.system.framework.security.core.codec.BinaryLoginUserCodec;
+import cn.iocoder.yudao.module.system.framework.security.core.codec.JsonLoginUserCodec;
 import cn.iocoder.yudao.module.system.enums.logger.LoginLogTypeEnum;
 import cn.iocoder.yudao.module.system.enums.logger.LoginResultEnum;
+import cn.iocoder.yudao.module.system.mq.producer.auth.LoginUserProducer;
 import cn.iocoder.yudao.module.system.service.logger.LoginLogService;
 import cn.iocoder.yudao.module.system.service.user.AdminUserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +33,7 @@ import org.springframework.context.annotation.Import;
 import javax.annotation.Resource;
 import java.time.Duration;
 import java.util.Calendar;
+import java.util.Date;
 
 import static cn.hutool.core.util.RandomUtil.randomEle;
 import static cn.iocoder.yudao.framework.common.util.date.DateUtils.addTime;
@@ -43,7 +51,8 @@ import static org.mockito.Mockito.when;
  *
  * @author Lyon
  */
-@Import({UserSessionServiceImpl.class, LoginUserRedisDAO.class})
+@Import({UserSessionServiceImpl.class, LoginUserRedisDAO.class, RevokedTokenRedisDAO.class,
+        UserSessionBatchUpdateMapper.class, JsonLoginUserCodec.class, BinaryLoginUserCodec.class})
 public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
 
     @Resource
@@ -58,6 +67,8 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
     private LoginLogService loginLogService;
     @Resource
     private LoginUserRedisDAO loginUserRedisDAO;
+    @MockBean
+    private LoginUserProducer loginUserProducer;
 
     @MockBean
     private SecurityProperties securityProperties;
@@ -65,6 +76,7 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
     @BeforeEach
     public void setUp() {
         when(securityProperties.getSessionTimeout()).thenReturn(Duration.ofDays(1L));
+        when(securityProperties.getLoginUserCodec()).thenReturn(BinaryLoginUserCodec.NAME);
     }
 
     @Test
@@ -148,7 +160,9 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
         // 校验
         assertEquals(1, count);
         assertNull(userSessionMapper.selectById(userSession.getId())); // 已删除
-        verify(loginLogService).createLoginLog(argThat(loginLog -> {
+        verify(loginLogService).createLoginLogs(argThat(loginLogs -> {
+            assertEquals(1, loginLogs.size());
+            LoginLogCreateReqDTO loginLog = loginLogs.get(0);
             assertPojoEquals(userSession, loginLog);
             assertEquals(LoginLogTypeEnum.LOGOUT_TIMEOUT.getType(), loginLog.getLogType());
             assertEquals(LoginResultEnum.SUCCESS.getResult(), loginLog.getResult());
@@ -199,6 +213,13 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
         // 校验 LoginUser 缓存
         LoginUser redisLoginUser = loginUserRedisDAO.get(token);
         assertPojoEquals(redisLoginUser, loginUser, "username", "password");
+        verify(loginUserProducer).sendLoginUserRefreshMessage(eq(token));
+        // 校验 UserSessionDO 记录，在写入 DB 之前未变化
+        assertEquals(userSession.getUsername(), userSessionMapper.selectOne(UserSessionDO::getToken, token).getUsername());
+        // 调用，多次刷新后，批量写入 DB
+        loginUser.setUsername(randomString());
+        userSessionService.refreshUserSession(token, loginUser);
+        userSessionService.flushRefreshedSessions();
         // 校验 UserSessionDO 记录
         UserSessionDO updateDO = userSessionMapper.selectOne(UserSessionDO::getToken, token);
         assertEquals(updateDO.getUsername(), loginUser.getUsername());
@@ -225,6 +246,7 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
         // 校验数据不存在了
         assertNull(loginUserRedisDAO.get(token));
         assertNull(userSessionMapper.selectOne(UserSessionDO::getToken, token));
+        verify(loginUserProducer).sendLoginUserRefreshMessage(eq(token));
     }
 
     @Test
@@ -247,4 +269,129 @@ public class UserSessionServiceImplTest extends BaseDbAndRedisUnitTest {
         assertNull(userSessionMapper.selectById(id));
     }
 
+    @Test
+    public void testGetLoginUser_localCache() {
+        // 准备参数
+        String token = randomString();
+        // mock redis 数据
+        LoginUser loginUser = randomPojo(LoginUser.class, o -> {
+            o.setUserType(randomEle(UserTypeEnum.values()).getValue());
+            o.setUpdateTime(new Date());
+        });
+        loginUserRedisDAO.set(token, loginUser);
+
+        // 调用，首次从 Redis 读取
+        LoginUser result = userSessionService.getLoginUser(token);
+        assertPojoEquals(loginUser, result, "username", "password", "context");
+        assertNotNull(userSessionService.loginUserCache.getIfPresent(token));
+        // 调用，删除 Redis 后，依然命中本地缓存
+        loginUserRedisDAO.delete(token);
+        LoginUser result2 = userSessionService.getLoginUser(token);
+        assertPojoEquals(result, result2, "context");
+        assertNotSame(result, result2); // 每次返回新对象，避免 context 被共享
+        // 调用，失效本地缓存后，读取不到
+        userSessionService.invalidateLocalCache(token);
+        assertNull(userSessionService.getLoginUser(token));
+    }
+
+    @Test
+    public void testSignedToken_success() {
+        // mock 方法
+        when(securityProperties.getSignedTokenEnable()).thenReturn(true);
+        when(securityProperties.getSignedTokenSecret()).thenReturn(randomString());
+        when(securityProperties.getTokenTimeout()).thenReturn(Duration.ofDays(1L));
+        // 准备参数
+        LoginUser loginUser = randomPojo(LoginUser.class, o -> {
+            o.setUserType(randomEle(UserTypeEnum.values()).getValue());
+            o.setTenantId(0L); // 租户设置为 0，因为暂未启用多租户组件
+        });
+
+        // 调用，创建 Session
+        String token = userSessionService.createUserSession(loginUser, randomString(), randomString());
+        // 校验 Token，不写入 Redis，DB 记录 Session 编号
+        assertTrue(SignedTokenUtils.isSignedToken(token));
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        assertNull(loginUserRedisDAO.get(sessionId));
+        assertNotNull(userSessionMapper.selectOne(UserSessionDO::getToken, sessionId));
+        // 调用，获取 LoginUser
+        LoginUser result = userSessionService.getLoginUser(token);
+        assertPojoEquals(loginUser, result, "password", "context");
+        // 调用，篡改后的 Token 校验不通过
+        assertNull(userSessionService.getLoginUser(token.substring(0, token.length() - 2) + "aa"));
+
+        // 调用，删除 Session
+        userSessionService.deleteUserSession(token);
+        // 校验吊销后，获取不到
+        assertNull(userSessionService.getLoginUser(token));
+        assertNull(userSessionMapper.selectOne(UserSessionDO::getToken, sessionId));
+    }
+
+    @Test
+    public void testSignedToken_refresh() {
+        // mock 方法
+        String token = mockSignedToken();
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        LoginUser loginUser = userSessionService.getLoginUser(token);
+
+        // 调用，刷新 LoginUser
+        loginUser.setUsername(randomString());
+        userSessionService.refreshUserSession(token, loginUser);
+        // 校验，按照 Session 编号写入 Redis，并通知各节点失效本地缓存
+        assertEquals(loginUser.getUsername(), loginUserRedisDAO.get(sessionId).getUsername());
+        verify(loginUserProducer).sendLoginUserRefreshMessage(eq(sessionId));
+        // 调用，模拟其它节点（本地缓存不存在），读取到刷新后的 LoginUser
+        userSessionService.invalidateLocalCache(sessionId);
+        assertEquals(loginUser.getUsername(), userSessionService.getLoginUser(token).getUsername());
+        assertNotNull(userSessionService.loginUserCache.getIfPresent(sessionId));
+    }
+
+    @Test
+    public void testSignedToken_deleteById() {
+        // mock 方法
+        String token = mockSignedToken();
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        LoginUser loginUser = userSessionService.getLoginUser(token);
+        userSessionService.refreshUserSession(token, loginUser);
+        userSessionService.getLoginUser(token);
+        assertNotNull(userSessionService.loginUserCache.getIfPresent(sessionId));
+
+        // 调用，按照编号删除 Session
+        UserSessionDO session = userSessionMapper.selectOne(UserSessionDO::getToken, sessionId);
+        userSessionService.deleteUserSession(session.getId());
+        // 校验，本地缓存、Redis 都被清理，并且 Token 被吊销
+        assertNull(userSessionService.loginUserCache.getIfPresent(sessionId));
+        assertNull(loginUserRedisDAO.get(sessionId));
+        assertNull(userSessionService.getLoginUser(token));
+    }
+
+    @Test
+    public void testSignedToken_malformed() {
+        // mock 方法
+        String token = mockSignedToken();
+        String sessionId = SignedTokenUtils.getSessionId(token);
+        // 准备参数，过期时间被篡改为非数字
+        String malformedToken = sessionId + ".abc" + token.substring(token.indexOf('.', sessionId.length() + 1));
+
+        // 调用，校验不通过
+        assertNull(SignedTokenUtils.getExpireTime(malformedToken));
+        assertNull(userSessionService.getLoginUser(malformedToken));
+        // 调用，刷新、删除 Session 不抛出异常
+        userSessionService.refreshUserSession(malformedToken, randomPojo(LoginUser.class));
+        assertNull(loginUserRedisDAO.get(sessionId));
+        userSessionService.deleteUserSession(malformedToken);
+        // 校验，未吊销 Session 编号，原 Token 不受影响
+        assertNotNull(userSessionService.getLoginUser(token));
+    }
+
+    private String mockSignedToken() {
+        when(securityProperties.getSignedTokenEnable()).thenReturn(true);
+        when(securityProperties.getSignedTokenSecret()).thenReturn(randomString());
+        when(securityProperties.getTokenTimeout()).thenReturn(Duration.ofDays(1L));
+        LoginUser loginUser = randomPojo(LoginUser.class, o -> {
+            o.setUserType(randomEle(UserTypeEnum.values()).getValue());
+            o.setTenantId(0L); // 租户设置为 0，因为暂未启用多租户组件
+        });
+        return userSessionService.createUserSession(loginUser, randomString(), randomString());
+    }
+
 }
@@ -17,12 +17,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.Resource;
-import java.util.Date;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static cn.hutool.core.bean.BeanUtil.getFieldValue;
+import static cn.hutool.core.bean.BeanUtil.setFieldValue;
+import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertSet;
+import static cn.iocoder.yudao.framework.common.util.collection.SetUtils.asSet;
 import static cn.hutool.core.util.RandomUtil.randomEle;
 import static cn.iocoder.yudao.module.system.enums.ErrorCodeConstants.*;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
@@ -261,6 +263,41 @@ public class DeptServiceTest extends BaseDbUnitTest {
         assertServiceException(() -> deptService.updateDept(reqVO), DEPT_PARENT_IS_CHILD);
     }
 
+    @Test
+    void testGetChildDeptIdsFromCache() {
+        // mock 数据：dept1 -> dept2 -> dept3；dept1 -> dept4；dept5
+        DeptDO dept1 = randomDeptDO(o -> o.setParentId(DeptIdEnum.ROOT.getId()));
+        deptMapper.insert(dept1);
+        DeptDO dept2 = randomDeptDO(o -> o.setParentId(dept1.getId()));
+        deptMapper.insert(dept2);
+        DeptDO dept3 = randomDeptDO(o -> o.setParentId(dept2.getId()));
+        deptMapper.insert(dept3);
+        DeptDO dept4 = randomDeptDO(o -> o.setParentId(dept1.getId()));
+        deptMapper.insert(dept4);
+        DeptDO dept5 = randomDeptDO(o -> o.setParentId(DeptIdEnum.ROOT.getId()));
+        deptMapper.insert(dept5);
+        // 初始化本地缓存
+        setFieldValue(deptService, "maxUpdateTime", null);
+        deptService.initLocalCache();
+
+        // 调用，并断言子部门编号
+        assertEquals(asSet(dept2.getId(), dept3.getId(), dept4.getId()),
+                toSet(deptService.getChildDeptIdsFromCache(dept1.getId())));
+        assertEquals(asSet(dept3.getId()), toSet(deptService.getChildDeptIdsFromCache(dept2.getId())));
+        assertEquals(0, deptService.getChildDeptIdsFromCache(dept3.getId()).length);
+        assertEquals(asSet(dept1.getId(), dept2.getId(), dept3.getId(), dept4.getId(), dept5.getId()),
+                toSet(deptService.getChildDeptIdsFromCache(DeptIdEnum.ROOT.getId())));
+        // 调用，并断言子部门
+        assertEquals(asSet(dept2.getId(), dept3.getId(), dept4.getId()),
+                convertSet(deptService.getDeptsByParentIdFromCache(dept1.getId(), true), DeptDO::getId));
+        assertEquals(asSet(dept2.getId(), dept4.getId()),
+                convertSet(deptService.getDeptsByParentIdFromCache(dept1.getId(), false), DeptDO::getId));
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toSet());
+    }
+
     @SafeVarargs
     private static DeptDO randomDeptDO(Consumer<DeptDO>... consumers) {
         Consumer<DeptDO> consumer = (o) -> {
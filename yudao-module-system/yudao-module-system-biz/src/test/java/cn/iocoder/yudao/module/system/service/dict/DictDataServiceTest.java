@@ -9,26 +9,26 @@ import cn.iocoder.yudao.module.system.controller.admin.dict.vo.data.DictDataPage
 import cn.iocoder.yudao.module.system.controller.admin.dict.vo.data.DictDataUpdateReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.dict.DictTypeDO;
 import cn.iocoder.yudao.module.system.dal.mysql.dict.DictDataMapper;
-import cn.iocoder.yudao.module.system.mq.producer.dict.DictDataProducer;
 import cn.iocoder.yudao.framework.common.util.collection.ArrayUtils;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.localcache.core.LocalCache;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
-import com.google.common.collect.ImmutableTable;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.Resource;
-import java.util.Date;
 import java.util.List;
 import java.util.function.Consumer;
 
-import static cn.hutool.core.bean.BeanUtil.getFieldValue;
 import static cn.iocoder.yudao.module.system.enums.ErrorCodeConstants.*;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertServiceException;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -43,13 +43,21 @@ public class DictDataServiceTest extends BaseDbUnitTest {
     @MockBean
     private DictTypeService dictTypeService;
     @MockBean
-    private DictDataProducer dictDataProducer;
+    private LocalCacheManager localCacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        // mock 注册缓存时，立即加载
+        doAnswer(invocation -> {
+            ((LocalCache<?>) invocation.getArgument(0)).reload();
+            return null;
+        }).when(localCacheManager).register(any());
+    }
 
     /**
      * 测试加载到新的字典数据的情况
      */
     @Test
-    @SuppressWarnings("unchecked")
     public void testInitLocalCache() {
         // mock 数据
         DictDataDO dictData01 = randomDictDataDO();
@@ -59,21 +67,14 @@ public class DictDataServiceTest extends BaseDbUnitTest {
 
         // 调用
         dictDataService.initLocalCache();
-        // 断言 labelDictDataCache 缓存
-        ImmutableTable<String, String, DictDataDO> labelDictDataCache =
-                (ImmutableTable<String, String, DictDataDO>) getFieldValue(dictDataService, "labelDictDataCache");
-        assertEquals(2, labelDictDataCache.size());
-        assertPojoEquals(dictData01, labelDictDataCache.get(dictData01.getDictType(), dictData01.getLabel()));
-        assertPojoEquals(dictData02, labelDictDataCache.get(dictData02.getDictType(), dictData02.getLabel()));
-        // 断言 valueDictDataCache 缓存
-        ImmutableTable<String, String, DictDataDO> valueDictDataCache =
-                (ImmutableTable<String, String, DictDataDO>) getFieldValue(dictDataService, "valueDictDataCache");
-        assertEquals(2, valueDictDataCache.size());
-        assertPojoEquals(dictData01, valueDictDataCache.get(dictData01.getDictType(), dictData01.getValue()));
-        assertPojoEquals(dictData02, valueDictDataCache.get(dictData02.getDictType(), dictData02.getValue()));
-        // 断言 maxUpdateTime 缓存
-        Date maxUpdateTime = (Date) getFieldValue(dictDataService, "maxUpdateTime");
-        assertEquals(ObjectUtils.max(dictData01.getUpdateTime(), dictData02.getUpdateTime()), maxUpdateTime);
+        // 断言 label 缓存
+        assertPojoEquals(dictData01, dictDataService.parseDictDataFromCache(dictData01.getDictType(), dictData01.getLabel()));
+        assertPojoEquals(dictData02, dictDataService.parseDictDataFromCache(dictData02.getDictType(), dictData02.getLabel()));
+        // 断言 value 缓存
+        assertPojoEquals(dictData01, dictDataService.getDictDataFromCache(dictData01.getDictType(), dictData01.getValue()));
+        assertPojoEquals(dictData02, dictDataService.getDictDataFromCache(dictData02.getDictType(), dictData02.getValue()));
+        // 断言 不存在的缓存
+        assertNull(dictDataService.getDictDataFromCache(dictData01.getDictType(), randomString()));
     }
 
     @Test
@@ -149,7 +150,7 @@ public class DictDataServiceTest extends BaseDbUnitTest {
         DictDataDO dictData = dictDataMapper.selectById(dictDataId);
         assertPojoEquals(reqVO, dictData);
         // 校验调用
-        verify(dictDataProducer, times(1)).sendDictDataRefreshMessage();
+        verify(localCacheManager, times(1)).invalidate(eq("dict_data"));
     }
 
     @Test
@@ -171,7 +172,7 @@ public class DictDataServiceTest extends BaseDbUnitTest {
         DictDataDO dictData = dictDataMapper.selectById(reqVO.getId()); // 获取最新的
         assertPojoEquals(reqVO, dictData);
         // 校验调用
-        verify(dictDataProducer, times(1)).sendDictDataRefreshMessage();
+        verify(localCacheManager, times(1)).invalidate(eq("dict_data"));
     }
 
     @Test
@@ -187,7 +188,7 @@ public class DictDataServiceTest extends BaseDbUnitTest {
         // 校验数据不存在了
         assertNull(dictDataMapper.selectById(id));
         // 校验调用
-        verify(dictDataProducer, times(1)).sendDictDataRefreshMessage();
+        verify(localCacheManager, times(1)).invalidate(eq("dict_data"));
     }
 
     @Test
@@ -7,9 +7,11 @@ import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.monitor.TracerUtils;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.loginlog.LoginLogExportReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.logger.vo.loginlog.LoginLogPageReqVO;
+import cn.iocoder.yudao.module.system.dal.mysql.logger.LoginLogBatchInsertMapper;
 import cn.iocoder.yudao.module.system.dal.mysql.logger.LoginLogMapper;
 import cn.iocoder.yudao.framework.test.core.util.RandomUtils;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.module.system.enums.logger.LoginLogTypeEnum;
 import cn.iocoder.yudao.module.system.enums.logger.LoginResultEnum;
 import cn.iocoder.yudao.module.system.api.logger.dto.LoginLogCreateReqDTO;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.Resource;
+import java.util.Arrays;
 import java.util.List;
 
 import static cn.hutool.core.util.RandomUtil.randomEle;
@@ -25,7 +28,7 @@ import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEq
 import static cn.iocoder.yudao.framework.common.util.date.DateUtils.buildTime;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-@Import(LoginLogServiceImpl.class)
+@Import({LoginLogServiceImpl.class, LoginLogBatchInsertMapper.class})
 public class LoginLogServiceImplTest extends BaseDbUnitTest {
 
     @Resource
@@ -34,6 +37,9 @@ public class LoginLogServiceImplTest extends BaseDbUnitTest {
     @Resource
     private LoginLogMapper loginLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
     @Test
     public void testGetLoginLogPage() {
         // 构造测试数据
@@ -135,9 +141,53 @@ public class LoginLogServiceImplTest extends BaseDbUnitTest {
 
         // 调用
         loginLogService.createLoginLog(reqDTO);
+        batchInsertSinkManager.flush();
         // 断言，忽略基本字段
         LoginLogDO sysLoginLogDO = loginLogMapper.selectOne(null);
         assertPojoEquals(reqDTO, sysLoginLogDO);
     }
 
+    @Test
+    public void testCreateLoginLog_partialFailure() {
+        // 准备参数，中间一条的 username 超长，写入失败
+        LoginLogCreateReqDTO reqDTO01 = randomLoginLogCreateReqDTO();
+        LoginLogCreateReqDTO reqDTO02 = randomLoginLogCreateReqDTO();
+        reqDTO02.setUsername(RandomUtil.randomString(51));
+        LoginLogCreateReqDTO reqDTO03 = randomLoginLogCreateReqDTO();
+
+        // 调用
+        loginLogService.createLoginLog(reqDTO01);
+        loginLogService.createLoginLog(reqDTO02);
+        loginLogService.createLoginLog(reqDTO03);
+        batchInsertSinkManager.flush();
+        // 断言，只丢弃失败的一条
+        List<LoginLogDO> loginLogs = loginLogMapper.selectList();
+        assertEquals(2, loginLogs.size());
+        assertPojoEquals(reqDTO01, loginLogs.get(0));
+        assertPojoEquals(reqDTO03, loginLogs.get(1));
+    }
+
+    @Test
+    public void testCreateLoginLogs() {
+        List<LoginLogCreateReqDTO> reqDTOs = Arrays.asList(randomLoginLogCreateReqDTO(), randomLoginLogCreateReqDTO());
+
+        // 调用
+        loginLogService.createLoginLogs(reqDTOs);
+        // 断言，忽略基本字段
+        List<LoginLogDO> loginLogs = loginLogMapper.selectList();
+        assertEquals(2, loginLogs.size());
+        assertPojoEquals(reqDTOs.get(0), loginLogs.get(0));
+        assertPojoEquals(reqDTOs.get(1), loginLogs.get(1));
+    }
+
+    private static LoginLogCreateReqDTO randomLoginLogCreateReqDTO() {
+        return RandomUtils.randomPojo(LoginLogCreateReqDTO.class, vo -> {
+            // 指定随机的范围,避免超出范围入库失败
+            vo.setUserType(randomEle(UserTypeEnum.values()).getValue());
+            vo.setLogType(randomEle(LoginLogTypeEnum.values()).getType());
+            vo.setResult(randomEle(LoginResultEnum.values()).getResult());
+            vo.setTraceId(TracerUtils.getTraceId());
+        });
+    }
+
 }
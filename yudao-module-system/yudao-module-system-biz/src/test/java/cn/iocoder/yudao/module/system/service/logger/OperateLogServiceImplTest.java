@@ -7,6 +7,7 @@ import cn.iocoder.yudao.framework.common.exception.enums.GlobalErrorCodeConstant
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.monitor.TracerUtils;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
+import cn.iocoder.yudao.framework.mybatis.core.batch.BatchInsertSinkManager;
 import cn.iocoder.yudao.framework.operatelog.core.dto.OperateLogCreateReqDTO;
 import cn.iocoder.yudao.framework.operatelog.core.enums.OperateTypeEnum;
 import cn.iocoder.yudao.framework.test.core.util.RandomUtils;
@@ -34,6 +35,7 @@ import static cn.iocoder.yudao.framework.common.util.date.DateUtils.buildTime;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomLongId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 @Import({OperateLogServiceImpl.class})
@@ -45,6 +47,9 @@ public class OperateLogServiceImplTest extends BaseDbUnitTest {
     @Resource
     private OperateLogMapper operateLogMapper;
 
+    @Resource
+    private BatchInsertSinkManager batchInsertSinkManager;
+
     @MockBean
     private AdminUserService userService;
 
@@ -60,7 +65,8 @@ public class OperateLogServiceImplTest extends BaseDbUnitTest {
 
         // 执行service方法
         Future<Boolean> future = operateLogServiceImpl.createOperateLogAsync(reqVO);
-        future.get();
+        assertTrue(future.get());
+        batchInsertSinkManager.flush();
         // 断言插入是否正确
         OperateLogDO sysOperateLogDO = operateLogMapper.selectOne("trace_id", traceId);
         assertPojoEquals(reqVO, sysOperateLogDO);
@@ -84,6 +90,7 @@ public class OperateLogServiceImplTest extends BaseDbUnitTest {
             o.setModule("order");
             o.setType(OperateTypeEnum.CREATE.getType());
             o.setStartTime(buildTime(2021, 3, 6));
+            o.setCreateTime(buildTime(2021, 3, 6));
             o.setResultCode(GlobalErrorCodeConstants.SUCCESS.getCode());
             o.setExts(MapUtil.<String, Object>builder("orderId", randomLongId()).build());
         });
@@ -136,6 +143,7 @@ public class OperateLogServiceImplTest extends BaseDbUnitTest {
             o.setModule("order");
             o.setType(OperateTypeEnum.CREATE.getType());
             o.setStartTime(buildTime(2021, 3, 6));
+            o.setCreateTime(buildTime(2021, 3, 6));
             o.setResultCode(GlobalErrorCodeConstants.SUCCESS.getCode());
             o.setExts(MapUtil.<String, Object>builder("orderId", randomLongId()).build());
         });
@@ -3,6 +3,7 @@ package cn.iocoder.yudao.module.system.service.permission;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.lang.Assert;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
 import cn.iocoder.yudao.framework.common.util.object.ObjectUtils;
 import cn.iocoder.yudao.framework.common.util.spring.SpringAopUtils;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.menu.MenuCreateReqVO;
@@ -15,6 +16,7 @@ import cn.iocoder.yudao.module.system.mq.producer.permission.MenuProducer;
 import cn.iocoder.yudao.module.system.service.tenant.TenantService;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import com.google.common.collect.Multimap;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -49,6 +51,15 @@ public class MenuServiceTest extends BaseDbUnitTest {
     @MockBean
     private TenantService tenantService;
 
+    @BeforeEach
+    public void setUp() throws Exception {
+        // 重置缓存，避免不同单测之间相互影响
+        MenuServiceImpl target = (MenuServiceImpl) SpringAopUtils.getTarget(menuService);
+        BeanUtil.setFieldValue(target, "menuCache", null);
+        BeanUtil.setFieldValue(target, "permissionMenuCache", null);
+        BeanUtil.setFieldValue(target, "maxUpdateTime", null);
+    }
+
     @Test
     public void testInitLocalCache_success() throws Exception {
         MenuDO menuDO1 = createMenuDO(MenuTypeEnum.MENU, "xxxx", 0L);
@@ -78,6 +89,64 @@ public class MenuServiceTest extends BaseDbUnitTest {
         assertEquals(ObjectUtils.max(menuDO1.getUpdateTime(), menuDO2.getUpdateTime()), maxUpdateTime);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInitLocalCache_delta() throws Exception {
+        // mock 数据，并初始化缓存
+        Date pastTime = DateUtils.addDate(Calendar.MINUTE, -1);
+        MenuDO menuDO1 = createMenuDO(MenuTypeEnum.MENU, "xxxx", 0L);
+        menuDO1.setUpdateTime(pastTime);
+        menuMapper.insert(menuDO1);
+        MenuDO menuDO2 = createMenuDO(MenuTypeEnum.MENU, "yyyy", 0L);
+        menuDO2.setUpdateTime(pastTime);
+        menuMapper.insert(menuDO2);
+        menuService.initLocalCache();
+        // mock 数据，删除 menuDO1，新增 menuDO3
+        menuMapper.deleteByIdWithUpdateTime(menuDO1.getId());
+        MenuDO menuDO3 = createMenuDO(MenuTypeEnum.MENU, "zzzz", 0L);
+        menuDO3.setUpdateTime(new Date());
+        menuMapper.insert(menuDO3);
+
+        // 调用
+        menuService.initLocalCache();
+        // 断言
+        MenuServiceImpl target = (MenuServiceImpl) SpringAopUtils.getTarget(menuService);
+        Map<Long, MenuDO> menuCache =
+                (Map<Long, MenuDO>) BeanUtil.getFieldValue(target, "menuCache");
+        assertEquals(asSet(menuDO2.getId(), menuDO3.getId()), menuCache.keySet());
+        Multimap<String, MenuDO> permissionMenuCache =
+                (Multimap<String, MenuDO>) BeanUtil.getFieldValue(target, "permissionMenuCache");
+        assertTrue(permissionMenuCache.get(menuDO1.getPermission()).isEmpty());
+        assertPojoEquals(menuDO3, permissionMenuCache.get(menuDO3.getPermission()).iterator().next());
+        assertEquals(menuDO3.getUpdateTime(), BeanUtil.getFieldValue(target, "maxUpdateTime"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInitLocalCache_lateCommit() throws Exception {
+        // mock 数据，并初始化缓存
+        MenuDO menuDO1 = createMenuDO(MenuTypeEnum.MENU, "xxxx", 0L);
+        menuDO1.setUpdateTime(new Date());
+        menuMapper.insert(menuDO1);
+        menuService.initLocalCache();
+        MenuServiceImpl target = (MenuServiceImpl) SpringAopUtils.getTarget(menuService);
+        Map<Long, MenuDO> oldMenuCache = (Map<Long, MenuDO>) BeanUtil.getFieldValue(target, "menuCache");
+        // 调用，只查询到重叠的菜单，不重建缓存
+        menuService.initLocalCache();
+        assertSame(oldMenuCache, BeanUtil.getFieldValue(target, "menuCache"));
+
+        // mock 数据，更新时间较早、但是较晚提交的菜单
+        MenuDO menuDO2 = createMenuDO(MenuTypeEnum.MENU, "yyyy", 0L);
+        menuDO2.setUpdateTime(DateUtils.addDate(Calendar.SECOND, -30));
+        menuMapper.insert(menuDO2);
+        // 调用
+        menuService.initLocalCache();
+        // 断言
+        Map<Long, MenuDO> menuCache = (Map<Long, MenuDO>) BeanUtil.getFieldValue(target, "menuCache");
+        assertEquals(asSet(menuDO1.getId(), menuDO2.getId()), menuCache.keySet());
+        assertEquals(menuDO1.getUpdateTime(), BeanUtil.getFieldValue(target, "maxUpdateTime"));
+    }
+
     @Test
     public void testCreateMenu_success() {
         //构造父目录
@@ -1,7 +1,11 @@
 package cn.iocoder.yudao.module.system.service.permission;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
+import cn.iocoder.yudao.framework.common.util.spring.SpringAopUtils;
 import cn.iocoder.yudao.module.system.dal.dataobject.dept.DeptDO;
+import cn.iocoder.yudao.module.system.dal.dataobject.permission.MenuDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.RoleMenuDO;
 import cn.iocoder.yudao.module.system.dal.dataobject.permission.UserRoleDO;
@@ -15,16 +19,23 @@ import cn.iocoder.yudao.framework.datapermission.core.dept.service.dto.DeptDataP
 import cn.iocoder.yudao.framework.security.core.LoginUser;
 import cn.iocoder.yudao.module.system.enums.permission.DataScopeEnum;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
+import com.google.common.collect.ImmutableMultimap;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import javax.annotation.Resource;
-import java.util.List;
+import java.util.*;
 
+import static cn.iocoder.yudao.framework.common.util.collection.SetUtils.asSet;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomLongId;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomPojo;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
@@ -57,6 +68,15 @@ public class PermissionServiceTest extends BaseDbUnitTest {
     @MockBean
     private PermissionProducer permissionProducer;
 
+    @BeforeEach
+    public void setUp() throws Exception {
+        // 重置缓存，避免不同单测之间相互影响
+        PermissionServiceImpl target = (PermissionServiceImpl) SpringAopUtils.getTarget(permissionService);
+        BeanUtil.setFieldValue(target, "roleMenuCache", Collections.emptyMap());
+        BeanUtil.setFieldValue(target, "menuRoleCache", Collections.emptyMap());
+        BeanUtil.setFieldValue(target, "maxUpdateTime", null);
+    }
+
     @Test
     public void testProcessRoleDeleted() {
         // 准备参数
@@ -124,6 +144,100 @@ public class PermissionServiceTest extends BaseDbUnitTest {
         assertPojoEquals(dbUserRoles.get(0), userRoleDO02);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInitLocalCache_delta() throws Exception {
+        // mock 数据，并初始化缓存
+        Date pastTime = DateUtils.addDate(Calendar.MINUTE, -1);
+        roleMenuMapper.insert(buildRoleMenu(1L, 10L, pastTime));
+        roleMenuMapper.insert(buildRoleMenu(1L, 11L, pastTime));
+        roleMenuMapper.insert(buildRoleMenu(2L, 20L, pastTime));
+        permissionService.initLocalCache();
+        // mock 数据，取消角色 1 的菜单 11、角色 2 的菜单 20，新增角色 3 的菜单 10
+        roleMenuMapper.deleteListByRoleIdAndMenuIds(1L, singleton(11L));
+        roleMenuMapper.deleteListByRoleId(2L);
+        roleMenuMapper.insert(buildRoleMenu(3L, 10L, new Date()));
+
+        // 调用
+        permissionService.initLocalCache();
+        // 断言
+        PermissionServiceImpl target = (PermissionServiceImpl) SpringAopUtils.getTarget(permissionService);
+        Map<Long, Set<Long>> roleMenuCache = (Map<Long, Set<Long>>) BeanUtil.getFieldValue(target, "roleMenuCache");
+        assertEquals(2, roleMenuCache.size());
+        assertEquals(singleton(10L), roleMenuCache.get(1L));
+        assertEquals(singleton(10L), roleMenuCache.get(3L));
+        Map<Long, Set<Long>> menuRoleCache = (Map<Long, Set<Long>>) BeanUtil.getFieldValue(target, "menuRoleCache");
+        assertEquals(1, menuRoleCache.size());
+        assertEquals(asSet(1L, 3L), menuRoleCache.get(10L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInitLocalCache_lateCommit() throws Exception {
+        // mock 数据，并初始化缓存
+        roleMenuMapper.insert(buildRoleMenu(1L, 10L, new Date()));
+        permissionService.initLocalCache();
+        PermissionServiceImpl target = (PermissionServiceImpl) SpringAopUtils.getTarget(permissionService);
+        Map<Long, Set<Long>> oldRoleMenuCache = (Map<Long, Set<Long>>) BeanUtil.getFieldValue(target, "roleMenuCache");
+        // 调用，只查询到重叠的关联，不替换缓存
+        permissionService.initLocalCache();
+        assertSame(oldRoleMenuCache, BeanUtil.getFieldValue(target, "roleMenuCache"));
+
+        // mock 数据，更新时间较早、但是较晚提交的关联
+        roleMenuMapper.insert(buildRoleMenu(1L, 11L, DateUtils.addDate(Calendar.SECOND, -30)));
+        // 调用
+        permissionService.initLocalCache();
+        // 断言
+        Map<Long, Set<Long>> roleMenuCache = (Map<Long, Set<Long>>) BeanUtil.getFieldValue(target, "roleMenuCache");
+        assertEquals(asSet(10L, 11L), roleMenuCache.get(1L));
+    }
+
+    @Test
+    public void testHasAnyPermissions() {
+        // mock 数据 RoleMenu
+        roleMenuMapper.insert(buildRoleMenu(1L, 10L));
+        roleMenuMapper.insert(buildRoleMenu(2L, 20L));
+        permissionService.initLocalCache();
+        // mock 方法（菜单）
+        MenuDO menu10 = randomPojo(MenuDO.class, o -> o.setId(10L));
+        MenuDO menu20 = randomPojo(MenuDO.class, o -> o.setId(20L));
+        when(menuService.getPermissionMenuMultimapFromCache()).thenReturn(ImmutableMultimap.of(
+                "system:user:query", menu10, "system:user:delete", menu20));
+        // mock 登录用户
+        LoginUser loginUser = randomPojo(LoginUser.class, o -> o.setRoleIds(singleton(1L)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(loginUser, null, emptyList()));
+        try {
+            // 调用，并断言
+            assertTrue(permissionService.hasAnyPermissions());
+            assertTrue(permissionService.hasAnyPermissions("system:user:query"));
+            assertTrue(permissionService.hasAnyPermissions("system:user:delete", "system:user:query"));
+            assertFalse(permissionService.hasAnyPermissions("system:user:delete"));
+            assertFalse(permissionService.hasAnyPermissions("system:user:unknown"));
+
+            // mock 方法（菜单刷新）
+            when(menuService.getPermissionMenuMultimapFromCache()).thenReturn(ImmutableMultimap.of(
+                    "system:user:delete", menu10));
+            // 调用，并断言索引重建
+            assertFalse(permissionService.hasAnyPermissions("system:user:query"));
+            assertTrue(permissionService.hasAnyPermissions("system:user:delete"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static RoleMenuDO buildRoleMenu(Long roleId, Long menuId) {
+        return buildRoleMenu(roleId, menuId, null);
+    }
+
+    private static RoleMenuDO buildRoleMenu(Long roleId, Long menuId, Date updateTime) {
+        RoleMenuDO roleMenuDO = new RoleMenuDO();
+        roleMenuDO.setRoleId(roleId);
+        roleMenuDO.setMenuId(menuId);
+        roleMenuDO.setUpdateTime(updateTime);
+        return roleMenuDO;
+    }
+
     @Test // 测试从 context 获取的场景
     public void testGetDeptDataPermission_fromContext() {
         // 准备参数
@@ -201,8 +315,8 @@ public class PermissionServiceTest extends BaseDbUnitTest {
         when(roleService.getRolesFromCache(same(loginUser.getRoleIds()))).thenReturn(singletonList(roleDO));
         // mock 方法（部门）
         DeptDO deptDO = randomPojo(DeptDO.class);
-        when(deptService.getDeptsByParentIdFromCache(eq(loginUser.getDeptId()), eq(true)))
-                .thenReturn(singletonList(deptDO));
+        when(deptService.getChildDeptIdsFromCache(eq(loginUser.getDeptId())))
+                .thenReturn(new long[]{deptDO.getId()});
 
         // 调用
         DeptDataPermissionRespDTO result = permissionService.getDeptDataPermission(loginUser);
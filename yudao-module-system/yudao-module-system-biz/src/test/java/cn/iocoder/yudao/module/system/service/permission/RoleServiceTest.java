@@ -1,8 +1,12 @@
 package cn.iocoder.yudao.module.system.service.permission;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.RandomUtil;
+import cn.iocoder.yudao.framework.common.util.collection.ArrayUtils;
+import cn.iocoder.yudao.framework.common.util.spring.SpringAopUtils;
 import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
+import cn.iocoder.yudao.framework.common.util.date.DateUtils;
 import cn.iocoder.yudao.module.system.enums.permission.DataScopeEnum;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.role.RoleCreateReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.permission.vo.role.RolePageReqVO;
@@ -12,14 +16,17 @@ import cn.iocoder.yudao.module.system.dal.mysql.permission.RoleMapper;
 import cn.iocoder.yudao.module.system.enums.permission.RoleTypeEnum;
 import cn.iocoder.yudao.module.system.mq.producer.permission.RoleProducer;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static cn.iocoder.yudao.framework.common.util.collection.SetUtils.asSet;
 import static cn.iocoder.yudao.framework.common.util.object.ObjectUtils.max;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertServiceException;
@@ -43,6 +50,14 @@ public class RoleServiceTest extends BaseDbUnitTest {
     @MockBean
     private RoleProducer roleProducer;
 
+    @BeforeEach
+    public void setUp() throws Exception {
+        // 重置缓存，避免不同单测之间相互影响
+        RoleServiceImpl target = (RoleServiceImpl) SpringAopUtils.getTarget(roleService);
+        BeanUtil.setFieldValue(target, "roleCache", Collections.emptyMap());
+        BeanUtil.setFieldValue(target, "maxUpdateTime", null);
+    }
+
     @Test
     public void testInitLocalCache() {
         RoleDO roleDO1 = randomRole();
@@ -60,6 +75,69 @@ public class RoleServiceTest extends BaseDbUnitTest {
         assertEquals(max(roleDO1.getUpdateTime(), roleDO2.getUpdateTime()), roleService.getMaxUpdateTime());
     }
 
+    @Test
+    public void testInitLocalCache_lateCommit() {
+        // mock 数据，并初始化缓存
+        RoleDO roleDO1 = randomRole(o -> o.setUpdateTime(new Date()));
+        roleMapper.insert(roleDO1);
+        roleService.initLocalCache();
+        // mock 数据，更新时间较早、但是较晚提交的角色
+        RoleDO roleDO2 = randomRole(o -> o.setUpdateTime(DateUtils.addDate(Calendar.SECOND, -30)));
+        roleMapper.insert(roleDO2);
+
+        // 调用
+        roleService.initLocalCache();
+        // 断言
+        assertEquals(asSet(roleDO1.getId(), roleDO2.getId()), roleService.getRoleCache().keySet());
+        assertEquals(roleDO1.getUpdateTime(), roleService.getMaxUpdateTime());
+    }
+
+    @Test
+    public void testSchedulePeriodicRefresh_full() {
+        // mock 数据，并初始化缓存
+        RoleDO roleDO1 = randomRole(o -> o.setUpdateTime(new Date()));
+        roleMapper.insert(roleDO1);
+        roleService.initLocalCache();
+        // mock 数据，更新时间超过重叠时长的角色，增量刷新无法发现
+        RoleDO roleDO2 = randomRole(o -> o.setUpdateTime(DateUtils.addDate(Calendar.HOUR, -2)));
+        roleMapper.insert(roleDO2);
+        roleService.initLocalCache();
+        assertFalse(roleService.getRoleCache().containsKey(roleDO2.getId()));
+
+        // 调用，直到触发全量刷新
+        for (int i = 0; i < 12; i++) {
+            roleService.schedulePeriodicRefresh();
+        }
+        // 断言
+        assertEquals(asSet(roleDO1.getId(), roleDO2.getId()), roleService.getRoleCache().keySet());
+    }
+
+    @Test
+    public void testInitLocalCache_delta() {
+        // mock 数据，并初始化缓存
+        Date pastTime = DateUtils.addDate(Calendar.MINUTE, -1);
+        RoleDO roleDO1 = randomRole(o -> o.setUpdateTime(pastTime));
+        roleMapper.insert(roleDO1);
+        RoleDO roleDO2 = randomRole(o -> o.setUpdateTime(pastTime));
+        roleMapper.insert(roleDO2);
+        roleService.initLocalCache();
+        // mock 数据，删除 roleDO1，新增 roleDO3
+        roleMapper.deleteByIdWithUpdateTime(roleDO1.getId());
+        RoleDO roleDO3 = randomRole(o -> o.setUpdateTime(new Date()));
+        roleMapper.insert(roleDO3);
+
+        // 调用
+        roleService.initLocalCache();
+        // 断言 roleCache 缓存
+        Map<Long, RoleDO> roleCache = roleService.getRoleCache();
+        assertEquals(2, roleCache.size());
+        assertNull(roleCache.get(roleDO1.getId()));
+        assertPojoEquals(roleDO2, roleCache.get(roleDO2.getId()));
+        assertPojoEquals(roleDO3, roleCache.get(roleDO3.getId()));
+        // 断言 maxUpdateTime 缓存
+        assertEquals(roleDO3.getUpdateTime(), roleService.getMaxUpdateTime());
+    }
+
     @Test
     public void testCreateRole_success() {
         // 准备参数
@@ -291,8 +369,13 @@ public class RoleServiceTest extends BaseDbUnitTest {
     }
 
     private RoleDO randomRole() {
-        return randomPojo(RoleDO.class,
-                o -> o.setDataScope(RandomUtil.randomEle(DataScopeEnum.values()).getScope()));
+        return randomRole(o -> {});
+    }
+
+    @SafeVarargs
+    private final RoleDO randomRole(Consumer<RoleDO>... consumers) {
+        Consumer<RoleDO> consumer = o -> o.setDataScope(RandomUtil.randomEle(DataScopeEnum.values()).getScope());
+        return randomPojo(RoleDO.class, ArrayUtils.append(consumer, consumers));
     }
 
 }
@@ -4,6 +4,8 @@ import cn.iocoder.yudao.framework.common.enums.CommonStatusEnum;
 import cn.iocoder.yudao.framework.common.pojo.PageResult;
 import cn.iocoder.yudao.framework.common.util.collection.SetUtils;
 import cn.iocoder.yudao.framework.common.util.date.DateUtils;
+import cn.iocoder.yudao.framework.localcache.core.LocalCache;
+import cn.iocoder.yudao.framework.localcache.core.LocalCacheManager;
 import cn.iocoder.yudao.framework.test.core.ut.BaseDbUnitTest;
 import cn.iocoder.yudao.module.system.controller.admin.sensitiveword.vo.SensitiveWordCreateReqVO;
 import cn.iocoder.yudao.module.system.controller.admin.sensitiveword.vo.SensitiveWordExportReqVO;
@@ -11,7 +13,7 @@ import cn.iocoder.yudao.module.system.controller.admin.sensitiveword.vo.Sensitiv
 import cn.iocoder.yudao.module.system.controller.admin.sensitiveword.vo.SensitiveWordUpdateReqVO;
 import cn.iocoder.yudao.module.system.dal.dataobject.sensitiveword.SensitiveWordDO;
 import cn.iocoder.yudao.module.system.dal.mysql.sensitiveword.SensitiveWordMapper;
-import cn.iocoder.yudao.module.system.mq.producer.sensitiveword.SensitiveWordProducer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -21,7 +23,6 @@ import java.util.Arrays;
 import java.util.List;
 
 import static cn.iocoder.yudao.framework.common.util.object.ObjectUtils.cloneIgnoreId;
-import static cn.iocoder.yudao.framework.common.util.object.ObjectUtils.max;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertPojoEquals;
 import static cn.iocoder.yudao.framework.test.core.util.AssertUtils.assertServiceException;
 import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomLongId;
@@ -29,6 +30,9 @@ import static cn.iocoder.yudao.framework.test.core.util.RandomUtils.randomPojo;
 import static cn.iocoder.yudao.module.system.enums.ErrorCodeConstants.SENSITIVE_WORD_NOT_EXISTS;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -46,7 +50,16 @@ public class SensitiveWordServiceImplTest extends BaseDbUnitTest {
     private SensitiveWordMapper sensitiveWordMapper;
 
     @MockBean
-    private SensitiveWordProducer sensitiveWordProducer;
+    private LocalCacheManager localCacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        // mock 注册缓存时，立即加载
+        doAnswer(invocation -> {
+            ((LocalCache<?>) invocation.getArgument(0)).reload();
+            return null;
+        }).when(localCacheManager).register(any());
+    }
 
     @Test
     public void testInitLocalCache() {
@@ -59,15 +72,13 @@ public class SensitiveWordServiceImplTest extends BaseDbUnitTest {
 
         // 调用
         sensitiveWordService.initLocalCache();
-        // 断言 maxUpdateTime 缓存
-        assertEquals(max(wordDO1.getUpdateTime(), wordDO2.getUpdateTime()), sensitiveWordService.getMaxUpdateTime());
-        // 断言 sensitiveWordTagsCache 缓存
+        // 断言 tags 缓存
         assertEquals(SetUtils.asSet("论坛", "蔬菜"), sensitiveWordService.getSensitiveWordTags());
+        // 断言 defaultSensitiveWordTrie 缓存
+        assertEquals(Arrays.asList("傻瓜", "笨蛋"), sensitiveWordService.validateText("你是傻瓜，你是笨蛋", null));
         // 断言 tagSensitiveWordTries 缓存
-        assertNotNull(sensitiveWordService.getDefaultSensitiveWordTrie());
-        assertEquals(2, sensitiveWordService.getTagSensitiveWordTries().size());
-        assertNotNull(sensitiveWordService.getTagSensitiveWordTries().get("论坛"));
-        assertNotNull(sensitiveWordService.getTagSensitiveWordTries().get("蔬菜"));
+        assertEquals(singletonList("傻瓜"), sensitiveWordService.validateText("你是傻瓜，你是笨蛋", singletonList("论坛")));
+        assertEquals(singletonList("笨蛋"), sensitiveWordService.validateText("你是傻瓜，你是笨蛋", singletonList("蔬菜")));
     }
 
     @Test
@@ -82,7 +93,7 @@ public class SensitiveWordServiceImplTest extends BaseDbUnitTest {
         // 校验记录的属性是否正确
         SensitiveWordDO sensitiveWord = sensitiveWordMapper.selectById(sensitiveWordId);
         assertPojoEquals(reqVO, sensitiveWord);
-        verify(sensitiveWordProducer).sendSensitiveWordRefreshMessage();
+        verify(localCacheManager).invalidate(eq("sensitive_word"));
     }
 
     @Test
@@ -100,7 +111,7 @@ public class SensitiveWordServiceImplTest extends BaseDbUnitTest {
         // 校验是否更新正确
         SensitiveWordDO sensitiveWord = sensitiveWordMapper.selectById(reqVO.getId()); // 获取最新的
         assertPojoEquals(reqVO, sensitiveWord);
-        verify(sensitiveWordProducer).sendSensitiveWordRefreshMessage();
+        verify(localCacheManager).invalidate(eq("sensitive_word"));
     }
 
     @Test
@@ -124,7 +135,7 @@ public class SensitiveWordServiceImplTest extends BaseDbUnitTest {
         sensitiveWordService.deleteSensitiveWord(id);
         // 校验数据不存在了
         assertNull(sensitiveWordMapper.selectById(id));
-        verify(sensitiveWordProducer).sendSensitiveWordRefreshMessage();
+        verify(localCacheManager).invalidate(eq("sensitive_word"));
     }
 
     @Test
@@ -298,8 +298,7 @@ public class AdminUserServiceImplTest extends BaseDbUnitTest {
         reqVO.setEndTime(buildTime(2020, 12, 24));
         reqVO.setDeptId(1L); // 其中，1L 是 2L 的父部门
         // mock 方法
-        List<DeptDO> deptList = newArrayList(randomPojo(DeptDO.class, o -> o.setId(2L)));
-        when(deptService.getDeptsByParentIdFromCache(eq(reqVO.getDeptId()), eq(true))).thenReturn(deptList);
+        when(deptService.getChildDeptIdsFromCache(eq(reqVO.getDeptId()))).thenReturn(new long[]{2L});
 
         // 调用
         PageResult<AdminUserDO> pageResult = userService.getUserPage(reqVO);
@@ -322,8 +321,7 @@ public class AdminUserServiceImplTest extends BaseDbUnitTest {
         reqVO.setEndTime(buildTime(2020, 12, 24));
         reqVO.setDeptId(1L); // 其中，1L 是 2L 的父部门
         // mock 方法
-        List<DeptDO> deptList = newArrayList(randomPojo(DeptDO.class, o -> o.setId(2L)));
-        when(deptService.getDeptsByParentIdFromCache(eq(reqVO.getDeptId()), eq(true))).thenReturn(deptList);
+        when(deptService.getChildDeptIdsFromCache(eq(reqVO.getDeptId()))).thenReturn(new long[]{2L});
 
         // 调用
         List<AdminUserDO> list = userService.getUsers(reqVO);